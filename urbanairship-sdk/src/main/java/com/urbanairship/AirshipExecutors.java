@@ -0,0 +1,169 @@
+/* Copyright 2016 Urban Airship and Contributors */
+
+package com.urbanairship;
+
+import android.os.Process;
+import android.support.annotation.NonNull;
+
+import java.util.ArrayDeque;
+import java.util.concurrent.Executor;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Shared, bounded thread pools for all SDK background work.
+ * <p/>
+ * Work is split into lanes so latency sensitive tasks are never queued behind slow network
+ * requests. Components that need ordering get a serial queue on top of a lane with
+ * {@link #newSerialExecutor(int)} instead of a thread of their own.
+ *
+ * @hide
+ */
+public class AirshipExecutors {
+
+    /**
+     * Lane for work the user is waiting on, such as running actions and loading images.
+     */
+    public static final int LANE_UI = 0;
+
+    /**
+     * Lane for disk and database work.
+     */
+    public static final int LANE_IO = 1;
+
+    /**
+     * Lane for network requests.
+     */
+    public static final int LANE_NETWORK = 2;
+
+    /**
+     * Lane for deferrable background work.
+     */
+    public static final int LANE_BACKGROUND = 3;
+
+    private static final int CPU_COUNT = Runtime.getRuntime().availableProcessors();
+
+    /**
+     * How long idle threads are kept alive in seconds.
+     */
+    private static final int KEEP_ALIVE_SECONDS = 30;
+
+    private static final Executor UI_EXECUTOR = createPool("UI", Math.max(2, Math.min(CPU_COUNT, 4)), Process.THREAD_PRIORITY_DEFAULT);
+    private static final Executor IO_EXECUTOR = createPool("IO", 2, Process.THREAD_PRIORITY_BACKGROUND);
+    private static final Executor NETWORK_EXECUTOR = createPool("Network", 3, Process.THREAD_PRIORITY_BACKGROUND);
+    private static final Executor BACKGROUND_EXECUTOR = createPool("Background", 1, Process.THREAD_PRIORITY_LOWEST);
+
+    /**
+     * Gets the shared executor for a lane. Tasks may run concurrently up to the lane's thread limit.
+     *
+     * @param lane The lane.
+     * @return The lane's executor.
+     */
+    @NonNull
+    public static Executor getExecutor(int lane) {
+        switch (lane) {
+            case LANE_UI:
+                return UI_EXECUTOR;
+            case LANE_IO:
+                return IO_EXECUTOR;
+            case LANE_NETWORK:
+                return NETWORK_EXECUTOR;
+            case LANE_BACKGROUND:
+                return BACKGROUND_EXECUTOR;
+            default:
+                throw new IllegalArgumentException("Invalid lane: " + lane);
+        }
+    }
+
+    /**
+     * Creates a serial executor that runs its tasks one at a time, in order, on a lane.
+     *
+     * @param lane The lane.
+     * @return A new serial executor.
+     */
+    @NonNull
+    public static Executor newSerialExecutor(int lane) {
+        return new SerialExecutor(getExecutor(lane));
+    }
+
+    /**
+     * Creates a bounded thread pool. Threads time out when idle so an idle SDK holds no threads.
+     *
+     * @param name The lane name.
+     * @param threadCount The max number of threads.
+     * @param threadPriority The thread priority.
+     * @return The thread pool.
+     */
+    private static Executor createPool(@NonNull String name, int threadCount, int threadPriority) {
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(threadCount, threadCount, KEEP_ALIVE_SECONDS, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<Runnable>(), new LaneThreadFactory(name, threadPriority));
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+
+    /**
+     * Thread factory that names threads after their lane and sets their priority.
+     */
+    private static class LaneThreadFactory implements ThreadFactory {
+        private final String name;
+        private final int threadPriority;
+        private final AtomicInteger count = new AtomicInteger(1);
+
+        LaneThreadFactory(String name, int threadPriority) {
+            this.name = name;
+            this.threadPriority = threadPriority;
+        }
+
+        @Override
+        public Thread newThread(@NonNull final Runnable runnable) {
+            return new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    Process.setThreadPriority(threadPriority);
+                    runnable.run();
+                }
+            }, "UrbanAirship " + name + " #" + count.getAndIncrement());
+        }
+    }
+
+    /**
+     * Executor that runs tasks one at a time on a backing executor.
+     */
+    private static class SerialExecutor implements Executor {
+        private final Executor executor;
+        private final ArrayDeque<Runnable> tasks = new ArrayDeque<>();
+        private Runnable active;
+
+        SerialExecutor(Executor executor) {
+            this.executor = executor;
+        }
+
+        @Override
+        public synchronized void execute(@NonNull final Runnable runnable) {
+            tasks.offer(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        runnable.run();
+                    } finally {
+                        scheduleNext();
+                    }
+                }
+            });
+
+            if (active == null) {
+                scheduleNext();
+            }
+        }
+
+        private synchronized void scheduleNext() {
+            active = tasks.poll();
+            if (active != null) {
+                executor.execute(active);
+            }
+        }
+    }
+}
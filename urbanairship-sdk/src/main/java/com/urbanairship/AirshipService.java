@@ -3,6 +3,7 @@
 package com.urbanairship;
 
 import android.app.Service;
+import android.content.Context;
 import android.content.Intent;
 import android.os.Bundle;
 import android.os.Handler;
@@ -10,6 +11,8 @@ import android.os.HandlerThread;
 import android.os.IBinder;
 import android.os.Looper;
 import android.os.Message;
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
 import android.support.annotation.WorkerThread;
 import android.support.v4.content.WakefulBroadcastReceiver;
 
@@ -19,7 +22,6 @@ import com.urbanairship.util.UAStringUtil;
 
 import java.util.HashMap;
 import java.util.concurrent.Executor;
-import java.util.concurrent.Executors;
 import java.util.concurrent.TimeUnit;
 
 
@@ -57,7 +59,7 @@ public class AirshipService extends Service {
     private int lastStartId = 0;
     private int runningJobs;
 
-    private static HashMap<String, Executor> executors = new HashMap<>();
+    private static final HashMap<String, Executor> executors = new HashMap<>();
 
     private final class IncomingHandler extends Handler {
         IncomingHandler(Looper looper) {
@@ -151,16 +153,64 @@ public class AirshipService extends Service {
                            .setExtras(extras)
                            .build();
 
-        Executor executor = executors.get(component.getClass().getName());
-        if (executor == null) {
-            executor = Executors.newSingleThreadExecutor();
-            executors.put(componentName, executor);
+        runningJobs++;
+        performJob(getApplicationContext(), airship, component, job, delay, null, new Runnable() {
+            @Override
+            public void run() {
+                handler.sendMessage(msg);
+            }
+        });
+    }
+
+    /**
+     * Performs a job in the current process without starting the service. The job runs on the
+     * same serial executor the service uses for the job's component.
+     *
+     * @param context The application context.
+     * @param job The job.
+     * @param onStart Optional runnable called on the executor right before the job is performed.
+     * @return {@code true} if the job was started, {@code false} if UAirship is not flying in the
+     * main process or the job's component is unavailable.
+     */
+    public static boolean performJobInProcess(@NonNull Context context, @NonNull Job job, @Nullable Runnable onStart) {
+        if (!UAirship.isFlying() || !UAirship.isMainProcess()) {
+            return false;
         }
 
-        runningJobs++;
+        UAirship airship = UAirship.shared();
+        AirshipComponent component = findAirshipComponent(airship, job.getAirshipComponentName());
+        if (component == null) {
+            return false;
+        }
+
+        performJob(context.getApplicationContext(), airship, component, job, 0, onStart, null);
+        return true;
+    }
+
+    /**
+     * Performs a job on the component's executor. Jobs that need to be retried are dispatched
+     * again with an exponential back off.
+     *
+     * @param context The application context.
+     * @param airship The UAirship instance.
+     * @param component The job's component.
+     * @param job The job.
+     * @param delay The job's previous delay in milliseconds.
+     * @param onStart Optional runnable called before the job is performed.
+     * @param onFinish Optional runnable called after the job is performed.
+     */
+    private static void performJob(@NonNull final Context context, @NonNull final UAirship airship,
+                                   @NonNull final AirshipComponent component, @NonNull final Job job, final long delay,
+                                   @Nullable final Runnable onStart, @Nullable final Runnable onFinish) {
+
+        Executor executor = getComponentExecutor(component.getClass().getName());
         executor.execute(new Runnable() {
             @Override
             public void run() {
+                if (onStart != null) {
+                    onStart.run();
+                }
+
                 int result = component.onPerformJob(airship, job);
                 if (result == Job.JOB_RETRY) {
 
@@ -171,10 +221,12 @@ public class AirshipService extends Service {
                         backOff = Math.min(delay * 2, DEFAULT_MAX_BACK_OFF_TIME_MS);
                     }
 
-                    JobDispatcher.shared(getApplicationContext())
+                    JobDispatcher.shared(context)
                                  .dispatch(job, backOff, TimeUnit.MILLISECONDS);
+                }
 
-                    handler.sendMessage(msg);
+                if (onFinish != null) {
+                    onFinish.run();
                 }
             }
         });
@@ -203,6 +255,23 @@ public class AirshipService extends Service {
         }
     }
 
+    /**
+     * Gets the serial executor for a component's jobs.
+     *
+     * @param componentClassName The component's class name.
+     * @return The component's executor.
+     */
+    private static Executor getComponentExecutor(String componentClassName) {
+        synchronized (executors) {
+            Executor executor = executors.get(componentClassName);
+            if (executor == null) {
+                executor = AirshipExecutors.newSerialExecutor(AirshipExecutors.LANE_NETWORK);
+                executors.put(componentClassName, executor);
+            }
+            return executor;
+        }
+    }
+
     /**
      * Finds the {@link AirshipComponent}s for a given job.
      *
@@ -210,7 +279,7 @@ public class AirshipService extends Service {
      * @param componentClassName The component's class name.
      * @return The airship component.
      */
-    AirshipComponent findAirshipComponent(UAirship airship, String componentClassName) {
+    static AirshipComponent findAirshipComponent(UAirship airship, String componentClassName) {
         if (UAStringUtil.isEmpty(componentClassName)) {
             return null;
         }
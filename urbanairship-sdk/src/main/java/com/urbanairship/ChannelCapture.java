@@ -26,7 +26,6 @@ import java.util.HashMap;
 import java.util.Map;
 import java.util.UUID;
 import java.util.concurrent.Executor;
-import java.util.concurrent.Executors;
 import java.util.concurrent.TimeUnit;
 
 
@@ -68,7 +67,7 @@ public class ChannelCapture extends AirshipComponent {
     private final ActivityMonitor activityMonitor;
     private final PreferenceDataStore preferenceDataStore;
 
-    Executor executor = Executors.newSingleThreadExecutor();
+    Executor executor = AirshipExecutors.newSerialExecutor(AirshipExecutors.LANE_BACKGROUND);
 
     /**
      * Default constructor.
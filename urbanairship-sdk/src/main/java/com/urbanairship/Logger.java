@@ -6,6 +6,8 @@ import android.util.Log;
 
 import com.urbanairship.util.UAStringUtil;
 
+import java.util.Arrays;
+
 /**
  * Shared logging wrapper for all Urban Airship log entries.
  * This class serves to consolidate the tag and log level in a
@@ -28,11 +30,49 @@ public class Logger {
      */
     public static String TAG = "UALib";
 
+    /**
+     * Receives log messages instead of {@link android.util.Log}.
+     */
+    public interface LogHandler {
+
+        /**
+         * Called with a log message. Only called for messages at or above {@link #logLevel}.
+         *
+         * @param priority The log priority, as defined by <code>android.util.Log</code>.
+         * @param tag The log tag.
+         * @param message The message.
+         * @param throwable An optional exception.
+         */
+        void log(int priority, String tag, String message, Throwable throwable);
+    }
+
+    private static volatile LogHandler logHandler;
+
     /**
      * Private, unused constructor
      */
     private Logger() { }
 
+    /**
+     * Sets a handler to receive all log messages instead of <code>android.util.Log</code>.
+     *
+     * @param handler The log handler, or <code>null</code> to log to <code>android.util.Log</code>.
+     */
+    public static void setLogHandler(LogHandler handler) {
+        logHandler = handler;
+    }
+
+    /**
+     * Checks if messages at the given priority will be logged. Use it to guard work that is only
+     * needed to build a log message.
+     *
+     * @param priority The log priority, as defined by <code>android.util.Log</code>.
+     * @return <code>true</code> if the priority will be logged, <code>false</code> otherwise.
+     */
+    public static boolean isLoggable(int priority) {
+        return logLevel <= priority;
+    }
+
     /**
      * Send a warning log message.
      *
@@ -40,7 +80,7 @@ public class Logger {
      */
     public static void warn(String s) {
         if (logLevel <= Log.WARN && s != null) {
-            Log.w(TAG, s);
+            log(Log.WARN, s, null);
         }
     }
 
@@ -52,7 +92,7 @@ public class Logger {
      */
     public static void warn(String s, Throwable t) {
         if (logLevel <= Log.WARN && s != null && t != null) {
-            Log.w(TAG, s, t);
+            log(Log.WARN, s, t);
         }
     }
 
@@ -63,7 +103,7 @@ public class Logger {
      */
     public static void warn(Throwable t) {
         if (logLevel <= Log.WARN && t != null) {
-            Log.w(TAG, t);
+            log(Log.WARN, "", t);
         }
     }
 
@@ -74,7 +114,7 @@ public class Logger {
      */
     public static void verbose(String s) {
         if (logLevel <= Log.VERBOSE && s != null) {
-            Log.v(TAG, s);
+            log(Log.VERBOSE, s, null);
         }
     }
 
@@ -85,7 +125,7 @@ public class Logger {
      */
     public static void debug(String s) {
         if (logLevel <= Log.DEBUG && s != null) {
-            Log.d(TAG, s);
+            log(Log.DEBUG, s, null);
         }
     }
 
@@ -97,7 +137,7 @@ public class Logger {
      */
     public static void debug(String s, Throwable t) {
         if (logLevel <= Log.DEBUG && s != null && t != null) {
-            Log.d(TAG, s, t);
+            log(Log.DEBUG, s, t);
         }
     }
 
@@ -108,7 +148,7 @@ public class Logger {
      */
     public static void info(String s) {
         if (logLevel <= Log.INFO && s != null) {
-            Log.i(TAG, s);
+            log(Log.INFO, s, null);
         }
     }
 
@@ -120,7 +160,7 @@ public class Logger {
      */
     public static void info(String s, Throwable t) {
         if (logLevel <= Log.INFO && s != null && t != null) {
-            Log.i(TAG, s, t);
+            log(Log.INFO, s, t);
         }
     }
 
@@ -131,7 +171,7 @@ public class Logger {
      */
     public static void error(String s) {
         if (logLevel <= Log.ERROR && s != null) {
-            Log.e(TAG, s);
+            log(Log.ERROR, s, null);
         }
     }
 
@@ -142,7 +182,7 @@ public class Logger {
      */
     public static void error(Throwable t) {
         if (logLevel <= Log.ERROR && t != null) {
-            Log.e(TAG, "", t);
+            log(Log.ERROR, "", t);
         }
     }
 
@@ -154,8 +194,283 @@ public class Logger {
      */
     public static void error(String s, Throwable t) {
         if (logLevel <= Log.ERROR && s != null && t != null) {
-            Log.e(TAG, s, t);
+            log(Log.ERROR, s, t);
+        }
+    }
+
+    /**
+     * Send a verbose log message. The message is only formatted if it will be logged.
+     *
+     * @param format The message format. Each <code>{}</code> is replaced with the next argument.
+     * @param arg The argument.
+     */
+    public static void verbose(String format, Object arg) {
+        if (logLevel <= Log.VERBOSE && format != null) {
+            log(Log.VERBOSE, format(format, arg), null);
+        }
+    }
+
+    /**
+     * Send a verbose log message. The message is only formatted if it will be logged.
+     *
+     * @param format The message format. Each <code>{}</code> is replaced with the next argument.
+     * @param arg1 The first argument.
+     * @param arg2 The second argument.
+     */
+    public static void verbose(String format, Object arg1, Object arg2) {
+        if (logLevel <= Log.VERBOSE && format != null) {
+            log(Log.VERBOSE, format(format, arg1, arg2), null);
+        }
+    }
+
+    /**
+     * Send a verbose log message. The message is only formatted if it will be logged.
+     *
+     * @param format The message format. Each <code>{}</code> is replaced with the next argument.
+     * @param args The arguments.
+     */
+    public static void verbose(String format, Object... args) {
+        if (logLevel <= Log.VERBOSE && format != null) {
+            log(Log.VERBOSE, format(format, args), null);
+        }
+    }
+
+    /**
+     * Send a debug log message. The message is only formatted if it will be logged.
+     *
+     * @param format The message format. Each <code>{}</code> is replaced with the next argument.
+     * @param arg The argument.
+     */
+    public static void debug(String format, Object arg) {
+        if (logLevel <= Log.DEBUG && format != null) {
+            log(Log.DEBUG, format(format, arg), null);
+        }
+    }
+
+    /**
+     * Send a debug log message. The message is only formatted if it will be logged.
+     *
+     * @param format The message format. Each <code>{}</code> is replaced with the next argument.
+     * @param arg1 The first argument.
+     * @param arg2 The second argument.
+     */
+    public static void debug(String format, Object arg1, Object arg2) {
+        if (logLevel <= Log.DEBUG && format != null) {
+            log(Log.DEBUG, format(format, arg1, arg2), null);
+        }
+    }
+
+    /**
+     * Send a debug log message. The message is only formatted if it will be logged.
+     *
+     * @param format The message format. Each <code>{}</code> is replaced with the next argument.
+     * @param args The arguments.
+     */
+    public static void debug(String format, Object... args) {
+        if (logLevel <= Log.DEBUG && format != null) {
+            log(Log.DEBUG, format(format, args), null);
+        }
+    }
+
+    /**
+     * Send an info log message. The message is only formatted if it will be logged.
+     *
+     * @param format The message format. Each <code>{}</code> is replaced with the next argument.
+     * @param arg The argument.
+     */
+    public static void info(String format, Object arg) {
+        if (logLevel <= Log.INFO && format != null) {
+            log(Log.INFO, format(format, arg), null);
+        }
+    }
+
+    /**
+     * Send an info log message. The message is only formatted if it will be logged.
+     *
+     * @param format The message format. Each <code>{}</code> is replaced with the next argument.
+     * @param arg1 The first argument.
+     * @param arg2 The second argument.
+     */
+    public static void info(String format, Object arg1, Object arg2) {
+        if (logLevel <= Log.INFO && format != null) {
+            log(Log.INFO, format(format, arg1, arg2), null);
+        }
+    }
+
+    /**
+     * Send an info log message. The message is only formatted if it will be logged.
+     *
+     * @param format The message format. Each <code>{}</code> is replaced with the next argument.
+     * @param args The arguments.
+     */
+    public static void info(String format, Object... args) {
+        if (logLevel <= Log.INFO && format != null) {
+            log(Log.INFO, format(format, args), null);
+        }
+    }
+
+    /**
+     * Send a warning log message. The message is only formatted if it will be logged.
+     *
+     * @param format The message format. Each <code>{}</code> is replaced with the next argument.
+     * @param arg The argument.
+     */
+    public static void warn(String format, Object arg) {
+        if (logLevel <= Log.WARN && format != null) {
+            log(Log.WARN, format(format, arg), null);
+        }
+    }
+
+    /**
+     * Send a warning log message. The message is only formatted if it will be logged.
+     *
+     * @param format The message format. Each <code>{}</code> is replaced with the next argument.
+     * @param arg1 The first argument.
+     * @param arg2 The second argument.
+     */
+    public static void warn(String format, Object arg1, Object arg2) {
+        if (logLevel <= Log.WARN && format != null) {
+            log(Log.WARN, format(format, arg1, arg2), null);
+        }
+    }
+
+    /**
+     * Send a warning log message. The message is only formatted if it will be logged.
+     *
+     * @param format The message format. Each <code>{}</code> is replaced with the next argument.
+     * @param args The arguments.
+     */
+    public static void warn(String format, Object... args) {
+        if (logLevel <= Log.WARN && format != null) {
+            log(Log.WARN, format(format, args), null);
+        }
+    }
+
+    /**
+     * Send an error log message. The message is only formatted if it will be logged.
+     *
+     * @param format The message format. Each <code>{}</code> is replaced with the next argument.
+     * @param arg The argument.
+     */
+    public static void error(String format, Object arg) {
+        if (logLevel <= Log.ERROR && format != null) {
+            log(Log.ERROR, format(format, arg), null);
+        }
+    }
+
+    /**
+     * Send an error log message. The message is only formatted if it will be logged.
+     *
+     * @param format The message format. Each <code>{}</code> is replaced with the next argument.
+     * @param arg1 The first argument.
+     * @param arg2 The second argument.
+     */
+    public static void error(String format, Object arg1, Object arg2) {
+        if (logLevel <= Log.ERROR && format != null) {
+            log(Log.ERROR, format(format, arg1, arg2), null);
+        }
+    }
+
+    /**
+     * Send an error log message. The message is only formatted if it will be logged.
+     *
+     * @param format The message format. Each <code>{}</code> is replaced with the next argument.
+     * @param args The arguments.
+     */
+    public static void error(String format, Object... args) {
+        if (logLevel <= Log.ERROR && format != null) {
+            log(Log.ERROR, format(format, args), null);
+        }
+    }
+
+    /**
+     * Writes a message to the log handler, or <code>android.util.Log</code> if a handler is not set.
+     *
+     * @param priority The log priority.
+     * @param message The message.
+     * @param throwable An optional exception.
+     */
+    private static void log(int priority, String message, Throwable throwable) {
+        LogHandler handler = logHandler;
+        if (handler != null) {
+            handler.log(priority, TAG, message, throwable);
+            return;
+        }
+
+        switch (priority) {
+            case Log.VERBOSE:
+                if (throwable == null) {
+                    Log.v(TAG, message);
+                } else {
+                    Log.v(TAG, message, throwable);
+                }
+                break;
+            case Log.DEBUG:
+                if (throwable == null) {
+                    Log.d(TAG, message);
+                } else {
+                    Log.d(TAG, message, throwable);
+                }
+                break;
+            case Log.INFO:
+                if (throwable == null) {
+                    Log.i(TAG, message);
+                } else {
+                    Log.i(TAG, message, throwable);
+                }
+                break;
+            case Log.WARN:
+                if (throwable == null) {
+                    Log.w(TAG, message);
+                } else {
+                    Log.w(TAG, message, throwable);
+                }
+                break;
+            default:
+                if (throwable == null) {
+                    Log.e(TAG, message);
+                } else {
+                    Log.e(TAG, message, throwable);
+                }
+                break;
+        }
+    }
+
+    /**
+     * Replaces each <code>{}</code> in the format with the next argument. Arrays are formatted
+     * with their contents. Extra arguments are ignored.
+     *
+     * @param format The message format.
+     * @param args The arguments.
+     * @return The formatted message.
+     */
+    static String format(String format, Object... args) {
+        if (args == null || args.length == 0) {
+            return format;
+        }
+
+        StringBuilder builder = new StringBuilder(format.length() + 16 * args.length);
+        int start = 0;
+        int argIndex = 0;
+
+        while (argIndex < args.length) {
+            int index = format.indexOf("{}", start);
+            if (index == -1) {
+                break;
+            }
+
+            builder.append(format, start, index);
+            Object arg = args[argIndex++];
+            if (arg instanceof Object[]) {
+                builder.append(Arrays.deepToString((Object[]) arg));
+            } else {
+                builder.append(arg);
+            }
+            start = index + 2;
         }
+
+        builder.append(format, start, format.length());
+        return builder.toString();
     }
 
     /**
@@ -8,6 +8,7 @@ import android.database.ContentObserver;
 import android.database.Cursor;
 import android.net.Uri;
 import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
 
 import com.urbanairship.json.JsonException;
 import com.urbanairship.json.JsonSerializable;
@@ -16,10 +17,10 @@ import com.urbanairship.util.UAStringUtil;
 
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.Executor;
-import java.util.concurrent.Executors;
 
 /**
  * PreferenceDataStore stores and retrieves all the Urban Airship preferences through the
@@ -29,9 +30,9 @@ import java.util.concurrent.Executors;
  */
 public final class PreferenceDataStore {
 
-    private static final String WHERE_CLAUSE_KEY = PreferencesDataManager.COLUMN_NAME_KEY + " = ?";
+    private static final String WHERE_CLAUSE_VERSION = PreferencesDataManager.COLUMN_NAME_VERSION + " > ?";
 
-    Executor executor = Executors.newSingleThreadExecutor();
+    Executor executor = AirshipExecutors.newSerialExecutor(AirshipExecutors.LANE_IO);
 
     private final Map<String, Preference> preferences = new HashMap<>();
     private final UrbanAirshipResolver resolver;
@@ -39,6 +40,31 @@ public final class PreferenceDataStore {
 
     private final List<PreferenceChangeListener> listeners = new ArrayList<>();
 
+    // Last preference version read from the database, only accessed on the executor after init
+    private long lastVersion = 0;
+
+    /**
+     * Single observer for all preferences. Changes from other processes are pulled with one query
+     * for every preference whose version is newer than the last seen version.
+     */
+    private final ContentObserver observer = new ContentObserver(null) {
+
+        @Override
+        public boolean deliverSelfNotifications() {
+            return false;
+        }
+
+        @Override
+        public void onChange(boolean selfChange) {
+            Logger.verbose("PreferenceDataStore - Preferences updated.");
+            executor.execute(new Runnable() {
+                @Override
+                public void run() {
+                    syncChanges();
+                }
+            });
+        }
+    };
 
     /**
      * Listener for when preferences changes either by the
@@ -53,6 +79,65 @@ public final class PreferenceDataStore {
         void onPreferenceChange(String key);
     }
 
+    /**
+     * Decodes a preference value into a typed object. Decoded values are cached and shared
+     * between callers until the preference changes, so they should be immutable.
+     *
+     * @param <T> The decoded type.
+     */
+    public interface Decoder<T> {
+        /**
+         * Called to decode a preference value.
+         *
+         * @param value The preference value.
+         * @return The decoded value, or {@code null} if the value could not be decoded.
+         */
+        @Nullable
+        T decode(@NonNull String value);
+    }
+
+    private static final Decoder<JsonValue> JSON_DECODER = new Decoder<JsonValue>() {
+        @Override
+        public JsonValue decode(@NonNull String value) {
+            try {
+                return JsonValue.parseString(value);
+            } catch (JsonException e) {
+                // Should never happen
+                Logger.debug("Unable to parse preference value: " + value, e);
+                return null;
+            }
+        }
+    };
+
+    private static final Decoder<Long> LONG_DECODER = new Decoder<Long>() {
+        @Override
+        public Long decode(@NonNull String value) {
+            try {
+                return Long.parseLong(value);
+            } catch (NumberFormatException e) {
+                return null;
+            }
+        }
+    };
+
+    private static final Decoder<Integer> INT_DECODER = new Decoder<Integer>() {
+        @Override
+        public Integer decode(@NonNull String value) {
+            try {
+                return Integer.parseInt(value);
+            } catch (NumberFormatException e) {
+                return null;
+            }
+        }
+    };
+
+    private static final Decoder<Boolean> BOOLEAN_DECODER = new Decoder<Boolean>() {
+        @Override
+        public Boolean decode(@NonNull String value) {
+            return Boolean.valueOf(value);
+        }
+    };
+
     /**
      * Preferences constructor.
      *
@@ -93,21 +178,26 @@ public final class PreferenceDataStore {
      * Initializes the preference data store.
      */
     protected void init() {
-        Cursor cursor = resolver.query(UrbanAirshipProvider.getPreferencesContentUri(context), null, null, null, null);
+        Uri uri = UrbanAirshipProvider.getPreferencesContentUri(context);
+        resolver.registerContentObserver(uri, true, observer);
+
+        Cursor cursor = resolver.query(uri, null, null, null, null);
         if (cursor == null) {
             return;
         }
 
         int keyIndex = cursor.getColumnIndex(PreferencesDataManager.COLUMN_NAME_KEY);
         int valueIndex = cursor.getColumnIndex(PreferencesDataManager.COLUMN_NAME_VALUE);
+        int versionIndex = cursor.getColumnIndex(PreferencesDataManager.COLUMN_NAME_VERSION);
 
         while (cursor.moveToNext()) {
             String key = cursor.getString(keyIndex);
             String value = cursor.getString(valueIndex);
-            Preference preference = new Preference(key, value);
-            preference.registerObserver();
+            preferences.put(key, new Preference(key, value));
 
-            preferences.put(key, preference);
+            if (versionIndex != -1) {
+                lastVersion = Math.max(lastVersion, cursor.getLong(versionIndex));
+            }
         }
 
         cursor.close();
@@ -117,9 +207,7 @@ public final class PreferenceDataStore {
      * Unregisters any observers.
      */
     protected void tearDown() {
-        for (Preference preference : preferences.values()) {
-            preference.unregisterObserver();
-        }
+        resolver.unregisterContentObserver(observer);
     }
 
     /**
@@ -130,8 +218,8 @@ public final class PreferenceDataStore {
      * @return The boolean value for the preference or defaultValue if it doesn't exist.
      */
     public boolean getBoolean(@NonNull String key, boolean defaultValue) {
-        String value = getPreference(key).get();
-        return value == null ? defaultValue : Boolean.valueOf(value);
+        Boolean value = get(key, BOOLEAN_DECODER);
+        return value == null ? defaultValue : value;
     }
 
     /**
@@ -156,16 +244,8 @@ public final class PreferenceDataStore {
      * @return The long value for the preference or defaultValue if it doesn't exist.
      */
     public long getLong(@NonNull String key, long defaultValue) {
-        String value = getPreference(key).get();
-        if (value == null) {
-            return defaultValue;
-        }
-
-        try {
-            return Long.parseLong(value);
-        } catch (NumberFormatException e) {
-            return defaultValue;
-        }
+        Long value = get(key, LONG_DECODER);
+        return value == null ? defaultValue : value;
     }
 
     /**
@@ -177,16 +257,8 @@ public final class PreferenceDataStore {
      * @return The integer value for the preference or defaultValue if it doesn't exist.
      */
     public int getInt(@NonNull String key, int defaultValue) {
-        String value = getPreference(key).get();
-        if (value == null) {
-            return defaultValue;
-        }
-
-        try {
-            return Integer.parseInt(value);
-        } catch (NumberFormatException e) {
-            return defaultValue;
-        }
+        Integer value = get(key, INT_DECODER);
+        return value == null ? defaultValue : value;
     }
 
     /**
@@ -196,13 +268,22 @@ public final class PreferenceDataStore {
      * @return The value for the preference if available or {@link JsonValue#NULL} if it doesn't exist.
      */
     public JsonValue getJsonValue(@NonNull String key) {
-        try {
-            return JsonValue.parseString(getPreference(key).get());
-        } catch (JsonException e) {
-            // Should never happen
-            Logger.debug("Unable to parse preference value: " + key, e);
-            return JsonValue.NULL;
-        }
+        JsonValue value = get(key, JSON_DECODER);
+        return value == null ? JsonValue.NULL : value;
+    }
+
+    /**
+     * Gets the preference value decoded by a {@link Decoder}. The decoded value is cached and
+     * returned until the preference changes in this process or another process.
+     *
+     * @param key The preference name.
+     * @param decoder The decoder. Use a single shared instance per preference to benefit from the cache.
+     * @param <T> The decoded type.
+     * @return The decoded value, or {@code null} if the preference doesn't exist or could not be decoded.
+     */
+    @Nullable
+    public <T> T get(@NonNull String key, @NonNull Decoder<T> decoder) {
+        return getPreference(key).get(decoder);
     }
 
     /**
@@ -305,6 +386,73 @@ public final class PreferenceDataStore {
         return getPreference(key).putSync(stringValue);
     }
 
+    /**
+     * Creates an editor to batch several preference changes. The changes are coalesced
+     * by key and written to the database in a single transaction.
+     *
+     * @return A new editor.
+     */
+    @NonNull
+    public Editor edit() {
+        return new Editor();
+    }
+
+    /**
+     * Writes a batch of preference values to the database in a single transaction.
+     *
+     * @param batch The preferences to their new values. A {@code null} value removes the preference.
+     * @return <code>true</code> if the batch was successfully written to the
+     * database, otherwise <code>false</code>
+     */
+    private boolean writeValues(@NonNull Map<Preference, String> batch) {
+        if (batch.isEmpty()) {
+            return true;
+        }
+
+        ContentValues[] values = new ContentValues[batch.size()];
+        int i = 0;
+        for (Map.Entry<Preference, String> entry : batch.entrySet()) {
+            // Removed preferences are written as a null value, which reads the same as a missing row
+            ContentValues contentValues = new ContentValues();
+            contentValues.put(PreferencesDataManager.COLUMN_NAME_KEY, entry.getKey().key);
+            contentValues.put(PreferencesDataManager.COLUMN_NAME_VALUE, entry.getValue());
+            values[i++] = contentValues;
+        }
+
+        Logger.verbose("PreferenceDataStore - Saving " + values.length + " preferences.");
+
+        if (resolver.bulkInsert(UrbanAirshipProvider.getPreferencesContentUri(context), values) != values.length) {
+            Logger.error("PreferenceDataStore - Failed to save preferences: " + batch.size());
+            return false;
+        }
+
+        resolver.notifyChange(UrbanAirshipProvider.getPreferencesContentUri(context), observer);
+        return true;
+    }
+
+    /**
+     * Pulls every preference that changed since the last seen version in a single query.
+     */
+    private void syncChanges() {
+        Cursor cursor = resolver.query(UrbanAirshipProvider.getPreferencesContentUri(context),
+                new String[] { PreferencesDataManager.COLUMN_NAME_KEY, PreferencesDataManager.COLUMN_NAME_VALUE, PreferencesDataManager.COLUMN_NAME_VERSION },
+                WHERE_CLAUSE_VERSION, new String[] { String.valueOf(lastVersion) }, PreferencesDataManager.COLUMN_NAME_VERSION + " ASC");
+
+        if (cursor == null) {
+            Logger.debug("PreferenceDataStore - Unable to sync preferences from database. Falling back to cached values.");
+            return;
+        }
+
+        try {
+            while (cursor.moveToNext()) {
+                getPreference(cursor.getString(0)).syncValue(cursor.getString(1));
+                lastVersion = Math.max(lastVersion, cursor.getLong(2));
+            }
+        } finally {
+            cursor.close();
+        }
+    }
+
     /**
      * Called when a preference changes in value.
      *
@@ -332,8 +480,6 @@ public final class PreferenceDataStore {
                 preference = preferences.get(key);
             } else {
                 preference = new Preference(key, null);
-                preference.registerObserver();
-
                 preferences.put(key, preference);
             }
         }
@@ -342,34 +488,166 @@ public final class PreferenceDataStore {
     }
 
     /**
-     * A helper class that handles fetching, writing, and syncing with the
-     * preference provider.
+     * Batches preference changes. Multiple changes to the same key are coalesced, and the
+     * batch is saved with either {@link #apply()} or {@link #commit()}. Listeners are notified once
+     * for each changed preference, and other processes get a single change notification per batch.
      */
-    private class Preference {
+    public final class Editor {
 
-        private ContentObserver observer = new ContentObserver(null) {
+        // Preference key to value, a null value removes the preference
+        private final Map<String, String> changes = new LinkedHashMap<>();
 
-            @Override
-            public boolean deliverSelfNotifications() {
-                return false;
+        private Editor() {}
+
+        /**
+         * Stores a String value.
+         *
+         * @param key The preference name.
+         * @param value The preference value.
+         * @return The editor.
+         */
+        @NonNull
+        public Editor put(@NonNull String key, String value) {
+            changes.put(key, value);
+            return this;
+        }
+
+        /**
+         * Stores a long value.
+         *
+         * @param key The preference name.
+         * @param value The preference value.
+         * @return The editor.
+         */
+        @NonNull
+        public Editor put(@NonNull String key, long value) {
+            return put(key, String.valueOf(value));
+        }
+
+        /**
+         * Stores an int value.
+         *
+         * @param key The preference name.
+         * @param value The preference value.
+         * @return The editor.
+         */
+        @NonNull
+        public Editor put(@NonNull String key, int value) {
+            return put(key, String.valueOf(value));
+        }
+
+        /**
+         * Stores a boolean value.
+         *
+         * @param key The preference name.
+         * @param value The preference value.
+         * @return The editor.
+         */
+        @NonNull
+        public Editor put(@NonNull String key, boolean value) {
+            return put(key, String.valueOf(value));
+        }
+
+        /**
+         * Stores a {@link JsonSerializable} value. A {@code null} value removes the preference.
+         *
+         * @param key The preference name.
+         * @param value The preference value.
+         * @return The editor.
+         */
+        @NonNull
+        public Editor put(@NonNull String key, JsonSerializable value) {
+            JsonValue jsonValue = value == null ? null : value.toJsonValue();
+            return put(key, jsonValue == null ? null : jsonValue.toString());
+        }
+
+        /**
+         * Removes a preference.
+         *
+         * @param key The preference name.
+         * @return The editor.
+         */
+        @NonNull
+        public Editor remove(@NonNull String key) {
+            return put(key, (String) null);
+        }
+
+        /**
+         * Applies the changes in memory and writes them to the database in the background.
+         */
+        public void apply() {
+            final Map<Preference, String> batch = new HashMap<>();
+            for (Map.Entry<String, String> entry : changes.entrySet()) {
+                Preference preference = getPreference(entry.getKey());
+                if (preference.setLocalValue(entry.getValue())) {
+                    batch.put(preference, entry.getValue());
+                }
             }
+            changes.clear();
 
-            @Override
-            public void onChange(boolean selfChange) {
-                Logger.verbose("PreferenceDataStore - Preference updated: " + Preference.this.key);
-                executor.execute(new Runnable() {
-                    @Override
-                    public void run() {
-                        syncValue();
+            if (batch.isEmpty()) {
+                return;
+            }
+
+            executor.execute(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        writeValues(batch);
+                    } finally {
+                        for (Preference preference : batch.keySet()) {
+                            preference.onLocalWriteFinished();
+                        }
                     }
-                });
+                }
+            });
+        }
+
+        /**
+         * Writes the changes to the database and applies them in memory. This method will block
+         * on the database write.
+         *
+         * @return <code>true</code> if the changes were successfully saved to
+         * the database, otherwise <code>false</code>
+         */
+        public boolean commit() {
+            Map<Preference, String> batch = new HashMap<>();
+            for (Map.Entry<String, String> entry : changes.entrySet()) {
+                batch.put(getPreference(entry.getKey()), entry.getValue());
             }
-        };
+            changes.clear();
+
+            if (!writeValues(batch)) {
+                return false;
+            }
+
+            for (Map.Entry<Preference, String> entry : batch.entrySet()) {
+                entry.getKey().setValue(entry.getValue());
+            }
+
+            return true;
+        }
+    }
+
+    /**
+     * A helper class that handles fetching, writing, and syncing with the
+     * preference provider.
+     */
+    private class Preference {
 
         private final String key;
         private String value;
         private Uri uri;
 
+        // Incremented on every value change to invalidate the decoded value
+        private int version;
+        private int decodedVersion = -1;
+        private Decoder<?> decoder;
+        private Object decoded;
+
+        // Number of in-memory changes still queued to be written to the database
+        private int pendingWrites;
+
         Preference(String key, String value) {
             this.key = key;
             this.value = value;
@@ -387,17 +665,55 @@ public final class PreferenceDataStore {
             }
         }
 
+        /**
+         * Gets the decoded value of the preference. The value is only decoded again after it changes
+         * or if a different decoder is used.
+         *
+         * @param decoder The decoder.
+         * @return The decoded value.
+         */
+        @SuppressWarnings("unchecked")
+        <T> T get(@NonNull Decoder<T> decoder) {
+            String value;
+            int version;
+            synchronized (this) {
+                if (this.decoder == decoder && this.decodedVersion == this.version) {
+                    return (T) decoded;
+                }
+
+                value = this.value;
+                version = this.version;
+            }
+
+            // Decode outside the lock so a slow decode does not block writers
+            T decoded = value == null ? null : decoder.decode(value);
+
+            synchronized (this) {
+                if (version == this.version) {
+                    this.decoder = decoder;
+                    this.decoded = decoded;
+                    this.decodedVersion = version;
+                }
+            }
+
+            return decoded;
+        }
+
         /**
          * Put a new value for the preference.
          *
          * @param value Value of the preference.
          */
         void put(final String value) {
-            if (setValue(value)) {
+            if (setLocalValue(value)) {
                 executor.execute(new Runnable() {
                     @Override
                     public void run() {
-                        writeValue(value);
+                        try {
+                            writeValue(value);
+                        } finally {
+                            onLocalWriteFinished();
+                        }
                     }
                 });
             }
@@ -435,6 +751,7 @@ public final class PreferenceDataStore {
                     return false;
                 }
                 this.value = value;
+                this.version++;
             }
 
             onPreferenceChanged(key);
@@ -442,70 +759,81 @@ public final class PreferenceDataStore {
         }
 
         /**
-         * Actually writes the value to the database.
+         * Sets the value for a change that will be written to the database in the background.
+         * Until the write finishes, synced rows for the preference are ignored.
          *
-         * @param value The value to write
-         * @return <code>true</code> if the preference was successfully written to
-         * the database, otherwise <code>false</code>
+         * @param value The value of the preference.
+         * @return {@code true} if the value changed, otherwise {@code false}.
          */
-        private boolean writeValue(String value) {
+        private boolean setLocalValue(String value) {
             synchronized (this) {
-                if (value == null) {
-                    Logger.verbose("PreferenceDataStore - Removing preference: " + key);
-
-                    if (resolver.delete(UrbanAirshipProvider.getPreferencesContentUri(context), WHERE_CLAUSE_KEY, new String[] { key }) == 1) {
-                        resolver.notifyChange(this.uri, observer);
-                        return true;
-                    }
-
+                if (UAStringUtil.equals(value, this.value)) {
                     return false;
-                } else {
-                    Logger.verbose("PreferenceDataStore - Saving preference: " + key + " value: " + value);
-                    ContentValues values = new ContentValues();
-                    values.put(PreferencesDataManager.COLUMN_NAME_KEY, key);
-                    values.put(PreferencesDataManager.COLUMN_NAME_VALUE, value);
+                }
+                this.value = value;
+                this.version++;
+                this.pendingWrites++;
+            }
 
-                    if (resolver.insert(UrbanAirshipProvider.getPreferencesContentUri(context), values) != null) {
-                        resolver.notifyChange(this.uri, observer);
-                        return true;
-                    }
+            onPreferenceChanged(key);
+            return true;
+        }
 
-                    return false;
-                }
+        /**
+         * Called after a queued write from {@link #setLocalValue(String)} finishes.
+         */
+        private void onLocalWriteFinished() {
+            synchronized (this) {
+                pendingWrites--;
             }
         }
 
         /**
-         * Syncs the value from the database to the preference.
+         * Sets the value read from the database during a sync. The value is ignored while local
+         * changes are still queued, since the row may be an older write from this process and the
+         * queued write will replace it anyway.
+         *
+         * @param value The value of the preference.
          */
-        void syncValue() {
-            Cursor cursor = null;
-            try {
-                synchronized (this) {
-                    cursor = resolver.query(UrbanAirshipProvider.getPreferencesContentUri(context),
-                            new String[] { PreferencesDataManager.COLUMN_NAME_VALUE }, WHERE_CLAUSE_KEY,
-                            new String[] { key }, null);
+        private void syncValue(String value) {
+            synchronized (this) {
+                if (pendingWrites > 0 || UAStringUtil.equals(value, this.value)) {
+                    return;
                 }
+                this.value = value;
+                this.version++;
+            }
+
+            onPreferenceChanged(key);
+        }
 
-                if (cursor != null) {
-                    setValue(cursor.moveToFirst() ? cursor.getString(0) : null);
+        /**
+         * Actually writes the value to the database.
+         *
+         * @param value The value to write
+         * @return <code>true</code> if the preference was successfully written to
+         * the database, otherwise <code>false</code>
+         */
+        private boolean writeValue(String value) {
+            synchronized (this) {
+                if (value == null) {
+                    Logger.verbose("PreferenceDataStore - Removing preference: " + key);
                 } else {
-                    Logger.debug("PreferenceDataStore - Unable to get preference " + key + " from" +
-                            " database. Falling back to cached value.");
-                }
-            } finally {
-                if (cursor != null) {
-                    cursor.close();
+                    Logger.verbose("PreferenceDataStore - Saving preference: " + key + " value: " + value);
                 }
-            }
-        }
 
-        void registerObserver() {
-            resolver.registerContentObserver(this.uri, true, observer);
-        }
+                // Removed preferences are kept as a null value so the removal gets a new version
+                ContentValues values = new ContentValues();
+                values.put(PreferencesDataManager.COLUMN_NAME_KEY, key);
+                values.put(PreferencesDataManager.COLUMN_NAME_VALUE, value);
 
-        void unregisterObserver() {
-            resolver.unregisterContentObserver(observer);
+                if (resolver.insert(UrbanAirshipProvider.getPreferencesContentUri(context), values) != null) {
+                    resolver.notifyChange(this.uri, observer);
+                    return true;
+                }
+
+                return false;
+            }
         }
     }
 }
@@ -16,9 +16,24 @@ class PreferencesDataManager extends DataManager {
 
     static final String COLUMN_NAME_KEY = "_id";
     static final String COLUMN_NAME_VALUE = "value";
+
+    /**
+     * The version of the last change to the preference. Maintained by triggers from
+     * the version table so other processes can query only the preferences that changed.
+     */
+    static final String COLUMN_NAME_VERSION = "version";
+
     static final String TABLE_NAME = "preferences";
     static final String DATABASE_NAME = "ua_preferences.db";
-    static final int DATABASE_VERSION = 1;
+    static final int DATABASE_VERSION = 2;
+
+    /**
+     * Version table. The table contains a single row with the last preference version.
+     */
+    static final String VERSION_TABLE_NAME = "preferences_version";
+
+    private static final String INSERT_TRIGGER_NAME = "preferences_insert_version";
+    private static final String UPDATE_TRIGGER_NAME = "preferences_update_version";
 
     public PreferencesDataManager(@NonNull Context context, @NonNull String appKey) {
         super(context, appKey, DATABASE_NAME, DATABASE_VERSION);
@@ -28,7 +43,57 @@ class PreferencesDataManager extends DataManager {
     protected void onCreate(@NonNull SQLiteDatabase db) {
         db.execSQL("CREATE TABLE IF NOT EXISTS " + TABLE_NAME + " ("
                 + COLUMN_NAME_KEY + " TEXT PRIMARY KEY, "
-                + COLUMN_NAME_VALUE + " TEXT);");
+                + COLUMN_NAME_VALUE + " TEXT, "
+                + COLUMN_NAME_VERSION + " INTEGER NOT NULL DEFAULT 0);");
+
+        createVersioning(db);
+    }
+
+    @Override
+    protected void onUpgrade(@NonNull SQLiteDatabase db, int oldVersion, int newVersion) {
+        switch (oldVersion) {
+            case 1:
+                // Keep the existing preferences and add the version column
+                Logger.debug("PreferencesDataManager - Upgrading preferences database from version " + oldVersion + " to " + newVersion);
+                db.execSQL("ALTER TABLE " + TABLE_NAME + " ADD COLUMN " + COLUMN_NAME_VERSION + " INTEGER NOT NULL DEFAULT 0;");
+                createVersioning(db);
+                break;
+
+            default:
+                Logger.debug("PreferencesDataManager - Upgrading preferences database from version " + oldVersion + " to "
+                        + newVersion + ", which will destroy all old data");
+
+                onDowngrade(db, oldVersion, newVersion);
+        }
+    }
+
+    /**
+     * Creates the version table and the triggers that stamp every inserted or updated
+     * preference with the next version.
+     *
+     * @param db The database.
+     */
+    private void createVersioning(@NonNull SQLiteDatabase db) {
+        db.execSQL("CREATE TABLE IF NOT EXISTS " + VERSION_TABLE_NAME + " ("
+                + COLUMN_NAME_VERSION + " INTEGER NOT NULL);");
+
+        db.execSQL("DELETE FROM " + VERSION_TABLE_NAME + ";");
+        db.execSQL("INSERT INTO " + VERSION_TABLE_NAME + " (" + COLUMN_NAME_VERSION + ") "
+                + "SELECT IFNULL(MAX(" + COLUMN_NAME_VERSION + "), 0) FROM " + TABLE_NAME + ";");
+
+        String stampVersion = " UPDATE " + VERSION_TABLE_NAME + " SET " + COLUMN_NAME_VERSION + " = " + COLUMN_NAME_VERSION + " + 1;"
+                + " UPDATE " + TABLE_NAME + " SET " + COLUMN_NAME_VERSION + " = (SELECT " + COLUMN_NAME_VERSION + " FROM " + VERSION_TABLE_NAME + ")"
+                + " WHERE " + COLUMN_NAME_KEY + " = NEW." + COLUMN_NAME_KEY + ";";
+
+        db.execSQL("CREATE TRIGGER IF NOT EXISTS " + INSERT_TRIGGER_NAME
+                + " AFTER INSERT ON " + TABLE_NAME + " BEGIN"
+                + stampVersion
+                + " END;");
+
+        db.execSQL("CREATE TRIGGER IF NOT EXISTS " + UPDATE_TRIGGER_NAME
+                + " AFTER UPDATE OF " + COLUMN_NAME_VALUE + " ON " + TABLE_NAME + " BEGIN"
+                + stampVersion
+                + " END;");
     }
 
     @Override
@@ -39,13 +104,17 @@ class PreferencesDataManager extends DataManager {
 
     @Override
     protected SQLiteStatement getInsertStatement(@NonNull String table, @NonNull SQLiteDatabase db) {
-        String sql = this.buildInsertStatement(table, COLUMN_NAME_KEY, COLUMN_NAME_VALUE);
+        // Replace existing keys so a batch of preferences can be saved with a single bulk insert
+        String sql = "INSERT OR REPLACE INTO " + TABLE_NAME + " (" + COLUMN_NAME_KEY + ", " + COLUMN_NAME_VALUE + ") VALUES (?, ?);";
         return db.compileStatement(sql);
     }
 
     @Override
     protected void onDowngrade(@NonNull SQLiteDatabase db, int oldVersion, int newVersion) {
-        // Drop the table and recreate it
+        // Drop the tables and recreate them
+        db.execSQL("DROP TRIGGER IF EXISTS " + INSERT_TRIGGER_NAME);
+        db.execSQL("DROP TRIGGER IF EXISTS " + UPDATE_TRIGGER_NAME);
+        db.execSQL("DROP TABLE IF EXISTS " + VERSION_TABLE_NAME);
         db.execSQL("DROP TABLE IF EXISTS " + TABLE_NAME);
         onCreate(db);
     }
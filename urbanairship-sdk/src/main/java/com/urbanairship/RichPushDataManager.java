@@ -18,7 +18,7 @@ class RichPushDataManager extends DataManager {
     public static final String TABLE_NAME = "richpush";
 
     private static final String DATABASE_NAME = "ua_richpush.db";
-    private static final int DATABASE_VERSION = 3;
+    private static final int DATABASE_VERSION = 5;
 
     RichPushDataManager(Context context, String appKey) {
         super(context, appKey, DATABASE_NAME, DATABASE_VERSION);
@@ -39,7 +39,23 @@ class RichPushDataManager extends DataManager {
                 + RichPushTable.COLUMN_NAME_DELETED + " INTEGER, "
                 + RichPushTable.COLUMN_NAME_TIMESTAMP + " TEXT, "
                 + RichPushTable.COLUMN_NAME_RAW_MESSAGE_OBJECT + " TEXT,"
-                + RichPushTable.COLUMN_NAME_EXPIRATION_TIMESTAMP + " TEXT);");
+                + RichPushTable.COLUMN_NAME_EXPIRATION_TIMESTAMP + " TEXT,"
+                + RichPushTable.COLUMN_NAME_CONTENT_HASH + " TEXT,"
+                + RichPushTable.COLUMN_NAME_SENT_AT + " INTEGER);");
+
+        createIndexes(db);
+    }
+
+    /**
+     * Creates the indexes used to page through the messages without parsing them.
+     *
+     * @param db The database.
+     */
+    private void createIndexes(@NonNull SQLiteDatabase db) {
+        db.execSQL("CREATE INDEX IF NOT EXISTS " + TABLE_NAME + "_sent_at ON " + TABLE_NAME + "("
+                + RichPushTable.COLUMN_NAME_DELETED + ", " + RichPushTable.COLUMN_NAME_SENT_AT + ");");
+        db.execSQL("CREATE INDEX IF NOT EXISTS " + TABLE_NAME + "_unread ON " + TABLE_NAME + "("
+                + RichPushTable.COLUMN_NAME_UNREAD + ");");
     }
 
     @Override
@@ -56,6 +72,8 @@ class RichPushDataManager extends DataManager {
         bind(statement, 10, values.getAsString(RichPushTable.COLUMN_NAME_TIMESTAMP));
         bind(statement, 11, values.getAsString(RichPushTable.COLUMN_NAME_RAW_MESSAGE_OBJECT));
         bind(statement, 12, values.getAsString(RichPushTable.COLUMN_NAME_EXPIRATION_TIMESTAMP));
+        bind(statement, 13, values.getAsString(RichPushTable.COLUMN_NAME_CONTENT_HASH));
+        bind(statement, 14, values.getAsLong(RichPushTable.COLUMN_NAME_SENT_AT));
     }
 
     @Override
@@ -64,7 +82,8 @@ class RichPushDataManager extends DataManager {
                 RichPushTable.COLUMN_NAME_MESSAGE_URL, RichPushTable.COLUMN_NAME_MESSAGE_BODY_URL, RichPushTable.COLUMN_NAME_MESSAGE_READ_URL,
                 RichPushTable.COLUMN_NAME_TITLE, RichPushTable.COLUMN_NAME_EXTRA, RichPushTable.COLUMN_NAME_UNREAD,
                 RichPushTable.COLUMN_NAME_UNREAD_ORIG, RichPushTable.COLUMN_NAME_DELETED, RichPushTable.COLUMN_NAME_TIMESTAMP,
-                RichPushTable.COLUMN_NAME_RAW_MESSAGE_OBJECT, RichPushTable.COLUMN_NAME_EXPIRATION_TIMESTAMP);
+                RichPushTable.COLUMN_NAME_RAW_MESSAGE_OBJECT, RichPushTable.COLUMN_NAME_EXPIRATION_TIMESTAMP,
+                RichPushTable.COLUMN_NAME_CONTENT_HASH, RichPushTable.COLUMN_NAME_SENT_AT);
 
         return db.compileStatement(sql);
     }
@@ -76,6 +95,13 @@ class RichPushDataManager extends DataManager {
                 db.execSQL("ALTER TABLE " + TABLE_NAME + " ADD COLUMN " + RichPushTable.COLUMN_NAME_RAW_MESSAGE_OBJECT + " TEXT;");
             case 2:
                 db.execSQL("ALTER TABLE " + TABLE_NAME + " ADD COLUMN " + RichPushTable.COLUMN_NAME_EXPIRATION_TIMESTAMP + " TEXT;");
+            case 3:
+                db.execSQL("ALTER TABLE " + TABLE_NAME + " ADD COLUMN " + RichPushTable.COLUMN_NAME_CONTENT_HASH + " TEXT;");
+            case 4:
+                db.execSQL("ALTER TABLE " + TABLE_NAME + " ADD COLUMN " + RichPushTable.COLUMN_NAME_SENT_AT + " INTEGER;");
+                db.execSQL("UPDATE " + TABLE_NAME + " SET " + RichPushTable.COLUMN_NAME_SENT_AT + " = "
+                        + "CAST(strftime('%s', " + RichPushTable.COLUMN_NAME_TIMESTAMP + ") AS INTEGER) * 1000;");
+                createIndexes(db);
                 break;
             default:
                 db.execSQL("DROP TABLE IF EXISTS " + TABLE_NAME);
@@ -20,6 +20,8 @@ public final class RichPushTable {
     public static final String COLUMN_NAME_TIMESTAMP = "timestamp";
     public static final String COLUMN_NAME_RAW_MESSAGE_OBJECT = "raw_message_object";
     public static final String COLUMN_NAME_EXPIRATION_TIMESTAMP = "expiration_timestamp";
+    public static final String COLUMN_NAME_CONTENT_HASH = "content_hash";
+    public static final String COLUMN_NAME_SENT_AT = "sent_at";
 
     public static final String TABLE_NAME = "richpush";
 }
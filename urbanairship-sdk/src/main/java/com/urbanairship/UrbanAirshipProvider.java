@@ -4,8 +4,11 @@ package com.urbanairship;
 
 import android.app.Application;
 import android.content.ContentProvider;
+import android.content.ContentProviderOperation;
+import android.content.ContentProviderResult;
 import android.content.ContentValues;
 import android.content.Context;
+import android.content.OperationApplicationException;
 import android.content.UriMatcher;
 import android.database.Cursor;
 import android.net.Uri;
@@ -14,6 +17,7 @@ import android.support.annotation.Nullable;
 
 import com.urbanairship.util.DataManager;
 
+import java.util.ArrayList;
 import java.util.List;
 
 /**
@@ -192,6 +196,48 @@ public final class UrbanAirshipProvider extends ContentProvider {
         return model.dataManager.update(model.table, values, selection, selectionArgs);
     }
 
+    /**
+     * Applies the operations in a single database transaction. All operations must target the same
+     * database. If any operation fails, none of the changes are committed.
+     */
+    @NonNull
+    @Override
+    public ContentProviderResult[] applyBatch(@NonNull ArrayList<ContentProviderOperation> operations) throws OperationApplicationException {
+        if (operations.isEmpty()) {
+            return new ContentProviderResult[0];
+        }
+
+        DatabaseModel model = getDatabaseModel(operations.get(0).getUri());
+        if (model == null || getContext() == null) {
+            throw new OperationApplicationException("Unable to apply batch, database unavailable.");
+        }
+
+        for (ContentProviderOperation operation : operations) {
+            if (getDatabaseModel(operation.getUri()) != model) {
+                throw new OperationApplicationException("Unable to apply batch across databases: " + operation.getUri());
+            }
+        }
+
+        if (!model.dataManager.beginTransaction()) {
+            throw new OperationApplicationException("Unable to apply batch, failed to begin transaction.");
+        }
+
+        try {
+            ContentProviderResult[] results = super.applyBatch(operations);
+            for (ContentProviderResult result : results) {
+                // Updates and deletes report -1 when they fail
+                if (result.count != null && result.count < 0) {
+                    throw new OperationApplicationException("Unable to apply batch, operation failed.");
+                }
+            }
+
+            model.dataManager.setTransactionSuccessful();
+            return results;
+        } finally {
+            model.dataManager.endTransaction();
+        }
+    }
+
     @Override
     public void shutdown() {
         if (richPushDataModel != null) {
@@ -2,6 +2,8 @@
 
 package com.urbanairship;
 
+import android.content.ContentProviderOperation;
+import android.content.ContentProviderResult;
 import android.content.ContentResolver;
 import android.content.ContentValues;
 import android.content.Context;
@@ -9,6 +11,8 @@ import android.database.ContentObserver;
 import android.database.Cursor;
 import android.net.Uri;
 
+import java.util.ArrayList;
+
 /**
  * An ContentResolver wrapper used to access data from the
  * {@link com.urbanairship.UrbanAirshipProvider}.
@@ -67,6 +71,15 @@ public class UrbanAirshipResolver {
         }
     }
 
+    protected ContentProviderResult[] applyBatch(ArrayList<ContentProviderOperation> operations) {
+        try {
+            return this.getResolver().applyBatch(UrbanAirshipProvider.getAuthorityString(context), operations);
+        } catch (Exception e) {
+            Logger.error("Failed to apply batch in UrbanAirshipProvider.", e);
+            return null;
+        }
+    }
+
     /**
      * Register a ContentObserver to listen for updates to the supplied URI.
      *
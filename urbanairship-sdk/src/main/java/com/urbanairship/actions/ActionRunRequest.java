@@ -10,11 +10,11 @@ import android.support.annotation.Nullable;
 import android.support.annotation.VisibleForTesting;
 import android.support.annotation.WorkerThread;
 
+import com.urbanairship.AirshipExecutors;
 import com.urbanairship.Logger;
 import com.urbanairship.UAirship;
 
 import java.util.concurrent.Executor;
-import java.util.concurrent.Executors;
 import java.util.concurrent.Semaphore;
 
 /**
@@ -37,7 +37,7 @@ import java.util.concurrent.Semaphore;
 public class ActionRunRequest {
 
     @VisibleForTesting
-    static Executor executor = Executors.newCachedThreadPool();
+    static Executor executor = AirshipExecutors.getExecutor(AirshipExecutors.LANE_UI);
 
     private ActionRegistry registry;
     private String actionName;
@@ -185,6 +185,9 @@ public class ActionRunRequest {
 
         if (shouldRunOnMain(arguments)) {
             new Handler(Looper.getMainLooper()).post(runnable);
+        } else if (Looper.myLooper() != Looper.getMainLooper()) {
+            // Already on a worker thread, run in place instead of blocking a second thread
+            runnable.run();
         } else {
             executor.execute(runnable);
         }
@@ -2,6 +2,7 @@
 
 package com.urbanairship.analytics;
 
+import android.content.ContentValues;
 import android.content.Context;
 import android.location.Criteria;
 import android.location.Location;
@@ -62,6 +63,8 @@ public class Analytics extends AirshipComponent {
 
     private AnalyticsJobHandler analyticsJobHandler;
 
+    private final EventBuffer eventBuffer;
+
     /**
      * The Analytics constructor, used by {@link com.urbanairship.UAirship}.  You should not instantiate this class directly.
      *
@@ -93,6 +96,12 @@ public class Analytics extends AirshipComponent {
         this.platform = platform;
         this.jobDispatcher = jobDispatcher;
         this.activityMonitor = activityMonitor;
+        this.eventBuffer = new EventBuffer(new EventBuffer.Listener() {
+            @Override
+            public void onFlush(@NonNull List<ContentValues> events, int priority) {
+                getJobHandler(UAirship.shared()).storeEvents(events, priority);
+            }
+        });
     }
 
     @Override
@@ -122,15 +131,27 @@ public class Analytics extends AirshipComponent {
     protected void tearDown() {
         activityMonitor.removeListener(listener);
         listener = null;
+        eventBuffer.flush();
     }
 
     @Override
     protected int onPerformJob(@NonNull UAirship airship, Job job) {
+        return getJobHandler(airship).performJob(job);
+    }
+
+    /**
+     * Gets the job handler. The handler is shared between dispatched jobs and
+     * buffered event flushes.
+     *
+     * @param airship The airship instance.
+     * @return The analytics job handler.
+     */
+    private synchronized AnalyticsJobHandler getJobHandler(@NonNull UAirship airship) {
         if (analyticsJobHandler == null) {
             analyticsJobHandler = new AnalyticsJobHandler(context, airship, preferenceDataStore);
         }
 
-        return analyticsJobHandler.performJob(job);
+        return analyticsJobHandler;
     }
 
     /**
@@ -163,20 +184,27 @@ public class Analytics extends AirshipComponent {
         String eventPayload = event.createEventPayload(sessionId);
         if (eventPayload == null) {
             Logger.error("Analytics - Failed to add event " + event.getType());
+            return;
         }
 
         Logger.verbose("Analytics - Adding event: " + event.getType());
-        Job addEventJob = Job.newBuilder(AnalyticsJobHandler.ACTION_ADD)
-                             .setAirshipComponent(Analytics.class)
-                             .putExtra(AnalyticsJobHandler.EXTRA_EVENT_TYPE, event.getType())
-                             .putExtra(AnalyticsJobHandler.EXTRA_EVENT_ID, event.getEventId())
-                             .putExtra(AnalyticsJobHandler.EXTRA_EVENT_DATA, eventPayload)
-                             .putExtra(AnalyticsJobHandler.EXTRA_EVENT_TIME_STAMP, event.getTime())
-                             .putExtra(AnalyticsJobHandler.EXTRA_EVENT_SESSION_ID, sessionId)
-                             .putExtra(AnalyticsJobHandler.EXTRA_EVENT_PRIORITY, event.getPriority())
-                             .build();
-
-        jobDispatcher.dispatch(addEventJob);
+
+        if (UAirship.isMainProcess()) {
+            // Buffer the event in process and store it with other events in a single transaction
+            eventBuffer.add(EventDataManager.createEventValues(event.getType(), eventPayload, event.getEventId(), sessionId, event.getTime()), event.getPriority());
+        } else {
+            Job addEventJob = Job.newBuilder(AnalyticsJobHandler.ACTION_ADD)
+                                 .setAirshipComponent(Analytics.class)
+                                 .putExtra(AnalyticsJobHandler.EXTRA_EVENT_TYPE, event.getType())
+                                 .putExtra(AnalyticsJobHandler.EXTRA_EVENT_ID, event.getEventId())
+                                 .putExtra(AnalyticsJobHandler.EXTRA_EVENT_DATA, eventPayload)
+                                 .putExtra(AnalyticsJobHandler.EXTRA_EVENT_TIME_STAMP, event.getTime())
+                                 .putExtra(AnalyticsJobHandler.EXTRA_EVENT_SESSION_ID, sessionId)
+                                 .putExtra(AnalyticsJobHandler.EXTRA_EVENT_PRIORITY, event.getPriority())
+                                 .build();
+
+            jobDispatcher.dispatch(addEventJob);
+        }
 
         applyListeners(event);
     }
@@ -279,6 +307,9 @@ public class Analytics extends AirshipComponent {
         // Start a new environment when the app enters the foreground
         startNewSession();
 
+        // Permissions may have changed while the app was in the background
+        DeviceContext.shared(context).invalidate();
+
         inBackground = false;
 
         // If the app backgrounded, there should be no current screen
@@ -309,6 +340,9 @@ public class Analytics extends AirshipComponent {
 
         addEvent(new AppBackgroundEvent(timeMS));
 
+        // Store any buffered events in case the process is killed while in the background
+        eventBuffer.flush();
+
         setConversionSendId(null);
         setConversionMetadata(null);
     }
@@ -334,6 +368,7 @@ public class Analytics extends AirshipComponent {
 
         // When we disable analytics delete all the events
         if (previousValue && !enabled) {
+            eventBuffer.clear();
             jobDispatcher.dispatch(Job.newBuilder(AnalyticsJobHandler.ACTION_DELETE_ALL)
                                       .setAirshipComponent(Analytics.class)
                                       .build());
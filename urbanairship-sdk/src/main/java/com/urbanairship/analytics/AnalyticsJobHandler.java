@@ -2,10 +2,13 @@
 
 package com.urbanairship.analytics;
 
+import android.content.ContentValues;
 import android.content.Context;
 import android.os.Bundle;
 import android.provider.Settings;
+import android.support.annotation.NonNull;
 import android.support.annotation.VisibleForTesting;
+import android.support.annotation.WorkerThread;
 
 import com.google.android.gms.ads.identifier.AdvertisingIdClient;
 import com.google.android.gms.common.GooglePlayServicesNotAvailableException;
@@ -19,7 +22,7 @@ import com.urbanairship.job.JobDispatcher;
 import com.urbanairship.util.UAStringUtil;
 
 import java.io.IOException;
-import java.util.Map;
+import java.util.List;
 import java.util.concurrent.TimeUnit;
 
 /**
@@ -117,7 +120,7 @@ class AnalyticsJobHandler {
     private final EventApiClient apiClient;
     private final UAirship airship;
     private final JobDispatcher dispatcher;
-    private boolean isScheduled;
+    private volatile boolean isScheduled;
 
     AnalyticsJobHandler(Context context, UAirship airship, PreferenceDataStore preferenceDataStore) {
         this(context, airship, preferenceDataStore, JobDispatcher.shared(context), new EventDataManager(context, airship.getAirshipConfigOptions().getAppKey()), new EventApiClient(context));
@@ -223,7 +226,8 @@ class AnalyticsJobHandler {
     }
 
     /**
-     * Adds an event from an intent to the database.
+     * Adds an event from an intent to the database. Events added in the main process are
+     * buffered by {@link Analytics} and stored through {@link #storeEvents(List, int)} instead.
      *
      * @param job A job containing the event's content values to be added
      * to the database.
@@ -248,7 +252,42 @@ class AnalyticsJobHandler {
             return Job.JOB_FINISHED;
         }
 
-        // Handle database max size exceeded
+        ensureDatabaseCapacity();
+
+        if (dataManager.insertEvent(eventType, eventData, eventId, sessionId, eventTimeStamp) <= 0) {
+            Logger.error("AnalyticsJobHandler - Unable to insert event into database.");
+        }
+
+        onEventsStored(priority);
+        return Job.JOB_FINISHED;
+    }
+
+    /**
+     * Stores a batch of events flushed from the in-process {@link EventBuffer} in a single
+     * transaction and schedules the next upload.
+     *
+     * @param events The event content values.
+     * @param priority The highest priority of the events.
+     */
+    @WorkerThread
+    void storeEvents(@NonNull List<ContentValues> events, @Event.Priority int priority) {
+        if (!airship.getAnalytics().isEnabled()) {
+            return;
+        }
+
+        ensureDatabaseCapacity();
+
+        if (dataManager.insertEvents(events) < events.size()) {
+            Logger.error("AnalyticsJobHandler - Unable to insert events into database.");
+        }
+
+        onEventsStored(priority);
+    }
+
+    /**
+     * Deletes the oldest session if the database exceeds the max total size.
+     */
+    private void ensureDatabaseCapacity() {
         if (dataManager.getDatabaseSize() > preferenceDataStore.getInt(MAX_TOTAL_DB_SIZE_KEY, EventResponse.MAX_TOTAL_DB_SIZE_BYTES)) {
             Logger.info("Event database size exceeded. Deleting oldest session.");
             String oldestSessionId = dataManager.getOldestSessionId();
@@ -256,11 +295,14 @@ class AnalyticsJobHandler {
                 dataManager.deleteSession(oldestSessionId);
             }
         }
+    }
 
-        if (dataManager.insertEvent(eventType, eventData, eventId, sessionId, eventTimeStamp) <= 0) {
-            Logger.error("AnalyticsJobHandler - Unable to insert event into database.");
-        }
-
+    /**
+     * Schedules the next event upload after events have been stored.
+     *
+     * @param priority The highest priority of the stored events.
+     */
+    private void onEventsStored(@Event.Priority int priority) {
         switch (priority) {
             case Event.HIGH_PRIORITY:
                 scheduleEventUpload(HIGH_PRIORITY_BATCH_DELAY);
@@ -284,8 +326,6 @@ class AnalyticsJobHandler {
                 }
                 break;
         }
-
-        return Job.JOB_FINISHED;
     }
 
     /**
@@ -320,9 +360,13 @@ class AnalyticsJobHandler {
 
         //pull enough events to fill a batch (roughly)
         int batchEventCount = Math.min(MAX_BATCH_EVENT_COUNT, preferenceDataStore.getInt(MAX_BATCH_SIZE_KEY, EventResponse.MAX_BATCH_SIZE_BYTES) / avgSize);
-        Map<String, String> events = dataManager.getEvents(batchEventCount);
+        long lastRowId = dataManager.getBatchEndRowId(batchEventCount);
+        if (lastRowId < 0) {
+            Logger.debug("AnalyticsJobHandler - No events to send. Ending analytics upload.");
+            return Job.JOB_FINISHED;
+        }
 
-        EventResponse response = apiClient.sendEvents(airship, events.values());
+        EventResponse response = apiClient.sendEvents(airship, dataManager, lastRowId);
 
         if (response == null || response.getStatus() != 200) {
             Logger.debug("Analytic events failed, retrying.");
@@ -331,15 +375,17 @@ class AnalyticsJobHandler {
         }
 
         Logger.debug("Analytic events uploaded.");
-        dataManager.deleteEvents(events.keySet());
+        dataManager.deleteEventsThrough(lastRowId);
 
         // Update preferences
-        preferenceDataStore.put(MAX_TOTAL_DB_SIZE_KEY, response.getMaxTotalSize());
-        preferenceDataStore.put(MAX_BATCH_SIZE_KEY, response.getMaxBatchSize());
-        preferenceDataStore.put(MIN_BATCH_INTERVAL_KEY, response.getMinBatchInterval());
+        preferenceDataStore.edit()
+                           .put(MAX_TOTAL_DB_SIZE_KEY, response.getMaxTotalSize())
+                           .put(MAX_BATCH_SIZE_KEY, response.getMaxBatchSize())
+                           .put(MIN_BATCH_INTERVAL_KEY, response.getMinBatchInterval())
+                           .apply();
 
         // If there are still events left, schedule the next send
-        if (eventCount - events.size() > 0) {
+        if (dataManager.getEventCount() > 0) {
             scheduleEventUpload(MULTIPLE_BATCH_DELAY);
         }
 
@@ -361,7 +407,7 @@ class AnalyticsJobHandler {
      *
      * @param milliseconds The milliseconds from the current time to schedule the event upload.
      */
-    private void scheduleEventUpload(final long milliseconds) {
+    private synchronized void scheduleEventUpload(final long milliseconds) {
         Logger.verbose("AnalyticsJobHandler - Requesting to schedule event upload with delay " + milliseconds + "ms.");
 
         long sendTime = System.currentTimeMillis() + milliseconds;
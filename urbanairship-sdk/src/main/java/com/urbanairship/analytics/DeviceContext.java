@@ -0,0 +1,329 @@
+/* Copyright 2016 Urban Airship and Contributors */
+
+package com.urbanairship.analytics;
+
+import android.Manifest;
+import android.bluetooth.BluetoothAdapter;
+import android.content.BroadcastReceiver;
+import android.content.Context;
+import android.content.Intent;
+import android.content.IntentFilter;
+import android.content.pm.PackageInfo;
+import android.content.pm.PackageManager;
+import android.location.LocationManager;
+import android.net.ConnectivityManager;
+import android.net.NetworkInfo;
+import android.os.Build;
+import android.provider.Settings;
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+import android.support.annotation.VisibleForTesting;
+import android.telephony.TelephonyManager;
+
+import com.urbanairship.Logger;
+import com.urbanairship.util.ManifestUtils;
+import com.urbanairship.util.UAStringUtil;
+
+import java.util.Date;
+import java.util.Locale;
+import java.util.TimeZone;
+
+/**
+ * Caches the device state reported with events and event uploads.
+ * <p/>
+ * The state is read into an immutable {@link Snapshot} the first time it is needed and reused
+ * until a connectivity, locale, time zone, Bluetooth or location provider broadcast invalidates
+ * it. Package info can only change by updating the app, which restarts the process, so it is
+ * read once.
+ */
+class DeviceContext {
+
+    static final String SYSTEM_LOCATION_DISABLED = "SYSTEM_LOCATION_DISABLED";
+    static final String NOT_ALLOWED = "NOT_ALLOWED";
+    static final String ALWAYS_ALLOWED = "ALWAYS_ALLOWED";
+
+    private static DeviceContext singleton;
+
+    private final Context context;
+    private final Object lock = new Object();
+
+    private volatile Snapshot snapshot;
+    private volatile int version;
+
+    private PackageInfo packageInfo;
+    private boolean isPackageInfoLoaded;
+
+    /**
+     * Default constructor.
+     *
+     * @param context The application context.
+     */
+    @VisibleForTesting
+    DeviceContext(@NonNull Context context) {
+        this.context = context.getApplicationContext();
+    }
+
+    /**
+     * Creates and retrieves the shared device context.
+     *
+     * @param context The application context.
+     * @return The singleton.
+     */
+    static synchronized DeviceContext shared(@NonNull Context context) {
+        if (singleton != null) {
+            return singleton;
+        }
+
+        singleton = new DeviceContext(context);
+        singleton.registerReceiver();
+        return singleton;
+    }
+
+    /**
+     * Gets the current snapshot of the device state.
+     *
+     * @return The device snapshot.
+     */
+    @NonNull
+    Snapshot getSnapshot() {
+        Snapshot current = snapshot;
+        if (current != null) {
+            return current;
+        }
+
+        int snapshotVersion = version;
+        current = new Snapshot(this);
+
+        synchronized (lock) {
+            // Only cache the snapshot if nothing changed while it was being read
+            if (snapshotVersion == version) {
+                snapshot = current;
+            }
+        }
+
+        return current;
+    }
+
+    /**
+     * Invalidates the current snapshot. The next call to {@link #getSnapshot()} reads the
+     * device state again.
+     */
+    void invalidate() {
+        synchronized (lock) {
+            version++;
+            snapshot = null;
+        }
+    }
+
+    private void registerReceiver() {
+        IntentFilter filter = new IntentFilter();
+        filter.addAction(ConnectivityManager.CONNECTIVITY_ACTION);
+        filter.addAction(Intent.ACTION_LOCALE_CHANGED);
+        filter.addAction(Intent.ACTION_TIMEZONE_CHANGED);
+        filter.addAction(BluetoothAdapter.ACTION_STATE_CHANGED);
+        filter.addAction(LocationManager.PROVIDERS_CHANGED_ACTION);
+
+        context.registerReceiver(new BroadcastReceiver() {
+            @Override
+            public void onReceive(Context context, Intent intent) {
+                Logger.verbose("DeviceContext - Device state changed: {}", intent.getAction());
+                invalidate();
+            }
+        }, filter);
+    }
+
+    @Nullable
+    private synchronized PackageInfo getPackageInfo() {
+        if (!isPackageInfoLoaded) {
+            try {
+                packageInfo = context.getPackageManager().getPackageInfo(context.getPackageName(), 0);
+            } catch (PackageManager.NameNotFoundException e) {
+                Logger.debug("DeviceContext - Unable to get package info.");
+            }
+            isPackageInfoLoaded = true;
+        }
+
+        return packageInfo;
+    }
+
+    /**
+     * Immutable device state.
+     */
+    static class Snapshot {
+
+        /**
+         * The connection type: "cell", "wifi", "wimax" or "none".
+         */
+        final String connectionType;
+
+        /**
+         * The connection subtype, or an empty string if not connected.
+         */
+        final String connectionSubType;
+
+        /**
+         * The network operator name.
+         */
+        final String carrier;
+
+        /**
+         * The locale.
+         */
+        final Locale locale;
+
+        /**
+         * The package name.
+         */
+        final String packageName;
+
+        /**
+         * The package version name.
+         */
+        final String packageVersion;
+
+        /**
+         * The location permission: {@link #ALWAYS_ALLOWED}, {@link #NOT_ALLOWED} or
+         * {@link #SYSTEM_LOCATION_DISABLED}.
+         */
+        final String locationPermission;
+
+        /**
+         * Whether Bluetooth is enabled.
+         */
+        final boolean isBluetoothEnabled;
+
+        private final TimeZone timeZone;
+
+        private Snapshot(@NonNull DeviceContext deviceContext) {
+            Context context = deviceContext.context;
+
+            // Each of these may return null if there is no connectivity, and this may change at any moment
+            NetworkInfo networkInfo = null;
+            ConnectivityManager cm = (ConnectivityManager) context.getSystemService(Context.CONNECTIVITY_SERVICE);
+            if (cm != null) {
+                networkInfo = cm.getActiveNetworkInfo();
+            }
+
+            this.connectionType = getConnectionType(networkInfo);
+            this.connectionSubType = networkInfo == null ? "" : networkInfo.getSubtypeName();
+
+            TelephonyManager tm = (TelephonyManager) context.getSystemService(Context.TELEPHONY_SERVICE);
+            this.carrier = tm == null ? null : tm.getNetworkOperatorName();
+
+            this.timeZone = TimeZone.getDefault();
+            this.locale = Locale.getDefault();
+
+            PackageInfo packageInfo = deviceContext.getPackageInfo();
+            this.packageName = packageInfo == null ? null : packageInfo.packageName;
+            this.packageVersion = packageInfo == null ? null : packageInfo.versionName;
+
+            this.locationPermission = getLocationPermission(context);
+
+            // CE-2745: Calling BluetoothAdapter.getDefaultAdapter() results in a RuntimeException on
+            // devices running Ice Cream Sandwich http://stackoverflow.com/a/15036421
+            this.isBluetoothEnabled = Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN && isBluetoothEnabled();
+        }
+
+        /**
+         * Gets the time zone ID.
+         *
+         * @return The time zone ID.
+         */
+        String getTimeZoneId() {
+            return timeZone.getID();
+        }
+
+        /**
+         * Gets the time zone offset from UTC.
+         *
+         * @param time The time in milliseconds.
+         * @return The offset in seconds at the given time.
+         */
+        long getTimeZoneOffset(long time) {
+            return timeZone.getOffset(time) / 1000;
+        }
+
+        /**
+         * Indicates whether it is daylight savings time.
+         *
+         * @param time The time in milliseconds.
+         * @return <code>true</code> if the given time is in daylight savings time, <code>false</code> otherwise.
+         */
+        boolean isDaylightSavingsTime(long time) {
+            return timeZone.inDaylightTime(new Date(time));
+        }
+
+        private static String getConnectionType(@Nullable NetworkInfo networkInfo) {
+            int type = networkInfo == null ? -1 : networkInfo.getType();
+
+            switch (type) {
+                case ConnectivityManager.TYPE_MOBILE:
+                    return "cell";
+                case ConnectivityManager.TYPE_WIFI:
+                    return "wifi";
+                case /*Connectivity.TYPE_WIMAX: (api level 8)*/ 0x00000006:
+                    return "wimax";
+                default:
+                    return "none";
+            }
+        }
+
+        private static String getLocationPermissionForApp() {
+            if (ManifestUtils.isPermissionGranted(Manifest.permission.ACCESS_COARSE_LOCATION) ||
+                    ManifestUtils.isPermissionGranted(Manifest.permission.ACCESS_FINE_LOCATION)) {
+                return ALWAYS_ALLOWED;
+            } else {
+                return NOT_ALLOWED;
+            }
+        }
+
+        private static String getLocationPermission(@NonNull Context context) {
+            // Android Marshmallow
+            if (Build.VERSION.SDK_INT >= 23) {
+                if (context.checkSelfPermission(Manifest.permission.ACCESS_COARSE_LOCATION) == PackageManager.PERMISSION_GRANTED ||
+                        context.checkSelfPermission(Manifest.permission.ACCESS_FINE_LOCATION) == PackageManager.PERMISSION_GRANTED) {
+                    return ALWAYS_ALLOWED;
+                } else {
+                    return NOT_ALLOWED;
+                }
+            }
+
+            // KitKat
+            if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.KITKAT) {
+                int locationMode = 0;
+
+                try {
+                    locationMode = Settings.Secure.getInt(context.getContentResolver(), Settings.Secure.LOCATION_MODE);
+                } catch (Settings.SettingNotFoundException e) {
+                    Logger.debug("DeviceContext - Settings not found.");
+                }
+
+                if (locationMode != Settings.Secure.LOCATION_MODE_OFF) {
+                    return getLocationPermissionForApp();
+                } else {
+                    return SYSTEM_LOCATION_DISABLED;
+                }
+            }
+
+            String locationProviders = Settings.Secure.getString(context.getContentResolver(), Settings.Secure.LOCATION_PROVIDERS_ALLOWED);
+            if (!UAStringUtil.isEmpty(locationProviders)) {
+                return getLocationPermissionForApp();
+            } else {
+                return SYSTEM_LOCATION_DISABLED;
+            }
+        }
+
+        private static boolean isBluetoothEnabled() {
+            if (!ManifestUtils.isPermissionGranted(Manifest.permission.BLUETOOTH)) {
+                // Manifest missing Bluetooth permissions
+                return false;
+            }
+
+            // Code from Android Developer: http://developer.android.com/guide/topics/connectivity/bluetooth.html
+            BluetoothAdapter bluetoothAdapter = BluetoothAdapter.getDefaultAdapter();
+
+            //noinspection ResourceType - Suppresses the bluetooth permission warning
+            return bluetoothAdapter != null && bluetoothAdapter.isEnabled();
+        }
+    }
+}
@@ -2,23 +2,16 @@
 
 package com.urbanairship.analytics;
 
-import android.content.Context;
-import android.net.ConnectivityManager;
-import android.net.NetworkInfo;
 import android.support.annotation.IntDef;
-import android.telephony.TelephonyManager;
 
 import com.urbanairship.UAirship;
 import com.urbanairship.json.JsonMap;
 import com.urbanairship.push.PushManager;
+import com.urbanairship.util.TimestampCodec;
 
 import java.lang.annotation.Retention;
 import java.lang.annotation.RetentionPolicy;
 import java.util.ArrayList;
-import java.util.Calendar;
-import java.util.Date;
-import java.util.Locale;
-import java.util.TimeZone;
 import java.util.UUID;
 
 /**
@@ -173,36 +166,7 @@ public abstract class Event {
      * @return The connection type as a String.
      */
     public String getConnectionType() {
-
-        int type = -1;//not connected
-
-        //determine network connectivity state
-        //each of these may return null if there is no connectivity, and this may change at any moment
-        //keep a reference, then do a null check before accessing
-        ConnectivityManager cm = (ConnectivityManager) UAirship.getApplicationContext().getSystemService(Context.CONNECTIVITY_SERVICE);
-        if (cm != null) {
-            NetworkInfo ni = cm.getActiveNetworkInfo();
-            if (ni != null) {
-                type = ni.getType();
-            }
-        }
-
-        String typeString;
-        switch (type) {
-            case ConnectivityManager.TYPE_MOBILE:
-                typeString = "cell";
-                break;
-            case ConnectivityManager.TYPE_WIFI:
-                typeString = "wifi";
-                break;
-            case /*Connectivity.TYPE_WIMAX: (api level 8)*/ 0x00000006:
-                typeString = "wimax";
-                break;
-            default:
-                typeString = "none";
-        }
-
-        return typeString;
+        return getDeviceSnapshot().connectionType;
     }
 
     /**
@@ -211,18 +175,7 @@ public abstract class Event {
      * @return The connection subtype as a String.
      */
     public String getConnectionSubType() {
-
-        //determine network connectivity state
-        //each of these may return null if there is no connectivity, and this may change at any moment
-        //keep a reference, then do a null check before accessing
-        ConnectivityManager cm = (ConnectivityManager) UAirship.getApplicationContext().getSystemService(Context.CONNECTIVITY_SERVICE);
-        if (cm != null) {
-            NetworkInfo ni = cm.getActiveNetworkInfo();
-            if (ni != null) {
-                return ni.getSubtypeName();
-            }
-        }
-        return "";
+        return getDeviceSnapshot().connectionSubType;
     }
 
     /**
@@ -231,8 +184,7 @@ public abstract class Event {
      * @return The carrier as a String.
      */
     protected String getCarrier() {
-        TelephonyManager tm = (TelephonyManager) UAirship.getApplicationContext().getSystemService(Context.TELEPHONY_SERVICE);
-        return tm.getNetworkOperatorName();
+        return getDeviceSnapshot().carrier;
     }
 
     /**
@@ -241,8 +193,7 @@ public abstract class Event {
      * @return The time zone as a long.
      */
     protected long getTimezone() {
-        TimeZone tz = Calendar.getInstance().getTimeZone();
-        return tz.getOffset(System.currentTimeMillis()) / 1000;
+        return getDeviceSnapshot().getTimeZoneOffset(System.currentTimeMillis());
     }
 
     /**
@@ -251,7 +202,16 @@ public abstract class Event {
      * @return <code>true</code> if it is currently daylight savings time, <code>false</code> otherwise.
      */
     protected boolean isDaylightSavingsTime() {
-        return Calendar.getInstance().getTimeZone().inDaylightTime(new Date());
+        return getDeviceSnapshot().isDaylightSavingsTime(System.currentTimeMillis());
+    }
+
+    /**
+     * Gets the cached device state.
+     *
+     * @return The device snapshot.
+     */
+    private static DeviceContext.Snapshot getDeviceSnapshot() {
+        return DeviceContext.shared(UAirship.getApplicationContext()).getSnapshot();
     }
 
     /**
@@ -272,7 +232,7 @@ public abstract class Event {
      * @hide
      */
     protected static String millisecondsToSecondsString(long milliseconds) {
-        return String.format(Locale.US, "%.3f", milliseconds / 1000.0);
+        return TimestampCodec.formatEpochSeconds(milliseconds);
     }
 
     /**
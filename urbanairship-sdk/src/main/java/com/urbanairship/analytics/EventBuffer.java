@@ -0,0 +1,163 @@
+/* Copyright 2016 Urban Airship and Contributors */
+
+package com.urbanairship.analytics;
+
+import android.content.ContentValues;
+import android.os.Handler;
+import android.os.Looper;
+import android.support.annotation.NonNull;
+import android.support.annotation.WorkerThread;
+
+import com.urbanairship.AirshipExecutors;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+
+/**
+ * In-process buffer for analytics events. Events are collected in memory and handed off
+ * to the {@link Listener} as a single batch once the buffer is full, the oldest event
+ * reaches the max age, or a high priority event is added.
+ */
+class EventBuffer {
+
+    /**
+     * Max number of events to hold before flushing.
+     */
+    static final int MAX_BUFFERED_EVENTS = 50;
+
+    /**
+     * Max time an event is held in the buffer before flushing in milliseconds.
+     */
+    static final long MAX_BUFFER_AGE_MS = 2000; // 2s
+
+    /**
+     * Listener for flushed batches of events.
+     */
+    interface Listener {
+
+        /**
+         * Called on the buffer's executor with a batch of events to store.
+         *
+         * @param events The event content values.
+         * @param priority The highest priority of the events in the batch.
+         */
+        @WorkerThread
+        void onFlush(@NonNull List<ContentValues> events, @Event.Priority int priority);
+    }
+
+    Executor executor = AirshipExecutors.newSerialExecutor(AirshipExecutors.LANE_IO);
+
+    private final Listener listener;
+    private final Handler handler;
+    private final Object lock = new Object();
+
+    private List<ContentValues> events = new ArrayList<>();
+    private int priority = Event.LOW_PRIORITY;
+    private boolean isFlushScheduled;
+
+    private final Runnable flushRunnable = new Runnable() {
+        @Override
+        public void run() {
+            flush();
+        }
+    };
+
+    /**
+     * Default constructor.
+     *
+     * @param listener The flush listener.
+     */
+    EventBuffer(@NonNull Listener listener) {
+        this(listener, new Handler(Looper.getMainLooper()));
+    }
+
+    /**
+     * Constructor used for testing.
+     *
+     * @param listener The flush listener.
+     * @param handler The handler used to schedule the age based flush.
+     */
+    EventBuffer(@NonNull Listener listener, @NonNull Handler handler) {
+        this.listener = listener;
+        this.handler = handler;
+    }
+
+    /**
+     * Adds an event to the buffer.
+     *
+     * @param values The event's content values.
+     * @param priority The event's priority.
+     */
+    void add(@NonNull ContentValues values, @Event.Priority int priority) {
+        boolean flushNow;
+
+        synchronized (lock) {
+            events.add(values);
+            this.priority = Math.max(this.priority, priority);
+
+            flushNow = priority == Event.HIGH_PRIORITY || events.size() >= MAX_BUFFERED_EVENTS;
+            if (!flushNow && !isFlushScheduled) {
+                isFlushScheduled = true;
+                handler.postDelayed(flushRunnable, MAX_BUFFER_AGE_MS);
+            }
+        }
+
+        if (flushNow) {
+            flush();
+        }
+    }
+
+    /**
+     * Hands off any buffered events to the listener.
+     */
+    void flush() {
+        final List<ContentValues> batch;
+        final int batchPriority;
+
+        synchronized (lock) {
+            handler.removeCallbacks(flushRunnable);
+            isFlushScheduled = false;
+
+            if (events.isEmpty()) {
+                return;
+            }
+
+            batch = events;
+            batchPriority = priority;
+
+            events = new ArrayList<>();
+            priority = Event.LOW_PRIORITY;
+        }
+
+        executor.execute(new Runnable() {
+            @Override
+            public void run() {
+                listener.onFlush(batch, batchPriority);
+            }
+        });
+    }
+
+    /**
+     * Drops any buffered events.
+     */
+    void clear() {
+        synchronized (lock) {
+            handler.removeCallbacks(flushRunnable);
+            isFlushScheduled = false;
+            events = new ArrayList<>();
+            priority = Event.LOW_PRIORITY;
+        }
+    }
+
+    /**
+     * Gets the number of buffered events.
+     *
+     * @return The number of buffered events.
+     */
+    int size() {
+        synchronized (lock) {
+            return events.size();
+        }
+    }
+}
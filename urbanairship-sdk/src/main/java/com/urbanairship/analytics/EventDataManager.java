@@ -13,9 +13,9 @@ import android.support.annotation.NonNull;
 import com.urbanairship.Logger;
 import com.urbanairship.util.DataManager;
 
-import java.util.HashMap;
-import java.util.Map;
-import java.util.Set;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.List;
 
 class EventDataManager extends DataManager {
 
@@ -27,7 +27,7 @@ class EventDataManager extends DataManager {
     /**
      * The database version
      */
-    private static final int DATABASE_VERSION = 1;
+    private static final int DATABASE_VERSION = 2;
 
     /**
      * Events table contract
@@ -69,21 +69,56 @@ class EventDataManager extends DataManager {
 
     }
 
+    /**
+     * Events metadata table contract. The table contains a single row with the running
+     * event count and size that is maintained by triggers on the events table, so the totals
+     * are always updated in the same transaction as the insert or delete.
+     */
+    static final class EventsMetadata {
+
+        // This class cannot be instantiated
+        private EventsMetadata() {}
+
+        /**
+         * The table name
+         */
+        static final String TABLE_NAME = "events_metadata";
+
+        private static final String COLUMN_NAME_EVENT_COUNT = "event_count";
+        private static final String COLUMN_NAME_EVENT_SIZE = "event_size";
+
+        private static final String INSERT_TRIGGER_NAME = "events_insert_metadata";
+        private static final String DELETE_TRIGGER_NAME = "events_delete_metadata";
+    }
+
+    /**
+     * Session ID index name.
+     */
+    private static final String SESSION_ID_INDEX_NAME = "events_session_id_index";
+
     EventDataManager(@NonNull Context context, @NonNull String appKey) {
         super(context, appKey, DATABASE_NAME, DATABASE_VERSION);
     }
 
     @Override
     protected void onUpgrade(@NonNull SQLiteDatabase db, int oldVersion, int newVersion) {
-        // Logs that the database is being upgraded
-        Logger.debug("EventDataManager - Upgrading analytics database from version " + oldVersion + " to "
-                + newVersion + ", which will destroy all old data");
-
-        // Kills the table and existing data
-        db.execSQL("DROP TABLE IF EXISTS events");
-
-        // Recreates the database with a new version
-        onCreate(db);
+        switch (oldVersion) {
+            case 1:
+                // Keep the existing events and add the metadata table and session index
+                Logger.debug("EventDataManager - Upgrading analytics database from version " + oldVersion + " to " + newVersion);
+                createMetadata(db);
+                break;
+
+            default:
+                // Logs that the database is being upgraded
+                Logger.debug("EventDataManager - Upgrading analytics database from version " + oldVersion + " to "
+                        + newVersion + ", which will destroy all old data");
+
+                dropTables(db);
+
+                // Recreates the database with a new version
+                onCreate(db);
+        }
     }
 
     @Override
@@ -97,6 +132,55 @@ class EventDataManager extends DataManager {
                 + Events.COLUMN_NAME_SESSION_ID + " TEXT,"
                 + Events.COLUMN_NAME_EVENT_SIZE + " INTEGER"
                 + ");");
+
+        createMetadata(db);
+    }
+
+    /**
+     * Creates the session ID index, the metadata table and the triggers that keep the metadata
+     * in sync with the events table. The metadata is initialized from any existing events.
+     *
+     * @param db The database.
+     */
+    private void createMetadata(@NonNull SQLiteDatabase db) {
+        db.execSQL("CREATE INDEX IF NOT EXISTS " + SESSION_ID_INDEX_NAME + " ON "
+                + Events.TABLE_NAME + " (" + Events.COLUMN_NAME_SESSION_ID + ");");
+
+        db.execSQL("CREATE TABLE IF NOT EXISTS " + EventsMetadata.TABLE_NAME + " ("
+                + EventsMetadata.COLUMN_NAME_EVENT_COUNT + " INTEGER NOT NULL,"
+                + EventsMetadata.COLUMN_NAME_EVENT_SIZE + " INTEGER NOT NULL"
+                + ");");
+
+        db.execSQL("DELETE FROM " + EventsMetadata.TABLE_NAME + ";");
+        db.execSQL("INSERT INTO " + EventsMetadata.TABLE_NAME + " ("
+                + EventsMetadata.COLUMN_NAME_EVENT_COUNT + ", " + EventsMetadata.COLUMN_NAME_EVENT_SIZE + ") "
+                + "SELECT COUNT(*), IFNULL(SUM(" + Events.COLUMN_NAME_EVENT_SIZE + "), 0) FROM " + Events.TABLE_NAME + ";");
+
+        db.execSQL("CREATE TRIGGER IF NOT EXISTS " + EventsMetadata.INSERT_TRIGGER_NAME
+                + " AFTER INSERT ON " + Events.TABLE_NAME + " BEGIN"
+                + " UPDATE " + EventsMetadata.TABLE_NAME + " SET "
+                + EventsMetadata.COLUMN_NAME_EVENT_COUNT + " = " + EventsMetadata.COLUMN_NAME_EVENT_COUNT + " + 1, "
+                + EventsMetadata.COLUMN_NAME_EVENT_SIZE + " = " + EventsMetadata.COLUMN_NAME_EVENT_SIZE + " + IFNULL(NEW." + Events.COLUMN_NAME_EVENT_SIZE + ", 0);"
+                + " END;");
+
+        db.execSQL("CREATE TRIGGER IF NOT EXISTS " + EventsMetadata.DELETE_TRIGGER_NAME
+                + " AFTER DELETE ON " + Events.TABLE_NAME + " BEGIN"
+                + " UPDATE " + EventsMetadata.TABLE_NAME + " SET "
+                + EventsMetadata.COLUMN_NAME_EVENT_COUNT + " = " + EventsMetadata.COLUMN_NAME_EVENT_COUNT + " - 1, "
+                + EventsMetadata.COLUMN_NAME_EVENT_SIZE + " = " + EventsMetadata.COLUMN_NAME_EVENT_SIZE + " - IFNULL(OLD." + Events.COLUMN_NAME_EVENT_SIZE + ", 0);"
+                + " END;");
+    }
+
+    /**
+     * Drops the events and metadata tables.
+     *
+     * @param db The database.
+     */
+    private void dropTables(@NonNull SQLiteDatabase db) {
+        db.execSQL("DROP TRIGGER IF EXISTS " + EventsMetadata.INSERT_TRIGGER_NAME);
+        db.execSQL("DROP TRIGGER IF EXISTS " + EventsMetadata.DELETE_TRIGGER_NAME);
+        db.execSQL("DROP TABLE IF EXISTS " + EventsMetadata.TABLE_NAME);
+        db.execSQL("DROP TABLE IF EXISTS " + Events.TABLE_NAME);
     }
 
     @Override
@@ -104,7 +188,7 @@ class EventDataManager extends DataManager {
         bind(statement, 1, values.getAsString(Events.COLUMN_NAME_TYPE));
         bind(statement, 2, values.getAsString(Events.COLUMN_NAME_EVENT_ID));
         bind(statement, 3, values.getAsString(Events.COLUMN_NAME_DATA));
-        bind(statement, 4, values.getAsInteger(Events.COLUMN_NAME_TIME));
+        bind(statement, 4, values.getAsString(Events.COLUMN_NAME_TIME));
         bind(statement, 5, values.getAsString(Events.COLUMN_NAME_SESSION_ID));
         bind(statement, 6, values.getAsInteger(Events.COLUMN_NAME_EVENT_SIZE));
     }
@@ -120,42 +204,86 @@ class EventDataManager extends DataManager {
 
     @Override
     protected void onDowngrade(@NonNull SQLiteDatabase db, int oldVersion, int newVersion) {
-        // Drop the table and recreate it
-        db.execSQL("DROP TABLE IF EXISTS " + Events.TABLE_NAME);
+        // Drop the tables and recreate them
+        dropTables(db);
         onCreate(db);
     }
 
-
-
     /**
-     * Gets a map of event data
+     * Gets the row ID of the last event in a batch of the oldest events.
      *
-     * @param count Number of events to return, starts from the oldest to the newest.
-     * @return Map of event id to event data
+     * @param count Max number of events in the batch.
+     * @return The row ID of the newest event in the batch, or -1 if there are no events.
      */
-    @NonNull
-    Map<String, String> getEvents(int count) {
-        HashMap<String, String> events = new HashMap<>(count);
+    long getBatchEndRowId(int count) {
+        String query = "SELECT MAX(" + Events._ID + ") FROM (SELECT " + Events._ID + " FROM " + Events.TABLE_NAME
+                + " ORDER BY " + Events.ASCENDING_SORT_ORDER + " LIMIT " + count + ")";
+
+        Cursor cursor = rawQuery(query, null);
+        if (cursor == null) {
+            Logger.error("EventDataManager - Unable to query events database.");
+            return -1;
+        }
 
-        String[] columns = new String[] {
-                Events.COLUMN_NAME_EVENT_ID,
-                Events.COLUMN_NAME_DATA
-        };
+        long rowId = -1;
+        if (cursor.moveToFirst() && !cursor.isNull(0)) {
+            rowId = cursor.getLong(0);
+        }
+
+        cursor.close();
 
-        Cursor c = query(Events.TABLE_NAME, columns, null, null, Events.ASCENDING_SORT_ORDER, "0, " + count);
+        return rowId;
+    }
+
+    /**
+     * Writes the stored event payloads up to and including the given row ID as a JSON array.
+     * The payloads are copied directly from the database without being parsed.
+     *
+     * @param lastRowId The row ID of the last event to write.
+     * @param writer The writer.
+     * @return The number of events written.
+     * @throws IOException if writing fails.
+     */
+    int writeEvents(long lastRowId, @NonNull Writer writer) throws IOException {
+        String[] columns = new String[] { Events.COLUMN_NAME_DATA };
+        Cursor cursor = query(Events.TABLE_NAME, columns, Events._ID + " <= ?", new String[] { String.valueOf(lastRowId) }, Events.ASCENDING_SORT_ORDER);
 
-        if (c == null) {
-            return events;
+        if (cursor == null) {
+            throw new IOException("Unable to query events database.");
         }
 
-        c.moveToFirst();
-        while (!c.isAfterLast()) {
-            events.put(c.getString(0), c.getString(1));
-            c.moveToNext();
+        int count = 0;
+        try {
+            writer.write('[');
+            while (cursor.moveToNext()) {
+                String data = cursor.getString(0);
+                if (data == null) {
+                    continue;
+                }
+
+                if (count > 0) {
+                    writer.write(',');
+                }
+
+                writer.write(data);
+                count++;
+            }
+            writer.write(']');
+        } finally {
+            cursor.close();
         }
-        c.close();
 
-        return events;
+        return count;
+    }
+
+    /**
+     * Deletes all events up to and including the given row ID.
+     *
+     * @param lastRowId The row ID of the last event to delete.
+     * @return <code>true</code> if any events where deleted, otherwise <code>false</code>
+     */
+    boolean deleteEventsThrough(long lastRowId) {
+        return delete(Events.TABLE_NAME, Events._ID + " <= ?", new String[] { String.valueOf(lastRowId) }) > 0;
     }
 
     /**
@@ -185,37 +313,6 @@ class EventDataManager extends DataManager {
         return delete(Events.TABLE_NAME, Events.COLUMN_NAME_TYPE + " = ?", new String[] { type }) > 0;
     }
 
-    /**
-     * Delete a set of events
-     *
-     * @param eventIds Ids of the events to delete
-     * @return <code>true</code> if any events where deleted, otherwise <code>false</code>
-     */
-    boolean deleteEvents(Set<String> eventIds) {
-        if (eventIds == null || eventIds.size() == 0) {
-            Logger.verbose("EventDataManager - Nothing to delete. Returning.");
-            return false;
-        }
-
-        int numOfEventIds = eventIds.size();
-        String inStatement = repeat("?", numOfEventIds, ", ");
-        int deleted = delete(Events.TABLE_NAME, Events.COLUMN_NAME_EVENT_ID + " IN ( " + inStatement + " )",
-                eventIds.toArray(new String[numOfEventIds]));
-
-        return deleted > 0;
-    }
-
-    private static String repeat(String repeater, int times, String separator) {
-        StringBuilder builder = new StringBuilder();
-        for (int i = 0; i < times; i++) {
-            builder.append(repeater);
-            if (i + 1 != times) {
-                builder.append(separator);
-            }
-        }
-        return builder.toString();
-    }
-
     /**
      * @param sessionId Session id to delete
      * @return <code>true</code> if the delete operation was successful,
@@ -262,22 +359,7 @@ class EventDataManager extends DataManager {
      * @return The current event count
      */
     int getEventCount() {
-        Integer result = null;
-        String[] columns = new String[] { "COUNT(*) as _cnt" };
-        Cursor cursor = query(Events.TABLE_NAME, columns, null, null, null, null);
-
-        if (cursor == null) {
-            Logger.error("EventDataManager - Unable to query events database.");
-            return -1;
-        }
-
-        if (cursor.moveToFirst()) {
-            result = cursor.getInt(0);
-        }
-
-        cursor.close();
-
-        return result == null ? -1 : result;
+        return getMetadataValue(EventsMetadata.COLUMN_NAME_EVENT_COUNT);
     }
 
     /**
@@ -286,9 +368,18 @@ class EventDataManager extends DataManager {
      * @return The current size of the database in bytes
      */
     int getDatabaseSize() {
+        return getMetadataValue(EventsMetadata.COLUMN_NAME_EVENT_SIZE);
+    }
+
+    /**
+     * Reads a running total from the metadata table.
+     *
+     * @param column The metadata column.
+     * @return The value, or -1 if the query failed.
+     */
+    private int getMetadataValue(String column) {
         Integer result = null;
-        String[] columns = new String[] { "SUM(" + Events.COLUMN_NAME_EVENT_SIZE + ") as _size" };
-        Cursor cursor = query(Events.TABLE_NAME, columns, null, null, null, null);
+        Cursor cursor = query(EventsMetadata.TABLE_NAME, new String[] { column }, null, null, null, "1");
 
         if (cursor == null) {
             Logger.error("EventDataManager - Unable to query events database.");
@@ -297,9 +388,10 @@ class EventDataManager extends DataManager {
 
         if (cursor.moveToFirst()) {
             result = cursor.getInt(0);
-            cursor.close();
         }
 
+        cursor.close();
+
         return result == null ? -1 : result;
     }
 
@@ -307,12 +399,34 @@ class EventDataManager extends DataManager {
     /**
      * Inserts an event into the database.
      *
+     * @param eventType The event type.
+     * @param eventData The event data.
+     * @param eventId The event ID.
+     * @param sessionId The session ID.
+     * @param eventTime The time the event occurred.
      *
      * @return Row Id of the event or -1 if the insert failed.
      */
+    long insertEvent(String eventType, String eventData, String eventId, String sessionId, String eventTime) {
+        return insert(Events.TABLE_NAME, createEventValues(eventType, eventData, eventId, sessionId, eventTime));
+    }
 
     /**
-     * Inserts an event into the database.
+     * Inserts a batch of events into the database in a single transaction.
+     *
+     * @param events The event content values created with {@link #createEventValues(String, String, String, String, String)}.
+     * @return The number of inserted events.
+     */
+    int insertEvents(@NonNull List<ContentValues> events) {
+        if (events.isEmpty()) {
+            return 0;
+        }
+
+        return bulkInsert(Events.TABLE_NAME, events.toArray(new ContentValues[events.size()])).size();
+    }
+
+    /**
+     * Creates the content values for an event.
      *
      * @param eventType The event type.
      * @param eventData The event data.
@@ -320,18 +434,17 @@ class EventDataManager extends DataManager {
      * @param sessionId The session ID.
      * @param eventTime The time the event occurred.
      *
-     * @return Row Id of the event or -1 if the insert failed.
+     * @return The event content values.
      */
-    long insertEvent(String eventType, String eventData, String eventId, String sessionId, String eventTime) {
+    @NonNull
+    static ContentValues createEventValues(String eventType, String eventData, String eventId, String sessionId, String eventTime) {
         ContentValues values = new ContentValues();
-        values.put(EventDataManager.Events.COLUMN_NAME_TYPE, eventType);
-        values.put(EventDataManager.Events.COLUMN_NAME_EVENT_ID, eventId);
-        values.put(EventDataManager.Events.COLUMN_NAME_DATA, eventData);
-        values.put(EventDataManager.Events.COLUMN_NAME_TIME, eventTime);
-        values.put(EventDataManager.Events.COLUMN_NAME_SESSION_ID, sessionId);
-        values.put(EventDataManager.Events.COLUMN_NAME_EVENT_SIZE, eventData.length());
-
-        return insert(Events.TABLE_NAME, values);
+        values.put(Events.COLUMN_NAME_TYPE, eventType);
+        values.put(Events.COLUMN_NAME_EVENT_ID, eventId);
+        values.put(Events.COLUMN_NAME_DATA, eventData);
+        values.put(Events.COLUMN_NAME_TIME, eventTime);
+        values.put(Events.COLUMN_NAME_SESSION_ID, sessionId);
+        values.put(Events.COLUMN_NAME_EVENT_SIZE, eventData.length());
+        return values;
     }
-
 }
@@ -9,9 +9,11 @@ import android.os.Looper;
 import android.support.annotation.NonNull;
 import android.support.annotation.Nullable;
 import android.support.annotation.WorkerThread;
+import android.util.Log;
 
 import com.urbanairship.ActivityMonitor;
 import com.urbanairship.AirshipComponent;
+import com.urbanairship.AirshipExecutors;
 import com.urbanairship.AirshipConfigOptions;
 import com.urbanairship.Logger;
 import com.urbanairship.PendingResult;
@@ -30,13 +32,11 @@ import com.urbanairship.location.RegionEvent;
 import java.math.BigDecimal;
 import java.util.ArrayList;
 import java.util.Collections;
-import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.Executor;
-import java.util.concurrent.Executors;
 
 /**
  * This class is the primary interface to the Urban Airship On Device Automation API. If accessed outside
@@ -48,8 +48,10 @@ public class Automation extends AirshipComponent {
     private static final String AUTOMATION_ENABLED_KEY = KEY_PREFIX + ".AUTOMATION_ENABLED";
 
     private final AutomationDataManager dataManager;
-    private final Executor eventProcessingExecutor = Executors.newSingleThreadExecutor();
-    private final Executor dbRequestProcessingExecutor = Executors.newCachedThreadPool();
+    private final TriggerIndex triggerIndex;
+    private final Handler handler = new Handler(Looper.getMainLooper());
+    private final Executor eventProcessingExecutor = AirshipExecutors.newSerialExecutor(AirshipExecutors.LANE_IO);
+    private final Executor dbRequestProcessingExecutor = AirshipExecutors.getExecutor(AirshipExecutors.LANE_IO);
     private final PreferenceDataStore preferenceDataStore;
     private final ActivityMonitor.Listener listener;
     private final Analytics analytics;
@@ -58,12 +60,35 @@ public class Automation extends AirshipComponent {
     private AnalyticsListener analyticsListener;
 
     private boolean automationEnabled = false;
+    private boolean isFlushScheduled = false;
 
     /**
      * Automation schedules limit.
      */
     public static final long SCHEDULES_LIMIT = 1000;
 
+    /**
+     * Max number of trigger progress updates to hold in memory before writing them.
+     */
+    static final int MAX_PENDING_TRIGGER_UPDATES = 50;
+
+    /**
+     * Delay before pending trigger progress updates are written in milliseconds.
+     */
+    static final long TRIGGER_UPDATE_DELAY_MS = 10000; // 10s
+
+    private final Runnable flushRunnable = new Runnable() {
+        @Override
+        public void run() {
+            eventProcessingExecutor.execute(new Runnable() {
+                @Override
+                public void run() {
+                    flushTriggerUpdates();
+                }
+            });
+        }
+    };
+
     /**
      * Default constructor.
      *
@@ -82,6 +107,7 @@ public class Automation extends AirshipComponent {
                @NonNull PreferenceDataStore preferenceDataStore, @NonNull ActivityMonitor activityMonitor) {
         this.analytics = analytics;
         this.dataManager = dataManager;
+        this.triggerIndex = new TriggerIndex(dataManager);
         this.preferenceDataStore = preferenceDataStore;
         this.listener = new ActivityMonitor.Listener() {
             @Override
@@ -142,6 +168,7 @@ public class Automation extends AirshipComponent {
         }
 
         activityMonitor.removeListener(listener);
+        flushPendingTriggerUpdates();
     }
 
     /**
@@ -171,6 +198,8 @@ public class Automation extends AirshipComponent {
             return null;
         }
 
+        invalidateTriggers();
+
         ActionSchedule insertedSchedule = insertSchedules.get(0);
 
         if (!automationEnabled) {
@@ -233,6 +262,8 @@ public class Automation extends AirshipComponent {
 
         List<ActionSchedule> actionSchedules = dataManager.insertSchedules(scheduleInfos);
         if (!actionSchedules.isEmpty()) {
+            invalidateTriggers();
+
             if (!automationEnabled) {
                 automationEnabled = true;
                 preferenceDataStore.put(AUTOMATION_ENABLED_KEY, true);
@@ -285,6 +316,7 @@ public class Automation extends AirshipComponent {
         }
 
         dataManager.deleteSchedule(id);
+        invalidateTriggers();
     }
 
     /**
@@ -319,6 +351,7 @@ public class Automation extends AirshipComponent {
         }
 
         dataManager.bulkDeleteSchedules(ids);
+        invalidateTriggers();
     }
 
     /**
@@ -353,6 +386,7 @@ public class Automation extends AirshipComponent {
         }
 
         dataManager.deleteSchedules(group);
+        invalidateTriggers();
     }
 
     /**
@@ -385,6 +419,7 @@ public class Automation extends AirshipComponent {
         }
 
         dataManager.deleteSchedules();
+        invalidateTriggers();
     }
 
     /**
@@ -531,9 +566,10 @@ public class Automation extends AirshipComponent {
     }
 
     /**
-     * For a given event, retrieves and iterates through any relevant triggers. If a trigger goal
-     * is achieved, the correlated schedule is retrieved and the action is applied. The trigger progress
-     * and schedule count will then either be incremented or reset / removed.
+     * For a given event, retrieves and iterates through any relevant triggers from the trigger index.
+     * If a trigger goal is achieved, the correlated schedule is retrieved and the action is applied.
+     * The trigger progress is updated in memory and written back in batches, while the schedule
+     * count is incremented or the schedule is removed immediately.
      *
      * @param json The relevant event data.
      * @param type The event type.
@@ -549,94 +585,126 @@ public class Automation extends AirshipComponent {
             return;
         }
 
-        Logger.debug("Automation - updating triggers with type: " + type);
+        Logger.debug("Automation - updating triggers with type: {}", type);
 
         eventProcessingExecutor.execute(new Runnable() {
             @Override
             public void run() {
-                List<TriggerEntry> triggerEntries = dataManager.getTriggers(type);
+                List<TriggerEntry> triggerEntries = triggerIndex.getMatchingTriggers(type, json);
 
                 if (triggerEntries.isEmpty()) {
                     return;
                 }
 
-                List<String> triggersToIncrement = new ArrayList<>();
-                List<String> triggersToReset = new ArrayList<>();
-                // Schedule ID to triggers map
-                Map<String, String> triggerMap = new HashMap<>();
-
                 Set<String> schedulesToIncrement = new HashSet<>();
                 Set<String> schedulesToDelete = new HashSet<>();
                 Set<String> triggeredSchedules = new HashSet<>();
 
                 for (TriggerEntry trigger : triggerEntries) {
-                    if ((json != null && (trigger.getPredicate() != null && !trigger.getPredicate().apply(json)))) {
-                        continue;
-                    }
-
                     double progress = trigger.getProgress() + value;
                     if (progress >= trigger.getGoal()) {
-                        triggersToReset.add(trigger.getId());
+                        triggerIndex.setProgress(trigger, 0);
                         triggeredSchedules.add(trigger.getScheduleId());
                     } else {
-                        triggersToIncrement.add(trigger.getId());
+                        triggerIndex.setProgress(trigger, progress);
+                    }
+                }
+
+                if (triggeredSchedules.isEmpty()) {
+                    if (type == Trigger.LIFE_CYCLE_BACKGROUND || triggerIndex.getPendingCount() >= MAX_PENDING_TRIGGER_UPDATES) {
+                        flushTriggerUpdates();
+                    } else if (triggerIndex.getPendingCount() > 0 && !isFlushScheduled) {
+                        isFlushScheduled = true;
+                        handler.postDelayed(flushRunnable, TRIGGER_UPDATE_DELAY_MS);
                     }
 
-                    triggerMap.put(trigger.getScheduleId(), trigger.getId());
+                    return;
                 }
 
-                if (!triggeredSchedules.isEmpty()) {
-                    List<ActionSchedule> scheduleEntries = dataManager.getSchedules(triggeredSchedules);
-
-                    for (ActionSchedule schedule : scheduleEntries) {
-                        if (schedule.getInfo().getEnd() > 0 && schedule.getInfo().getEnd() < System.currentTimeMillis()) {
-                            schedulesToDelete.add(schedule.getId());
-                            continue;
-                        }
-
-                        Bundle metadata = new Bundle();
-                        metadata.putParcelable(ActionArguments.ACTION_SCHEDULE_METADATA, schedule);
-
-                        for (Map.Entry<String, JsonValue> entry : schedule.getInfo().getActions().entrySet()) {
-                            ActionRunRequest.createRequest(entry.getKey())
-                                            .setValue(entry.getValue())
-                                            .setSituation(Action.SITUATION_AUTOMATION)
-                                            .setMetadata(metadata)
-                                            .run();
-                        }
-
-                        if (schedule.getCount() + 1 >= schedule.getInfo().getLimit()) {
-                            schedulesToDelete.add(schedule.getId());
-                        } else {
-                            schedulesToIncrement.add(schedule.getId());
-                        }
+                List<ActionSchedule> scheduleEntries = dataManager.getSchedules(triggeredSchedules);
+
+                for (ActionSchedule schedule : scheduleEntries) {
+                    if (schedule.getInfo().getEnd() > 0 && schedule.getInfo().getEnd() < System.currentTimeMillis()) {
+                        schedulesToDelete.add(schedule.getId());
+                        continue;
+                    }
+
+                    Bundle metadata = new Bundle();
+                    metadata.putParcelable(ActionArguments.ACTION_SCHEDULE_METADATA, schedule);
+
+                    for (Map.Entry<String, JsonValue> entry : schedule.getInfo().getActions().entrySet()) {
+                        ActionRunRequest.createRequest(entry.getKey())
+                                        .setValue(entry.getValue())
+                                        .setSituation(Action.SITUATION_AUTOMATION)
+                                        .setMetadata(metadata)
+                                        .run();
+                    }
+
+                    if (schedule.getCount() + 1 >= schedule.getInfo().getLimit()) {
+                        schedulesToDelete.add(schedule.getId());
+                    } else {
+                        schedulesToIncrement.add(schedule.getId());
                     }
                 }
 
-                HashMap<String, List<String>> updatesMap = new HashMap<>();
+                // Don't need to waste DB time updating triggers if they'll be deleted in a schedule
+                // delete propagation.
+                triggerIndex.removeSchedules(schedulesToDelete);
+
+                // Write the pending trigger progress along with the schedule changes
+                Map<String, List<String>> updatesMap = triggerIndex.drainPendingUpdates();
                 updatesMap.put(AutomationDataManager.SCHEDULES_TO_DELETE_QUERY, new ArrayList<>(schedulesToDelete));
                 updatesMap.put(AutomationDataManager.SCHEDULES_TO_INCREMENT_QUERY, new ArrayList<>(schedulesToIncrement));
 
-                // Don't need to waste DB time updating triggers if they'll be deleted in a schedule
-                // delete propagation.
-                List<String> triggersToDelete = new ArrayList<>();
-                for (String id : schedulesToDelete) {
-                    triggersToDelete.add(triggerMap.get(id));
+                if (Logger.isLoggable(Log.DEBUG)) {
+                    Logger.debug("Automation - Matched {} triggers and {} schedules for event type {}", triggerEntries.size(), triggeredSchedules.size(), type);
+                    Logger.debug("Automation - Incrementing {} schedules for event type {}", schedulesToIncrement.size(), type);
+                    Logger.debug("Automation - Deleting {} schedules for event type {}", schedulesToDelete.size(), type);
                 }
 
-                triggersToIncrement.removeAll(triggersToDelete);
-                triggersToReset.removeAll(triggersToDelete);
+                dataManager.updateLists(updatesMap);
+            }
+        });
+    }
 
-                updatesMap.put(String.format(AutomationDataManager.TRIGGERS_TO_INCREMENT_QUERY, value), triggersToIncrement);
-                updatesMap.put(AutomationDataManager.TRIGGERS_TO_RESET_QUERY, triggersToReset);
+    /**
+     * Writes any pending trigger progress updates. Must be called on the event processing executor.
+     */
+    @WorkerThread
+    private void flushTriggerUpdates() {
+        handler.removeCallbacks(flushRunnable);
+        isFlushScheduled = false;
 
-                Logger.debug("Automation - Retrieved " + triggerEntries.size() + " triggers and " + triggeredSchedules.size() + " schedules for event type " + type);
-                Logger.debug("Automation - Incrementing " + schedulesToIncrement.size() + " schedules for event type " + type);
-                Logger.debug("Automation - Deleting " + schedulesToDelete.size() + " schedules for event type " + type);
-                Logger.debug("Automation - Updating values for " + triggersToIncrement.size() + " triggers for event type " + type);
-                Logger.debug("Automation - Resetting values for " + triggersToReset.size() + " triggers for event type " + type);
+        Map<String, List<String>> updatesMap = triggerIndex.drainPendingUpdates();
+        if (updatesMap.isEmpty()) {
+            return;
+        }
 
-                dataManager.updateLists(updatesMap);
+        Logger.debug("Automation - Writing progress for {} trigger groups", updatesMap.size());
+        dataManager.updateLists(updatesMap);
+    }
+
+    /**
+     * Writes any pending trigger progress updates on the event processing executor.
+     */
+    void flushPendingTriggerUpdates() {
+        eventProcessingExecutor.execute(new Runnable() {
+            @Override
+            public void run() {
+                flushTriggerUpdates();
+            }
+        });
+    }
+
+    /**
+     * Invalidates the trigger index after schedules are inserted or deleted. The index is
+     * invalidated on the event processing executor so it is never modified mid-event.
+     */
+    private void invalidateTriggers() {
+        eventProcessingExecutor.execute(new Runnable() {
+            @Override
+            public void run() {
+                triggerIndex.invalidate();
             }
         });
     }
@@ -112,6 +112,11 @@ class AutomationDataManager extends DataManager {
      */
     static final String TRIGGERS_TO_INCREMENT_QUERY = "UPDATE " + TriggersTable.TABLE_NAME + " SET " + TriggersTable.COLUMN_NAME_PROGRESS + " = " + TriggersTable.COLUMN_NAME_PROGRESS + " + %s WHERE " + TriggersTable._ID;
 
+    /**
+     * Partial query for setting trigger progress by ID.
+     */
+    static final String TRIGGERS_TO_SET_PROGRESS_QUERY = "UPDATE " + TriggersTable.TABLE_NAME + " SET " + TriggersTable.COLUMN_NAME_PROGRESS + " = %s WHERE " + TriggersTable._ID;
+
     /**
      * Class constructor.
      *
@@ -413,6 +418,31 @@ class AutomationDataManager extends DataManager {
         return triggers;
     }
 
+    /**
+     * Gets the earliest start time of the triggers for a given type that are not active yet.
+     *
+     * @param type The trigger type.
+     * @param time The current time in milliseconds.
+     * @return The next trigger start time in milliseconds, or -1 if no triggers are pending.
+     */
+    long getNextTriggerStart(int type, long time) {
+        String query = "SELECT MIN(" + TriggersTable.COLUMN_NAME_START + ") FROM " + TriggersTable.TABLE_NAME
+                + " WHERE " + TriggersTable.COLUMN_NAME_TYPE + " = ? AND " + TriggersTable.COLUMN_NAME_START + " >= ?";
+
+        Cursor cursor = rawQuery(query, new String[] { String.valueOf(type), String.valueOf(time) });
+        if (cursor == null) {
+            return -1;
+        }
+
+        long start = -1;
+        if (cursor.moveToFirst() && !cursor.isNull(0)) {
+            start = cursor.getLong(0);
+        }
+
+        cursor.close();
+        return start;
+    }
+
     /**
      * Bulk applies a series of queries and lists of IDs to update.
      *
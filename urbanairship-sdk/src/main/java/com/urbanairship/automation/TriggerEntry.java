@@ -13,7 +13,7 @@ class TriggerEntry extends Trigger {
 
     private final String id;
     private final String scheduleId;
-    private final double progress;
+    private double progress;
 
     // TriggerEntry should never be used as a Parceable, this is here to please the linter.
     public static final Creator<Trigger> CREATOR = new Creator<Trigger>() {
@@ -45,6 +45,15 @@ class TriggerEntry extends Trigger {
         return progress;
     }
 
+    /**
+     * Sets the trigger's progress.
+     *
+     * @param progress The trigger's progress.
+     */
+    void setProgress(double progress) {
+        this.progress = progress;
+    }
+
     /**
      * The trigger's ID.
      *
@@ -0,0 +1,228 @@
+/* Copyright 2016 Urban Airship and Contributors */
+
+package com.urbanairship.automation;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+import android.util.SparseArray;
+
+import com.urbanairship.json.JsonPredicate;
+import com.urbanairship.json.JsonPredicateSet;
+import com.urbanairship.json.JsonSerializable;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * In-memory index of active triggers keyed by trigger type. Triggers are loaded from the
+ * {@link AutomationDataManager} once per type with their predicates compiled into a
+ * {@link JsonPredicateSet}, and progress changes are kept in memory until they are drained
+ * and written back in a batch.
+ * <p/>
+ * The index is not thread safe and should only be accessed from the automation event thread.
+ */
+class TriggerIndex {
+
+    /**
+     * Cached triggers for a single type.
+     */
+    private static class TypeEntry {
+        final List<TriggerEntry> triggers;
+        final long expiresAt;
+
+        // Compiled predicates for the triggers, rebuilt after the trigger list changes
+        JsonPredicateSet predicateSet;
+        int[] predicateIds;
+
+        TypeEntry(List<TriggerEntry> triggers, long expiresAt) {
+            this.triggers = triggers;
+            this.expiresAt = expiresAt;
+        }
+
+        /**
+         * Compiles the trigger predicates into a single predicate set.
+         */
+        void compile() {
+            JsonPredicateSet.Builder builder = JsonPredicateSet.newBuilder();
+            predicateIds = new int[triggers.size()];
+
+            for (int i = 0; i < triggers.size(); i++) {
+                JsonPredicate predicate = triggers.get(i).getPredicate();
+                predicateIds[i] = predicate == null ? -1 : builder.add(predicate);
+            }
+
+            predicateSet = builder.build();
+        }
+    }
+
+    private final AutomationDataManager dataManager;
+    private final SparseArray<TypeEntry> types = new SparseArray<>();
+
+    // Trigger ID to progress that has not been written to the database
+    private final Map<String, Double> pendingProgress = new HashMap<>();
+
+    /**
+     * Default constructor.
+     *
+     * @param dataManager The automation data manager.
+     */
+    TriggerIndex(@NonNull AutomationDataManager dataManager) {
+        this.dataManager = dataManager;
+    }
+
+    /**
+     * Gets the active triggers for a given type. The triggers are only read from the database
+     * the first time the type is requested, after the index is invalidated, or once a trigger
+     * with a future start time becomes active.
+     *
+     * @param type The trigger type.
+     * @return The list of {@link TriggerEntry} instances.
+     */
+    @NonNull
+    List<TriggerEntry> getTriggers(int type) {
+        return getTypeEntry(type).triggers;
+    }
+
+    /**
+     * Gets the active triggers for a given type whose predicate matches the event. All of the
+     * type's predicates are evaluated together with a compiled {@link JsonPredicateSet}.
+     *
+     * @param type The trigger type.
+     * @param json The event data, or null to match every trigger.
+     * @return The list of matching {@link TriggerEntry} instances.
+     */
+    @NonNull
+    List<TriggerEntry> getMatchingTriggers(int type, @Nullable JsonSerializable json) {
+        TypeEntry entry = getTypeEntry(type);
+        if (json == null || entry.triggers.isEmpty()) {
+            return new ArrayList<>(entry.triggers);
+        }
+
+        if (entry.predicateSet == null) {
+            entry.compile();
+        }
+
+        boolean[] results = entry.predicateSet.apply(json);
+        List<TriggerEntry> matches = new ArrayList<>();
+        for (int i = 0; i < entry.triggers.size(); i++) {
+            int predicateId = entry.predicateIds[i];
+            if (predicateId == -1 || results[predicateId]) {
+                matches.add(entry.triggers.get(i));
+            }
+        }
+
+        return matches;
+    }
+
+    /**
+     * Gets the cached entry for a type, loading it if needed.
+     *
+     * @param type The trigger type.
+     * @return The type entry.
+     */
+    @NonNull
+    private TypeEntry getTypeEntry(int type) {
+        TypeEntry entry = types.get(type);
+        long now = System.currentTimeMillis();
+
+        if (entry == null || (entry.expiresAt > 0 && entry.expiresAt <= now)) {
+            List<TriggerEntry> triggers = dataManager.getTriggers(type);
+
+            // Progress that has not been written yet takes precedence over the stored progress
+            for (TriggerEntry trigger : triggers) {
+                Double progress = pendingProgress.get(trigger.getId());
+                if (progress != null) {
+                    trigger.setProgress(progress);
+                }
+            }
+
+            entry = new TypeEntry(new ArrayList<>(triggers), dataManager.getNextTriggerStart(type, now));
+            types.put(type, entry);
+        }
+
+        return entry;
+    }
+
+    /**
+     * Updates a trigger's progress. The change will be written on the next drain.
+     *
+     * @param trigger The trigger.
+     * @param progress The new progress.
+     */
+    void setProgress(@NonNull TriggerEntry trigger, double progress) {
+        trigger.setProgress(progress);
+        pendingProgress.put(trigger.getId(), progress);
+    }
+
+    /**
+     * Removes the triggers for deleted schedules along with any pending progress.
+     *
+     * @param scheduleIds The deleted schedule IDs.
+     */
+    void removeSchedules(@NonNull Collection<String> scheduleIds) {
+        if (scheduleIds.isEmpty()) {
+            return;
+        }
+
+        for (int i = 0; i < types.size(); i++) {
+            TypeEntry entry = types.valueAt(i);
+            Iterator<TriggerEntry> iterator = entry.triggers.iterator();
+            while (iterator.hasNext()) {
+                TriggerEntry trigger = iterator.next();
+                if (scheduleIds.contains(trigger.getScheduleId())) {
+                    pendingProgress.remove(trigger.getId());
+                    iterator.remove();
+                    entry.predicateSet = null;
+                }
+            }
+        }
+    }
+
+    /**
+     * Gets the number of triggers with unwritten progress.
+     *
+     * @return The number of pending progress updates.
+     */
+    int getPendingCount() {
+        return pendingProgress.size();
+    }
+
+    /**
+     * Drains the pending progress updates into a map of queries to trigger IDs that can be
+     * applied with {@link AutomationDataManager#updateLists(Map)}. Triggers with the same
+     * progress share a single query.
+     *
+     * @return A map of queries to trigger ID lists.
+     */
+    @NonNull
+    Map<String, List<String>> drainPendingUpdates() {
+        Map<String, List<String>> updates = new HashMap<>();
+
+        for (Map.Entry<String, Double> entry : pendingProgress.entrySet()) {
+            String query = String.format(AutomationDataManager.TRIGGERS_TO_SET_PROGRESS_QUERY, entry.getValue());
+
+            List<String> ids = updates.get(query);
+            if (ids == null) {
+                ids = new ArrayList<>();
+                updates.put(query, ids);
+            }
+
+            ids.add(entry.getKey());
+        }
+
+        pendingProgress.clear();
+        return updates;
+    }
+
+    /**
+     * Drops the cached triggers so they are reloaded on the next request. Pending progress
+     * is kept and applied to the reloaded triggers.
+     */
+    void invalidate() {
+        types.clear();
+    }
+}
@@ -0,0 +1,35 @@
+/* Copyright 2016 Urban Airship and Contributors */
+
+package com.urbanairship.http;
+
+import android.support.annotation.NonNull;
+
+import java.io.IOException;
+import java.net.HttpURLConnection;
+import java.net.URL;
+
+/**
+ * Opens and releases the connections used by {@link Request}.
+ */
+public interface HttpTransport {
+
+    /**
+     * Opens a connection for the URL.
+     *
+     * @param url The request URL.
+     * @return The connection.
+     * @throws IOException if the connection fails to open.
+     */
+    @NonNull
+    HttpURLConnection openConnection(@NonNull URL url) throws IOException;
+
+    /**
+     * Releases a connection once the request is finished. The request fully reads and closes
+     * the response streams before a successful release.
+     *
+     * @param connection The connection.
+     * @param failed {@code true} if the request failed and the connection is in an unknown
+     * state, otherwise {@code false}.
+     */
+    void releaseConnection(@NonNull HttpURLConnection connection, boolean failed);
+}
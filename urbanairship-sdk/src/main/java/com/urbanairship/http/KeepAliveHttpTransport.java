@@ -0,0 +1,87 @@
+/* Copyright 2016 Urban Airship and Contributors */
+
+package com.urbanairship.http;
+
+import android.support.annotation.NonNull;
+
+import java.io.IOException;
+import java.net.HttpURLConnection;
+import java.net.URL;
+
+/**
+ * {@link HttpTransport} that keeps connections alive between requests. Connections are only
+ * disconnected after a failure, so fully read responses return the underlying socket to the
+ * platform's connection pool and later requests to the same host skip the TCP and TLS
+ * handshakes.
+ */
+public class KeepAliveHttpTransport implements HttpTransport {
+
+    /**
+     * Default connect timeout in milliseconds.
+     */
+    public static final int DEFAULT_CONNECT_TIMEOUT_MS = 30000; // 30 seconds
+
+    /**
+     * Default read timeout in milliseconds.
+     */
+    public static final int DEFAULT_READ_TIMEOUT_MS = 60000; // 60 seconds
+
+    private final int connectTimeoutMs;
+    private final int readTimeoutMs;
+
+    /**
+     * Creates a transport with the default timeouts.
+     */
+    public KeepAliveHttpTransport() {
+        this(DEFAULT_CONNECT_TIMEOUT_MS, DEFAULT_READ_TIMEOUT_MS);
+    }
+
+    /**
+     * Creates a transport.
+     *
+     * @param connectTimeoutMs The connect timeout in milliseconds, or 0 for no timeout.
+     * @param readTimeoutMs The read timeout in milliseconds, or 0 for no timeout.
+     */
+    public KeepAliveHttpTransport(int connectTimeoutMs, int readTimeoutMs) {
+        if (connectTimeoutMs < 0 || readTimeoutMs < 0) {
+            throw new IllegalArgumentException("Timeouts must be greater than or equal to 0.");
+        }
+
+        this.connectTimeoutMs = connectTimeoutMs;
+        this.readTimeoutMs = readTimeoutMs;
+    }
+
+    @NonNull
+    @Override
+    public HttpURLConnection openConnection(@NonNull URL url) throws IOException {
+        HttpURLConnection connection = (HttpURLConnection) url.openConnection();
+        connection.setConnectTimeout(connectTimeoutMs);
+        connection.setReadTimeout(readTimeoutMs);
+        return connection;
+    }
+
+    @Override
+    public void releaseConnection(@NonNull HttpURLConnection connection, boolean failed) {
+        if (failed) {
+            connection.disconnect();
+        }
+    }
+
+    /**
+     * Gets the connect timeout in milliseconds.
+     *
+     * @return The connect timeout.
+     */
+    public int getConnectTimeout() {
+        return connectTimeoutMs;
+    }
+
+    /**
+     * Gets the read timeout in milliseconds.
+     *
+     * @return The read timeout.
+     */
+    public int getReadTimeout() {
+        return readTimeoutMs;
+    }
+}
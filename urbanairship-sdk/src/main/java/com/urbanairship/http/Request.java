@@ -4,16 +4,18 @@ package com.urbanairship.http;
 
 import android.os.Build;
 import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
 import android.util.Base64;
 
 import com.urbanairship.Logger;
 import com.urbanairship.UAirship;
 import com.urbanairship.util.UAStringUtil;
 
-import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
+import java.io.Reader;
 import java.io.OutputStream;
 import java.io.OutputStreamWriter;
 import java.io.Writer;
@@ -34,9 +36,12 @@ public class Request {
     protected String password;
     protected String requestMethod;
     protected String body;
+    protected RequestBodyWriter bodyWriter;
     protected String contentType;
 
     protected final Map<String, String> responseProperties;
+    private final HttpTransport transport;
+    private static final int BUFFER_SIZE = 8192;
     private static final String USER_AGENT_FORMAT = "%s (%s; %s; UrbanAirshipLib-%s/%s; %s; %s)";
     private long ifModifiedSince = 0;
     private boolean compressRequestBody = false;
@@ -48,8 +53,20 @@ public class Request {
      * @param url The request URL.
      */
     public Request(@NonNull String requestMethod, @NonNull URL url) {
+        this(requestMethod, url, RequestFactory.getDefaultTransport());
+    }
+
+    /**
+     * Request constructor.
+     *
+     * @param requestMethod The string request method.
+     * @param url The request URL.
+     * @param transport The transport used to open and release the connection.
+     */
+    public Request(@NonNull String requestMethod, @NonNull URL url, @NonNull HttpTransport transport) {
         this.requestMethod = requestMethod;
         this.url = url;
+        this.transport = transport;
 
         responseProperties = new HashMap<>();
         responseProperties.put("User-Agent", getUrbanAirshipUserAgent());
@@ -80,6 +97,23 @@ public class Request {
     @NonNull
     public Request setRequestBody(String body, String contentType) {
         this.body = body;
+        this.bodyWriter = null;
+        this.contentType = contentType;
+        return this;
+    }
+
+    /**
+     * Sets a streaming request body. The body is written directly to the connection
+     * using chunked transfer encoding.
+     *
+     * @param bodyWriter The body writer.
+     * @param contentType The string content type.
+     * @return The request.
+     */
+    @NonNull
+    public Request setRequestBody(RequestBodyWriter bodyWriter, String contentType) {
+        this.bodyWriter = bodyWriter;
+        this.body = null;
         this.contentType = contentType;
         return this;
     }
@@ -136,17 +170,34 @@ public class Request {
      * @return The request response.
      */
     public Response execute() {
+        return execute(null);
+    }
+
+    /**
+     * Executes the request. If a body reader is provided, a successful response body is
+     * streamed to the reader instead of being set on the response.
+     *
+     * @param bodyReader The optional response body reader.
+     * @return The request response.
+     */
+    public Response execute(@Nullable ResponseBodyReader bodyReader) {
         HttpURLConnection conn = null;
+        boolean failed = true;
 
         try {
-            conn = (HttpURLConnection) url.openConnection();
+            conn = transport.openConnection(url);
             conn.setRequestMethod(requestMethod);
 
-            if (body != null) {
+            if (body != null || bodyWriter != null) {
                 conn.setDoOutput(true);
                 conn.setRequestProperty("Content-Type", contentType);
             }
 
+            if (bodyWriter != null) {
+                // Stream the body in chunks instead of buffering it to compute the content length
+                conn.setChunkedStreamingMode(0);
+            }
+
             conn.setDoInput(true);
             conn.setUseCaches(false);
             conn.setAllowUserInteraction(false);
@@ -183,6 +234,19 @@ public class Request {
                     writer.close();
                     out.close();
                 }
+            } else if (bodyWriter != null) {
+                if (compressRequestBody) {
+                    conn.setRequestProperty("Content-Encoding", "gzip");
+                    OutputStream out = conn.getOutputStream();
+                    GZIPOutputStream gos = new GZIPOutputStream(out);
+                    bodyWriter.writeTo(gos);
+                    gos.close();
+                    out.close();
+                } else {
+                    OutputStream out = conn.getOutputStream();
+                    bodyWriter.writeTo(out);
+                    out.close();
+                }
             }
 
             Response.Builder responseBuilder = new Response.Builder(conn.getResponseCode())
@@ -191,12 +255,24 @@ public class Request {
                     .setLastModified(conn.getLastModified());
 
 
+            InputStream inputStream;
             try {
-                responseBuilder.setResponseBody(readEntireStream(conn.getInputStream()));
+                inputStream = conn.getInputStream();
             } catch (IOException ex) {
+                inputStream = null;
                 responseBuilder.setResponseBody(readEntireStream(conn.getErrorStream()));
             }
 
+            if (inputStream != null) {
+                if (bodyReader != null) {
+                    readStream(inputStream, conn.getResponseCode(), bodyReader);
+                } else {
+                    responseBuilder.setResponseBody(readEntireStream(inputStream));
+                }
+            }
+
+            // The response streams are fully read and closed, so the connection can be reused
+            failed = false;
             return responseBuilder.create();
 
         } catch (Exception ex) {
@@ -204,7 +280,7 @@ public class Request {
             return null;
         } finally {
             if (conn != null) {
-                conn.disconnect();
+                transport.releaseConnection(conn, failed);
             }
         }
     }
@@ -223,31 +299,63 @@ public class Request {
                 UAirship.shared().getAirshipConfigOptions().getAppKey(), Locale.getDefault());
     }
 
-    private String readEntireStream(InputStream input) throws IOException {
+    /**
+     * Streams the input to the body reader, then drains and closes the input so the
+     * connection can be reused.
+     *
+     * @param input The input stream.
+     * @param status The response status code.
+     * @param bodyReader The body reader.
+     * @throws IOException if reading from the stream fails.
+     */
+    private void readStream(@NonNull InputStream input, int status, @NonNull ResponseBodyReader bodyReader) throws IOException {
+        Reader reader = new InputStreamReader(input, "UTF-8");
+
+        try {
+            bodyReader.readFrom(status, reader);
+
+            byte[] buffer = new byte[BUFFER_SIZE];
+            while (input.read(buffer) != -1) {
+                // Discard any unread data
+            }
+        } finally {
+            try {
+                reader.close();
+            } catch (IOException e) {
+                Logger.error("Failed to close streams", e);
+            }
+        }
+    }
+
+    /**
+     * Reads the entire input as a UTF-8 string.
+     *
+     * @param input The input stream.
+     * @return The decoded string, or null if the input is null.
+     * @throws IOException if reading from the stream fails.
+     */
+    @Nullable
+    private String readEntireStream(@Nullable InputStream input) throws IOException {
         if (input == null) {
             return null;
         }
 
-        BufferedReader br = new BufferedReader(new InputStreamReader(input));
-        StringBuilder sb = new StringBuilder();
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
 
         try {
-            String inputLine;
-            while ((inputLine = br.readLine()) != null) {
-                sb.append(inputLine).append("\n");
+            byte[] buffer = new byte[BUFFER_SIZE];
+            int count;
+            while ((count = input.read(buffer)) != -1) {
+                outputStream.write(buffer, 0, count);
             }
-            br.close();
         } finally {
             try {
                 input.close();
-                br.close();
-            } catch (Exception e) {
+            } catch (IOException e) {
                 Logger.error("Failed to close streams", e);
             }
         }
 
-        return sb.toString();
+        return outputStream.toString("UTF-8");
     }
-
-
 }
@@ -0,0 +1,26 @@
+/* Copyright 2016 Urban Airship and Contributors */
+
+package com.urbanairship.http;
+
+import android.support.annotation.NonNull;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Writes a request body directly to the connection's output stream. Used to stream
+ * large request bodies without building them as a single string.
+ *
+ * @hide
+ */
+public interface RequestBodyWriter {
+
+    /**
+     * Writes the request body. The stream is already wrapped with gzip if the request
+     * body is compressed and will be closed by the request.
+     *
+     * @param outputStream The output stream.
+     * @throws IOException if writing to the stream fails.
+     */
+    void writeTo(@NonNull OutputStream outputStream) throws IOException;
+}
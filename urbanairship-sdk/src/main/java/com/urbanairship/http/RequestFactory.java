@@ -11,6 +11,26 @@ import java.net.URL;
  */
 public class RequestFactory {
 
+    private static HttpTransport defaultTransport = new KeepAliveHttpTransport();
+
+    private final HttpTransport transport;
+
+    /**
+     * Creates a request factory that uses the default transport.
+     */
+    public RequestFactory() {
+        this(getDefaultTransport());
+    }
+
+    /**
+     * Creates a request factory.
+     *
+     * @param transport The transport used by the created requests.
+     */
+    public RequestFactory(@NonNull HttpTransport transport) {
+        this.transport = transport;
+    }
+
     /**
      * Creates the request.
      *
@@ -20,6 +40,29 @@ public class RequestFactory {
      */
     @NonNull
     public Request createRequest(String requestMethod, URL url) {
-        return new Request(requestMethod, url);
+        return new Request(requestMethod, url, transport);
+    }
+
+    /**
+     * Sets the default transport used by requests. Defaults to a {@link KeepAliveHttpTransport}.
+     *
+     * @param transport The default transport.
+     */
+    public static void setDefaultTransport(@NonNull HttpTransport transport) {
+        synchronized (RequestFactory.class) {
+            defaultTransport = transport;
+        }
+    }
+
+    /**
+     * Gets the default transport.
+     *
+     * @return The default transport.
+     */
+    @NonNull
+    public static HttpTransport getDefaultTransport() {
+        synchronized (RequestFactory.class) {
+            return defaultTransport;
+        }
     }
 }
@@ -0,0 +1,27 @@
+/* Copyright 2016 Urban Airship and Contributors */
+
+package com.urbanairship.http;
+
+import android.support.annotation.NonNull;
+
+import java.io.IOException;
+import java.io.Reader;
+
+/**
+ * Reads a successful response body directly from the connection's input stream. Used to
+ * consume large response bodies incrementally instead of buffering them as a single string.
+ *
+ * @hide
+ */
+public interface ResponseBodyReader {
+
+    /**
+     * Reads the response body. The reader decodes the body as UTF-8 and will be closed
+     * by the request.
+     *
+     * @param status The response status code.
+     * @param reader The body reader.
+     * @throws IOException if reading from the stream fails.
+     */
+    void readFrom(int status, @NonNull Reader reader) throws IOException;
+}
@@ -6,8 +6,10 @@ import android.app.AlarmManager;
 import android.app.PendingIntent;
 import android.content.Context;
 import android.content.Intent;
+import android.os.Bundle;
 import android.os.SystemClock;
 import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
 import android.support.annotation.VisibleForTesting;
 import android.support.v4.content.WakefulBroadcastReceiver;
 
@@ -15,6 +17,10 @@ import com.urbanairship.AirshipService;
 import com.urbanairship.Logger;
 import com.urbanairship.UAirship;
 
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.TimeUnit;
 
 /**
@@ -22,12 +28,19 @@ import java.util.concurrent.TimeUnit;
  * a job is dispatched with a delay it will be scheduled using the AlarmManager. A job will start
  * the {@link AirshipService} where the component defined by the job will receive the dispatched job
  * in the {@link com.urbanairship.AirshipComponent#onPerformJob(UAirship, Job)}.
+ * <p/>
+ * The shared dispatcher performs immediate jobs directly in the app process when UAirship is
+ * flying, without starting the service. A job that is dispatched while an identical job is still
+ * waiting to run is coalesced into the pending job.
  *
  * @hide
  */
 public class JobDispatcher {
 
     private final Context context;
+    private final boolean inProcessEnabled;
+    private final Map<String, Job> pendingJobs = new HashMap<>();
+    private final Set<String> unscheduledActions = new HashSet<>();
     private static JobDispatcher instance;
 
     /**
@@ -40,7 +53,7 @@ public class JobDispatcher {
         if (instance == null) {
             synchronized (JobDispatcher.class) {
                 if (instance == null) {
-                    instance = new JobDispatcher(context);
+                    instance = new JobDispatcher(context, true);
                 }
             }
         }
@@ -50,7 +63,13 @@ public class JobDispatcher {
 
     @VisibleForTesting
     JobDispatcher(Context context) {
+        this(context, false);
+    }
+
+    @VisibleForTesting
+    JobDispatcher(Context context, boolean inProcessEnabled) {
         this.context = context.getApplicationContext();
+        this.inProcessEnabled = inProcessEnabled;
     }
 
     /**
@@ -59,7 +78,12 @@ public class JobDispatcher {
      * @param job The job.
      */
     public void dispatch(@NonNull Job job) {
-        cancel(job.getAction());
+        cancelScheduled(job.getAction());
+
+        if (inProcessEnabled && dispatchInProcess(job)) {
+            return;
+        }
+
         context.startService(createJobIntent(job, 0));
     }
 
@@ -71,7 +95,7 @@ public class JobDispatcher {
      * @param job The job.
      */
     public void wakefulDispatch(@NonNull Job job) {
-        cancel(job.getAction());
+        cancelScheduled(job.getAction());
         WakefulBroadcastReceiver.startWakefulService(context, createJobIntent(job, 0));
     }
 
@@ -91,6 +115,10 @@ public class JobDispatcher {
 
         Intent intent = createJobIntent(job, delayMillis);
 
+        synchronized (unscheduledActions) {
+            unscheduledActions.remove(job.getAction());
+        }
+
         // Schedule the intent
         AlarmManager alarmManager = (AlarmManager) context.getSystemService(Context.ALARM_SERVICE);
         PendingIntent pendingIntent = PendingIntent.getService(context, 0, intent, PendingIntent.FLAG_UPDATE_CURRENT);
@@ -119,6 +147,119 @@ public class JobDispatcher {
             alarmManager.cancel(pendingIntent);
             pendingIntent.cancel();
         }
+
+        synchronized (unscheduledActions) {
+            unscheduledActions.add(action);
+        }
+    }
+
+    /**
+     * Cancels any scheduled job for the action. The alarm lookup is skipped once the action is
+     * known to have no scheduled job in this process.
+     *
+     * @param action The job's action.
+     */
+    private void cancelScheduled(String action) {
+        synchronized (unscheduledActions) {
+            if (unscheduledActions.contains(action)) {
+                return;
+            }
+        }
+
+        cancel(action);
+    }
+
+    /**
+     * Performs the job in the current process.
+     *
+     * @param job The job.
+     * @return {@code true} if the job was performed or coalesced into a pending job, {@code false}
+     * if the job has to be dispatched to the service.
+     */
+    private boolean dispatchInProcess(@NonNull final Job job) {
+        final String key = job.getAirshipComponentName() + ":" + job.getAction();
+
+        synchronized (pendingJobs) {
+            Job pendingJob = pendingJobs.get(key);
+            if (pendingJob != null && extrasEqual(pendingJob.getExtras(), job.getExtras())) {
+                Logger.verbose("JobDispatcher - Coalescing job: " + job.getAction());
+                return true;
+            }
+
+            pendingJobs.put(key, job);
+        }
+
+        Runnable onStart = new Runnable() {
+            @Override
+            public void run() {
+                removePendingJob(key, job);
+            }
+        };
+
+        if (performJobInProcess(job, onStart)) {
+            return true;
+        }
+
+        removePendingJob(key, job);
+        return false;
+    }
+
+    /**
+     * Performs the job on its component's executor in the current process.
+     *
+     * @param job The job.
+     * @param onStart Runnable called right before the job is performed.
+     * @return {@code true} if the job was started, otherwise {@code false}.
+     */
+    @VisibleForTesting
+    boolean performJobInProcess(@NonNull Job job, @NonNull Runnable onStart) {
+        return AirshipService.performJobInProcess(context, job, onStart);
+    }
+
+    /**
+     * Removes a job from the pending jobs once it starts so later dispatches run again.
+     *
+     * @param key The job key.
+     * @param job The job.
+     */
+    private void removePendingJob(String key, Job job) {
+        synchronized (pendingJobs) {
+            if (pendingJobs.get(key) == job) {
+                pendingJobs.remove(key);
+            }
+        }
+    }
+
+    /**
+     * Checks if two job extras contain the same values.
+     *
+     * @param first The first extras.
+     * @param second The second extras.
+     * @return {@code true} if the extras are equal, otherwise {@code false}.
+     */
+    private static boolean extrasEqual(@Nullable Bundle first, @Nullable Bundle second) {
+        if (first == null || first.isEmpty()) {
+            return second == null || second.isEmpty();
+        }
+
+        if (second == null || !first.keySet().equals(second.keySet())) {
+            return false;
+        }
+
+        for (String key : first.keySet()) {
+            Object firstValue = first.get(key);
+            Object secondValue = second.get(key);
+
+            if (firstValue instanceof Bundle && secondValue instanceof Bundle) {
+                if (!extrasEqual((Bundle) firstValue, (Bundle) secondValue)) {
+                    return false;
+                }
+            } else if (firstValue == null ? secondValue != null : !firstValue.equals(secondValue)) {
+                return false;
+            }
+        }
+
+        return true;
     }
 
     /**
@@ -6,9 +6,8 @@ import android.support.annotation.Nullable;
 
 import com.urbanairship.Logger;
 
-import org.json.JSONException;
-import org.json.JSONStringer;
-
+import java.io.IOException;
+import java.io.StringWriter;
 import java.util.ArrayList;
 import java.util.Iterator;
 import java.util.List;
@@ -142,29 +141,16 @@ public class JsonList implements Iterable<JsonValue>, JsonSerializable {
      */
     @Override
     public String toString() {
+        StringWriter stringWriter = new StringWriter();
         try {
-            JSONStringer stringer = new JSONStringer();
-            write(stringer);
-            return stringer.toString();
-        } catch (JSONException e) {
+            toJsonValue().write(stringWriter);
+        } catch (IOException e) {
             // Should never happen
             Logger.error("JsonList - Failed to create JSON String.", e);
             return "";
         }
-    }
 
-    /**
-     * Helper method that is used to write the list as a JSON String.
-     *
-     * @param stringer The JSONStringer object.
-     * @throws org.json.JSONException If the value is unable to be written as JSON.
-     */
-    void write(JSONStringer stringer) throws JSONException {
-        stringer.array();
-        for (JsonValue actionValue : this) {
-            actionValue.write(stringer);
-        }
-        stringer.endArray();
+        return stringWriter.toString();
     }
 
     @Override
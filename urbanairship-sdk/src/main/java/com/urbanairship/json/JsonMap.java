@@ -8,9 +8,8 @@ import android.support.annotation.Nullable;
 import com.urbanairship.Logger;
 import com.urbanairship.util.UAStringUtil;
 
-import org.json.JSONException;
-import org.json.JSONStringer;
-
+import java.io.IOException;
+import java.io.StringWriter;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashMap;
@@ -182,30 +181,16 @@ public class JsonMap implements Iterable<Map.Entry<String, JsonValue>>, JsonSeri
      */
     @Override
     public String toString() {
+        StringWriter stringWriter = new StringWriter();
         try {
-            JSONStringer stringer = new JSONStringer();
-            write(stringer);
-            return stringer.toString();
-        } catch (JSONException e) {
+            toJsonValue().write(stringWriter);
+        } catch (IOException e) {
             // Should never happen
             Logger.error("JsonMap - Failed to create JSON String.", e);
             return "";
         }
-    }
 
-    /**
-     * Helper method that is used to write the value as a JSON String.
-     *
-     * @param stringer The JSONStringer object.
-     * @throws org.json.JSONException If the value is unable to be written as JSON.
-     */
-    void write(JSONStringer stringer) throws JSONException {
-        stringer.object();
-        for (Map.Entry<String, JsonValue> entry : entrySet()) {
-            stringer.key(entry.getKey());
-            entry.getValue().write(stringer);
-        }
-        stringer.endObject();
+        return stringWriter.toString();
     }
 
     @Override
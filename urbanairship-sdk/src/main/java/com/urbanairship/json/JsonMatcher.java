@@ -57,6 +57,33 @@ public class JsonMatcher implements JsonSerializable, Predicate<JsonSerializable
         return value.apply(jsonValue);
     }
 
+    /**
+     * Gets the key.
+     *
+     * @return The key, or null if the matcher applies to the scoped value.
+     */
+    String getKey() {
+        return key;
+    }
+
+    /**
+     * Gets the scope.
+     *
+     * @return The scope as a list of fields.
+     */
+    List<String> getScope() {
+        return scopeList;
+    }
+
+    /**
+     * Gets the value matcher.
+     *
+     * @return The ValueMatcher instance.
+     */
+    ValueMatcher getValueMatcher() {
+        return value;
+    }
+
     /**
      * Parses a JsonValue object into a JsonMatcher.
      *
@@ -159,6 +159,25 @@ public class JsonPredicate implements JsonSerializable, Predicate<JsonSerializab
 
     }
 
+    /**
+     * Gets the predicate type.
+     *
+     * @return The predicate type.
+     */
+    @PredicateType
+    String getPredicateType() {
+        return type;
+    }
+
+    /**
+     * Gets the child matchers and predicates.
+     *
+     * @return The child matchers and predicates.
+     */
+    List<Predicate<JsonSerializable>> getItems() {
+        return items;
+    }
+
     /**
      * Builder class.
      */
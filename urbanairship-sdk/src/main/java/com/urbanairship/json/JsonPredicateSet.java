@@ -0,0 +1,491 @@
+/* Copyright 2016 Urban Airship and Contributors */
+
+package com.urbanairship.json;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+import com.urbanairship.Predicate;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A set of {@link JsonPredicate}s compiled into a shared evaluation plan. Each distinct scope and
+ * key path is extracted from the value once, equality matchers on the same field are grouped into
+ * a hash lookup, and number ranges are checked as primitive intervals. The predicate trees are
+ * then evaluated against the matcher results, so applying the set costs roughly the number of
+ * distinct fields instead of the number of predicates times their depth.
+ * <p/>
+ * The set is immutable and may be applied from any thread.
+ *
+ * @hide
+ */
+public class JsonPredicateSet {
+
+    private final PathNode root;
+    private final Field[] fields;
+    private final int leafCount;
+    private final Node[] predicates;
+
+    private JsonPredicateSet(Builder builder) {
+        this.root = builder.root;
+        this.fields = new Field[builder.fields.size()];
+        for (int i = 0; i < fields.length; i++) {
+            fields[i] = builder.fields.get(i).build();
+        }
+        this.leafCount = builder.leafCount;
+        this.predicates = builder.predicates.toArray(new Node[builder.predicates.size()]);
+    }
+
+    /**
+     * Builder factory method.
+     *
+     * @return A new builder instance.
+     */
+    public static Builder newBuilder() {
+        return new Builder();
+    }
+
+    /**
+     * Gets the number of distinct predicates in the set.
+     *
+     * @return The number of predicates.
+     */
+    public int size() {
+        return predicates.length;
+    }
+
+    /**
+     * Applies every predicate in the set against a value.
+     *
+     * @param jsonSerializable The value.
+     * @return An array of results indexed by the value returned from {@link Builder#add(JsonPredicate)}.
+     */
+    @NonNull
+    public boolean[] apply(@Nullable JsonSerializable jsonSerializable) {
+        JsonValue jsonValue = jsonSerializable == null ? JsonValue.NULL : jsonSerializable.toJsonValue();
+        if (jsonValue == null) {
+            jsonValue = JsonValue.NULL;
+        }
+
+        // Extract each distinct path once
+        JsonValue[] values = new JsonValue[fields.length];
+        root.extract(jsonValue, values);
+
+        // Evaluate each distinct matcher once
+        boolean[] leaves = new boolean[leafCount];
+        for (Field field : fields) {
+            field.evaluate(values[field.index], leaves);
+        }
+
+        boolean[] results = new boolean[predicates.length];
+        for (int i = 0; i < predicates.length; i++) {
+            results[i] = predicates[i].evaluate(leaves, jsonValue);
+        }
+
+        return results;
+    }
+
+    /**
+     * Builder class.
+     */
+    public static class Builder {
+
+        private final PathNode root = new PathNode();
+        private final List<FieldBuilder> fields = new ArrayList<>();
+        private final Map<List<Object>, Integer> leafIds = new HashMap<>();
+        private final Map<JsonPredicate, Integer> predicateIds = new HashMap<>();
+        private final List<Node> predicates = new ArrayList<>();
+        private int leafCount = 0;
+
+        private Builder() {
+
+        }
+
+        /**
+         * Adds a predicate to the set. Equal predicates share a single entry.
+         *
+         * @param predicate The JsonPredicate instance.
+         * @return The index of the predicate's result in {@link JsonPredicateSet#apply(JsonSerializable)}.
+         */
+        public int add(@NonNull JsonPredicate predicate) {
+            Integer id = predicateIds.get(predicate);
+            if (id != null) {
+                return id;
+            }
+
+            id = predicates.size();
+            predicates.add(compile(predicate));
+            predicateIds.put(predicate, id);
+            return id;
+        }
+
+        /**
+         * Builds the JsonPredicateSet instance. The builder should not be modified afterwards.
+         *
+         * @return The JsonPredicateSet instance.
+         */
+        public JsonPredicateSet build() {
+            return new JsonPredicateSet(this);
+        }
+
+        /**
+         * Compiles a predicate or matcher into an evaluation node.
+         *
+         * @param predicate The predicate.
+         * @return The compiled node.
+         */
+        private Node compile(Predicate<JsonSerializable> predicate) {
+            if (predicate instanceof JsonMatcher) {
+                return Node.leaf(addLeaf((JsonMatcher) predicate));
+            }
+
+            if (predicate instanceof JsonPredicate) {
+                JsonPredicate jsonPredicate = (JsonPredicate) predicate;
+                List<Predicate<JsonSerializable>> items = jsonPredicate.getItems();
+
+                Node[] children = new Node[items.size()];
+                for (int i = 0; i < children.length; i++) {
+                    children[i] = compile(items.get(i));
+                }
+
+                return Node.branch(jsonPredicate.getPredicateType(), children);
+            }
+
+            return Node.opaque(predicate);
+        }
+
+        /**
+         * Adds a matcher leaf, reusing an existing leaf for the same path and value matcher.
+         *
+         * @param matcher The JsonMatcher.
+         * @return The leaf ID.
+         */
+        private int addLeaf(JsonMatcher matcher) {
+            List<String> path = new ArrayList<>(matcher.getScope());
+            if (matcher.getKey() != null) {
+                path.add(matcher.getKey());
+            }
+
+            List<Object> leafKey = new ArrayList<Object>(path);
+            leafKey.add(matcher.getValueMatcher());
+
+            Integer leafId = leafIds.get(leafKey);
+            if (leafId != null) {
+                return leafId;
+            }
+
+            PathNode node = root;
+            for (String segment : path) {
+                PathNode child = node.children.get(segment);
+                if (child == null) {
+                    child = new PathNode();
+                    node.children.put(segment, child);
+                }
+                node = child;
+            }
+
+            if (node.field == -1) {
+                node.field = fields.size();
+                fields.add(new FieldBuilder(node.field));
+            }
+
+            leafId = leafCount++;
+            fields.get(node.field).add(matcher.getValueMatcher(), leafId);
+            leafIds.put(leafKey, leafId);
+            return leafId;
+        }
+    }
+
+    /**
+     * A node in the path trie. Paths that share a prefix share the lookups for that prefix.
+     */
+    private static class PathNode {
+        final Map<String, PathNode> children = new HashMap<>();
+        int field = -1;
+
+        void extract(@NonNull JsonValue value, @NonNull JsonValue[] values) {
+            if (field != -1) {
+                values[field] = value;
+            }
+
+            if (children.isEmpty()) {
+                return;
+            }
+
+            JsonMap map = value.getMap();
+            for (Map.Entry<String, PathNode> entry : children.entrySet()) {
+                JsonValue child = map == null ? JsonValue.NULL : map.opt(entry.getKey());
+                entry.getValue().extract(child, values);
+            }
+        }
+    }
+
+    /**
+     * Compiled value matchers for a single field.
+     */
+    private static class Field {
+        final int index;
+
+        // Numbers are keyed by their double value, everything else by the value itself
+        final Map<Object, EqualsLeaf[]> equalsLookup;
+        final EqualsLeaf[] unhashedEquals;
+
+        final int[] presentLeaves;
+        final int[] absentLeaves;
+        final int[] anyLeaves;
+
+        final double[] rangeMins;
+        final double[] rangeMaxes;
+        final int[] rangeLeaves;
+
+        Field(FieldBuilder builder) {
+            this.index = builder.index;
+
+            this.equalsLookup = new HashMap<>();
+            for (Map.Entry<Object, List<EqualsLeaf>> entry : builder.equalsLookup.entrySet()) {
+                equalsLookup.put(entry.getKey(), entry.getValue().toArray(new EqualsLeaf[entry.getValue().size()]));
+            }
+            this.unhashedEquals = builder.unhashedEquals.toArray(new EqualsLeaf[builder.unhashedEquals.size()]);
+
+            this.presentLeaves = toIntArray(builder.presentLeaves);
+            this.absentLeaves = toIntArray(builder.absentLeaves);
+            this.anyLeaves = toIntArray(builder.anyLeaves);
+
+            int rangeCount = builder.rangeLeaves.size();
+            this.rangeMins = new double[rangeCount];
+            this.rangeMaxes = new double[rangeCount];
+            this.rangeLeaves = new int[rangeCount];
+            for (int i = 0; i < rangeCount; i++) {
+                rangeMins[i] = builder.rangeMins.get(i);
+                rangeMaxes[i] = builder.rangeMaxes.get(i);
+                rangeLeaves[i] = builder.rangeLeaves.get(i);
+            }
+        }
+
+        void evaluate(@NonNull JsonValue value, @NonNull boolean[] leaves) {
+            for (int leaf : anyLeaves) {
+                leaves[leaf] = true;
+            }
+
+            for (int leaf : value.isNull() ? absentLeaves : presentLeaves) {
+                leaves[leaf] = true;
+            }
+
+            if (!equalsLookup.isEmpty()) {
+                Object key = lookupKey(value);
+                EqualsLeaf[] candidates = key == null ? null : equalsLookup.get(key);
+                if (candidates != null) {
+                    for (EqualsLeaf candidate : candidates) {
+                        leaves[candidate.leaf] = candidate.value.equals(value);
+                    }
+                }
+            }
+
+            for (EqualsLeaf candidate : unhashedEquals) {
+                leaves[candidate.leaf] = candidate.value.equals(value);
+            }
+
+            if (rangeLeaves.length > 0 && value.isNumber()) {
+                double number = value.getNumber().doubleValue();
+                for (int i = 0; i < rangeLeaves.length; i++) {
+                    leaves[rangeLeaves[i]] = number >= rangeMins[i] && number <= rangeMaxes[i];
+                }
+            }
+        }
+    }
+
+    /**
+     * Collects the value matchers for a single field.
+     */
+    private static class FieldBuilder {
+        final int index;
+        final Map<Object, List<EqualsLeaf>> equalsLookup = new HashMap<>();
+        final List<EqualsLeaf> unhashedEquals = new ArrayList<>();
+        final List<Integer> presentLeaves = new ArrayList<>();
+        final List<Integer> absentLeaves = new ArrayList<>();
+        final List<Integer> anyLeaves = new ArrayList<>();
+        final List<Double> rangeMins = new ArrayList<>();
+        final List<Double> rangeMaxes = new ArrayList<>();
+        final List<Integer> rangeLeaves = new ArrayList<>();
+
+        FieldBuilder(int index) {
+            this.index = index;
+        }
+
+        /**
+         * Adds a value matcher following the same precedence as {@link ValueMatcher#apply(JsonSerializable)}:
+         * equals, then presence, then range.
+         */
+        void add(ValueMatcher matcher, int leaf) {
+            if (matcher.getEquals() != null) {
+                JsonValue equals = matcher.getEquals();
+                Object key = lookupKey(equals);
+
+                if (key == null) {
+                    unhashedEquals.add(new EqualsLeaf(equals, leaf));
+                } else {
+                    List<EqualsLeaf> leaves = equalsLookup.get(key);
+                    if (leaves == null) {
+                        leaves = new ArrayList<>(1);
+                        equalsLookup.put(key, leaves);
+                    }
+                    leaves.add(new EqualsLeaf(equals, leaf));
+                }
+                return;
+            }
+
+            if (matcher.getIsPresent() != null) {
+                if (matcher.getIsPresent()) {
+                    presentLeaves.add(leaf);
+                } else {
+                    absentLeaves.add(leaf);
+                }
+                return;
+            }
+
+            if (matcher.getMin() == null && matcher.getMax() == null) {
+                anyLeaves.add(leaf);
+                return;
+            }
+
+            rangeMins.add(matcher.getMin() == null ? Double.NEGATIVE_INFINITY : matcher.getMin());
+            rangeMaxes.add(matcher.getMax() == null ? Double.POSITIVE_INFINITY : matcher.getMax());
+            rangeLeaves.add(leaf);
+        }
+
+        Field build() {
+            return new Field(this);
+        }
+    }
+
+    /**
+     * An equals matcher leaf.
+     */
+    private static class EqualsLeaf {
+        final JsonValue value;
+        final int leaf;
+
+        EqualsLeaf(JsonValue value, int leaf) {
+            this.value = value;
+            this.leaf = leaf;
+        }
+    }
+
+    /**
+     * A compiled predicate tree node. Predicates that are not a JsonMatcher or JsonPredicate
+     * are kept as opaque nodes and applied directly.
+     */
+    private static class Node {
+        static final int LEAF = 0;
+        static final int AND = 1;
+        static final int OR = 2;
+        static final int NOT = 3;
+        static final int OPAQUE = 4;
+
+        final int type;
+        final int leaf;
+        final Node[] children;
+        final Predicate<JsonSerializable> opaque;
+
+        private Node(int type, int leaf, Node[] children, Predicate<JsonSerializable> opaque) {
+            this.type = type;
+            this.leaf = leaf;
+            this.children = children;
+            this.opaque = opaque;
+        }
+
+        static Node leaf(int leaf) {
+            return new Node(LEAF, leaf, null, null);
+        }
+
+        static Node branch(@JsonPredicate.PredicateType String predicateType, Node[] children) {
+            int type;
+            switch (predicateType) {
+                case JsonPredicate.NOT_PREDICATE_TYPE:
+                    type = NOT;
+                    break;
+                case JsonPredicate.AND_PREDICATE_TYPE:
+                    type = AND;
+                    break;
+                case JsonPredicate.OR_PREDICATE_TYPE:
+                default:
+                    type = OR;
+                    break;
+            }
+
+            return new Node(type, -1, children, null);
+        }
+
+        static Node opaque(Predicate<JsonSerializable> predicate) {
+            return new Node(OPAQUE, -1, null, predicate);
+        }
+
+        boolean evaluate(boolean[] leaves, JsonValue value) {
+            if (type == LEAF) {
+                return leaves[leaf];
+            }
+
+            if (type == OPAQUE) {
+                return opaque.apply(value);
+            }
+
+            if (children.length == 0) {
+                return true;
+            }
+
+            switch (type) {
+                case NOT:
+                    return !children[0].evaluate(leaves, value);
+
+                case AND:
+                    for (Node child : children) {
+                        if (!child.evaluate(leaves, value)) {
+                            return false;
+                        }
+                    }
+                    return true;
+
+                case OR:
+                default:
+                    for (Node child : children) {
+                        if (child.evaluate(leaves, value)) {
+                            return true;
+                        }
+                    }
+                    return false;
+            }
+        }
+    }
+
+    /**
+     * Gets the hash lookup key for a value. Numbers use their double value so values that are
+     * equal according to {@link JsonValue#equals(Object)} always share a key.
+     *
+     * @param value The value.
+     * @return The lookup key, or null if the value should not be hashed.
+     */
+    @Nullable
+    private static Object lookupKey(@NonNull JsonValue value) {
+        if (value.isNumber()) {
+            return value.getNumber().doubleValue();
+        }
+
+        if (value.isString() || value.isBoolean() || value.isNull()) {
+            return value;
+        }
+
+        return null;
+    }
+
+    private static int[] toIntArray(List<Integer> list) {
+        int[] array = new int[list.size()];
+        for (int i = 0; i < array.length; i++) {
+            array[i] = list.get(i);
+        }
+        return array;
+    }
+}
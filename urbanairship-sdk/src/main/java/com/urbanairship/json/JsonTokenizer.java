@@ -0,0 +1,665 @@
+/* Copyright 2016 Urban Airship and Contributors */
+
+package com.urbanairship.json;
+
+import android.support.annotation.IntDef;
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Reader;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Pull based JSON tokenizer. Reads JSON tokens from a {@link Reader} one at a time without
+ * buffering the entire document, and can build {@link JsonValue}s directly with {@link #nextValue()}.
+ * <p/>
+ * Parsing is as lenient as {@code org.json} so previously stored values keep parsing: single quoted
+ * and unquoted strings and names are accepted, integral numbers become an Integer or Long, everything else a
+ * Double, and content after the first top level value is ignored.
+ *
+ * @hide
+ */
+public class JsonTokenizer implements Closeable {
+
+    @IntDef({ BEGIN_OBJECT, END_OBJECT, BEGIN_ARRAY, END_ARRAY, NAME, STRING, NUMBER, BOOLEAN, NULL, END_DOCUMENT })
+    @Retention(RetentionPolicy.SOURCE)
+    public @interface Token {}
+
+    public static final int BEGIN_OBJECT = 1;
+    public static final int END_OBJECT = 2;
+    public static final int BEGIN_ARRAY = 3;
+    public static final int END_ARRAY = 4;
+    public static final int NAME = 5;
+    public static final int STRING = 6;
+    public static final int NUMBER = 7;
+    public static final int BOOLEAN = 8;
+    public static final int NULL = 9;
+    public static final int END_DOCUMENT = 10;
+
+    private static final int PEEKED_NONE = 0;
+
+    // Scopes
+    private static final int EMPTY_DOCUMENT = 0;
+    private static final int NONEMPTY_DOCUMENT = 1;
+    private static final int EMPTY_OBJECT = 2;
+    private static final int DANGLING_NAME = 3;
+    private static final int NONEMPTY_OBJECT = 4;
+    private static final int EMPTY_ARRAY = 5;
+    private static final int NONEMPTY_ARRAY = 6;
+
+    private static final int BUFFER_SIZE = 1024;
+
+    private final Reader reader;
+    private final char[] buffer = new char[BUFFER_SIZE];
+    private int position = 0;
+    private int limit = 0;
+
+    private int[] stack = new int[32];
+    private int stackSize = 0;
+
+    private int peeked = PEEKED_NONE;
+    private String peekedString;
+    private Number peekedNumber;
+    private boolean peekedBoolean;
+
+    /**
+     * Creates a new tokenizer.
+     *
+     * @param reader The reader. The reader is buffered internally.
+     */
+    public JsonTokenizer(@NonNull Reader reader) {
+        this.reader = reader;
+        push(EMPTY_DOCUMENT);
+    }
+
+    /**
+     * Returns the type of the next token without consuming it.
+     *
+     * @return The next token.
+     * @throws IOException If reading fails.
+     * @throws JsonException If the JSON is malformed.
+     */
+    @Token
+    public int peek() throws IOException, JsonException {
+        if (peeked != PEEKED_NONE) {
+            return peeked;
+        }
+
+        int scope = stack[stackSize - 1];
+        int c;
+
+        switch (scope) {
+            case EMPTY_ARRAY:
+                stack[stackSize - 1] = NONEMPTY_ARRAY;
+                c = nextNonWhitespace();
+                if (c == ']') {
+                    return peeked = END_ARRAY;
+                }
+                if (c == -1) {
+                    throw syntaxError("Unexpected end of input");
+                }
+                position--;
+                break;
+
+            case NONEMPTY_ARRAY:
+                c = nextNonWhitespace();
+                if (c == ']') {
+                    return peeked = END_ARRAY;
+                }
+                if (c != ',') {
+                    throw syntaxError("Unterminated array");
+                }
+                break;
+
+            case EMPTY_OBJECT:
+            case NONEMPTY_OBJECT:
+                stack[stackSize - 1] = DANGLING_NAME;
+                c = nextNonWhitespace();
+                if (scope == NONEMPTY_OBJECT) {
+                    if (c == '}') {
+                        return peeked = END_OBJECT;
+                    }
+                    if (c != ',') {
+                        throw syntaxError("Unterminated object");
+                    }
+                    c = nextNonWhitespace();
+                }
+
+                if (c == '"' || c == '\'') {
+                    peekedString = readString((char) c);
+                    return peeked = NAME;
+                }
+
+                if (c == '}' && scope == EMPTY_OBJECT) {
+                    return peeked = END_OBJECT;
+                }
+
+                if (c == -1) {
+                    throw syntaxError("Unexpected end of input");
+                }
+
+                // Unquoted names are read the same as unquoted values
+                position--;
+                peekedString = readLiteralString();
+                if (peekedString.isEmpty()) {
+                    throw syntaxError("Expected name");
+                }
+                return peeked = NAME;
+
+            case DANGLING_NAME:
+                stack[stackSize - 1] = NONEMPTY_OBJECT;
+                if (nextNonWhitespace() != ':') {
+                    throw syntaxError("Expected ':'");
+                }
+                break;
+
+            case EMPTY_DOCUMENT:
+                stack[stackSize - 1] = NONEMPTY_DOCUMENT;
+                if (nextNonWhitespace() == -1) {
+                    return peeked = END_DOCUMENT;
+                }
+                position--;
+                break;
+
+            case NONEMPTY_DOCUMENT:
+            default:
+                // Ignore anything after the top level value
+                return peeked = END_DOCUMENT;
+        }
+
+        c = nextNonWhitespace();
+        switch (c) {
+            case '{':
+                return peeked = BEGIN_OBJECT;
+            case '[':
+                return peeked = BEGIN_ARRAY;
+            case '"':
+            case '\'':
+                peekedString = readString((char) c);
+                return peeked = STRING;
+            case -1:
+                throw syntaxError("Unexpected end of input");
+            default:
+                position--;
+                return peeked = readLiteral();
+        }
+    }
+
+    /**
+     * Checks if the current object or array has another element.
+     *
+     * @return {@code true} if there is another element, otherwise {@code false}.
+     * @throws IOException If reading fails.
+     * @throws JsonException If the JSON is malformed.
+     */
+    public boolean hasNext() throws IOException, JsonException {
+        int token = peek();
+        return token != END_OBJECT && token != END_ARRAY && token != END_DOCUMENT;
+    }
+
+    /**
+     * Consumes the start of an object.
+     *
+     * @throws IOException If reading fails.
+     * @throws JsonException If the next token is not the start of an object.
+     */
+    public void beginObject() throws IOException, JsonException {
+        expect(BEGIN_OBJECT);
+        push(EMPTY_OBJECT);
+    }
+
+    /**
+     * Consumes the end of an object.
+     *
+     * @throws IOException If reading fails.
+     * @throws JsonException If the next token is not the end of an object.
+     */
+    public void endObject() throws IOException, JsonException {
+        expect(END_OBJECT);
+        stackSize--;
+    }
+
+    /**
+     * Consumes the start of an array.
+     *
+     * @throws IOException If reading fails.
+     * @throws JsonException If the next token is not the start of an array.
+     */
+    public void beginArray() throws IOException, JsonException {
+        expect(BEGIN_ARRAY);
+        push(EMPTY_ARRAY);
+    }
+
+    /**
+     * Consumes the end of an array.
+     *
+     * @throws IOException If reading fails.
+     * @throws JsonException If the next token is not the end of an array.
+     */
+    public void endArray() throws IOException, JsonException {
+        expect(END_ARRAY);
+        stackSize--;
+    }
+
+    /**
+     * Consumes an object member name.
+     *
+     * @return The name.
+     * @throws IOException If reading fails.
+     * @throws JsonException If the next token is not a name.
+     */
+    @NonNull
+    public String nextName() throws IOException, JsonException {
+        expect(NAME);
+        return peekedString;
+    }
+
+    /**
+     * Consumes a string value.
+     *
+     * @return The string.
+     * @throws IOException If reading fails.
+     * @throws JsonException If the next token is not a string.
+     */
+    @NonNull
+    public String nextString() throws IOException, JsonException {
+        expect(STRING);
+        return peekedString;
+    }
+
+    /**
+     * Consumes a number value.
+     *
+     * @return The number as an Integer, Long, or Double.
+     * @throws IOException If reading fails.
+     * @throws JsonException If the next token is not a valid number.
+     */
+    @NonNull
+    public Number nextNumber() throws IOException, JsonException {
+        expect(NUMBER);
+        return peekedNumber;
+    }
+
+    /**
+     * Consumes a boolean value.
+     *
+     * @return The boolean.
+     * @throws IOException If reading fails.
+     * @throws JsonException If the next token is not a boolean.
+     */
+    public boolean nextBoolean() throws IOException, JsonException {
+        expect(BOOLEAN);
+        return peekedBoolean;
+    }
+
+    /**
+     * Consumes a null value.
+     *
+     * @throws IOException If reading fails.
+     * @throws JsonException If the next token is not null.
+     */
+    public void nextNull() throws IOException, JsonException {
+        expect(NULL);
+    }
+
+    /**
+     * Consumes the next value and builds it directly as a JsonValue. Null members of objects
+     * and arrays are dropped, the same as {@link JsonValue#wrap(Object)}.
+     *
+     * @return The JsonValue.
+     * @throws IOException If reading fails.
+     * @throws JsonException If the JSON is malformed.
+     */
+    @NonNull
+    public JsonValue nextValue() throws IOException, JsonException {
+        switch (peek()) {
+            case BEGIN_OBJECT:
+                Map<String, JsonValue> map = new HashMap<>();
+                beginObject();
+                while (hasNext()) {
+                    String name = nextName();
+                    JsonValue value = nextValue();
+                    if (!value.isNull()) {
+                        map.put(name, value);
+                    }
+                }
+                endObject();
+                return new JsonMap(map).toJsonValue();
+
+            case BEGIN_ARRAY:
+                List<JsonValue> list = new ArrayList<>();
+                beginArray();
+                while (hasNext()) {
+                    JsonValue value = nextValue();
+                    if (!value.isNull()) {
+                        list.add(value);
+                    }
+                }
+                endArray();
+                return new JsonList(list).toJsonValue();
+
+            case STRING:
+                return JsonValue.wrap(nextString());
+
+            case NUMBER:
+                return JsonValue.wrapOpt(nextNumber());
+
+            case BOOLEAN:
+                return JsonValue.wrap(nextBoolean());
+
+            case NULL:
+                nextNull();
+                return JsonValue.NULL;
+
+            case END_DOCUMENT:
+                // Empty document
+                consume();
+                return JsonValue.NULL;
+
+            default:
+                throw syntaxError("Expected a value");
+        }
+    }
+
+    /**
+     * Skips the next value, including any nested values.
+     *
+     * @throws IOException If reading fails.
+     * @throws JsonException If the JSON is malformed.
+     */
+    public void skipValue() throws IOException, JsonException {
+        int depth = 0;
+        do {
+            switch (peek()) {
+                case BEGIN_OBJECT:
+                    beginObject();
+                    depth++;
+                    break;
+                case BEGIN_ARRAY:
+                    beginArray();
+                    depth++;
+                    break;
+                case END_OBJECT:
+                    endObject();
+                    depth--;
+                    break;
+                case END_ARRAY:
+                    endArray();
+                    depth--;
+                    break;
+                case END_DOCUMENT:
+                    throw syntaxError("Unexpected end of input");
+                default:
+                    consume();
+                    break;
+            }
+        } while (depth > 0);
+    }
+
+    @Override
+    public void close() throws IOException {
+        peeked = PEEKED_NONE;
+        stackSize = 0;
+        reader.close();
+    }
+
+    /**
+     * Consumes the next token if it is of the expected type.
+     */
+    private void expect(@Token int token) throws IOException, JsonException {
+        if (peek() != token) {
+            throw syntaxError("Expected token " + token + " but was " + peeked);
+        }
+        consume();
+    }
+
+    private void consume() {
+        peeked = PEEKED_NONE;
+    }
+
+    private void push(int scope) {
+        if (stackSize == stack.length) {
+            int[] newStack = new int[stackSize * 2];
+            System.arraycopy(stack, 0, newStack, 0, stackSize);
+            stack = newStack;
+        }
+        stack[stackSize++] = scope;
+    }
+
+    /**
+     * Makes sure at least one character is buffered.
+     *
+     * @return {@code true} if a character is available, {@code false} at the end of input.
+     */
+    private boolean fill() throws IOException {
+        if (position < limit) {
+            return true;
+        }
+
+        int count = reader.read(buffer, 0, buffer.length);
+        if (count <= 0) {
+            position = limit = 0;
+            return false;
+        }
+
+        position = 0;
+        limit = count;
+        return true;
+    }
+
+    /**
+     * Reads the next character that is not whitespace.
+     *
+     * @return The character, or -1 at the end of input.
+     */
+    private int nextNonWhitespace() throws IOException {
+        while (fill()) {
+            char c = buffer[position++];
+            if (c != ' ' && c != '\n' && c != '\r' && c != '\t') {
+                return c;
+            }
+        }
+
+        return -1;
+    }
+
+    /**
+     * Reads an unquoted literal and determines its token type. Anything that is not null, a
+     * boolean, or a number is treated as an unquoted string, the same as {@code org.json}.
+     */
+    @Token
+    private int readLiteral() throws IOException, JsonException {
+        String literal = readLiteralString();
+        if (literal.isEmpty()) {
+            throw syntaxError("Expected literal value");
+        }
+
+        if ("null".equalsIgnoreCase(literal)) {
+            return NULL;
+        }
+
+        if ("true".equalsIgnoreCase(literal)) {
+            peekedBoolean = true;
+            return BOOLEAN;
+        }
+
+        if ("false".equalsIgnoreCase(literal)) {
+            peekedBoolean = false;
+            return BOOLEAN;
+        }
+
+        char first = literal.charAt(0);
+        if (first == '-' || (first >= '0' && first <= '9')) {
+            peekedNumber = parseNumber(literal);
+            if (peekedNumber != null) {
+                return NUMBER;
+            }
+        }
+
+        peekedString = literal;
+        return STRING;
+    }
+
+    /**
+     * Reads the characters of an unquoted literal up to the next delimiter.
+     *
+     * @return The literal, or an empty string if the next character is a delimiter.
+     */
+    @NonNull
+    private String readLiteralString() throws IOException {
+        StringBuilder builder = new StringBuilder();
+        while (fill()) {
+            char c = buffer[position];
+            if (isLiteralDelimiter(c)) {
+                break;
+            }
+            builder.append(c);
+            position++;
+        }
+
+        return builder.toString();
+    }
+
+    private static boolean isLiteralDelimiter(char c) {
+        switch (c) {
+            case ' ':
+            case '\t':
+            case '\f':
+            case '\r':
+            case '\n':
+            case '{':
+            case '}':
+            case '[':
+            case ']':
+            case '/':
+            case '\\':
+            case ':':
+            case ',':
+            case '=':
+            case ';':
+            case '#':
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    /**
+     * Reads a string after the opening quote, decoding any escape sequences.
+     *
+     * @param quote The quote character that terminates the string.
+     */
+    private String readString(char quote) throws IOException, JsonException {
+        StringBuilder builder = null;
+
+        while (fill()) {
+            int start = position;
+            while (position < limit) {
+                char c = buffer[position++];
+
+                if (c == quote) {
+                    if (builder == null) {
+                        return new String(buffer, start, position - start - 1);
+                    }
+                    builder.append(buffer, start, position - start - 1);
+                    return builder.toString();
+                }
+
+                if (c == '\\') {
+                    if (builder == null) {
+                        builder = new StringBuilder();
+                    }
+                    builder.append(buffer, start, position - start - 1);
+                    builder.append(readEscapeCharacter());
+                    start = position;
+                }
+            }
+
+            if (builder == null) {
+                builder = new StringBuilder();
+            }
+            builder.append(buffer, start, position - start);
+        }
+
+        throw syntaxError("Unterminated string");
+    }
+
+    private char readEscapeCharacter() throws IOException, JsonException {
+        if (!fill()) {
+            throw syntaxError("Unterminated escape sequence");
+        }
+
+        char escaped = buffer[position++];
+        switch (escaped) {
+            case 'u':
+                int value = 0;
+                for (int i = 0; i < 4; i++) {
+                    if (!fill()) {
+                        throw syntaxError("Unterminated escape sequence");
+                    }
+
+                    int digit = Character.digit(buffer[position++], 16);
+                    if (digit == -1) {
+                        throw syntaxError("Invalid unicode escape");
+                    }
+                    value = (value << 4) + digit;
+                }
+                return (char) value;
+            case 'b':
+                return '\b';
+            case 'f':
+                return '\f';
+            case 'n':
+                return '\n';
+            case 'r':
+                return '\r';
+            case 't':
+                return '\t';
+            default:
+                // Covers \" \\ \/ and any other escaped character
+                return escaped;
+        }
+    }
+
+    /**
+     * Parses a number literal into an Integer, Long, or Double.
+     *
+     * @param literal The literal.
+     * @return The number, or {@code null} if the literal is not a finite number.
+     */
+    @Nullable
+    private static Number parseNumber(@NonNull String literal) {
+        if (literal.indexOf('.') == -1 && literal.indexOf('e') == -1 && literal.indexOf('E') == -1) {
+            try {
+                long longValue = Long.parseLong(literal);
+                if (longValue <= Integer.MAX_VALUE && longValue >= Integer.MIN_VALUE) {
+                    return (int) longValue;
+                }
+                return longValue;
+            } catch (NumberFormatException e) {
+                // Too large for a long, fall through to double
+            }
+        }
+
+        try {
+            Double doubleValue = Double.valueOf(literal);
+            if (doubleValue.isInfinite() || doubleValue.isNaN()) {
+                return null;
+            }
+            return doubleValue;
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    private JsonException syntaxError(String message) {
+        return new JsonException(message + " at position " + position);
+    }
+}
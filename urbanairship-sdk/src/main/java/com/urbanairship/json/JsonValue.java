@@ -11,11 +11,16 @@ import com.urbanairship.Logger;
 import com.urbanairship.util.UAStringUtil;
 
 import org.json.JSONArray;
-import org.json.JSONException;
 import org.json.JSONObject;
-import org.json.JSONStringer;
-import org.json.JSONTokener;
 
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.io.Writer;
 import java.lang.reflect.Array;
 import java.util.ArrayList;
 import java.util.Collection;
@@ -39,6 +44,16 @@ public class JsonValue implements Parcelable, JsonSerializable {
      */
     public final static JsonValue NULL = new JsonValue(null);
 
+    // Parcel value types
+    private static final int PARCEL_TYPE_NULL = 0;
+    private static final int PARCEL_TYPE_STRING = 1;
+    private static final int PARCEL_TYPE_INTEGER = 2;
+    private static final int PARCEL_TYPE_LONG = 3;
+    private static final int PARCEL_TYPE_DOUBLE = 4;
+    private static final int PARCEL_TYPE_BOOLEAN = 5;
+    private static final int PARCEL_TYPE_MAP = 6;
+    private static final int PARCEL_TYPE_LIST = 7;
+
     private final Object value;
 
     /**
@@ -330,15 +345,30 @@ public class JsonValue implements Parcelable, JsonSerializable {
             return JsonValue.NULL;
         }
 
-        JSONTokener tokener = new JSONTokener(jsonString);
-
         try {
-            return JsonValue.wrap(tokener.nextValue());
-        } catch (JSONException e) {
+            return new JsonTokenizer(new StringReader(jsonString)).nextValue();
+        } catch (IOException e) {
+            // Should never happen
             throw new JsonException("Unable to parse string", e);
         }
     }
 
+    /**
+     * Parses JSON incrementally from a reader without buffering the encoded String.
+     *
+     * @param reader The reader.
+     * @return A JsonValue from the reader, or {@link #NULL} if the reader is empty.
+     * @throws JsonException If the JSON was unable to be parsed.
+     */
+    @NonNull
+    public static JsonValue parse(@NonNull Reader reader) throws JsonException {
+        try {
+            return new JsonTokenizer(reader).nextValue();
+        } catch (IOException e) {
+            throw new JsonException("Unable to parse reader", e);
+        }
+    }
+
     @Override
     public boolean equals(Object object) {
         if (!(object instanceof JsonValue)) {
@@ -378,46 +408,46 @@ public class JsonValue implements Parcelable, JsonSerializable {
             return "null";
         }
 
-        try {
-            if (value instanceof String) {
-                return JSONObject.quote((String) value);
-            }
-
-            if (value instanceof Number) {
-                return JSONObject.numberToString((Number) value);
-            }
-
-            if (value instanceof JsonMap || value instanceof JsonList) {
-                return value.toString();
-            }
+        if (value instanceof Number) {
+            return JsonWriter.numberToString((Number) value);
+        }
 
+        if (value instanceof Boolean) {
             return String.valueOf(value);
-        } catch (JSONException e) {
+        }
+
+        StringWriter stringWriter = new StringWriter();
+        try {
+            write(stringWriter);
+        } catch (IOException e) {
             // Should never happen
             Logger.error("JsonValue - Failed to create JSON String.", e);
             return "";
         }
+
+        return stringWriter.toString();
     }
 
     /**
-     * Helper method that is used to write the value as a JSON String.
+     * Writes the value as JSON directly to a writer.
      *
-     * @param stringer The JSONStringer object.
-     * @throws JSONException If the value is unable to be written as JSON.
+     * @param writer The writer. The writer is not flushed or closed.
+     * @throws IOException If writing fails.
      */
-    void write(JSONStringer stringer) throws JSONException {
-        if (isNull()) {
-            stringer.value(null);
-            return;
-        }
+    public void write(@NonNull Writer writer) throws IOException {
+        new JsonWriter(writer).write(this);
+    }
 
-        if (value instanceof JsonList) {
-            ((JsonList) value).write(stringer);
-        } else if (value instanceof JsonMap) {
-            ((JsonMap) value).write(stringer);
-        } else {
-            stringer.value(value);
-        }
+    /**
+     * Writes the value as UTF-8 encoded JSON directly to an output stream.
+     *
+     * @param outputStream The output stream. The stream is flushed but not closed.
+     * @throws IOException If writing fails.
+     */
+    public void write(@NonNull OutputStream outputStream) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(outputStream, "UTF-8"));
+        write(writer);
+        writer.flush();
     }
 
     /**
@@ -743,7 +773,104 @@ public class JsonValue implements Parcelable, JsonSerializable {
 
     @Override
     public void writeToParcel(Parcel dest, int flags) {
-        dest.writeString(this.toString());
+        // A null string marks the binary encoding. Older parcels contain the JSON string.
+        dest.writeString(null);
+        writeToParcel(dest, this);
+    }
+
+    /**
+     * Helper method to write a value to a parcel as tagged binary data.
+     *
+     * @param dest The parcel.
+     * @param jsonValue The value to write.
+     */
+    private static void writeToParcel(@NonNull Parcel dest, @NonNull JsonValue jsonValue) {
+        Object value = jsonValue.value;
+
+        if (value == null) {
+            dest.writeInt(PARCEL_TYPE_NULL);
+        } else if (value instanceof String) {
+            dest.writeInt(PARCEL_TYPE_STRING);
+            dest.writeString((String) value);
+        } else if (value instanceof Integer) {
+            dest.writeInt(PARCEL_TYPE_INTEGER);
+            dest.writeInt((Integer) value);
+        } else if (value instanceof Long) {
+            dest.writeInt(PARCEL_TYPE_LONG);
+            dest.writeLong((Long) value);
+        } else if (value instanceof Double) {
+            dest.writeInt(PARCEL_TYPE_DOUBLE);
+            dest.writeDouble((Double) value);
+        } else if (value instanceof Boolean) {
+            dest.writeInt(PARCEL_TYPE_BOOLEAN);
+            dest.writeInt((Boolean) value ? 1 : 0);
+        } else if (value instanceof JsonMap) {
+            JsonMap map = (JsonMap) value;
+            dest.writeInt(PARCEL_TYPE_MAP);
+            dest.writeInt(map.size());
+            for (Map.Entry<String, JsonValue> entry : map) {
+                dest.writeString(entry.getKey());
+                writeToParcel(dest, entry.getValue());
+            }
+        } else if (value instanceof JsonList) {
+            JsonList list = (JsonList) value;
+            dest.writeInt(PARCEL_TYPE_LIST);
+            dest.writeInt(list.size());
+            for (JsonValue item : list) {
+                writeToParcel(dest, item);
+            }
+        }
+    }
+
+    /**
+     * Helper method to read a value written by {@link #writeToParcel(Parcel, JsonValue)}.
+     *
+     * @param in The parcel.
+     * @return The JsonValue.
+     * @throws JsonException If the parcel contains an unknown type.
+     */
+    @NonNull
+    private static JsonValue readFromParcel(@NonNull Parcel in) throws JsonException {
+        int type = in.readInt();
+        switch (type) {
+            case PARCEL_TYPE_NULL:
+                return NULL;
+
+            case PARCEL_TYPE_STRING:
+                return new JsonValue(in.readString());
+
+            case PARCEL_TYPE_INTEGER:
+                return new JsonValue(in.readInt());
+
+            case PARCEL_TYPE_LONG:
+                return new JsonValue(in.readLong());
+
+            case PARCEL_TYPE_DOUBLE:
+                return new JsonValue(in.readDouble());
+
+            case PARCEL_TYPE_BOOLEAN:
+                return new JsonValue(in.readInt() == 1);
+
+            case PARCEL_TYPE_MAP:
+                int mapSize = in.readInt();
+                Map<String, JsonValue> map = new HashMap<>(mapSize);
+                for (int i = 0; i < mapSize; i++) {
+                    String key = in.readString();
+                    map.put(key, readFromParcel(in));
+                }
+                return new JsonValue(new JsonMap(map));
+
+            case PARCEL_TYPE_LIST:
+                int listSize = in.readInt();
+                List<JsonValue> list = new ArrayList<>(listSize);
+                for (int i = 0; i < listSize; i++) {
+                    list.add(readFromParcel(in));
+                }
+                return new JsonValue(new JsonList(list));
+
+            default:
+                throw new JsonException("Invalid parcel type: " + type);
+        }
     }
 
     /**
@@ -754,7 +881,13 @@ public class JsonValue implements Parcelable, JsonSerializable {
         @Override
         public JsonValue createFromParcel(Parcel in) {
             try {
-                return JsonValue.parseString(in.readString());
+                String jsonString = in.readString();
+                if (jsonString != null) {
+                    // Older string encoded parcel
+                    return JsonValue.parseString(jsonString);
+                }
+
+                return readFromParcel(in);
             } catch (JsonException e) {
                 Logger.error("JsonValue - Unable to create JsonValue from parcel.", e);
                 return null;
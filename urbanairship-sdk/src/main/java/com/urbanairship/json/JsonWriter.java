@@ -0,0 +1,180 @@
+/* Copyright 2016 Urban Airship and Contributors */
+
+package com.urbanairship.json;
+
+import android.support.annotation.NonNull;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Map;
+
+/**
+ * Serializes JsonValues directly to a {@link Writer} without building an intermediate String.
+ * <p/>
+ * Output matches {@code org.json.JSONStringer}: the same characters are escaped and integral
+ * doubles are written without a fraction.
+ *
+ * @hide
+ */
+public class JsonWriter {
+
+    private static final String HEX_DIGITS = "0123456789abcdef";
+
+    private final Writer writer;
+
+    /**
+     * Creates a new writer.
+     *
+     * @param writer The destination writer. Callers are responsible for buffering and closing it.
+     */
+    public JsonWriter(@NonNull Writer writer) {
+        this.writer = writer;
+    }
+
+    /**
+     * Writes a value.
+     *
+     * @param value The value.
+     * @throws IOException If writing fails.
+     */
+    public void write(@NonNull JsonValue value) throws IOException {
+        Object raw = value.getValue();
+
+        if (raw == null) {
+            writer.write("null");
+        } else if (raw instanceof String) {
+            writeString((String) raw);
+        } else if (raw instanceof Number) {
+            writer.write(numberToString((Number) raw));
+        } else if (raw instanceof JsonMap) {
+            writeMap((JsonMap) raw);
+        } else if (raw instanceof JsonList) {
+            writeList((JsonList) raw);
+        } else {
+            writer.write(String.valueOf(raw));
+        }
+    }
+
+    /**
+     * Flushes the underlying writer.
+     *
+     * @throws IOException If flushing fails.
+     */
+    public void flush() throws IOException {
+        writer.flush();
+    }
+
+    private void writeMap(@NonNull JsonMap map) throws IOException {
+        writer.write('{');
+        boolean first = true;
+        for (Map.Entry<String, JsonValue> entry : map) {
+            if (!first) {
+                writer.write(',');
+            }
+            first = false;
+
+            writeString(entry.getKey());
+            writer.write(':');
+            write(entry.getValue());
+        }
+        writer.write('}');
+    }
+
+    private void writeList(@NonNull JsonList list) throws IOException {
+        writer.write('[');
+        boolean first = true;
+        for (JsonValue value : list) {
+            if (!first) {
+                writer.write(',');
+            }
+            first = false;
+
+            write(value);
+        }
+        writer.write(']');
+    }
+
+    /**
+     * Writes a quoted and escaped string. Unescaped runs are written in a single call.
+     */
+    private void writeString(@NonNull String value) throws IOException {
+        writer.write('"');
+
+        int start = 0;
+        int length = value.length();
+        for (int i = 0; i < length; i++) {
+            char c = value.charAt(i);
+            String replacement;
+
+            switch (c) {
+                case '"':
+                    replacement = "\\\"";
+                    break;
+                case '\\':
+                    replacement = "\\\\";
+                    break;
+                case '/':
+                    replacement = "\\/";
+                    break;
+                case '\t':
+                    replacement = "\\t";
+                    break;
+                case '\b':
+                    replacement = "\\b";
+                    break;
+                case '\n':
+                    replacement = "\\n";
+                    break;
+                case '\r':
+                    replacement = "\\r";
+                    break;
+                case '\f':
+                    replacement = "\\f";
+                    break;
+                default:
+                    if (c > 0x1F) {
+                        continue;
+                    }
+                    replacement = "\\u00" + HEX_DIGITS.charAt(c >> 4) + HEX_DIGITS.charAt(c & 0xF);
+                    break;
+            }
+
+            if (start < i) {
+                writer.write(value, start, i - start);
+            }
+            writer.write(replacement);
+            start = i + 1;
+        }
+
+        if (start < length) {
+            writer.write(value, start, length - start);
+        }
+
+        writer.write('"');
+    }
+
+    /**
+     * Formats a number the same way as {@code JSONObject.numberToString}.
+     *
+     * @param number The number.
+     * @return The formatted number.
+     */
+    @NonNull
+    static String numberToString(@NonNull Number number) {
+        if (number instanceof Integer || number instanceof Long) {
+            return number.toString();
+        }
+
+        double doubleValue = number.doubleValue();
+        if (doubleValue == 0 && Double.doubleToRawLongBits(doubleValue) != 0) {
+            return "-0";
+        }
+
+        long longValue = number.longValue();
+        if (doubleValue == (double) longValue) {
+            return Long.toString(longValue);
+        }
+
+        return number.toString();
+    }
+}
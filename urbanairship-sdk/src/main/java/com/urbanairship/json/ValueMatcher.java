@@ -100,6 +100,42 @@ public class ValueMatcher implements JsonSerializable, Predicate<JsonSerializabl
         return new ValueMatcher(equals, min, max, isPresent);
     }
 
+    /**
+     * Gets the value to match.
+     *
+     * @return The value to match, or null if the matcher is not an equals matcher.
+     */
+    JsonValue getEquals() {
+        return equals;
+    }
+
+    /**
+     * Gets the minimum value.
+     *
+     * @return The minimum value, or null if not set.
+     */
+    Double getMin() {
+        return min;
+    }
+
+    /**
+     * Gets the maximum value.
+     *
+     * @return The maximum value, or null if not set.
+     */
+    Double getMax() {
+        return max;
+    }
+
+    /**
+     * Gets the presence value.
+     *
+     * @return The presence value, or null if not a presence matcher.
+     */
+    Boolean getIsPresent() {
+        return isPresent;
+    }
+
     @Override
     public boolean apply(JsonSerializable jsonSerializable) {
         JsonValue value = jsonSerializable == null ? JsonValue.NULL : jsonSerializable.toJsonValue();
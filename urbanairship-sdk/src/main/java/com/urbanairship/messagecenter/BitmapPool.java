@@ -0,0 +1,90 @@
+/* Copyright 2016 Urban Airship and Contributors */
+
+package com.urbanairship.messagecenter;
+
+import android.annotation.TargetApi;
+import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
+import android.os.Build;
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+import java.lang.ref.SoftReference;
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.List;
+
+/**
+ * Pool of bitmaps that are no longer displayed and can be reused with
+ * {@link BitmapFactory.Options#inBitmap} to avoid allocating a new bitmap for every decode.
+ */
+class BitmapPool {
+
+    private static final int MAX_POOL_SIZE = 10;
+
+    private final List<SoftReference<Bitmap>> bitmaps = new LinkedList<>();
+
+    /**
+     * Adds a bitmap to the pool. Only mutable bitmaps can be reused.
+     *
+     * @param bitmap The bitmap.
+     */
+    synchronized void put(@NonNull Bitmap bitmap) {
+        if (!bitmap.isMutable() || bitmap.isRecycled()) {
+            return;
+        }
+
+        if (bitmaps.size() >= MAX_POOL_SIZE) {
+            bitmaps.remove(0);
+        }
+
+        bitmaps.add(new SoftReference<>(bitmap));
+    }
+
+    /**
+     * Removes and returns a bitmap that can be decoded into with the given options.
+     *
+     * @param options The decode options. The bounds must already be decoded and the sample size set.
+     * @return A reusable bitmap, or {@code null} if none are available.
+     */
+    @Nullable
+    synchronized Bitmap get(@NonNull BitmapFactory.Options options) {
+        Iterator<SoftReference<Bitmap>> iterator = bitmaps.iterator();
+        while (iterator.hasNext()) {
+            Bitmap bitmap = iterator.next().get();
+            if (bitmap == null || !bitmap.isMutable() || bitmap.isRecycled()) {
+                iterator.remove();
+                continue;
+            }
+
+            if (canUseForInBitmap(bitmap, options)) {
+                iterator.remove();
+                return bitmap;
+            }
+        }
+
+        return null;
+    }
+
+    /**
+     * Checks if the bitmap can hold the decoded image. Before KitKat the bitmap must match the
+     * decoded size exactly and the image can not be sampled.
+     *
+     * @param bitmap The candidate bitmap.
+     * @param options The decode options.
+     * @return {@code true} if the bitmap can be reused, otherwise {@code false}.
+     */
+    @TargetApi(Build.VERSION_CODES.KITKAT)
+    private static boolean canUseForInBitmap(@NonNull Bitmap bitmap, @NonNull BitmapFactory.Options options) {
+        int sampleSize = Math.max(1, options.inSampleSize);
+        int width = options.outWidth / sampleSize;
+        int height = options.outHeight / sampleSize;
+
+        if (Build.VERSION.SDK_INT < Build.VERSION_CODES.KITKAT) {
+            return bitmap.getWidth() == options.outWidth && bitmap.getHeight() == options.outHeight && sampleSize == 1;
+        }
+
+        int bytesPerPixel = bitmap.getConfig() == Bitmap.Config.ARGB_8888 ? 4 : 2;
+        return width * height * bytesPerPixel <= bitmap.getAllocationByteCount();
+    }
+}
@@ -10,6 +10,7 @@ import android.widget.AbsListView;
 
 import com.urbanairship.R;
 import com.urbanairship.UAirship;
+import com.urbanairship.richpush.RichPushInbox;
 import com.urbanairship.richpush.RichPushMessage;
 
 import java.util.HashSet;
@@ -45,40 +46,16 @@ public class DefaultMultiChoiceModeListener implements AbsListView.MultiChoiceMo
         int count = messageListFragment.getAbsListView().getCheckedItemCount();
         mode.setTitle(messageListFragment.getResources().getQuantityString(R.plurals.ua_selected_count, count, count));
 
-        boolean containsUnreadMessage = false;
-        final SparseBooleanArray checked = messageListFragment.getAbsListView().getCheckedItemPositions();
-        for (int i = 0; i < checked.size(); i++) {
-            if (checked.valueAt(i)) {
-                RichPushMessage message = messageListFragment.getMessage(checked.keyAt(i));
-                if (message != null && !message.isRead()) {
-                    containsUnreadMessage = true;
-                    break;
-                }
-            }
-        }
-
         MenuItem markRead = menu.findItem(R.id.mark_read);
-        markRead.setVisible(containsUnreadMessage);
+        markRead.setVisible(containsUnreadMessage());
 
         return true;
     }
 
     @Override
     public boolean onPrepareActionMode(ActionMode mode, Menu menu) {
-        boolean containsUnreadMessage = false;
-        final SparseBooleanArray checked = messageListFragment.getAbsListView().getCheckedItemPositions();
-        for (int i = 0; i < checked.size(); i++) {
-            if (checked.valueAt(i)) {
-                RichPushMessage message = messageListFragment.getMessage(checked.keyAt(i));
-                if (message != null && !message.isRead()) {
-                    containsUnreadMessage = true;
-                    break;
-                }
-            }
-        }
-
         MenuItem markRead = menu.findItem(R.id.mark_read);
-        markRead.setVisible(containsUnreadMessage);
+        markRead.setVisible(containsUnreadMessage());
         return true;
     }
 
@@ -107,14 +84,37 @@ public class DefaultMultiChoiceModeListener implements AbsListView.MultiChoiceMo
 
     }
 
+    /**
+     * Checks if any of the checked messages are unread. The read state is looked up in the inbox
+     * so rows that have not loaded yet are included.
+     *
+     * @return {@code true} if a checked message is unread, otherwise {@code false}.
+     */
+    private boolean containsUnreadMessage() {
+        RichPushInbox inbox = UAirship.shared().getInbox();
+        for (String messageId : getCheckedMessageIds()) {
+            RichPushMessage message = inbox.getMessage(messageId);
+            if (message != null && !message.isRead()) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * Gets the IDs of the checked messages, including rows whose messages have not loaded yet.
+     *
+     * @return The checked message IDs.
+     */
     private Set<String> getCheckedMessageIds() {
         final SparseBooleanArray checked = messageListFragment.getAbsListView().getCheckedItemPositions();
         final Set<String> messageIds = new HashSet<>();
         for (int i = 0; i < checked.size(); i++) {
             if (checked.valueAt(i)) {
-                RichPushMessage message = messageListFragment.getMessage(checked.keyAt(i));
-                if (message != null) {
-                    messageIds.add(message.getMessageId());
+                String messageId = messageListFragment.getMessageId(checked.keyAt(i));
+                if (messageId != null) {
+                    messageIds.add(messageId);
                 }
             }
         }
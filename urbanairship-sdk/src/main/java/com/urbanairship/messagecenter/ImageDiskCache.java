@@ -0,0 +1,191 @@
+/* Copyright 2016 Urban Airship and Contributors */
+
+package com.urbanairship.messagecenter;
+
+import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+import android.support.annotation.WorkerThread;
+
+import com.urbanairship.Logger;
+import com.urbanairship.util.UAStringUtil;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Comparator;
+
+/**
+ * Disk cache of downscaled bitmaps. Entries are stored already sized for the view they were
+ * requested for so a cache hit is a single small decode with no network or scaling.
+ */
+class ImageDiskCache {
+
+    private static final String TEMP_SUFFIX = ".tmp";
+    private static final int JPEG_QUALITY = 90;
+
+    private final File directory;
+    private final long maxSize;
+    private long size = -1;
+
+    /**
+     * Creates an ImageDiskCache.
+     *
+     * @param directory The cache directory.
+     * @param maxSize The max size of the cache in bytes.
+     */
+    ImageDiskCache(@NonNull File directory, long maxSize) {
+        this.directory = directory;
+        this.maxSize = maxSize;
+    }
+
+    /**
+     * Decodes a cached bitmap.
+     *
+     * @param key The cache key.
+     * @param bitmapPool Pool of bitmaps to decode into.
+     * @return The bitmap, or {@code null} if the key is not cached.
+     */
+    @Nullable
+    @WorkerThread
+    Bitmap get(@NonNull String key, @NonNull BitmapPool bitmapPool) {
+        File file = getFile(key);
+        if (file == null || !file.exists()) {
+            return null;
+        }
+
+        BitmapFactory.Options options = new BitmapFactory.Options();
+        options.inJustDecodeBounds = true;
+        BitmapFactory.decodeFile(file.getAbsolutePath(), options);
+
+        if (options.outWidth <= 0 || options.outHeight <= 0) {
+            Logger.debug("ImageDiskCache - Removing unreadable entry for: " + key);
+            remove(file);
+            return null;
+        }
+
+        options.inJustDecodeBounds = false;
+        options.inSampleSize = 1;
+        Bitmap bitmap = ImageLoader.decode(file.getAbsolutePath(), options, bitmapPool);
+        if (bitmap != null) {
+            //noinspection ResultOfMethodCallIgnored
+            file.setLastModified(System.currentTimeMillis());
+        }
+
+        return bitmap;
+    }
+
+    /**
+     * Writes a bitmap to the cache.
+     *
+     * @param key The cache key.
+     * @param bitmap The bitmap.
+     */
+    @WorkerThread
+    synchronized void put(@NonNull String key, @NonNull Bitmap bitmap) {
+        File file = getFile(key);
+        if (file == null) {
+            return;
+        }
+
+        if (!directory.exists() && !directory.mkdirs()) {
+            Logger.error("ImageDiskCache - Unable to create cache directory.");
+            return;
+        }
+
+        File tempFile = new File(directory, file.getName() + TEMP_SUFFIX);
+        FileOutputStream outputStream = null;
+        boolean written = false;
+
+        try {
+            outputStream = new FileOutputStream(tempFile);
+            Bitmap.CompressFormat format = bitmap.hasAlpha() ? Bitmap.CompressFormat.PNG : Bitmap.CompressFormat.JPEG;
+            written = bitmap.compress(format, JPEG_QUALITY, outputStream);
+        } catch (IOException e) {
+            Logger.debug("ImageDiskCache - Failed to write entry for: " + key);
+        } finally {
+            if (outputStream != null) {
+                try {
+                    outputStream.close();
+                } catch (IOException e) {
+                    written = false;
+                }
+            }
+        }
+
+        if (!written || !tempFile.renameTo(file)) {
+            //noinspection ResultOfMethodCallIgnored
+            tempFile.delete();
+            return;
+        }
+
+        if (size >= 0) {
+            size += file.length();
+        }
+
+        trim();
+    }
+
+    /**
+     * Removes the least recently used entries until the cache fits in the max size.
+     */
+    private void trim() {
+        if (size < 0) {
+            size = 0;
+            File[] files = directory.listFiles();
+            if (files != null) {
+                for (File file : files) {
+                    size += file.length();
+                }
+            }
+        }
+
+        if (size <= maxSize) {
+            return;
+        }
+
+        File[] files = directory.listFiles();
+        if (files == null) {
+            return;
+        }
+
+        Arrays.sort(files, new Comparator<File>() {
+            @Override
+            public int compare(File lhs, File rhs) {
+                long left = lhs.lastModified();
+                long right = rhs.lastModified();
+                return left < right ? -1 : (left == right ? 0 : 1);
+            }
+        });
+
+        for (File file : files) {
+            if (size <= maxSize) {
+                break;
+            }
+
+            long length = file.length();
+            if (file.delete()) {
+                size -= length;
+            }
+        }
+    }
+
+    private synchronized void remove(@NonNull File file) {
+        long length = file.length();
+        if (file.delete() && size >= 0) {
+            size -= length;
+        }
+    }
+
+    @Nullable
+    private File getFile(@NonNull String key) {
+        String name = UAStringUtil.sha256(key);
+        if (name == null) {
+            return null;
+        }
+
+        return new File(directory, name);
+    }
+}
@@ -4,38 +4,55 @@ package com.urbanairship.messagecenter;
 
 import android.content.Context;
 import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
 import android.graphics.drawable.BitmapDrawable;
 import android.graphics.drawable.ColorDrawable;
 import android.graphics.drawable.Drawable;
 import android.graphics.drawable.TransitionDrawable;
-import android.net.http.HttpResponseCache;
-import android.os.AsyncTask;
+import android.os.Handler;
+import android.os.Looper;
 import android.support.annotation.DrawableRes;
+import android.support.annotation.MainThread;
 import android.support.annotation.NonNull;
 import android.support.annotation.Nullable;
+import android.support.annotation.VisibleForTesting;
+import android.support.annotation.WorkerThread;
 import android.support.v4.content.ContextCompat;
 import android.support.v4.util.LruCache;
 import android.view.ViewTreeObserver;
 import android.widget.ImageView;
 
+import com.urbanairship.AirshipExecutors;
 import com.urbanairship.Logger;
 import com.urbanairship.util.BitmapUtils;
+import com.urbanairship.util.UAHttpStatusUtil;
 
+import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.IOException;
+import java.io.InputStream;
 import java.lang.ref.WeakReference;
+import java.net.HttpURLConnection;
 import java.net.URL;
+import java.net.URLConnection;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.WeakHashMap;
 import java.util.concurrent.Executor;
-import java.util.concurrent.Executors;
 
 /**
  * Asynchronous bitmap loader for image views.
+ * <p/>
+ * Bitmaps are looked up in a memory cache, then a disk cache of downscaled images, and finally
+ * fetched from the network. Requests for the same image and size share a single load, and bitmaps
+ * evicted from the memory cache are reused for later decodes. Downloads run on the network lane so
+ * slow connections do not hold up decoding cached images on the UI lane.
  */
 class ImageLoader {
 
-    private static final String CACHE_DIR = "urbanairship-cache";
+    private static final String CACHE_DIR = "urbanairship-image-cache";
 
     /**
      * Max amount of memory cache.
@@ -52,10 +69,22 @@ class ImageLoader {
      */
     private static final int FADE_IN_TIME_MS = 200;
 
-    private final Executor executor;
+    private static final int NETWORK_TIMEOUT_MS = 2000;
+    private static final int BUFFER_SIZE = 8192;
+
+    private final Executor decodeExecutor;
+    private final Executor networkExecutor;
+    private final Handler handler = new Handler(Looper.getMainLooper());
     private final Context context;
     private final Map<ImageView, Request> requestMap;
+    private final Map<ImageView, Bitmap> displayedBitmaps;
+    private final Map<String, LoadTask> pendingTasks;
     private final LruCache<String, BitmapDrawable> memoryCache;
+    private final ImageDiskCache diskCache;
+    private final BitmapPool bitmapPool;
+
+    private int lastWidth;
+    private int lastHeight;
 
     /**
      * Creates an ImageLoader.
@@ -63,9 +92,26 @@ class ImageLoader {
      * @param context The application context.
      */
     ImageLoader(Context context) {
+        this(context, AirshipExecutors.getExecutor(AirshipExecutors.LANE_UI), AirshipExecutors.getExecutor(AirshipExecutors.LANE_NETWORK));
+    }
+
+    /**
+     * Creates an ImageLoader.
+     *
+     * @param context The application context.
+     * @param decodeExecutor The executor used to read the disk cache and decode bitmaps.
+     * @param networkExecutor The executor used to download images.
+     */
+    @VisibleForTesting
+    ImageLoader(Context context, Executor decodeExecutor, Executor networkExecutor) {
         this.context = context.getApplicationContext();
         this.requestMap = new WeakHashMap<>();
-        this.executor = Executors.newFixedThreadPool(2);
+        this.displayedBitmaps = new WeakHashMap<>();
+        this.pendingTasks = new HashMap<>();
+        this.decodeExecutor = decodeExecutor;
+        this.networkExecutor = networkExecutor;
+        this.bitmapPool = new BitmapPool();
+        this.diskCache = new ImageDiskCache(new File(this.context.getCacheDir(), CACHE_DIR), DISK_CACHE_SIZE);
 
         // Memory Cache
         int memCacheSize = (int) Math.min(MAX_MEM_CACHE_SIZE, Runtime.getRuntime().maxMemory() / 8);
@@ -74,6 +120,19 @@ class ImageLoader {
             protected int sizeOf(String key, BitmapDrawable bitmapDrawable) {
                 return bitmapDrawable.getBitmap().getByteCount();
             }
+
+            @Override
+            protected void entryRemoved(boolean evicted, String key, BitmapDrawable oldValue, BitmapDrawable newValue) {
+                Bitmap bitmap = oldValue.getBitmap();
+                if (newValue != null && newValue.getBitmap() == bitmap) {
+                    return;
+                }
+
+                // The cache is only modified on the main thread, same as the displayed bitmaps
+                if (!displayedBitmaps.containsValue(bitmap)) {
+                    bitmapPool.put(bitmap);
+                }
+            }
         };
     }
 
@@ -82,6 +141,7 @@ class ImageLoader {
      *
      * @param imageView The imageView.
      */
+    @MainThread
     void cancelRequest(ImageView imageView) {
         if (imageView == null) {
             return;
@@ -99,6 +159,7 @@ class ImageLoader {
      * @param placeHolder The optional placeholder.
      * @param imageView The image view.
      */
+    @MainThread
     void load(String imageUrl, @DrawableRes int placeHolder, @NonNull ImageView imageView) {
         cancelRequest(imageView);
 
@@ -115,13 +176,129 @@ class ImageLoader {
         request.execute();
     }
 
+    /**
+     * Loads an image into the memory and disk cache ahead of it being displayed. The image is
+     * sized the same as the last image view that was loaded.
+     *
+     * @param imageUrl The url to prefetch.
+     */
+    @MainThread
+    void prefetch(@Nullable String imageUrl) {
+        if (imageUrl == null || (lastWidth == 0 && lastHeight == 0)) {
+            return;
+        }
+
+        String key = getCacheKey(imageUrl, lastWidth, lastHeight);
+        if (pendingTasks.containsKey(key) || memoryCache.get(key) != null) {
+            return;
+        }
+
+        LoadTask task = new LoadTask(key, imageUrl, lastWidth, lastHeight, true);
+        pendingTasks.put(key, task);
+        task.execute();
+    }
+
+    /**
+     * Sets the drawable on the image view and tracks the displayed bitmap so it is not reused
+     * while it is still on screen.
+     *
+     * @param imageView The image view.
+     * @param drawable The drawable.
+     * @param bitmapDrawable The bitmap drawable being displayed.
+     */
+    private void setImage(@NonNull ImageView imageView, @NonNull Drawable drawable, @NonNull BitmapDrawable bitmapDrawable) {
+        displayedBitmaps.put(imageView, bitmapDrawable.getBitmap());
+        imageView.setImageDrawable(drawable);
+    }
+
+    /**
+     * Sets the placeholder on the image view.
+     *
+     * @param imageView The image view.
+     * @param placeHolder The optional placeholder.
+     */
+    private void setPlaceHolder(@NonNull ImageView imageView, @DrawableRes int placeHolder) {
+        displayedBitmaps.remove(imageView);
+        if (placeHolder > 0) {
+            imageView.setImageResource(placeHolder);
+        } else {
+            imageView.setImageDrawable(null);
+        }
+    }
+
+    /**
+     * Returns the cache key for an image url and size.
+     *
+     * @param imageUrl The image url.
+     * @param width The requested width.
+     * @param height The requested height.
+     * @return The cache key.
+     */
+    private static String getCacheKey(String imageUrl, int width, int height) {
+        return imageUrl + ",size(" + width + "x" + height + ")";
+    }
+
+    /**
+     * Decodes a file, reusing a pooled bitmap if possible.
+     *
+     * @param path The file path.
+     * @param options The decode options with the bounds and sample size set.
+     * @param bitmapPool The bitmap pool.
+     * @return The bitmap, or {@code null} if the file could not be decoded.
+     */
+    @Nullable
+    @WorkerThread
+    static Bitmap decode(@NonNull String path, @NonNull BitmapFactory.Options options, @NonNull BitmapPool bitmapPool) {
+        options.inMutable = true;
+        options.inBitmap = bitmapPool.get(options);
+
+        try {
+            return BitmapFactory.decodeFile(path, options);
+        } catch (IllegalArgumentException e) {
+            if (options.inBitmap == null) {
+                throw e;
+            }
+
+            Logger.verbose("ImageLoader - Unable to reuse bitmap, decoding without it.");
+            options.inBitmap = null;
+            return BitmapFactory.decodeFile(path, options);
+        }
+    }
+
+    /**
+     * Decodes a byte array, reusing a pooled bitmap if possible.
+     *
+     * @param data The encoded image.
+     * @param options The decode options with the bounds and sample size set.
+     * @param bitmapPool The bitmap pool.
+     * @return The bitmap, or {@code null} if the data could not be decoded.
+     */
+    @Nullable
+    @WorkerThread
+    private static Bitmap decode(@NonNull byte[] data, @NonNull BitmapFactory.Options options, @NonNull BitmapPool bitmapPool) {
+        options.inMutable = true;
+        options.inBitmap = bitmapPool.get(options);
+
+        try {
+            return BitmapFactory.decodeByteArray(data, 0, data.length, options);
+        } catch (IllegalArgumentException e) {
+            if (options.inBitmap == null) {
+                throw e;
+            }
+
+            Logger.verbose("ImageLoader - Unable to reuse bitmap, decoding without it.");
+            options.inBitmap = null;
+            return BitmapFactory.decodeByteArray(data, 0, data.length, options);
+        }
+    }
+
     /**
      * Request to load a bitmap into an ImageView.
      */
     private abstract class Request implements ViewTreeObserver.OnPreDrawListener {
         private final String imageUrl;
         private final int placeHolder;
-        private BitmapAsyncTask task;
+        private LoadTask task;
         private int width;
         private int height;
         private final WeakReference<ImageView> imageViewReference;
@@ -152,7 +329,7 @@ class ImageLoader {
             }
 
             if (task != null) {
-                task.cancel(true);
+                task.removeRequest(this);
                 task = null;
             }
         }
@@ -192,20 +369,56 @@ class ImageLoader {
                 }
             }
 
-            BitmapDrawable cachedBitmapDrawable = memoryCache.get(getCacheKey());
+            lastWidth = width;
+            lastHeight = height;
+
+            String key = getCacheKey(imageUrl, width, height);
+            BitmapDrawable cachedBitmapDrawable = memoryCache.get(key);
             if (cachedBitmapDrawable != null) {
-                imageView.setImageDrawable(cachedBitmapDrawable);
+                setImage(imageView, cachedBitmapDrawable, cachedBitmapDrawable);
+                onFinish();
+                return;
+            }
+
+            setPlaceHolder(imageView, placeHolder);
+
+            if (imageUrl == null) {
                 onFinish();
+                return;
+            }
+
+            // Join an in-flight load for the same image instead of starting another one
+            task = pendingTasks.get(key);
+            if (task == null) {
+                task = new LoadTask(key, imageUrl, width, height, false);
+                pendingTasks.put(key, task);
+                task.addRequest(this);
+                task.execute();
             } else {
-                if (placeHolder > 0) {
-                    imageView.setImageResource(placeHolder);
-                } else {
-                    imageView.setImageDrawable(null);
-                }
+                task.addRequest(this);
+            }
+        }
 
-                this.task = new BitmapAsyncTask(this);
-                task.executeOnExecutor(executor);
+        /**
+         * Called when the load task finishes.
+         *
+         * @param bitmapDrawable The loaded drawable, or {@code null} if the load failed.
+         */
+        void onLoaded(@Nullable BitmapDrawable bitmapDrawable) {
+            task = null;
+
+            ImageView imageView = getImageView();
+            if (bitmapDrawable != null && imageView != null) {
+                // Transition drawable with a transparent drawable and the final drawable
+                TransitionDrawable td = new TransitionDrawable(new Drawable[] {
+                        new ColorDrawable(ContextCompat.getColor(context, android.R.color.transparent)),
+                        bitmapDrawable
+                });
+                setImage(imageView, td, bitmapDrawable);
+                td.startTransition(FADE_IN_TIME_MS);
             }
+
+            onFinish();
         }
 
         @Override
@@ -224,79 +437,225 @@ class ImageLoader {
 
             return true;
         }
+    }
+
+    /**
+     * Task to load a bitmap from the disk cache or the network. A single task is shared by
+     * every request for the same cache key.
+     * <p/>
+     * The disk cache lookup and decode run on the decode executor and the download runs on the
+     * network executor. The result is delivered on the main thread.
+     */
+    private class LoadTask {
+        private final String key;
+        private final String imageUrl;
+        private final int width;
+        private final int height;
+        private final boolean prefetch;
+        private final List<Request> requests = new ArrayList<>();
+        private volatile boolean isCancelled;
+
+        LoadTask(String key, String imageUrl, int width, int height, boolean prefetch) {
+            this.key = key;
+            this.imageUrl = imageUrl;
+            this.width = width;
+            this.height = height;
+            this.prefetch = prefetch;
+        }
+
+        void addRequest(Request request) {
+            requests.add(request);
+        }
 
         /**
-         * Returns the memory cache key for the request.
+         * Removes a request. The load is cancelled once no requests are waiting on it, unless
+         * it was started as a prefetch.
          *
-         * @return The memory cache key.
+         * @param request The request.
          */
-        String getCacheKey() {
-            return imageUrl + ",size(" + width + "x" + height + ")";
+        void removeRequest(Request request) {
+            requests.remove(request);
+            if (requests.isEmpty() && !prefetch) {
+                isCancelled = true;
+                if (pendingTasks.get(key) == this) {
+                    pendingTasks.remove(key);
+                }
+            }
         }
-    }
 
-    /**
-     * Bitmap task to fetch the bitmap.
-     */
-    private class BitmapAsyncTask extends AsyncTask<Void, Void, BitmapDrawable> {
-        private final Request request;
+        /**
+         * Starts the load.
+         */
+        void execute() {
+            decodeExecutor.execute(new Runnable() {
+                @Override
+                public void run() {
+                    loadFromDisk();
+                }
+            });
+        }
+
+        @WorkerThread
+        private void loadFromDisk() {
+            if (isCancelled) {
+                finish(null);
+                return;
+            }
 
-        BitmapAsyncTask(Request request) {
-            this.request = request;
+            Bitmap bitmap = diskCache.get(key, bitmapPool);
+            if (bitmap != null || isCancelled) {
+                finish(bitmap);
+                return;
+            }
+
+            networkExecutor.execute(new Runnable() {
+                @Override
+                public void run() {
+                    loadFromNetwork();
+                }
+            });
         }
 
-        @Override
-        protected BitmapDrawable doInBackground(Void... params) {
-            installCache();
+        @WorkerThread
+        private void loadFromNetwork() {
+            byte[] data = null;
+            if (!isCancelled) {
+                try {
+                    data = download(new URL(imageUrl));
+                } catch (IOException e) {
+                    Logger.debug("ImageLoader - Unable to fetch bitmap: " + imageUrl);
+                }
+            }
 
-            if (request.imageUrl == null) {
-                return null;
+            if (data == null || isCancelled) {
+                finish(null);
+                return;
             }
 
-            try {
-                Bitmap bitmap = BitmapUtils.fetchScaledBitmap(context, new URL(request.imageUrl), request.width, request.height);
+            final byte[] imageData = data;
+            decodeExecutor.execute(new Runnable() {
+                @Override
+                public void run() {
+                    Bitmap bitmap = isCancelled ? null : decodeScaledBitmap(imageData);
+                    if (bitmap != null) {
+                        diskCache.put(key, bitmap);
+                    }
+
+                    finish(bitmap);
+                }
+            });
+        }
+
+        /**
+         * Delivers the result on the main thread.
+         *
+         * @param bitmap The loaded bitmap, or {@code null} if the load failed or was cancelled.
+         */
+        private void finish(@Nullable final Bitmap bitmap) {
+            handler.post(new Runnable() {
+                @Override
+                public void run() {
+                    onFinished(bitmap);
+                }
+            });
+        }
+
+        @MainThread
+        private void onFinished(@Nullable Bitmap bitmap) {
+            if (pendingTasks.get(key) == this) {
+                pendingTasks.remove(key);
+            }
+
+            if (isCancelled) {
+                // The bitmap was never displayed so it can be reused
                 if (bitmap != null) {
-                    BitmapDrawable bitmapDrawable = new BitmapDrawable(context.getResources(), bitmap);
-                    memoryCache.put(request.getCacheKey(), bitmapDrawable);
-                    return bitmapDrawable;
+                    bitmapPool.put(bitmap);
                 }
-            } catch (IOException e) {
-                Logger.debug("Unable to fetch bitmap: " + request.imageUrl);
+                return;
             }
 
-            return null;
-        }
+            BitmapDrawable bitmapDrawable = null;
+            if (bitmap != null) {
+                bitmapDrawable = new BitmapDrawable(context.getResources(), bitmap);
+                memoryCache.put(key, bitmapDrawable);
+            }
 
-        @Override
-        protected void onPostExecute(BitmapDrawable bitmapDrawable) {
-            final ImageView imageView = request.getImageView();
-            if (bitmapDrawable != null && imageView != null) {
-                // Transition drawable with a transparent drawable and the final drawable
-                TransitionDrawable td = new TransitionDrawable(new Drawable[] {
-                        new ColorDrawable(ContextCompat.getColor(context, android.R.color.transparent)),
-                        bitmapDrawable
-                });
-                imageView.setImageDrawable(td);
-                td.startTransition(FADE_IN_TIME_MS);
+            for (Request request : new ArrayList<>(requests)) {
+                request.onLoaded(bitmapDrawable);
             }
+            requests.clear();
         }
 
         /**
-         * Installs a HttpResponseCache if a cache is not already installed.
+         * Decodes the downloaded image scaled down to the requested size.
+         *
+         * @param data The image data.
+         * @return The bitmap, or {@code null} if the image could not be decoded.
          */
-        private void installCache() {
-            // URL Cache
-            File cacheDir = new File(context.getApplicationContext().getCacheDir(), CACHE_DIR);
-            if (!cacheDir.exists()) {
-                //noinspection ResultOfMethodCallIgnored
-                cacheDir.mkdirs();
+        @Nullable
+        private Bitmap decodeScaledBitmap(@NonNull byte[] data) {
+            BitmapFactory.Options options = new BitmapFactory.Options();
+            options.inJustDecodeBounds = true;
+            BitmapFactory.decodeByteArray(data, 0, data.length, options);
+
+            if (options.outWidth <= 0 || options.outHeight <= 0) {
+                Logger.error("ImageLoader - Failed to decode image bounds for URL: " + imageUrl);
+                return null;
             }
 
-            if (HttpResponseCache.getInstalled() == null) {
-                try {
-                    HttpResponseCache.install(cacheDir, DISK_CACHE_SIZE);
-                } catch (IOException e) {
-                    Logger.error("Unable to install image loader cache");
+            options.inSampleSize = BitmapUtils.calculateInSampleSize(options.outWidth, options.outHeight, width, height);
+            options.inJustDecodeBounds = false;
+
+            Bitmap bitmap = decode(data, options, bitmapPool);
+            if (bitmap == null) {
+                Logger.error("ImageLoader - Failed to create bitmap for URL: " + imageUrl);
+            }
+
+            return bitmap;
+        }
+
+        /**
+         * Downloads the image into memory.
+         *
+         * @param url The image URL.
+         * @return The image data, or {@code null} if the download failed.
+         * @throws IOException
+         */
+        @Nullable
+        private byte[] download(@NonNull URL url) throws IOException {
+            InputStream inputStream = null;
+
+            try {
+                URLConnection conn = url.openConnection();
+                conn.setConnectTimeout(NETWORK_TIMEOUT_MS);
+                conn.setReadTimeout(NETWORK_TIMEOUT_MS);
+                inputStream = conn.getInputStream();
+
+                if (conn instanceof HttpURLConnection && !UAHttpStatusUtil.inSuccessRange(((HttpURLConnection) conn).getResponseCode())) {
+                    Logger.warn("ImageLoader - Unable to download image. Received response code: " + ((HttpURLConnection) conn).getResponseCode());
+                    return null;
+                }
+
+                if (inputStream == null) {
+                    return null;
+                }
+
+                int contentLength = conn.getContentLength();
+                ByteArrayOutputStream outputStream = new ByteArrayOutputStream(contentLength > 0 ? contentLength : BUFFER_SIZE);
+                byte[] buffer = new byte[BUFFER_SIZE];
+                int bytesRead;
+
+                while ((bytesRead = inputStream.read(buffer)) != -1) {
+                    if (isCancelled) {
+                        return null;
+                    }
+                    outputStream.write(buffer, 0, bytesRead);
+                }
+
+                return outputStream.toByteArray();
+            } finally {
+                if (inputStream != null) {
+                    inputStream.close();
                 }
             }
         }
@@ -25,6 +25,7 @@ import android.widget.TextView;
 import com.urbanairship.Cancelable;
 import com.urbanairship.R;
 import com.urbanairship.UAirship;
+import com.urbanairship.richpush.PagedMessageList;
 import com.urbanairship.richpush.RichPushInbox;
 import com.urbanairship.richpush.RichPushMessage;
 import com.urbanairship.util.ViewUtils;
@@ -37,6 +38,10 @@ import java.util.List;
  */
 public class MessageListFragment extends Fragment {
 
+    /**
+     * Number of rows past the visible rows to prefetch icons for.
+     */
+    private static final int PREFETCH_ROW_COUNT = 5;
 
     /**
      * Interface that defines the callback when the
@@ -56,6 +61,7 @@ public class MessageListFragment extends Fragment {
     private RichPushInbox richPushInbox;
     private MessageViewAdapter adapter;
     private Cancelable fetchMessagesOperation;
+    private Cancelable pagedMessagesOperation;
     private ImageLoader imageLoader;
     private String currentMessageId;
     private RichPushInbox.Predicate predicate;
@@ -73,15 +79,27 @@ public class MessageListFragment extends Fragment {
     };
 
     /**
-     * Gets messages from the inbox filtered by the local predicate
-     * @return The filtered list of messages.
+     * Updates the adapter with the inbox messages filtered by the local predicate. Without a
+     * predicate the messages are paged in from the database in the background as they are displayed.
      */
-    private List<RichPushMessage> getMessages() {
-        return richPushInbox.getMessages(predicate);
-    }
-
     private void updateAdapterMessages() {
-        adapter.set(getMessages());
+        if (pagedMessagesOperation != null) {
+            pagedMessagesOperation.cancel();
+            pagedMessagesOperation = null;
+        }
+
+        if (predicate != null) {
+            adapter.set(richPushInbox.getMessages(predicate));
+            return;
+        }
+
+        pagedMessagesOperation = richPushInbox.getPagedMessages(new RichPushInbox.PagedMessagesCallback() {
+            @Override
+            public void onMessagesLoaded(@NonNull PagedMessageList messages) {
+                pagedMessagesOperation = null;
+                adapter.set(messages);
+            }
+        });
     }
 
     @Override
@@ -164,6 +182,7 @@ public class MessageListFragment extends Fragment {
         }
 
         absListView.setAdapter(adapter);
+        absListView.setOnScrollListener(new PrefetchScrollListener());
 
         // Pull to refresh
         refreshLayout = (SwipeRefreshLayout) view.findViewById(R.id.swipe_container);
@@ -313,7 +332,8 @@ public class MessageListFragment extends Fragment {
      * Returns a the {@link RichPushMessage} at a given position.
      *
      * @param position The list position.
-     * @return The {@link RichPushMessage} at a given position.
+     * @return The {@link RichPushMessage} at a given position, or {@code null} if the position is
+     * out of range or the message is still loading.
      */
     public RichPushMessage getMessage(int position) {
         if (adapter.getCount() > position) {
@@ -322,6 +342,18 @@ public class MessageListFragment extends Fragment {
         return null;
     }
 
+    /**
+     * Returns the ID of the message at a given position. Unlike {@link #getMessage(int)}, the ID
+     * is available before the message is loaded.
+     *
+     * @param position The list position.
+     * @return The message ID, or {@code null} if the position is out of range.
+     */
+    @Nullable
+    public String getMessageId(int position) {
+        return adapter.getMessageId(position);
+    }
+
     @Override
     public void onDestroyView() {
         super.onDestroyView();
@@ -336,6 +368,11 @@ public class MessageListFragment extends Fragment {
     public void onDestroy() {
         super.onDestroy();
         pendingCallbacks.clear();
+
+        if (pagedMessagesOperation != null) {
+            pagedMessagesOperation.cancel();
+            pagedMessagesOperation = null;
+        }
     }
 
     /**
@@ -373,4 +410,33 @@ public class MessageListFragment extends Fragment {
             updateAdapterMessages();
         }
     }
+
+    /**
+     * Scroll listener that prefetches the icons for the rows about to scroll into view.
+     */
+    private class PrefetchScrollListener implements AbsListView.OnScrollListener {
+        private int lastFirstVisibleItem = -1;
+
+        @Override
+        public void onScrollStateChanged(AbsListView view, int scrollState) {}
+
+        @Override
+        public void onScroll(AbsListView view, int firstVisibleItem, int visibleItemCount, int totalItemCount) {
+            if (imageLoader == null || firstVisibleItem == lastFirstVisibleItem || visibleItemCount == 0) {
+                return;
+            }
+
+            boolean scrollingDown = firstVisibleItem >= lastFirstVisibleItem;
+            lastFirstVisibleItem = firstVisibleItem;
+
+            int start = scrollingDown ? firstVisibleItem + visibleItemCount : firstVisibleItem - PREFETCH_ROW_COUNT;
+            int end = Math.min(start + PREFETCH_ROW_COUNT, totalItemCount);
+            for (int i = Math.max(start, 0); i < end; i++) {
+                RichPushMessage message = getMessage(i);
+                if (message != null) {
+                    imageLoader.prefetch(message.getListIconUrl());
+                }
+            }
+        }
+    }
 }
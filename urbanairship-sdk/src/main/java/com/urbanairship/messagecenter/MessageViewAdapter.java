@@ -3,11 +3,13 @@
 package com.urbanairship.messagecenter;
 
 import android.content.Context;
+import android.support.annotation.Nullable;
 import android.view.LayoutInflater;
 import android.view.View;
 import android.view.ViewGroup;
 import android.widget.BaseAdapter;
 
+import com.urbanairship.richpush.PagedMessageList;
 import com.urbanairship.richpush.RichPushMessage;
 
 import java.util.ArrayList;
@@ -21,10 +23,18 @@ import java.util.List;
 public abstract class MessageViewAdapter extends BaseAdapter {
 
 
-    private final List<RichPushMessage> items;
+    private volatile List<RichPushMessage> items;
+    private PagedMessageList pagedMessages;
     private final Context context;
     private final int layout;
 
+    private final PagedMessageList.Listener pageListener = new PagedMessageList.Listener() {
+        @Override
+        public void onMessagesLoaded() {
+            notifyDataSetChanged();
+        }
+    };
+
     /**
      * Creates a ViewBinder
      *
@@ -39,25 +49,47 @@ public abstract class MessageViewAdapter extends BaseAdapter {
 
     @Override
     public int getCount() {
+        if (pagedMessages != null) {
+            return pagedMessages.size();
+        }
+
         return items.size();
     }
 
     @Override
     public Object getItem(int position) {
-        if (position > items.size()) {
+        if (pagedMessages != null) {
+            return position < pagedMessages.size() ? pagedMessages.getMessage(position) : null;
+        }
+
+        List<RichPushMessage> items = this.items;
+        if (position >= items.size()) {
             return null;
         }
 
         return items.get(position);
     }
 
-    @Override
-    public long getItemId(int position) {
-        if (position > items.size()                                                                                                  ) {
-            return -1;
+    /**
+     * Gets the ID of the message at the given position without loading the message.
+     *
+     * @param position The position.
+     * @return The message ID, or {@code null} if the position is out of range.
+     */
+    @Nullable
+    public String getMessageId(int position) {
+        if (pagedMessages != null) {
+            return position < pagedMessages.size() ? pagedMessages.getMessageId(position) : null;
         }
 
-        return items.get(position).getMessageId().hashCode();
+        RichPushMessage message = (RichPushMessage) getItem(position);
+        return message == null ? null : message.getMessageId();
+    }
+
+    @Override
+    public long getItemId(int position) {
+        String messageId = getMessageId(position);
+        return messageId == null ? -1 : messageId.hashCode();
     }
 
     @Override
@@ -68,8 +100,13 @@ public abstract class MessageViewAdapter extends BaseAdapter {
             view = layoutInflater.inflate(layout, parent, false);
         }
 
-        if (position <= items.size()) {
-            bindView(view, items.get(position), position);
+        RichPushMessage message = (RichPushMessage) getItem(position);
+        if (message != null) {
+            view.setVisibility(View.VISIBLE);
+            bindView(view, message, position);
+        } else {
+            // Still loading, hide any recycled content until the message is available
+            view.setVisibility(View.INVISIBLE);
         }
 
         return view;
@@ -90,14 +127,35 @@ public abstract class MessageViewAdapter extends BaseAdapter {
      * @param collection Collection of items
      */
     public void set(Collection<RichPushMessage> collection) {
-        synchronized (items) {
-            items.clear();
-            items.addAll(collection);
-        }
+        setPagedMessages(null);
+        items = new ArrayList<>(collection);
+        notifyDataSetChanged();
+    }
 
+    /**
+     * Sets the current items in the adapter to a paged message list. Messages are only loaded
+     * when they are displayed, and the adapter refreshes as their pages load.
+     *
+     * @param messages The paged message list.
+     */
+    public void set(PagedMessageList messages) {
+        setPagedMessages(messages);
+        items = new ArrayList<>();
         notifyDataSetChanged();
     }
 
+    private void setPagedMessages(PagedMessageList messages) {
+        if (pagedMessages != null) {
+            pagedMessages.setListener(null);
+        }
+
+        pagedMessages = messages;
+
+        if (pagedMessages != null) {
+            pagedMessages.setListener(pageListener);
+        }
+    }
+
     /**
      * Returns the context.
      *
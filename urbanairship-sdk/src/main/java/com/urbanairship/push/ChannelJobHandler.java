@@ -65,10 +65,16 @@ class ChannelJobHandler {
 
 
     /**
-     * Data store key for the last successfully registered channel payload.
+     * Data store key for the last successfully registered channel payload. Replaced by
+     * {@link #LAST_REGISTRATION_DIGEST_KEY} and only removed.
      */
     private static final String LAST_REGISTRATION_PAYLOAD_KEY = "com.urbanairship.push.LAST_REGISTRATION_PAYLOAD";
 
+    /**
+     * Data store key for the digest of the last successfully registered channel payload.
+     */
+    private static final String LAST_REGISTRATION_DIGEST_KEY = "com.urbanairship.push.LAST_REGISTRATION_DIGEST";
+
     /**
      * Data store key for the time in milliseconds of last successfully channel registration.
      */
@@ -89,6 +95,11 @@ class ChannelJobHandler {
      */
     static final String PENDING_TAG_GROUP_MUTATIONS_KEY = "com.urbanairship.push.PENDING_TAG_GROUP_MUTATIONS";
 
+    /**
+     * Name of the database that queues the pending channel tag group mutations.
+     */
+    private static final String TAG_GROUP_DATABASE_NAME = "ua_channel_tag_groups.db";
+
     /**
      * Response body key for the channel ID.
      */
@@ -113,6 +124,7 @@ class ChannelJobHandler {
     private final Context context;
     private final PreferenceDataStore dataStore;
     private final JobDispatcher jobDispatcher;
+    private final TagGroupMutationStore mutationStore;
 
 
     /**
@@ -123,12 +135,14 @@ class ChannelJobHandler {
      * @param dataStore The preference data store.
      */
     ChannelJobHandler(Context context, UAirship airship, PreferenceDataStore dataStore) {
-        this(context, airship, dataStore, JobDispatcher.shared(context), new ChannelApiClient(airship.getPlatformType(), airship.getAirshipConfigOptions()));
+        this(context, airship, dataStore, JobDispatcher.shared(context),
+                new ChannelApiClient(airship.getPlatformType(), airship.getAirshipConfigOptions()),
+                new TagGroupMutationStore(context, airship.getAirshipConfigOptions().getAppKey(), TAG_GROUP_DATABASE_NAME));
     }
 
     @VisibleForTesting
     ChannelJobHandler(Context context, UAirship airship, PreferenceDataStore dataStore,
-                      JobDispatcher jobDispatcher, ChannelApiClient channelClient) {
+                      JobDispatcher jobDispatcher, ChannelApiClient channelClient, TagGroupMutationStore mutationStore) {
         this.context = context;
         this.dataStore = dataStore;
         this.channelClient = channelClient;
@@ -136,6 +150,7 @@ class ChannelJobHandler {
         this.pushManager = airship.getPushManager();
         this.namedUser = airship.getNamedUser();
         this.jobDispatcher = jobDispatcher;
+        this.mutationStore = mutationStore;
     }
 
     /**
@@ -324,12 +339,20 @@ class ChannelJobHandler {
      */
     @Job.JobResult
     private int updateChannel(@NonNull URL channelLocation, @NonNull ChannelRegistrationPayload payload) {
-        if (!shouldUpdateRegistration(payload)) {
+        boolean isReregistrationDue = isReregistrationDue();
+        if (!isReregistrationDue && !hasPayloadChanged(payload)) {
             Logger.verbose("ChannelJobHandler - Channel already up to date.");
             return Job.JOB_FINISHED;
         }
 
-        Response response = channelClient.updateChannelWithPayload(channelLocation, payload);
+        // Leave the tags out if the channel already has them. The periodic re-registration
+        // always sends the full set.
+        ChannelRegistrationPayload requestPayload = payload;
+        if (!isReregistrationDue && payload.isSettingTags() && pushManager.getTagStore().isAcknowledged(payload.getTagsDigest())) {
+            requestPayload = payload.minusTags();
+        }
+
+        Response response = channelClient.updateChannelWithPayload(channelLocation, requestPayload);
 
         // 5xx
         if (response == null || UAHttpStatusUtil.inServerErrorRange(response.getStatus())) {
@@ -449,17 +472,23 @@ class ChannelJobHandler {
     }
 
     /**
-     * Check the specified payload and last registration time to determine if registration is required
+     * Checks if the payload differs from the last successfully registered payload by comparing digests.
      *
      * @param payload The channel registration payload
-     * @return <code>True</code> if registration is required, <code>false</code> otherwise
-     */
-    private boolean shouldUpdateRegistration(@NonNull ChannelRegistrationPayload payload) {
-        // check time and payload
-        ChannelRegistrationPayload lastSuccessPayload = getLastRegistrationPayload();
-        long timeSinceLastRegistration = (System.currentTimeMillis() - getLastRegistrationTime());
-        return (!payload.equals(lastSuccessPayload)) ||
-                (timeSinceLastRegistration >= CHANNEL_REREGISTRATION_INTERVAL_MS);
+     * @return <code>True</code> if the payload changed, <code>false</code> otherwise
+     */
+    private boolean hasPayloadChanged(@NonNull ChannelRegistrationPayload payload) {
+        String digest = payload.getDigest();
+        return digest == null || !digest.equals(dataStore.getString(LAST_REGISTRATION_DIGEST_KEY, null));
+    }
+
+    /**
+     * Checks the last registration time to determine if the periodic re-registration is due.
+     *
+     * @return <code>True</code> if re-registration is due, <code>false</code> otherwise
+     */
+    private boolean isReregistrationDue() {
+        return System.currentTimeMillis() - getLastRegistrationTime() >= CHANNEL_REREGISTRATION_INTERVAL_MS;
     }
 
     /**
@@ -482,30 +511,20 @@ class ChannelJobHandler {
     }
 
     /**
-     * Sets the last registration payload and registration time. The last payload and registration
-     * time are used to prevent duplicate channel updates.
+     * Sets the last registration payload digest and registration time, and acknowledges the
+     * registered tags. They are used to prevent duplicate channel updates.
      *
      * @param channelPayload A ChannelRegistrationPayload.
      */
     private void setLastRegistrationPayload(ChannelRegistrationPayload channelPayload) {
-        dataStore.put(LAST_REGISTRATION_PAYLOAD_KEY, channelPayload);
+        dataStore.put(LAST_REGISTRATION_DIGEST_KEY, channelPayload.getDigest());
         dataStore.put(LAST_REGISTRATION_TIME_KEY, System.currentTimeMillis());
-    }
-
-    /**
-     * Gets the last registration payload
-     *
-     * @return a ChannelRegistrationPayload
-     */
-    @Nullable
-    private ChannelRegistrationPayload getLastRegistrationPayload() {
-        String payloadJSON = dataStore.getString(LAST_REGISTRATION_PAYLOAD_KEY, null);
+        dataStore.remove(LAST_REGISTRATION_PAYLOAD_KEY);
 
-        try {
-            return ChannelRegistrationPayload.parseJson(payloadJSON);
-        } catch (JsonException e) {
-            Logger.error("ChannelJobHandler - Failed to parse payload from JSON.", e);
-            return null;
+        if (channelPayload.isSettingTags()) {
+            pushManager.getTagStore().acknowledge(channelPayload.getTagsDigest());
+        } else {
+            pushManager.getTagStore().clearAcknowledged();
         }
     }
 
@@ -551,12 +570,13 @@ class ChannelJobHandler {
 
     /**
      * Handles performing any tag group requests if any pending tag group changes are available.
+     * The pending mutations are collapsed and uploaded in a single pass.
      *
      * @return The job result.
      */
     @Job.JobResult
     private int onUpdateTagGroup() {
-        migrateTagGroups(dataStore, PENDING_ADD_TAG_GROUPS_KEY, PENDING_REMOVE_TAG_GROUPS_KEY, PENDING_TAG_GROUP_MUTATIONS_KEY);
+        migratePendingMutations();
 
         String channelId = pushManager.getChannelId();
         if (channelId == null) {
@@ -564,39 +584,39 @@ class ChannelJobHandler {
             return Job.JOB_FINISHED;
         }
 
-        List<TagGroupsMutation> mutations = TagGroupsMutation.fromJsonList(dataStore.getJsonValue(PENDING_TAG_GROUP_MUTATIONS_KEY).optList());
-
-        if (mutations.isEmpty()) {
+        TagGroupMutationStore.Pending pending = mutationStore.getPending();
+        if (pending.mutations.isEmpty()) {
             Logger.verbose( "ChannelJobHandler - No pending tag group updates. Skipping update.");
+            mutationStore.remove(pending);
             return Job.JOB_FINISHED;
         }
 
-        Response response = channelClient.updateTagGroups(channelId, mutations.get(0));
+        // Set mutations can not be combined with add and remove, so the collapsed set is at most two requests
+        for (TagGroupsMutation mutation : pending.mutations) {
+            Response response = channelClient.updateTagGroups(channelId, mutation);
 
-        // 5xx or no response
-        if (response == null || UAHttpStatusUtil.inServerErrorRange(response.getStatus())) {
-            Logger.info("ChannelJobHandler - Failed to update tag groups, will retry later.");
-            return Job.JOB_RETRY;
-        }
-
-        int status = response.getStatus();
-        Logger.info("ChannelJobHandler - Update tag groups finished with status: " + status);
-        if (UAHttpStatusUtil.inSuccessRange(status) || status == HttpURLConnection.HTTP_FORBIDDEN || status == HttpURLConnection.HTTP_BAD_REQUEST) {
-            mutations.remove(0);
+            // 5xx or no response
+            if (response == null || UAHttpStatusUtil.inServerErrorRange(response.getStatus())) {
+                Logger.info("ChannelJobHandler - Failed to update tag groups, will retry later.");
+                return Job.JOB_RETRY;
+            }
 
-            if (mutations.isEmpty()) {
-                dataStore.remove(PENDING_TAG_GROUP_MUTATIONS_KEY);
-            } else {
-                dataStore.put(PENDING_TAG_GROUP_MUTATIONS_KEY, JsonValue.wrapOpt(mutations));
+            int status = response.getStatus();
+            Logger.info("ChannelJobHandler - Update tag groups finished with status: " + status);
+            if (!(UAHttpStatusUtil.inSuccessRange(status) || status == HttpURLConnection.HTTP_FORBIDDEN || status == HttpURLConnection.HTTP_BAD_REQUEST)) {
+                return Job.JOB_FINISHED;
             }
+        }
 
-            if (!mutations.isEmpty()) {
-                Job updateJob = Job.newBuilder(ACTION_UPDATE_TAG_GROUPS)
-                                   .setAirshipComponent(PushManager.class)
-                                   .build();
+        mutationStore.remove(pending);
 
-                jobDispatcher.dispatch(updateJob);
-            }
+        // Changes applied during the upload are picked up by another update
+        if (!mutationStore.getPending().mutations.isEmpty()) {
+            Job updateJob = Job.newBuilder(ACTION_UPDATE_TAG_GROUPS)
+                               .setAirshipComponent(PushManager.class)
+                               .build();
+
+            jobDispatcher.dispatch(updateJob);
         }
 
         return Job.JOB_FINISHED;
@@ -610,19 +630,21 @@ class ChannelJobHandler {
      */
     @Job.JobResult
     private int onApplyTagGroupChanges(Job job) {
-        migrateTagGroups(dataStore, PENDING_ADD_TAG_GROUPS_KEY, PENDING_REMOVE_TAG_GROUPS_KEY, PENDING_TAG_GROUP_MUTATIONS_KEY);
+        migratePendingMutations();
 
-        List<TagGroupsMutation> mutations = TagGroupsMutation.fromJsonList(dataStore.getJsonValue(PENDING_TAG_GROUP_MUTATIONS_KEY).optList());
+        List<TagGroupsMutation> mutations;
         try {
             JsonValue jsonValue = JsonValue.parseString(job.getExtras().getString(TagGroupsEditor.EXTRA_TAG_GROUP_MUTATIONS));
-            mutations.addAll(TagGroupsMutation.fromJsonList(jsonValue.optList()));
+            mutations = TagGroupsMutation.fromJsonList(jsonValue.optList());
         } catch (JsonException e) {
             Logger.error("Failed to parse tag group change:", e);
             return Job.JOB_FINISHED;
         }
 
-        mutations = TagGroupsMutation.collapseMutations(mutations);
-        dataStore.put(PENDING_TAG_GROUP_MUTATIONS_KEY, JsonValue.wrapOpt(mutations));
+        if (!mutationStore.add(mutations)) {
+            Logger.error("ChannelJobHandler - Failed to store tag group changes.");
+            return Job.JOB_FINISHED;
+        }
 
         if (pushManager.getChannelId() != null) {
             Job updateJob = Job.newBuilder(ACTION_UPDATE_TAG_GROUPS)
@@ -634,4 +656,21 @@ class ChannelJobHandler {
 
         return Job.JOB_FINISHED;
     }
+
+    /**
+     * Moves any tag group changes that are still stored in the preference data store into the
+     * mutation store.
+     */
+    private void migratePendingMutations() {
+        migrateTagGroups(dataStore, PENDING_ADD_TAG_GROUPS_KEY, PENDING_REMOVE_TAG_GROUPS_KEY, PENDING_TAG_GROUP_MUTATIONS_KEY);
+
+        JsonValue pendingMutations = dataStore.getJsonValue(PENDING_TAG_GROUP_MUTATIONS_KEY);
+        if (pendingMutations.isNull()) {
+            return;
+        }
+
+        if (mutationStore.add(TagGroupsMutation.fromJsonList(pendingMutations.optList()))) {
+            dataStore.remove(PENDING_TAG_GROUP_MUTATIONS_KEY);
+        }
+    }
 }
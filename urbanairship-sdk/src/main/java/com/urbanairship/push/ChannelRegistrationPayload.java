@@ -64,6 +64,7 @@ class ChannelRegistrationPayload implements JsonSerializable {
     private final Set<String> tags;
     private final String userId;
     private final String apid;
+    private final Long tagsDigest;
 
 
     /**
@@ -79,6 +80,7 @@ class ChannelRegistrationPayload implements JsonSerializable {
         private Set<String> tags;
         private String userId;
         private String apid;
+        private Long tagsDigest;
 
 
         /**
@@ -158,6 +160,18 @@ class ChannelRegistrationPayload implements JsonSerializable {
             return this;
         }
 
+        /**
+         * Set the tags digest
+         *
+         * @param tagsDigest The {@link ChannelTagStore} digest of the tags.
+         * @return The builder with the tags digest set
+         */
+        @NonNull
+        Builder setTagsDigest(long tagsDigest) {
+            this.tagsDigest = tagsDigest;
+            return this;
+        }
+
         /**
          * Set the userId
          *
@@ -199,6 +213,59 @@ class ChannelRegistrationPayload implements JsonSerializable {
         this.tags = builder.setTags ? builder.tags : null;
         this.userId = builder.userId;
         this.apid = builder.apid;
+        this.tagsDigest = builder.setTags ? builder.tagsDigest : null;
+    }
+
+    /**
+     * Checks if the payload sets the channel's tags.
+     *
+     * @return <code>true</code> if the payload sets the tags, <code>false</code> otherwise
+     */
+    boolean isSettingTags() {
+        return setTags;
+    }
+
+    /**
+     * Gets the digest of the payload's tags. The digest is only computed if the builder did not provide one.
+     *
+     * @return The tags digest
+     */
+    long getTagsDigest() {
+        if (tagsDigest != null) {
+            return tagsDigest;
+        }
+
+        return tags == null ? 0 : ChannelTagStore.digest(tags);
+    }
+
+    /**
+     * Creates a copy of the payload that leaves the channel's tags unchanged.
+     *
+     * @return The payload without tags
+     */
+    @NonNull
+    ChannelRegistrationPayload minusTags() {
+        return new Builder()
+                .setOptIn(optIn)
+                .setBackgroundEnabled(backgroundEnabled)
+                .setAlias(alias)
+                .setDeviceType(deviceType)
+                .setPushAddress(pushAddress)
+                .setTags(false, null)
+                .setUserId(userId)
+                .setApid(apid)
+                .build();
+    }
+
+    /**
+     * Gets a digest of the payload. The tags are covered by their digest so the full tag set is
+     * never serialized.
+     *
+     * @return The payload digest, or <code>null</code> if it could not be computed
+     */
+    String getDigest() {
+        String tagsDigest = setTags ? String.valueOf(getTagsDigest()) : "";
+        return UAStringUtil.sha256(minusTags().toString() + tagsDigest);
     }
 
     @Override
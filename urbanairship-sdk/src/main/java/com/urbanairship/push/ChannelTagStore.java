@@ -0,0 +1,256 @@
+/* Copyright 2016 Urban Airship and Contributors */
+
+package com.urbanairship.push;
+
+import android.support.annotation.NonNull;
+
+import com.urbanairship.PreferenceDataStore;
+import com.urbanairship.json.JsonValue;
+
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Stores the channel's device tags.
+ * <p/>
+ * The tags are parsed from the {@link PreferenceDataStore} once and kept in memory until the stored
+ * tags are changed outside of the store, such as by another process. The store keeps
+ * an order independent digest of the tags that is updated with each addition and removal, so
+ * checking for changes since the last acknowledged registration never has to parse or compare the
+ * full tag set.
+ */
+class ChannelTagStore {
+
+    /**
+     * Key for storing the digest of the tags that were last acknowledged by a channel registration.
+     */
+    static final String ACKNOWLEDGED_TAGS_DIGEST_KEY = "com.urbanairship.push.ACKNOWLEDGED_TAGS_DIGEST";
+
+    private static final long FNV_OFFSET_BASIS = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+
+    private final PreferenceDataStore dataStore;
+    private final String tagsKey;
+    private final Object lock = new Object();
+
+    // Incremented when the stored tags change. The listener does not take the lock since it may be
+    // called while the data store holds its own locks.
+    private final AtomicInteger generation = new AtomicInteger();
+
+    private Set<String> tags;
+    private long digest;
+    private int loadedGeneration;
+
+    /**
+     * Default constructor.
+     *
+     * @param dataStore The preference data store.
+     * @param tagsKey The preference key the tags are stored under.
+     */
+    ChannelTagStore(@NonNull PreferenceDataStore dataStore, @NonNull String tagsKey) {
+        this.dataStore = dataStore;
+        this.tagsKey = tagsKey;
+
+        dataStore.addListener(new PreferenceDataStore.PreferenceChangeListener() {
+            @Override
+            public void onPreferenceChange(String key) {
+                if (tagsKey.equals(key)) {
+                    generation.incrementAndGet();
+                }
+            }
+        });
+    }
+
+    /**
+     * Gets a copy of the current tags.
+     *
+     * @return The current tags.
+     */
+    @NonNull
+    Set<String> getTags() {
+        synchronized (lock) {
+            return new HashSet<>(loadTags());
+        }
+    }
+
+    /**
+     * Replaces the current tags.
+     *
+     * @param tags The new tags.
+     * @return {@code true} if the tags changed, otherwise {@code false}.
+     */
+    boolean setTags(@NonNull Set<String> tags) {
+        synchronized (lock) {
+            Set<String> normalizedTags = TagUtils.normalizeTags(tags);
+            if (normalizedTags.equals(loadTags())) {
+                return false;
+            }
+
+            this.tags = normalizedTags;
+            this.digest = digest(normalizedTags);
+            save();
+            return true;
+        }
+    }
+
+    /**
+     * Applies tag additions and removals. Only the changed tags are hashed.
+     *
+     * @param clear {@code true} to remove all the current tags before applying the changes.
+     * @param tagsToAdd Tags to add.
+     * @param tagsToRemove Tags to remove.
+     * @return {@code true} if the tags changed, otherwise {@code false}.
+     */
+    boolean applyChanges(boolean clear, @NonNull Set<String> tagsToAdd, @NonNull Set<String> tagsToRemove) {
+        synchronized (lock) {
+            if (clear) {
+                Set<String> tags = new HashSet<>(tagsToAdd);
+                tags.removeAll(tagsToRemove);
+                return setTags(tags);
+            }
+
+            Set<String> tags = loadTags();
+            boolean changed = false;
+
+            Set<String> additions = new HashSet<>(tagsToAdd);
+            additions.removeAll(tagsToRemove);
+
+            for (String tag : TagUtils.normalizeTags(additions)) {
+                if (tags.add(tag)) {
+                    digest += hash(tag);
+                    changed = true;
+                }
+            }
+
+            for (String tag : tagsToRemove) {
+                if (tags.remove(tag)) {
+                    digest -= hash(tag);
+                    changed = true;
+                }
+            }
+
+            if (changed) {
+                save();
+            }
+
+            return changed;
+        }
+    }
+
+    /**
+     * Gets the digest of the current tags.
+     *
+     * @return The tags digest.
+     */
+    long getDigest() {
+        synchronized (lock) {
+            loadTags();
+            return digest;
+        }
+    }
+
+    /**
+     * Checks if a tags digest was the last one acknowledged by a channel registration.
+     *
+     * @param digest The tags digest.
+     * @return {@code true} if the digest was acknowledged, otherwise {@code false}.
+     */
+    boolean isAcknowledged(long digest) {
+        String acknowledged = dataStore.getString(ACKNOWLEDGED_TAGS_DIGEST_KEY, null);
+        return acknowledged != null && acknowledged.equals(String.valueOf(digest));
+    }
+
+    /**
+     * Records the digest of the tags that were sent by a successful channel registration.
+     *
+     * @param digest The tags digest.
+     */
+    void acknowledge(long digest) {
+        dataStore.put(ACKNOWLEDGED_TAGS_DIGEST_KEY, String.valueOf(digest));
+    }
+
+    /**
+     * Clears the acknowledged digest so the next registration sends the full tag set.
+     */
+    void clearAcknowledged() {
+        dataStore.remove(ACKNOWLEDGED_TAGS_DIGEST_KEY);
+    }
+
+    /**
+     * Computes the order independent digest of a tag set.
+     *
+     * @param tags The tags.
+     * @return The tags digest.
+     */
+    static long digest(@NonNull Collection<String> tags) {
+        long digest = 0;
+        for (String tag : tags) {
+            digest += hash(tag);
+        }
+
+        return digest;
+    }
+
+    /**
+     * Hashes a single tag with 64-bit FNV-1a.
+     *
+     * @param tag The tag.
+     * @return The tag hash.
+     */
+    private static long hash(@NonNull String tag) {
+        long hash = FNV_OFFSET_BASIS;
+        for (int i = 0; i < tag.length(); i++) {
+            hash ^= tag.charAt(i);
+            hash *= FNV_PRIME;
+        }
+
+        return hash;
+    }
+
+    /**
+     * Loads the tags from the data store on first access, or if the stored tags changed since
+     * they were last loaded or saved.
+     *
+     * @return The cached tags.
+     */
+    private Set<String> loadTags() {
+        int currentGeneration = generation.get();
+        if (tags != null && loadedGeneration == currentGeneration) {
+            return tags;
+        }
+
+        Set<String> storedTags = new HashSet<>();
+        JsonValue jsonValue = dataStore.getJsonValue(tagsKey);
+        if (jsonValue.isJsonList()) {
+            for (JsonValue tag : jsonValue.getList()) {
+                if (tag.isString()) {
+                    storedTags.add(tag.getString());
+                }
+            }
+        }
+
+        tags = TagUtils.normalizeTags(storedTags);
+        digest = digest(tags);
+        loadedGeneration = currentGeneration;
+
+        // Drop any stored tags that are no longer valid
+        if (tags.size() != storedTags.size()) {
+            save();
+        }
+
+        return tags;
+    }
+
+    private void save() {
+        if (tags.isEmpty()) {
+            dataStore.remove(tagsKey);
+        } else {
+            dataStore.put(tagsKey, JsonValue.wrapOpt(tags));
+        }
+
+        // The cached tags already match the write
+        loadedGeneration = generation.get();
+    }
+}
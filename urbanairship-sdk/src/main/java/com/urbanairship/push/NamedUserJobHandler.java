@@ -68,12 +68,18 @@ class NamedUserJobHandler {
      */
     static final String ACTION_CLEAR_PENDING_NAMED_USER_TAGS = "com.urbanairship.nameduser.ACTION_CLEAR_PENDING_NAMED_USER_TAGS";
 
+    /**
+     * Name of the database that queues the pending named user tag group mutations.
+     */
+    private static final String TAG_GROUP_DATABASE_NAME = "ua_named_user_tag_groups.db";
+
     private final NamedUserApiClient client;
 
     private final NamedUser namedUser;
     private final PushManager pushManager;
     private final PreferenceDataStore dataStore;
     private final JobDispatcher jobDispatcher;
+    private final TagGroupMutationStore mutationStore;
 
 
 
@@ -85,16 +91,20 @@ class NamedUserJobHandler {
      * @param dataStore The preference data store.
      */
     NamedUserJobHandler(Context context, UAirship airship, PreferenceDataStore dataStore) {
-        this(airship, dataStore, JobDispatcher.shared(context), new NamedUserApiClient(airship.getPlatformType(), airship.getAirshipConfigOptions()));
+        this(airship, dataStore, JobDispatcher.shared(context),
+                new NamedUserApiClient(airship.getPlatformType(), airship.getAirshipConfigOptions()),
+                new TagGroupMutationStore(context, airship.getAirshipConfigOptions().getAppKey(), TAG_GROUP_DATABASE_NAME));
     }
 
     @VisibleForTesting
-    NamedUserJobHandler(UAirship airship, PreferenceDataStore dataStore, JobDispatcher jobDispatcher, NamedUserApiClient client) {
+    NamedUserJobHandler(UAirship airship, PreferenceDataStore dataStore, JobDispatcher jobDispatcher,
+                        NamedUserApiClient client, TagGroupMutationStore mutationStore) {
         this.dataStore = dataStore;
         this.client = client;
         this.namedUser = airship.getNamedUser();
         this.pushManager = airship.getPushManager();
         this.jobDispatcher = jobDispatcher;
+        this.mutationStore = mutationStore;
     }
 
     /**
@@ -202,20 +212,21 @@ class NamedUserJobHandler {
             return Job.JOB_FINISHED;
         }
 
-        migrateTagGroups(dataStore, PENDING_ADD_TAG_GROUPS_KEY, PENDING_REMOVE_TAG_GROUPS_KEY, PENDING_TAG_GROUP_MUTATIONS_KEY);
+        migratePendingMutations();
 
-        List<TagGroupsMutation> mutations = TagGroupsMutation.fromJsonList(dataStore.getJsonValue(PENDING_TAG_GROUP_MUTATIONS_KEY).optList());
+        List<TagGroupsMutation> mutations;
         try {
             JsonValue jsonValue = JsonValue.parseString(job.getExtras().getString(TagGroupsEditor.EXTRA_TAG_GROUP_MUTATIONS));
-            mutations.addAll(TagGroupsMutation.fromJsonList(jsonValue.optList()));
+            mutations = TagGroupsMutation.fromJsonList(jsonValue.optList());
         } catch (JsonException e) {
             Logger.error("Failed to parse tag group change:", e);
             return Job.JOB_FINISHED;
         }
 
-        mutations = TagGroupsMutation.collapseMutations(mutations);
-        dataStore.put(PENDING_TAG_GROUP_MUTATIONS_KEY, JsonValue.wrapOpt(mutations));
-
+        if (!mutationStore.add(mutations)) {
+            Logger.error("NamedUserJobHandler - Failed to store tag group changes.");
+            return Job.JOB_FINISHED;
+        }
 
         Job updateJob = Job.newBuilder(ACTION_UPDATE_TAG_GROUPS)
                            .setAirshipComponent(NamedUser.class)
@@ -228,12 +239,13 @@ class NamedUserJobHandler {
 
     /**
      * Handles performing any tag group requests if any pending tag group changes are available.
+     * The pending mutations are collapsed and uploaded in a single pass.
      *
      * @return The job result.
      */
     @Job.JobResult
     private int onUpdateTagGroup() {
-        migrateTagGroups(dataStore, PENDING_ADD_TAG_GROUPS_KEY, PENDING_REMOVE_TAG_GROUPS_KEY, PENDING_TAG_GROUP_MUTATIONS_KEY);
+        migratePendingMutations();
 
         String namedUserId = namedUser.getId();
         if (namedUserId == null) {
@@ -241,45 +253,61 @@ class NamedUserJobHandler {
             return Job.JOB_FINISHED;
         }
 
-        List<TagGroupsMutation> mutations = TagGroupsMutation.fromJsonList(dataStore.getJsonValue(PENDING_TAG_GROUP_MUTATIONS_KEY).optList());
-
-        if (mutations.isEmpty()) {
+        TagGroupMutationStore.Pending pending = mutationStore.getPending();
+        if (pending.mutations.isEmpty()) {
             Logger.verbose( "NamedUserJobHandler - No pending tag group updates. Skipping update.");
+            mutationStore.remove(pending);
             return Job.JOB_FINISHED;
         }
 
-        Response response = client.updateTagGroups(namedUserId, mutations.get(0));
-
-        // 5xx or no response
-        if (response == null || UAHttpStatusUtil.inServerErrorRange(response.getStatus())) {
-            Logger.info("NamedUserJobHandler - Failed to update tag groups, will retry later.");
-            return Job.JOB_RETRY;
-        }
+        // Set mutations can not be combined with add and remove, so the collapsed set is at most two requests
+        for (TagGroupsMutation mutation : pending.mutations) {
+            Response response = client.updateTagGroups(namedUserId, mutation);
 
-        int status = response.getStatus();
-        Logger.info("NamedUserJobHandler - Update tag groups finished with status: " + status);
-        if (UAHttpStatusUtil.inSuccessRange(status) || status == HttpURLConnection.HTTP_FORBIDDEN || status == HttpURLConnection.HTTP_BAD_REQUEST) {
-            mutations.remove(0);
+            // 5xx or no response
+            if (response == null || UAHttpStatusUtil.inServerErrorRange(response.getStatus())) {
+                Logger.info("NamedUserJobHandler - Failed to update tag groups, will retry later.");
+                return Job.JOB_RETRY;
+            }
 
-            if (mutations.isEmpty()) {
-                dataStore.remove(PENDING_TAG_GROUP_MUTATIONS_KEY);
-            } else {
-                dataStore.put(PENDING_TAG_GROUP_MUTATIONS_KEY, JsonValue.wrapOpt(mutations));
+            int status = response.getStatus();
+            Logger.info("NamedUserJobHandler - Update tag groups finished with status: " + status);
+            if (!(UAHttpStatusUtil.inSuccessRange(status) || status == HttpURLConnection.HTTP_FORBIDDEN || status == HttpURLConnection.HTTP_BAD_REQUEST)) {
+                return Job.JOB_FINISHED;
             }
+        }
 
+        mutationStore.remove(pending);
 
-            if (!mutations.isEmpty()) {
-                Job updateJob = Job.newBuilder(ACTION_UPDATE_TAG_GROUPS)
-                                   .setAirshipComponent(PushManager.class)
-                                   .build();
+        // Changes applied during the upload are picked up by another update
+        if (!mutationStore.getPending().mutations.isEmpty()) {
+            Job updateJob = Job.newBuilder(ACTION_UPDATE_TAG_GROUPS)
+                               .setAirshipComponent(NamedUser.class)
+                               .build();
 
-                jobDispatcher.dispatch(updateJob);
-            }
+            jobDispatcher.dispatch(updateJob);
         }
 
         return Job.JOB_FINISHED;
     }
 
+    /**
+     * Moves any tag group changes that are still stored in the preference data store into the
+     * mutation store.
+     */
+    private void migratePendingMutations() {
+        migrateTagGroups(dataStore, PENDING_ADD_TAG_GROUPS_KEY, PENDING_REMOVE_TAG_GROUPS_KEY, PENDING_TAG_GROUP_MUTATIONS_KEY);
+
+        JsonValue pendingMutations = dataStore.getJsonValue(PENDING_TAG_GROUP_MUTATIONS_KEY);
+        if (pendingMutations.isNull()) {
+            return;
+        }
+
+        if (mutationStore.add(TagGroupsMutation.fromJsonList(pendingMutations.optList()))) {
+            dataStore.remove(PENDING_TAG_GROUP_MUTATIONS_KEY);
+        }
+    }
+
     /**
      * Handles clearing pending tag groups.
      *
@@ -290,6 +318,7 @@ class NamedUserJobHandler {
         dataStore.remove(PENDING_ADD_TAG_GROUPS_KEY);
         dataStore.remove(PENDING_REMOVE_TAG_GROUPS_KEY);
         dataStore.remove(PENDING_TAG_GROUP_MUTATIONS_KEY);
+        mutationStore.clear();
 
         return Job.JOB_FINISHED;
     }
@@ -8,6 +8,7 @@ import android.content.Context;
 import android.content.Intent;
 import android.os.Bundle;
 import android.os.Looper;
+import android.os.SystemClock;
 import android.support.annotation.NonNull;
 import android.support.annotation.Nullable;
 import android.support.annotation.VisibleForTesting;
@@ -22,6 +23,7 @@ import com.urbanairship.actions.ActionArguments;
 import com.urbanairship.actions.ActionService;
 import com.urbanairship.analytics.PushArrivedEvent;
 import com.urbanairship.job.Job;
+import com.urbanairship.job.JobDispatcher;
 import com.urbanairship.json.JsonException;
 import com.urbanairship.json.JsonList;
 import com.urbanairship.json.JsonValue;
@@ -33,8 +35,6 @@ import com.urbanairship.util.UAStringUtil;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.UUID;
-import java.util.concurrent.Semaphore;
-import java.util.concurrent.TimeUnit;
 
 /**
  * Job handler for incoming push messages.
@@ -46,6 +46,11 @@ class PushJobHandler {
      */
     static final String ACTION_RECEIVE_MESSAGE = "com.urbanairship.push.ACTION_RECEIVE_MESSAGE";
 
+    /**
+     * Action sent to broadcast a received rich push once the inbox has refreshed.
+     */
+    static final String ACTION_SEND_PUSH_RECEIVED_BROADCAST = "com.urbanairship.push.ACTION_SEND_PUSH_RECEIVED_BROADCAST";
+
     /**
      * Key to store the push canonical IDs for push deduping.
      */
@@ -57,15 +62,19 @@ class PushJobHandler {
     private static final int MAX_CANONICAL_IDS = 10;
 
     /**
-     * Amount of time in milliseconds to wait for {@link com.urbanairship.richpush.RichPushInbox} to refresh.
+     * Amount of time in milliseconds from receiving a push to displaying its notification before
+     * the handling is logged as slow.
      */
-    private static final int RICH_PUSH_REFRESH_WAIT_TIME_MS = 60000; // 1 minute
+    private static final long NOTIFICATION_LATENCY_BUDGET_MS = 1000;
 
     private final NotificationManagerCompat notificationManager;
     private final UAirship airship;
     private final PreferenceDataStore dataStore;
     private final Context context;
     private final NotificationManagerCompat notificationManagerCompat;
+    private final JobDispatcher jobDispatcher;
+
+    private volatile StageTimings lastStageTimings;
 
     /**
      * Default constructor.
@@ -75,17 +84,18 @@ class PushJobHandler {
      * @param dataStore The preference data store.
      */
     PushJobHandler(Context context, UAirship airship, PreferenceDataStore dataStore) {
-        this(context, airship, dataStore, NotificationManagerCompat.from(context));
+        this(context, airship, dataStore, NotificationManagerCompat.from(context), JobDispatcher.shared(context));
     }
 
     @VisibleForTesting
     PushJobHandler(Context context, UAirship airship, PreferenceDataStore dataStore,
-                   NotificationManagerCompat notificationManager) {
+                   NotificationManagerCompat notificationManager, JobDispatcher jobDispatcher) {
         this.context = context;
         this.dataStore = dataStore;
         this.airship = airship;
         this.notificationManager = notificationManager;
         this.notificationManagerCompat = NotificationManagerCompat.from(context);
+        this.jobDispatcher = jobDispatcher;
     }
 
     /**
@@ -100,13 +110,29 @@ class PushJobHandler {
             case ACTION_RECEIVE_MESSAGE:
                 onMessageReceived(job);
                 break;
+
+            case ACTION_SEND_PUSH_RECEIVED_BROADCAST:
+                onSendPushReceivedBroadcast(job);
+                break;
         }
 
         return Job.JOB_FINISHED;
     }
 
     /**
-     * Handles incoming messages.
+     * Gets the stage timings of the most recently handled push.
+     *
+     * @return The stage timings, or {@code null} if no push has been handled.
+     */
+    @Nullable
+    StageTimings getLastStageTimings() {
+        return lastStageTimings;
+    }
+
+    /**
+     * Handles incoming messages. Handling runs in stages: dedup, analytics, notification display,
+     * then actions and inbox refresh. Nothing waits on the network. For rich pushes the push
+     * received broadcast is sent by a follow-up job once the inbox has refreshed.
      *
      * @param job The received job.
      */
@@ -141,13 +167,22 @@ class PushJobHandler {
             return;
         }
 
-        if (!isUniqueCanonicalId(message.getCanonicalPushId())) {
+        final StageTimings timings = new StageTimings();
+        lastStageTimings = timings;
+
+        // Dedup
+        boolean isUnique = isUniqueCanonicalId(message.getCanonicalPushId());
+        timings.dedupMs = timings.lap();
+
+        if (!isUnique) {
             Logger.info("Received a duplicate push with canonical ID: " + message.getCanonicalPushId());
             return;
         }
 
+        // Analytics
         airship.getPushManager().setLastReceivedMetadata(message.getMetadata());
         airship.getAnalytics().addEvent(new PushArrivedEvent(message));
+        timings.analyticsMs = timings.lap();
 
         if (message.isExpired()) {
             Logger.debug("Received expired push message, ignoring.");
@@ -159,7 +194,20 @@ class PushJobHandler {
             return;
         }
 
-        // Run any actions for the push
+        // Notification display
+        Integer notificationId = null;
+        if (!(airship.getPushManager().getUserNotificationsEnabled() && notificationManagerCompat.areNotificationsEnabled())) {
+            Logger.info("User notifications disabled. Unable to display notification for message: " + message);
+        } else {
+            notificationId = showNotification(message, airship.getPushManager().getNotificationFactory());
+        }
+        timings.displayMs = timings.lap();
+
+        if (timings.elapsed() > NOTIFICATION_LATENCY_BUDGET_MS) {
+            Logger.warn("PushJobHandler - Notification display exceeded the latency budget: {}", timings);
+        }
+
+        // Actions and inbox refresh
         Bundle metadata = new Bundle();
         metadata.putParcelable(ActionArguments.PUSH_MESSAGE_METADATA, message);
         ActionService.runActions(UAirship.getApplicationContext(), message.getActions(), Action.SITUATION_PUSH_RECEIVED, metadata);
@@ -171,19 +219,37 @@ class PushJobHandler {
             airship.getInAppMessageManager().setPendingMessage(inAppMessage);
         }
 
+        timings.actionsMs = timings.lap();
+
         if (!UAStringUtil.isEmpty(message.getRichPushMessageId())) {
             Logger.debug("PushJobHandler - Received a Rich Push.");
-            refreshRichPushMessages();
+            refreshRichPushMessages(message, notificationId);
+            timings.inboxMs = timings.lap();
+        } else {
+            sendPushReceivedBroadcast(message, notificationId);
+        }
+
+        Logger.debug("PushJobHandler - Handled push: {}", timings);
+    }
+
+    /**
+     * Sends the push received broadcast for a rich push after the inbox refresh.
+     *
+     * @param job The broadcast job.
+     */
+    private void onSendPushReceivedBroadcast(@NonNull Job job) {
+        Bundle extras = job.getExtras();
+        Bundle pushBundle = extras.getBundle(PushProviderBridge.EXTRA_PUSH_BUNDLE);
+        if (pushBundle == null) {
+            return;
         }
 
         Integer notificationId = null;
-        if (!(airship.getPushManager().getUserNotificationsEnabled() && notificationManagerCompat.areNotificationsEnabled())) {
-            Logger.info("User notifications disabled. Unable to display notification for message: " + message);
-        } else {
-            notificationId = showNotification(message, airship.getPushManager().getNotificationFactory());
+        if (extras.containsKey(PushManager.EXTRA_NOTIFICATION_ID)) {
+            notificationId = extras.getInt(PushManager.EXTRA_NOTIFICATION_ID);
         }
 
-        sendPushReceivedBroadcast(message, notificationId);
+        sendPushReceivedBroadcast(new PushMessage(pushBundle), notificationId);
     }
 
     /**
@@ -276,22 +342,31 @@ class PushJobHandler {
     }
 
     /**
-     * Helper method that blocks while the rich push messages are refreshing
+     * Refreshes the rich push messages without waiting for the refresh. Once the refresh finishes,
+     * the push received broadcast is sent by a wakeful job so the push component's executor is
+     * free to handle other pushes in the meantime.
+     *
+     * @param message The rich push message.
+     * @param notificationId The ID of the messages created notification.
      */
-    private void refreshRichPushMessages() {
-        final Semaphore semaphore = new Semaphore(0);
+    private void refreshRichPushMessages(@NonNull final PushMessage message, @Nullable final Integer notificationId) {
         airship.getInbox().fetchMessages(new RichPushInbox.FetchMessagesCallback() {
             @Override
             public void onFinished(boolean success) {
-                semaphore.release();
+                Bundle extras = new Bundle();
+                extras.putBundle(PushProviderBridge.EXTRA_PUSH_BUNDLE, message.getPushBundle());
+                if (notificationId != null) {
+                    extras.putInt(PushManager.EXTRA_NOTIFICATION_ID, notificationId);
+                }
+
+                Job job = Job.newBuilder(ACTION_SEND_PUSH_RECEIVED_BROADCAST)
+                             .setAirshipComponent(PushManager.class)
+                             .setExtras(extras)
+                             .build();
+
+                jobDispatcher.wakefulDispatch(job);
             }
         }, Looper.getMainLooper());
-
-        try {
-            semaphore.tryAcquire(RICH_PUSH_REFRESH_WAIT_TIME_MS, TimeUnit.MILLISECONDS);
-        } catch (InterruptedException e) {
-            Logger.warn("Interrupted while waiting for rich push messages to refresh");
-        }
     }
 
     /**
@@ -335,4 +410,49 @@ class PushJobHandler {
         return true;
     }
 
+    /**
+     * Time spent in each stage of handling a push, in milliseconds.
+     */
+    static class StageTimings {
+        private final long startTime = SystemClock.elapsedRealtime();
+        private long lapTime = startTime;
+
+        volatile long dedupMs;
+        volatile long analyticsMs;
+        volatile long displayMs;
+        volatile long actionsMs;
+        volatile long inboxMs;
+
+        /**
+         * Ends the current stage.
+         *
+         * @return The time spent in the stage.
+         */
+        private synchronized long lap() {
+            long now = SystemClock.elapsedRealtime();
+            long stage = now - lapTime;
+            lapTime = now;
+            return stage;
+        }
+
+        /**
+         * Gets the time since the push started handling.
+         *
+         * @return The elapsed time.
+         */
+        private long elapsed() {
+            return SystemClock.elapsedRealtime() - startTime;
+        }
+
+        @Override
+        public String toString() {
+            return "StageTimings{" +
+                    "dedupMs=" + dedupMs +
+                    ", analyticsMs=" + analyticsMs +
+                    ", displayMs=" + displayMs +
+                    ", actionsMs=" + actionsMs +
+                    ", inboxMs=" + inboxMs +
+                    '}';
+        }
+    }
 }
@@ -27,7 +27,6 @@ import com.urbanairship.util.UAStringUtil;
 import java.util.Calendar;
 import java.util.Date;
 import java.util.HashMap;
-import java.util.HashSet;
 import java.util.Map;
 import java.util.Set;
 
@@ -247,6 +246,18 @@ public class PushManager extends AirshipComponent {
 
     private final Object tagLock = new Object();
 
+    /**
+     * Decodes the stored quiet time interval. The decoded interval is cached by the data store so
+     * quiet time checks do not parse JSON for every notification.
+     */
+    private static final PreferenceDataStore.Decoder<QuietTimeInterval> QUIET_TIME_DECODER = new PreferenceDataStore.Decoder<QuietTimeInterval>() {
+        @Override
+        public QuietTimeInterval decode(@NonNull String value) {
+            return QuietTimeInterval.parseJson(value);
+        }
+    };
+    private final ChannelTagStore tagStore;
+
 
     /**
      * Creates a PushManager. Normally only one push manager instance should exist, and
@@ -268,6 +279,7 @@ public class PushManager extends AirshipComponent {
         this.preferenceDataStore = preferenceDataStore;
         this.jobDispatcher = dispatcher;
         this.pushProvider = provider;
+        this.tagStore = new ChannelTagStore(preferenceDataStore, TAGS_KEY);
 
         DefaultNotificationFactory factory = new DefaultNotificationFactory(context);
         factory.setColor(configOptions.notificationAccentColor);
@@ -329,6 +341,7 @@ public class PushManager extends AirshipComponent {
                 return channelJobHandler.performJob(job);
 
             case PushJobHandler.ACTION_RECEIVE_MESSAGE:
+            case PushJobHandler.ACTION_SEND_PUSH_RECEIVED_BROADCAST:
                 if (pushJobHandler == null) {
                     pushJobHandler = new PushJobHandler(context, airship, preferenceDataStore);
                 }
@@ -499,9 +512,17 @@ public class PushManager extends AirshipComponent {
      * @return The ChannelRegistrationPayload payload
      */
     ChannelRegistrationPayload getNextChannelRegistrationPayload() {
+        Set<String> tags;
+        long tagsDigest;
+        synchronized (tagLock) {
+            tags = tagStore.getTags();
+            tagsDigest = tagStore.getDigest();
+        }
+
         ChannelRegistrationPayload.Builder builder = new ChannelRegistrationPayload.Builder()
                 .setAlias(getAlias())
-                .setTags(getChannelTagRegistrationEnabled(), getTags())
+                .setTags(getChannelTagRegistrationEnabled(), tags)
+                .setTagsDigest(tagsDigest)
                 .setOptIn(isOptIn())
                 .setBackgroundEnabled(isPushEnabled() && isPushAvailable())
                 .setUserId(UAirship.shared().getInbox().getUser().getId())
@@ -595,18 +616,7 @@ public class PushManager extends AirshipComponent {
      */
     private boolean storeTags(@NonNull Set<String> tags) {
         synchronized (tagLock) {
-            Set<String> normalizedTags = TagUtils.normalizeTags(tags);
-            if (!normalizedTags.equals(getTags())) {
-                if (normalizedTags.isEmpty()) {
-                    preferenceDataStore.remove(TAGS_KEY);
-                } else {
-                    preferenceDataStore.put(TAGS_KEY, JsonValue.wrapOpt(normalizedTags));
-                }
-
-                return true;
-            }
-
-            return false;
+            return tagStore.setTags(tags);
         }
     }
 
@@ -630,29 +640,19 @@ public class PushManager extends AirshipComponent {
     @NonNull
     public Set<String> getTags() {
         synchronized (tagLock) {
-            Set<String> tags = new HashSet<>();
-
-            JsonValue jsonValue = preferenceDataStore.getJsonValue(TAGS_KEY);
-
-            if (jsonValue.isJsonList()) {
-                for (JsonValue tag : jsonValue.getList()) {
-                    if (tag.isString()) {
-                        tags.add(tag.getString());
-                    }
-                }
-            }
-
-            Set<String> normalizedTags = TagUtils.normalizeTags(tags);
-
-            //to prevent the getTags call from constantly logging tag set failures, sync tags
-            if (tags.size() != normalizedTags.size()) {
-                this.setTags(normalizedTags);
-            }
-
-            return normalizedTags;
+            return tagStore.getTags();
         }
     }
 
+    /**
+     * Gets the channel tag store.
+     *
+     * @return The channel tag store.
+     */
+    ChannelTagStore getTagStore() {
+        return tagStore;
+    }
+
     /**
      * Determines whether tags are enabled on the device.
      * If <code>false</code>, no locally specified tags will be sent to the server during registration.
@@ -763,7 +763,7 @@ public class PushManager extends AirshipComponent {
             return false;
         }
 
-        QuietTimeInterval quietTimeInterval = QuietTimeInterval.parseJson(preferenceDataStore.getString(QUIET_TIME_INTERVAL, null));
+        QuietTimeInterval quietTimeInterval = preferenceDataStore.get(QUIET_TIME_INTERVAL, QUIET_TIME_DECODER);
         return quietTimeInterval != null && quietTimeInterval.isInQuietTime(Calendar.getInstance());
     }
 
@@ -783,7 +783,7 @@ public class PushManager extends AirshipComponent {
      * @return An array of two Date instances, representing the start and end of Quiet Time.
      */
     public Date[] getQuietTimeInterval() {
-        QuietTimeInterval quietTimeInterval = QuietTimeInterval.parseJson(preferenceDataStore.getString(QUIET_TIME_INTERVAL, null));
+        QuietTimeInterval quietTimeInterval = preferenceDataStore.get(QUIET_TIME_INTERVAL, QUIET_TIME_DECODER);
         if (quietTimeInterval != null) {
             return quietTimeInterval.getQuietTimeIntervalDateArray();
         } else {
@@ -880,12 +880,7 @@ public class PushManager extends AirshipComponent {
             @Override
             void onApply(boolean clear, Set<String> tagsToAdd, Set<String> tagsToRemove) {
                 synchronized (tagLock) {
-                    Set<String> tags = clear ? new HashSet<String>() : getTags();
-
-                    tags.addAll(tagsToAdd);
-                    tags.removeAll(tagsToRemove);
-
-                    if (storeTags(tags)) {
+                    if (tagStore.applyChanges(clear, tagsToAdd, tagsToRemove)) {
                         updateRegistration();
                     }
                 }
@@ -0,0 +1,198 @@
+/* Copyright 2016 Urban Airship and Contributors */
+
+package com.urbanairship.push;
+
+import android.content.ContentValues;
+import android.content.Context;
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+import android.database.sqlite.SQLiteStatement;
+import android.provider.BaseColumns;
+import android.support.annotation.NonNull;
+
+import com.urbanairship.Logger;
+import com.urbanairship.json.JsonException;
+import com.urbanairship.json.JsonValue;
+import com.urbanairship.util.DataManager;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Durable queue of pending tag group mutations. Mutations are appended as rows and only
+ * collapsed when they are read for an upload, so queueing a change never rewrites the
+ * pending changes.
+ */
+class TagGroupMutationStore extends DataManager {
+
+    /**
+     * The database version
+     */
+    private static final int DATABASE_VERSION = 1;
+
+    /**
+     * Mutations table contract
+     */
+    static final class Mutations implements BaseColumns {
+
+        // This class cannot be instantiated
+        private Mutations() {}
+
+        /**
+         * The table name
+         */
+        static final String TABLE_NAME = "tag_group_mutations";
+
+        /**
+         * The mutation JSON payload
+         */
+        static final String COLUMN_NAME_MUTATION = "mutation";
+    }
+
+    /**
+     * Default constructor.
+     *
+     * @param context The application context.
+     * @param appKey The application key.
+     * @param databaseName The database name. Each queue must use its own database.
+     */
+    TagGroupMutationStore(@NonNull Context context, @NonNull String appKey, @NonNull String databaseName) {
+        super(context, appKey, databaseName, DATABASE_VERSION);
+    }
+
+    @Override
+    protected void onCreate(@NonNull SQLiteDatabase db) {
+        db.execSQL("CREATE TABLE IF NOT EXISTS " + Mutations.TABLE_NAME + " ("
+                + Mutations._ID + " INTEGER PRIMARY KEY AUTOINCREMENT,"
+                + Mutations.COLUMN_NAME_MUTATION + " TEXT"
+                + ");");
+    }
+
+    @Override
+    protected void onUpgrade(@NonNull SQLiteDatabase db, int oldVersion, int newVersion) {
+        Logger.debug("TagGroupMutationStore - Upgrading tag group database from version " + oldVersion + " to "
+                + newVersion + ", which will destroy all old data");
+
+        db.execSQL("DROP TABLE IF EXISTS " + Mutations.TABLE_NAME);
+        onCreate(db);
+    }
+
+    @Override
+    protected void onDowngrade(@NonNull SQLiteDatabase db, int oldVersion, int newVersion) {
+        db.execSQL("DROP TABLE IF EXISTS " + Mutations.TABLE_NAME);
+        onCreate(db);
+    }
+
+    @Override
+    protected void bindValuesToSqliteStatement(@NonNull String table, @NonNull SQLiteStatement statement, @NonNull ContentValues values) {
+        bind(statement, 1, values.getAsString(Mutations.COLUMN_NAME_MUTATION));
+    }
+
+    @Override
+    protected SQLiteStatement getInsertStatement(@NonNull String table, @NonNull SQLiteDatabase db) {
+        String sql = this.buildInsertStatement(table, Mutations.COLUMN_NAME_MUTATION);
+        return db.compileStatement(sql);
+    }
+
+    /**
+     * Appends mutations to the queue in a single transaction.
+     *
+     * @param mutations The mutations.
+     * @return {@code true} if the mutations were stored, otherwise {@code false}.
+     */
+    boolean add(@NonNull List<TagGroupsMutation> mutations) {
+        if (mutations.isEmpty()) {
+            return true;
+        }
+
+        ContentValues[] values = new ContentValues[mutations.size()];
+        for (int i = 0; i < mutations.size(); i++) {
+            values[i] = new ContentValues();
+            values[i].put(Mutations.COLUMN_NAME_MUTATION, mutations.get(i).toJsonValue().toString());
+        }
+
+        return bulkInsert(Mutations.TABLE_NAME, values).size() == values.length;
+    }
+
+    /**
+     * Reads the queue and collapses it down to the minimum set of mutations.
+     *
+     * @return The pending mutations.
+     */
+    @NonNull
+    Pending getPending() {
+        String[] columns = new String[] { Mutations._ID, Mutations.COLUMN_NAME_MUTATION };
+        Cursor cursor = query(Mutations.TABLE_NAME, columns, null, null, Mutations._ID + " ASC");
+
+        if (cursor == null) {
+            Logger.error("TagGroupMutationStore - Unable to query tag group database.");
+            return new Pending(-1, Collections.<TagGroupsMutation>emptyList());
+        }
+
+        long lastId = -1;
+        List<TagGroupsMutation> mutations = new ArrayList<>(cursor.getCount());
+
+        cursor.moveToFirst();
+        while (!cursor.isAfterLast()) {
+            lastId = cursor.getLong(0);
+
+            try {
+                TagGroupsMutation mutation = TagGroupsMutation.fromJsonValue(JsonValue.parseString(cursor.getString(1)));
+                if (mutation != null) {
+                    mutations.add(mutation);
+                }
+            } catch (JsonException e) {
+                Logger.error("TagGroupMutationStore - Failed to parse tag group mutation.", e);
+            }
+
+            cursor.moveToNext();
+        }
+
+        cursor.close();
+
+        return new Pending(lastId, TagGroupsMutation.collapseMutations(mutations));
+    }
+
+    /**
+     * Removes the mutations that were read as part of a pending batch. Mutations added after
+     * the batch was read are kept.
+     *
+     * @param pending The pending batch.
+     */
+    void remove(@NonNull Pending pending) {
+        if (pending.lastId < 0) {
+            return;
+        }
+
+        delete(Mutations.TABLE_NAME, Mutations._ID + " <= ?", new String[] { String.valueOf(pending.lastId) });
+    }
+
+    /**
+     * Removes all pending mutations.
+     */
+    void clear() {
+        delete(Mutations.TABLE_NAME, null, null);
+    }
+
+    /**
+     * A batch of collapsed pending mutations.
+     */
+    static class Pending {
+
+        /**
+         * Row ID of the last mutation in the batch, or -1 if the batch is empty.
+         */
+        final long lastId;
+
+        /**
+         * The collapsed mutations.
+         */
+        final List<TagGroupsMutation> mutations;
+
+        Pending(long lastId, @NonNull List<TagGroupsMutation> mutations) {
+            this.lastId = lastId;
+            this.mutations = mutations;
+        }
+    }
+}
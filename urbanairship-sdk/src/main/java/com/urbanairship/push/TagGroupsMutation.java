@@ -252,9 +252,10 @@ class TagGroupsMutation implements JsonSerializable {
             collapsedMutations.add(mutation);
         }
 
-        // Add and remove can be collapsed into one mutation
+        // Add and remove can be collapsed into one mutation. Empty maps are dropped so the
+        // mutation equals its own JSON round trip.
         if (!addTags.isEmpty() || !removeTags.isEmpty()) {
-            TagGroupsMutation mutation = new TagGroupsMutation(addTags, removeTags, null);
+            TagGroupsMutation mutation = new TagGroupsMutation(addTags.isEmpty() ? null : addTags, removeTags.isEmpty() ? null : removeTags, null);
             collapsedMutations.add(mutation);
         }
 
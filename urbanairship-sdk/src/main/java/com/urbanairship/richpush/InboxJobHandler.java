@@ -2,6 +2,7 @@
 
 package com.urbanairship.richpush;
 
+import android.content.ContentValues;
 import android.content.Context;
 import android.os.Bundle;
 import android.os.ResultReceiver;
@@ -10,16 +11,20 @@ import android.support.annotation.VisibleForTesting;
 
 import com.urbanairship.Logger;
 import com.urbanairship.PreferenceDataStore;
+import com.urbanairship.RichPushTable;
 import com.urbanairship.UAirship;
 import com.urbanairship.http.RequestFactory;
 import com.urbanairship.http.Response;
+import com.urbanairship.http.ResponseBodyReader;
 import com.urbanairship.job.Job;
 import com.urbanairship.json.JsonException;
-import com.urbanairship.json.JsonList;
 import com.urbanairship.json.JsonMap;
+import com.urbanairship.json.JsonTokenizer;
 import com.urbanairship.json.JsonValue;
 import com.urbanairship.util.UAStringUtil;
 
+import java.io.IOException;
+import java.io.Reader;
 import java.net.HttpURLConnection;
 import java.net.MalformedURLException;
 import java.net.URL;
@@ -203,14 +208,15 @@ class InboxJobHandler {
         }
 
         Logger.verbose("InboxJobHandler - Fetching inbox messages.");
+        MessageListReader messageListReader = new MessageListReader(resolver);
         Response response = requestFactory.createRequest("GET", getMessagesURL)
                                           .setCredentials(user.getId(), user.getPassword())
                                           .setHeader("Accept", "application/vnd.urbanairship+json; version=3;")
                                           .setHeader(CHANNEL_ID_HEADER, airship.getPushManager().getChannelId())
                                           .setIfModifiedSince(dataStore.getLong(LAST_MESSAGE_REFRESH_TIME, 0))
-                                          .execute();
+                                          .execute(messageListReader);
 
-        Logger.verbose("InboxJobHandler - Fetch inbox messages response: " + response);
+        Logger.verbose("InboxJobHandler - Fetch inbox messages response: {}", response);
 
         int status = response == null ? -1 : response.getStatus();
 
@@ -222,22 +228,19 @@ class InboxJobHandler {
 
         // 200
         if (status == HttpURLConnection.HTTP_OK) {
-            JsonList serverMessages = null;
-            try {
-                JsonMap responseJson = JsonValue.parseString(response.getResponseBody()).getMap();
-                if (responseJson != null) {
-                    serverMessages = responseJson.get("messages").getList();
-                }
-            } catch (JsonException e) {
-                Logger.error("Failed to update inbox. Unable to parse response body: " + response.getResponseBody());
+            if (messageListReader.parseException != null) {
+                Logger.error("Failed to update inbox. Unable to parse response body.", messageListReader.parseException);
                 return false;
             }
 
-            if (serverMessages == null) {
+            if (!messageListReader.hasMessageList) {
                 Logger.info("Inbox message list is empty.");
             } else {
-                Logger.info("Received " + serverMessages.size() + " inbox messages.");
-                updateInbox(serverMessages);
+                Logger.info("Received " + messageListReader.serverMessageIds.size() + " inbox messages.");
+                if (!updateInbox(messageListReader)) {
+                    return false;
+                }
+
                 dataStore.put(LAST_MESSAGE_REFRESH_TIME, response.getLastModifiedTime());
             }
 
@@ -250,45 +253,40 @@ class InboxJobHandler {
 
 
     /**
-     * Update the Rich Push Inbox.
+     * Update the Rich Push Inbox. The inserts, updates and deletes are applied in a single
+     * transaction and only the changed messages are loaded into the inbox cache.
      *
-     * @param serverMessages The messages from the server.
+     * @param messageListReader The reader that diffed the server messages against the database.
+     * @return <code>true</code> if the inbox was updated, otherwise <code>false</code>.
      */
-    private void updateInbox(JsonList serverMessages) {
-        List<JsonValue> messagesToInsert = new ArrayList<>();
-        HashSet<String> serverMessageIds = new HashSet<>();
-
-        for (JsonValue message : serverMessages) {
-            if (!message.isJsonMap()) {
-                Logger.error("InboxJobHandler - Invalid message payload: " + message);
-                continue;
-            }
+    private boolean updateInbox(MessageListReader messageListReader) {
+        // Delete any messages that did not come down with the message list
+        Set<String> deletedMessageIds = new HashSet<>(messageListReader.localHashes.keySet());
+        deletedMessageIds.removeAll(messageListReader.serverMessageIds);
 
-            String messageId = message.getMap().opt(RichPushMessage.MESSAGE_ID_KEY).getString();
-            if (messageId == null) {
-                Logger.error("InboxJobHandler - Invalid message payload, missing message ID: " + message);
-                continue;
-            }
+        List<ContentValues> inserts = messageListReader.inserts;
+        List<ContentValues> updates = messageListReader.updates;
 
-            serverMessageIds.add(messageId);
+        Logger.verbose("InboxJobHandler - Applying inbox changes. Inserts: {} updates: {} deletes: {}",
+                inserts.size(), updates.size(), deletedMessageIds.size());
 
-            if (resolver.updateMessage(messageId, message) != 1) {
-                messagesToInsert.add(message);
-            }
+        if (!resolver.applyMessageChanges(inserts, updates, deletedMessageIds)) {
+            Logger.error("InboxJobHandler - Failed to apply inbox changes.");
+            return false;
         }
 
-        // Bulk insert any new messages
-        if (messagesToInsert.size() > 0) {
-            resolver.insertMessages(messagesToInsert);
+        Set<String> changedMessageIds = new HashSet<>();
+        for (ContentValues values : inserts) {
+            changedMessageIds.add(values.getAsString(RichPushTable.COLUMN_NAME_MESSAGE_ID));
         }
 
-        // Delete any messages that did not come down with the message list
-        Set<String> deletedMessageIds = resolver.getMessageIds();
-        deletedMessageIds.removeAll(serverMessageIds);
-        resolver.deleteMessages(deletedMessageIds);
+        for (ContentValues values : updates) {
+            changedMessageIds.add(values.getAsString(RichPushTable.COLUMN_NAME_MESSAGE_ID));
+        }
 
-        // update the inbox cache
-        airship.getInbox().refresh(true);
+        // Update the inbox cache with only the changed messages
+        airship.getInbox().onMessagesSynced(resolver.getMessages(changedMessageIds), deletedMessageIds);
+        return true;
     }
 
     /**
@@ -318,7 +316,7 @@ class InboxJobHandler {
             return;
         }
 
-        Logger.verbose("InboxJobHandler - Deleting inbox messages with payload: " + payload);
+        Logger.verbose("InboxJobHandler - Deleting inbox messages with payload: {}", payload);
         Response response = requestFactory.createRequest("POST", deleteMessagesURL)
                                           .setCredentials(user.getId(), user.getPassword())
                                           .setRequestBody(payload.toString(), "application/json")
@@ -326,7 +324,7 @@ class InboxJobHandler {
                                           .setHeader("Accept", "application/vnd.urbanairship+json; version=3;")
                                           .execute();
 
-        Logger.verbose("InboxJobHandler - Delete inbox messages response: " + response);
+        Logger.verbose("InboxJobHandler - Delete inbox messages response: {}", response);
         if (response != null && response.getStatus() == HttpURLConnection.HTTP_OK) {
             resolver.deleteMessages(idsToDelete);
         }
@@ -360,7 +358,7 @@ class InboxJobHandler {
             return;
         }
 
-        Logger.verbose("InboxJobHandler - Marking inbox messages read request with payload: " + payload);
+        Logger.verbose("InboxJobHandler - Marking inbox messages read request with payload: {}", payload);
         Response response = requestFactory.createRequest("POST", markMessagesReadURL)
                                           .setCredentials(user.getId(), user.getPassword())
                                           .setRequestBody(payload.toString(), "application/json")
@@ -368,7 +366,7 @@ class InboxJobHandler {
                                           .setHeader("Accept", "application/vnd.urbanairship+json; version=3;")
                                           .execute();
 
-        Logger.verbose("InboxJobHandler - Mark inbox messages read response: " + response);
+        Logger.verbose("InboxJobHandler - Mark inbox messages read response: {}", response);
 
         if (response != null && response.getStatus() == HttpURLConnection.HTTP_OK) {
             resolver.markMessagesReadOrigin(idsToUpdate);
@@ -394,7 +392,7 @@ class InboxJobHandler {
                                  .put(root, JsonValue.wrapOpt(urls))
                                  .build();
 
-        Logger.verbose(payload.toString());
+        Logger.verbose("InboxJobHandler - Messages payload: {}", payload);
         return payload;
     }
 
@@ -417,7 +415,7 @@ class InboxJobHandler {
         }
 
         String payload = createNewUserPayload(channelId);
-        Logger.verbose("InboxJobHandler - Creating Rich Push user with payload: " + payload);
+        Logger.verbose("InboxJobHandler - Creating Rich Push user with payload: {}", payload);
         Response response = requestFactory.createRequest("POST", userCreationURL)
                                           .setCredentials(airship.getAirshipConfigOptions().getAppKey(), airship.getAirshipConfigOptions().getAppSecret())
                                           .setRequestBody(payload, "application/json")
@@ -477,14 +475,14 @@ class InboxJobHandler {
         }
 
         String payload = createUpdateUserPayload(channelId);
-        Logger.verbose("InboxJobHandler - Updating user with payload: " + payload);
+        Logger.verbose("InboxJobHandler - Updating user with payload: {}", payload);
         Response response = requestFactory.createRequest("POST", userUpdateURL)
                                           .setCredentials(user.getId(), user.getPassword())
                                           .setRequestBody(payload, "application/json")
                                           .setHeader("Accept", "application/vnd.urbanairship+json; version=3;")
                                           .execute();
 
-        Logger.verbose("InboxJobHandler - Update Rich Push user response: " + response);
+        Logger.verbose("InboxJobHandler - Update Rich Push user response: {}", response);
         if (response != null && response.getStatus() == HttpURLConnection.HTTP_OK) {
             Logger.info("Rich Push user updated.");
             dataStore.put(LAST_UPDATE_TIME, System.currentTimeMillis());
@@ -568,4 +566,93 @@ class InboxJobHandler {
         }
         return null;
     }
+
+    /**
+     * Parses the message list directly from the response stream.
+     */
+    private static class MessageListReader implements ResponseBodyReader {
+
+        private final RichPushResolver resolver;
+
+        final List<ContentValues> inserts = new ArrayList<>();
+        final List<ContentValues> updates = new ArrayList<>();
+        final Set<String> serverMessageIds = new HashSet<>();
+        Map<String, String> localHashes = Collections.emptyMap();
+        boolean hasMessageList;
+        JsonException parseException;
+
+        MessageListReader(RichPushResolver resolver) {
+            this.resolver = resolver;
+        }
+
+        @Override
+        public void readFrom(int status, @NonNull Reader reader) throws IOException {
+            if (status != HttpURLConnection.HTTP_OK) {
+                return;
+            }
+
+            localHashes = resolver.getMessageHashes();
+
+            // Stream the messages so only the changed ones are held in memory
+            JsonTokenizer tokenizer = new JsonTokenizer(reader);
+            try {
+                if (tokenizer.peek() != JsonTokenizer.BEGIN_OBJECT) {
+                    return;
+                }
+
+                tokenizer.beginObject();
+                while (tokenizer.hasNext()) {
+                    if (!"messages".equals(tokenizer.nextName()) || tokenizer.peek() != JsonTokenizer.BEGIN_ARRAY) {
+                        tokenizer.skipValue();
+                        continue;
+                    }
+
+                    hasMessageList = true;
+                    tokenizer.beginArray();
+                    while (tokenizer.hasNext()) {
+                        onMessage(tokenizer.nextValue());
+                    }
+                    tokenizer.endArray();
+                }
+                tokenizer.endObject();
+            } catch (JsonException e) {
+                parseException = e;
+            }
+        }
+
+        /**
+         * Compares a server message against the stored content hash.
+         *
+         * @param message The message payload.
+         */
+        private void onMessage(@NonNull JsonValue message) {
+            if (message.isNull()) {
+                return;
+            }
+
+            if (!message.isJsonMap()) {
+                Logger.error("InboxJobHandler - Invalid message payload: " + message);
+                return;
+            }
+
+            String messageId = message.getMap().opt(RichPushMessage.MESSAGE_ID_KEY).getString();
+            if (messageId == null) {
+                Logger.error("InboxJobHandler - Invalid message payload, missing message ID: " + message);
+                return;
+            }
+
+            serverMessageIds.add(messageId);
+
+            ContentValues values = RichPushResolver.parseMessageContentValues(message);
+            if (values == null) {
+                return;
+            }
+
+            if (!localHashes.containsKey(messageId)) {
+                inserts.add(values);
+            } else if (!UAStringUtil.equals(localHashes.get(messageId), values.getAsString(RichPushTable.COLUMN_NAME_CONTENT_HASH))) {
+                updates.add(values);
+            }
+        }
+    }
 }
@@ -0,0 +1,222 @@
+/* Copyright 2016 Urban Airship and Contributors */
+
+package com.urbanairship.richpush;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.support.annotation.MainThread;
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+import android.support.annotation.WorkerThread;
+import android.support.v4.util.LruCache;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Executor;
+
+/**
+ * The inbox messages, sorted by descending sent-at date, loaded from the database a page at a time.
+ * <p/>
+ * Only the message IDs and the first page are loaded when the list is created, see
+ * {@link RichPushInbox#getPagedMessages(RichPushInbox.PagedMessagesCallback)}. Other pages are
+ * loaded in the background when a position is first accessed, and the {@link Listener} is notified
+ * on the main thread once they are available. Messages that were removed from the inbox after the
+ * list was created keep their position so the rows do not shift, but {@link #getMessage(int)}
+ * returns {@code null} for them.
+ * <p/>
+ * The list does not update when the inbox changes, request a new list after the inbox is updated.
+ * All methods must be called on the main thread.
+ */
+public class PagedMessageList {
+
+    /**
+     * Listener for page loads.
+     */
+    public interface Listener {
+
+        /**
+         * Called on the main thread when a page of messages has been loaded.
+         */
+        void onMessagesLoaded();
+    }
+
+    /**
+     * Number of messages loaded at a time.
+     */
+    static final int PAGE_SIZE = 20;
+
+    private static final int MAX_CACHED_MESSAGES = PAGE_SIZE * 5;
+
+    private final RichPushResolver resolver;
+    private final Executor executor;
+    private final Handler handler = new Handler(Looper.getMainLooper());
+
+    private final List<String> messageIds;
+    private final LruCache<String, RichPushMessage> messages = new LruCache<>(MAX_CACHED_MESSAGES);
+    private final Set<String> loadingIds = new HashSet<>();
+    private final Set<String> removedIds = new HashSet<>();
+    private Listener listener;
+
+    /**
+     * Default constructor.
+     *
+     * @param resolver The rich push resolver.
+     * @param executor The executor used to load pages.
+     * @param messageIds The sorted message IDs.
+     */
+    private PagedMessageList(@NonNull RichPushResolver resolver, @NonNull Executor executor, @NonNull List<String> messageIds) {
+        this.resolver = resolver;
+        this.executor = executor;
+        this.messageIds = messageIds;
+    }
+
+    /**
+     * Loads the message IDs and the first page of messages.
+     *
+     * @param resolver The rich push resolver.
+     * @param executor The executor used to load the remaining pages.
+     * @return The paged message list.
+     */
+    @WorkerThread
+    @NonNull
+    static PagedMessageList load(@NonNull RichPushResolver resolver, @NonNull Executor executor) {
+        PagedMessageList list = new PagedMessageList(resolver, executor, resolver.getVisibleMessageIds());
+
+        List<String> firstPage = new ArrayList<>(list.messageIds.subList(0, Math.min(PAGE_SIZE, list.messageIds.size())));
+        list.onPageLoaded(firstPage, resolver.getMessages(firstPage));
+
+        return list;
+    }
+
+    /**
+     * Sets the page load listener.
+     *
+     * @param listener The listener, or {@code null} to clear it.
+     */
+    @MainThread
+    public void setListener(@Nullable Listener listener) {
+        this.listener = listener;
+    }
+
+    /**
+     * Gets the number of messages.
+     *
+     * @return The number of messages.
+     */
+    @MainThread
+    public int size() {
+        return messageIds.size();
+    }
+
+    /**
+     * Gets the ID of the message at the given position without loading the message.
+     *
+     * @param index The position.
+     * @return The message ID.
+     */
+    @MainThread
+    @NonNull
+    public String getMessageId(int index) {
+        return messageIds.get(index);
+    }
+
+    /**
+     * Gets the message at the given position. If the message's page is not loaded yet, the page is
+     * loaded in the background and the {@link Listener} is notified when it is available.
+     *
+     * @param index The position.
+     * @return The message, or {@code null} if its page is still loading or the message was removed
+     * from the inbox.
+     */
+    @MainThread
+    @Nullable
+    public RichPushMessage getMessage(int index) {
+        String messageId = messageIds.get(index);
+        RichPushMessage message = messages.get(messageId);
+        if (message == null && !removedIds.contains(messageId)) {
+            loadPage(index);
+        }
+
+        return message;
+    }
+
+    /**
+     * Loads the pages for a range of positions in the background.
+     *
+     * @param start The first position, inclusive.
+     * @param end The last position, exclusive.
+     */
+    @MainThread
+    public void prefetch(int start, int end) {
+        for (int i = Math.max(start, 0); i < Math.min(end, messageIds.size()); i++) {
+            String messageId = messageIds.get(i);
+            if (messages.get(messageId) == null && !removedIds.contains(messageId)) {
+                loadPage(i);
+            }
+        }
+    }
+
+    /**
+     * Loads the missing messages of the page containing the given position.
+     *
+     * @param index The position.
+     */
+    private void loadPage(int index) {
+        int start = index - index % PAGE_SIZE;
+        int end = Math.min(start + PAGE_SIZE, messageIds.size());
+
+        final List<String> ids = new ArrayList<>();
+        for (int i = start; i < end; i++) {
+            String messageId = messageIds.get(i);
+            if (!loadingIds.contains(messageId) && !removedIds.contains(messageId) && messages.get(messageId) == null) {
+                ids.add(messageId);
+            }
+        }
+
+        if (ids.isEmpty()) {
+            return;
+        }
+
+        loadingIds.addAll(ids);
+
+        executor.execute(new Runnable() {
+            @Override
+            public void run() {
+                final List<RichPushMessage> loaded = resolver.getMessages(ids);
+                handler.post(new Runnable() {
+                    @Override
+                    public void run() {
+                        loadingIds.removeAll(ids);
+                        onPageLoaded(ids, loaded);
+
+                        if (listener != null) {
+                            listener.onMessagesLoaded();
+                        }
+                    }
+                });
+            }
+        });
+    }
+
+    /**
+     * Caches the loaded messages and marks the requested messages that are no longer in the inbox
+     * as removed. Removed messages keep their position until the inbox sets a new list.
+     *
+     * @param ids The requested message IDs.
+     * @param loaded The loaded messages.
+     */
+    private void onPageLoaded(@NonNull List<String> ids, @NonNull List<RichPushMessage> loaded) {
+        Set<String> missingIds = new HashSet<>(ids);
+
+        for (RichPushMessage message : loaded) {
+            if (!message.isDeleted() && !message.isExpired()) {
+                messages.put(message.getMessageId(), message);
+                missingIds.remove(message.getMessageId());
+            }
+        }
+
+        removedIds.addAll(missingIds);
+    }
+}
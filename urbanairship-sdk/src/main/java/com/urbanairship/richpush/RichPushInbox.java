@@ -15,6 +15,7 @@ import android.support.annotation.VisibleForTesting;
 
 import com.urbanairship.ActivityMonitor;
 import com.urbanairship.AirshipComponent;
+import com.urbanairship.AirshipExecutors;
 import com.urbanairship.Cancelable;
 import com.urbanairship.Logger;
 import com.urbanairship.PendingResult;
@@ -32,11 +33,11 @@ import java.util.Collections;
 import java.util.Comparator;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.Executor;
-import java.util.concurrent.Executors;
 
 
 /**
@@ -57,6 +58,19 @@ public class RichPushInbox extends AirshipComponent {
         void onInboxUpdated();
     }
 
+    /**
+     * A callback used to be notified when a paged message list is loaded.
+     */
+    public interface PagedMessagesCallback {
+
+        /**
+         * Called on the main thread when the paged message list is loaded.
+         *
+         * @param messages The paged message list.
+         */
+        void onMessagesLoaded(@NonNull PagedMessageList messages);
+    }
+
     /**
      * A callback used to be notified when refreshing messages.
      */
@@ -109,6 +123,9 @@ public class RichPushInbox extends AirshipComponent {
     private final Map<String, RichPushMessage> unreadMessages = new HashMap<>();
     private final Map<String, RichPushMessage> readMessages = new HashMap<>();
 
+    // Immutable view of the messages, replaced under the inboxLock after every mutation
+    private volatile Snapshot snapshot = Snapshot.EMPTY;
+
     private final RichPushResolver richPushResolver;
     private final RichPushUser user;
     private final Executor executor;
@@ -132,7 +149,7 @@ public class RichPushInbox extends AirshipComponent {
      */
     public RichPushInbox(Context context, PreferenceDataStore dataStore, ActivityMonitor activityMonitor) {
         this(context, dataStore, JobDispatcher.shared(context), new RichPushUser(dataStore, JobDispatcher.shared(context)),
-                new RichPushResolver(context), Executors.newSingleThreadExecutor(), activityMonitor);
+                new RichPushResolver(context), AirshipExecutors.newSerialExecutor(AirshipExecutors.LANE_IO), activityMonitor);
     }
 
     @VisibleForTesting
@@ -391,9 +408,7 @@ public class RichPushInbox extends AirshipComponent {
      * @return The number of RichPushMessages currently in the inbox.
      */
     public int getCount() {
-        synchronized (inboxLock) {
-            return unreadMessages.size() + readMessages.size();
-        }
+        return snapshot.messages.size();
     }
 
     /**
@@ -403,12 +418,7 @@ public class RichPushInbox extends AirshipComponent {
      */
     @NonNull
     public Set<String> getMessageIds() {
-        synchronized (inboxLock) {
-            Set<String> messageIds = new HashSet<>(getCount());
-            messageIds.addAll(readMessages.keySet());
-            messageIds.addAll(unreadMessages.keySet());
-            return messageIds;
-        }
+        return new HashSet<>(snapshot.messageMap.keySet());
     }
 
     /**
@@ -417,9 +427,7 @@ public class RichPushInbox extends AirshipComponent {
      * @return The number of read RichPushMessages currently in the inbox.
      */
     public int getReadCount() {
-        synchronized (inboxLock) {
-            return readMessages.size();
-        }
+        return snapshot.readMessages.size();
     }
 
     /**
@@ -428,55 +436,29 @@ public class RichPushInbox extends AirshipComponent {
      * @return The number of unread RichPushMessages currently in the inbox.
      */
     public int getUnreadCount() {
-        synchronized (inboxLock) {
-            return unreadMessages.size();
-        }
-    }
-
-    /**
-     * Filters a collection of messages according to the supplied predicate
-     *
-     * @param messages The messages to filter
-     * @param predicate The predicate. If null, the collection will be returned as-is.
-     * @return A filtered collection of messages
-     */
-    private Collection<RichPushMessage> filterMessages(Collection<RichPushMessage> messages, @Nullable Predicate predicate) {
-        List<RichPushMessage> filteredMessages = new ArrayList<>();
-
-        if (predicate == null) {
-            return messages;
-        }
-
-        for (RichPushMessage message : messages) {
-            if (predicate.apply(message)) {
-                filteredMessages.add(message);
-            }
-        }
-
-        return filteredMessages;
+        return snapshot.unreadMessages.size();
     }
 
     /**
      * Gets a list of RichPushMessages, filtered by the provided predicate.
      * Sorted by descending sent-at date.
+     * <p/>
+     * The returned list is a copy and is not updated when the inbox changes.
      *
      * @param predicate A predicate for filtering messages. If null, no predicate will be applied.
      * @return List of filtered and sorted {@link RichPushMessage}s.
      */
     @NonNull
     public List<RichPushMessage> getMessages(@Nullable Predicate predicate) {
-        synchronized (inboxLock) {
-            List<RichPushMessage> messages = new ArrayList<>();
-            messages.addAll(filterMessages(unreadMessages.values(), predicate));
-            messages.addAll(filterMessages(readMessages.values(), predicate));
-            Collections.sort(messages, MESSAGE_COMPARATOR);
-            return messages;
-        }
+        Snapshot snapshot = this.snapshot;
+        return Snapshot.filter(snapshot.messages, predicate);
     }
 
 
     /**
      * Gets a list of RichPushMessages. Sorted by descending sent-at date.
+     * <p/>
+     * The returned list is a copy and is not updated when the inbox changes.
      *
      * @return List of sorted {@link RichPushMessage}s.
      */
@@ -488,21 +470,22 @@ public class RichPushInbox extends AirshipComponent {
     /**
      * Gets a list of unread RichPushMessages, filtered by the provided predicate.
      * Sorted by descending sent-at date.
+     * <p/>
+     * The returned list is a copy and is not updated when the inbox changes.
      *
      * @param predicate A predicate for filtering messages. If null, no predicate will be applied.
      * @return List of sorted {@link RichPushMessage}s.
      */
     @NonNull
     public List<RichPushMessage> getUnreadMessages(@Nullable Predicate predicate) {
-        synchronized (inboxLock) {
-            List<RichPushMessage> messages = new ArrayList<>(filterMessages(unreadMessages.values(), predicate));
-            Collections.sort(messages, MESSAGE_COMPARATOR);
-            return messages;
-        }
+        Snapshot snapshot = this.snapshot;
+        return Snapshot.filter(snapshot.unreadMessages, predicate);
     }
 
     /**
      * Gets a list of unread RichPushMessages. Sorted by descending sent-at date.
+     * <p/>
+     * The returned list is a copy and is not updated when the inbox changes.
      *
      * @return List of sorted {@link RichPushMessage}s.
      */
@@ -514,21 +497,22 @@ public class RichPushInbox extends AirshipComponent {
     /**
      * Gets a list of read RichPushMessages, filtered by the provided predicate.
      * Sorted by descending sent-at date.
+     * <p/>
+     * The returned list is a copy and is not updated when the inbox changes.
      *
      * @param predicate A predicate for filtering messages. If null, no predicate will be applied.
      * @return List of sorted {@link RichPushMessage}s.
      */
     @NonNull
     public List<RichPushMessage> getReadMessages(@Nullable Predicate predicate) {
-        synchronized (inboxLock) {
-            List<RichPushMessage> messages = new ArrayList<>(filterMessages(readMessages.values(), predicate));
-            Collections.sort(messages, MESSAGE_COMPARATOR);
-            return messages;
-        }
+        Snapshot snapshot = this.snapshot;
+        return Snapshot.filter(snapshot.readMessages, predicate);
     }
 
     /**
      * Gets a list of read RichPushMessages. Sorted by descending sent-at date.
+     * <p/>
+     * The returned list is a copy and is not updated when the inbox changes.
      *
      * @return List of sorted {@link RichPushMessage}s.
      */
@@ -537,6 +521,48 @@ public class RichPushInbox extends AirshipComponent {
         return getReadMessages(null);
     }
 
+    /**
+     * Loads a list of RichPushMessages that loads the messages from the database a page at a time.
+     * Sorted by descending sent-at date.
+     * <p/>
+     * Prefer this over {@link #getMessages()} for displaying large inboxes. Only the messages that
+     * are accessed are loaded, and all database access happens in the background. The list does
+     * not update when the inbox changes.
+     *
+     * @param callback Callback to be notified on the main thread when the list is loaded.
+     * @return A cancelable object that can be used to cancel the callback.
+     */
+    public Cancelable getPagedMessages(@NonNull final PagedMessagesCallback callback) {
+        final PendingResult<PagedMessageList> pendingResult = new PendingResult<>(new PendingResult.ResultCallback<PagedMessageList>() {
+            @Override
+            public void onResult(@Nullable PagedMessageList result) {
+                if (result != null) {
+                    callback.onMessagesLoaded(result);
+                }
+            }
+        });
+
+        // Runs on the same serial executor as the database writes, so the list reflects them
+        executor.execute(new Runnable() {
+            @Override
+            public void run() {
+                if (pendingResult.isCanceled()) {
+                    return;
+                }
+
+                final PagedMessageList messages = PagedMessageList.load(richPushResolver, executor);
+                handler.post(new Runnable() {
+                    @Override
+                    public void run() {
+                        pendingResult.setResult(messages);
+                    }
+                });
+            }
+        });
+
+        return pendingResult;
+    }
+
     /**
      * Get the {@link RichPushMessage} with the corresponding message ID.
      *
@@ -549,12 +575,7 @@ public class RichPushInbox extends AirshipComponent {
             return null;
         }
 
-        synchronized (inboxLock) {
-            if (unreadMessages.containsKey(messageId)) {
-                return unreadMessages.get(messageId);
-            }
-            return readMessages.get(messageId);
-        }
+        return snapshot.messageMap.get(messageId);
     }
 
     // actions
@@ -569,6 +590,9 @@ public class RichPushInbox extends AirshipComponent {
             @Override
             public void run() {
                 richPushResolver.markMessagesRead(messageIds);
+
+                // Notify again once the database is updated so paged lists reflect the change
+                notifyInboxUpdated();
             }
         });
 
@@ -584,6 +608,7 @@ public class RichPushInbox extends AirshipComponent {
                 }
             }
 
+            updateSnapshot();
             notifyInboxUpdated();
         }
     }
@@ -598,6 +623,7 @@ public class RichPushInbox extends AirshipComponent {
             @Override
             public void run() {
                 richPushResolver.markMessagesUnread(messageIds);
+                notifyInboxUpdated();
             }
         });
 
@@ -612,6 +638,8 @@ public class RichPushInbox extends AirshipComponent {
                     unreadMessages.put(messageId, message);
                 }
             }
+
+            updateSnapshot();
         }
 
         notifyInboxUpdated();
@@ -630,6 +658,7 @@ public class RichPushInbox extends AirshipComponent {
             @Override
             public void run() {
                 richPushResolver.markMessagesDeleted(messageIds);
+                notifyInboxUpdated();
             }
         });
 
@@ -644,6 +673,8 @@ public class RichPushInbox extends AirshipComponent {
                     deletedMessageIds.add(messageId);
                 }
             }
+
+            updateSnapshot();
         }
 
         notifyInboxUpdated();
@@ -707,6 +738,8 @@ public class RichPushInbox extends AirshipComponent {
                     readMessages.put(message.getMessageId(), message);
                 }
             }
+
+            updateSnapshot();
         }
 
         if (notify) {
@@ -714,6 +747,78 @@ public class RichPushInbox extends AirshipComponent {
         }
     }
 
+    /**
+     * Updates the inbox cache with only the messages that changed during a message list sync.
+     *
+     * @param changedMessages The messages that were inserted or updated.
+     * @param removedMessageIds The IDs of the messages that were removed.
+     */
+    void onMessagesSynced(@NonNull Collection<RichPushMessage> changedMessages, @NonNull Set<String> removedMessageIds) {
+        synchronized (inboxLock) {
+            for (String messageId : removedMessageIds) {
+                unreadMessages.remove(messageId);
+                readMessages.remove(messageId);
+                deletedMessageIds.remove(messageId);
+            }
+
+            for (RichPushMessage message : changedMessages) {
+                String messageId = message.getMessageId();
+
+                // Check the cached state in case any mark reads are still in process
+                boolean cachedUnread = unreadMessages.remove(messageId) != null;
+                boolean cachedRead = readMessages.remove(messageId) != null;
+
+                if (message.isDeleted() || message.isExpired() || deletedMessageIds.contains(messageId)) {
+                    deletedMessageIds.add(messageId);
+                    continue;
+                }
+
+                if (cachedUnread) {
+                    message.unreadClient = true;
+                } else if (cachedRead) {
+                    message.unreadClient = false;
+                }
+
+                if (message.unreadClient) {
+                    unreadMessages.put(messageId, message);
+                } else {
+                    readMessages.put(messageId, message);
+                }
+            }
+
+            // Unchanged messages may have expired since the last sync
+            removeExpiredMessages(unreadMessages);
+            removeExpiredMessages(readMessages);
+
+            updateSnapshot();
+        }
+
+        notifyInboxUpdated();
+    }
+
+    /**
+     * Moves any expired messages from the map to the deleted message IDs.
+     *
+     * @param messages The message map.
+     */
+    private void removeExpiredMessages(@NonNull Map<String, RichPushMessage> messages) {
+        Iterator<RichPushMessage> iterator = messages.values().iterator();
+        while (iterator.hasNext()) {
+            RichPushMessage message = iterator.next();
+            if (message.isExpired()) {
+                deletedMessageIds.add(message.getMessageId());
+                iterator.remove();
+            }
+        }
+    }
+
+    /**
+     * Replaces the snapshot with the current messages. Must be called while holding the inboxLock.
+     */
+    private void updateSnapshot() {
+        snapshot = new Snapshot(unreadMessages.values(), readMessages.values());
+    }
+
     /**
      * Notifies all of the registered listeners that the
      * inbox updated.
@@ -741,4 +846,72 @@ public class RichPushInbox extends AirshipComponent {
             }
         }
     }
+
+    /**
+     * An immutable, pre-sorted view of the inbox messages. Readers never take the inboxLock.
+     */
+    private static final class Snapshot {
+
+        static final Snapshot EMPTY = new Snapshot(Collections.<RichPushMessage>emptyList(), Collections.<RichPushMessage>emptyList());
+
+        final List<RichPushMessage> messages;
+        final List<RichPushMessage> unreadMessages;
+        final List<RichPushMessage> readMessages;
+        final Map<String, RichPushMessage> messageMap;
+
+        Snapshot(@NonNull Collection<RichPushMessage> unread, @NonNull Collection<RichPushMessage> read) {
+            List<RichPushMessage> sortedUnread = new ArrayList<>(unread);
+            Collections.sort(sortedUnread, MESSAGE_COMPARATOR);
+
+            List<RichPushMessage> sortedRead = new ArrayList<>(read);
+            Collections.sort(sortedRead, MESSAGE_COMPARATOR);
+
+            // Merge the two sorted lists
+            List<RichPushMessage> sorted = new ArrayList<>(sortedUnread.size() + sortedRead.size());
+            Map<String, RichPushMessage> map = new HashMap<>(sortedUnread.size() + sortedRead.size());
+            int unreadIndex = 0;
+            int readIndex = 0;
+            while (unreadIndex < sortedUnread.size() || readIndex < sortedRead.size()) {
+                RichPushMessage message;
+                if (readIndex >= sortedRead.size() || (unreadIndex < sortedUnread.size()
+                        && MESSAGE_COMPARATOR.compare(sortedUnread.get(unreadIndex), sortedRead.get(readIndex)) <= 0)) {
+                    message = sortedUnread.get(unreadIndex++);
+                } else {
+                    message = sortedRead.get(readIndex++);
+                }
+
+                sorted.add(message);
+                map.put(message.getMessageId(), message);
+            }
+
+            this.messages = Collections.unmodifiableList(sorted);
+            this.unreadMessages = Collections.unmodifiableList(sortedUnread);
+            this.readMessages = Collections.unmodifiableList(sortedRead);
+            this.messageMap = Collections.unmodifiableMap(map);
+        }
+
+        /**
+         * Filters the sorted messages into a new list. The predicate is applied on every call
+         * since predicates may depend on state outside of the message.
+         *
+         * @param messages The sorted messages.
+         * @param predicate The predicate. If null, all the messages will be returned.
+         * @return A mutable copy of the filtered messages.
+         */
+        @NonNull
+        static List<RichPushMessage> filter(@NonNull List<RichPushMessage> messages, @Nullable Predicate predicate) {
+            if (predicate == null) {
+                return new ArrayList<>(messages);
+            }
+
+            List<RichPushMessage> filtered = new ArrayList<>();
+            for (RichPushMessage message : messages) {
+                if (predicate.apply(message)) {
+                    filtered.add(message);
+                }
+            }
+
+            return filtered;
+        }
+    }
 }
@@ -6,7 +6,9 @@ import android.os.Bundle;
 import android.support.annotation.NonNull;
 import android.support.annotation.Nullable;
 
+import com.urbanairship.Logger;
 import com.urbanairship.UAirship;
+import com.urbanairship.json.JsonException;
 import com.urbanairship.json.JsonMap;
 import com.urbanairship.json.JsonValue;
 import com.urbanairship.util.DateUtils;
@@ -42,6 +44,7 @@ public class RichPushMessage implements Comparable<RichPushMessage> {
     private String messageReadUrl;
     private String title;
     private JsonValue rawJson;
+    private String rawJsonString;
 
     // Accessed directly from RichPushInbox
     boolean deleted = false;
@@ -86,25 +89,48 @@ public class RichPushMessage implements Comparable<RichPushMessage> {
             message.expirationMS = DateUtils.parseIso8601(messageExpiry, Long.MAX_VALUE);
         }
 
-        // Extras
-        message.extras = new Bundle();
-        JsonMap extrasMap = messageMap.opt(EXTRA_KEY).getMap();
-        if (extrasMap != null) {
-            for (Map.Entry<String, JsonValue> entry : extrasMap) {
-                if (entry.getValue().isString()) {
-                    message.extras.putString(entry.getKey(), entry.getValue().getString());
-                } else {
-                    message.extras.putString(entry.getKey(), entry.getValue().toString());
-                }
-            }
-        }
-
         message.deleted = deleted;
         message.unreadClient = unreadClient;
 
         return message;
     }
 
+    /**
+     * Factory method to create a RichPushMessage from stored columns. The raw payload is only
+     * parsed when the extras or the raw JSON are requested.
+     *
+     * @param messageId The message ID.
+     * @param messageUrl The message URL.
+     * @param messageBodyUrl The message body URL.
+     * @param messageReadUrl The message read URL.
+     * @param title The message title.
+     * @param unreadOrigin flag indicating the read status on the origin.
+     * @param sentMS The sent date in milliseconds.
+     * @param expirationMS The expiration date in milliseconds, or null if the message does not expire.
+     * @param rawJson The raw message payload.
+     * @param unreadClient flag indicating the read status on the client.
+     * @param deleted flag indication the delete status.
+     * @return A RichPushMessage instance.
+     */
+    @NonNull
+    static RichPushMessage create(@NonNull String messageId, String messageUrl, String messageBodyUrl,
+                                  String messageReadUrl, String title, boolean unreadOrigin, long sentMS,
+                                  @Nullable Long expirationMS, @NonNull String rawJson, boolean unreadClient, boolean deleted) {
+        RichPushMessage message = new RichPushMessage();
+        message.messageId = messageId;
+        message.messageUrl = messageUrl;
+        message.messageBodyUrl = messageBodyUrl;
+        message.messageReadUrl = messageReadUrl;
+        message.title = title;
+        message.unreadOrigin = unreadOrigin;
+        message.sentMS = sentMS;
+        message.expirationMS = expirationMS;
+        message.rawJsonString = rawJson;
+        message.unreadClient = unreadClient;
+        message.deleted = deleted;
+        return message;
+    }
+
     /**
      * Get the message's Urban Airship ID.
      *
@@ -214,7 +240,21 @@ public class RichPushMessage implements Comparable<RichPushMessage> {
      *
      * @return The message's extras in a {@link android.os.Bundle}.
      */
-    public Bundle getExtras() {
+    public synchronized Bundle getExtras() {
+        if (extras == null) {
+            extras = new Bundle();
+            JsonMap extrasMap = getRawMessageJson().optMap().opt(EXTRA_KEY).getMap();
+            if (extrasMap != null) {
+                for (Map.Entry<String, JsonValue> entry : extrasMap) {
+                    if (entry.getValue().isString()) {
+                        extras.putString(entry.getKey(), entry.getValue().getString());
+                    } else {
+                        extras.putString(entry.getKey(), entry.getValue().toString());
+                    }
+                }
+            }
+        }
+
         return this.extras;
     }
 
@@ -261,7 +301,18 @@ public class RichPushMessage implements Comparable<RichPushMessage> {
      *
      * @return The message's payload as JSON.
      */
-    public JsonValue getRawMessageJson() {
+    public synchronized JsonValue getRawMessageJson() {
+        if (rawJson == null) {
+            try {
+                rawJson = JsonValue.parseString(rawJsonString);
+            } catch (JsonException e) {
+                Logger.error("RichPushMessage - Failed to parse message payload.", e);
+                rawJson = JsonValue.NULL;
+            }
+
+            rawJsonString = null;
+        }
+
         return rawJson;
     }
 
@@ -282,8 +333,8 @@ public class RichPushMessage implements Comparable<RichPushMessage> {
      */
     @Nullable
     public String getListIconUrl() {
-        JsonValue icons = getRawMessageJson().getMap().get("icons");
-        if (icons != null && icons.isJsonMap()) {
+        JsonValue icons = getRawMessageJson().optMap().opt("icons");
+        if (icons.isJsonMap()) {
             return icons.getMap().opt("list_icon").getString();
         }
 
@@ -311,7 +362,7 @@ public class RichPushMessage implements Comparable<RichPushMessage> {
                 (messageBodyUrl == null ? that.messageBodyUrl == null : messageBodyUrl.equals(that.messageBodyUrl)) &&
                 (messageReadUrl == null ? that.messageReadUrl == null : messageReadUrl.equals(that.messageReadUrl)) &&
                 (messageUrl == null ? that.messageUrl == null : messageUrl.equals(that.messageUrl)) &&
-                (extras == null ? that.extras == null : extras.equals(that.extras)) &&
+                getExtras().equals(that.getExtras()) &&
                 (unreadClient == that.unreadClient) &&
                 (unreadOrigin == that.unreadOrigin) &&
                 (deleted == that.deleted) &&
@@ -326,7 +377,7 @@ public class RichPushMessage implements Comparable<RichPushMessage> {
         result = 37 * result + (messageBodyUrl == null ? 0 : messageBodyUrl.hashCode());
         result = 37 * result + (messageReadUrl == null ? 0 : messageReadUrl.hashCode());
         result = 37 * result + (messageUrl == null ? 0 : messageUrl.hashCode());
-        result = 37 * result + (extras == null ? 0 : extras.hashCode());
+        result = 37 * result + getExtras().hashCode();
         result = 37 * result + (unreadClient ? 0 : 1);
         result = 37 * result + (unreadOrigin ? 0 : 1);
         result = 37 * result + (deleted ? 0 : 1);
@@ -2,6 +2,8 @@
 
 package com.urbanairship.richpush;
 
+import android.content.ContentProviderOperation;
+import android.content.ContentProviderResult;
 import android.content.ContentValues;
 import android.content.Context;
 import android.database.Cursor;
@@ -13,14 +15,17 @@ import com.urbanairship.Logger;
 import com.urbanairship.RichPushTable;
 import com.urbanairship.UrbanAirshipProvider;
 import com.urbanairship.UrbanAirshipResolver;
-import com.urbanairship.json.JsonException;
 import com.urbanairship.json.JsonMap;
 import com.urbanairship.json.JsonValue;
+import com.urbanairship.util.DateUtils;
 import com.urbanairship.util.UAStringUtil;
 
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 /**
@@ -32,8 +37,17 @@ class RichPushResolver extends UrbanAirshipResolver {
             " <> " + RichPushTable.COLUMN_NAME_UNREAD_ORIG;
     private static final String WHERE_CLAUSE_READ = RichPushTable.COLUMN_NAME_UNREAD + " = ?";
     private static final String WHERE_CLAUSE_MESSAGE_ID = RichPushTable.COLUMN_NAME_MESSAGE_ID + " = ?";
+    private static final String WHERE_CLAUSE_VISIBLE = RichPushTable.COLUMN_NAME_DELETED + " = 0 AND IFNULL(CAST(strftime('%s', " +
+            RichPushTable.COLUMN_NAME_EXPIRATION_TIMESTAMP + ") AS INTEGER) * 1000 > CAST(? AS INTEGER), 1)";
     private static final String FALSE_VALUE = "0";
     private static final String TRUE_VALUE = "1";
+
+    /**
+     * Max number of message IDs bound in a single {@code IN} clause. SQLite limits a statement to
+     * 999 arguments on older devices.
+     */
+    static final int MAX_IN_CLAUSE_IDS = 500;
+
     private final Uri uri;
 
     /**
@@ -53,43 +67,84 @@ class RichPushResolver extends UrbanAirshipResolver {
      */
     @NonNull
     List<RichPushMessage> getMessages() {
+        Cursor cursor = this.query(this.uri, null, null, null, null);
+        return getMessagesFromCursor(cursor);
+    }
+
+    /**
+     * Gets the {@link RichPushMessage} instances from the database for the given message IDs.
+     *
+     * @param messageIds The message IDs.
+     * @return A list of {@link RichPushMessage}.
+     */
+    @NonNull
+    List<RichPushMessage> getMessages(@NonNull Collection<String> messageIds) {
+        if (messageIds.isEmpty()) {
+            return new ArrayList<>();
+        }
+
         List<RichPushMessage> messages = new ArrayList<>();
+        for (List<String> chunk : chunk(messageIds)) {
+            Cursor cursor = this.query(this.uri, null, getInClause(chunk.size()), chunk.toArray(new String[chunk.size()]), null);
+            messages.addAll(getMessagesFromCursor(cursor));
+        }
 
-        Cursor cursor = this.query(this.uri, null, null, null, null);
+        return messages;
+    }
+
+    /**
+     * Gets the IDs of the messages that are not deleted or expired, sorted by descending sent-at
+     * date. Only indexed columns are read, the message payloads are not loaded.
+     *
+     * @return A list of message IDs.
+     */
+    @NonNull
+    List<String> getVisibleMessageIds() {
+        List<String> ids = new ArrayList<>();
+
+        Cursor cursor = this.query(this.uri, new String[] { RichPushTable.COLUMN_NAME_MESSAGE_ID },
+                WHERE_CLAUSE_VISIBLE, new String[] { String.valueOf(System.currentTimeMillis()) },
+                RichPushTable.COLUMN_NAME_SENT_AT + " DESC, " + RichPushTable.COLUMN_NAME_MESSAGE_ID + " ASC");
         if (cursor == null) {
-            return messages;
+            return ids;
         }
 
-        // Read all the messages from the database
+        int messageIdIndex = cursor.getColumnIndex(RichPushTable.COLUMN_NAME_MESSAGE_ID);
         while (cursor.moveToNext()) {
-            try {
-                String messageJson = cursor.getString(cursor.getColumnIndex(RichPushTable.COLUMN_NAME_RAW_MESSAGE_OBJECT));
-                boolean unreadClient = cursor.getInt(cursor.getColumnIndex(RichPushTable.COLUMN_NAME_UNREAD)) == 1;
-                boolean deleted = cursor.getInt(cursor.getColumnIndex(RichPushTable.COLUMN_NAME_DELETED)) == 1;
-
-                RichPushMessage message = RichPushMessage.create(JsonValue.parseString(messageJson), unreadClient, deleted);
-                if (message != null) {
-                    messages.add(message);
-                }
-            } catch (JsonException e) {
-                Logger.error("RichPushResolver - Failed to parse message from the database.", e);
-            }
+            ids.add(cursor.getString(messageIdIndex));
         }
 
         cursor.close();
 
-        return messages;
+        return ids;
     }
 
     /**
-     * Gets all the {@link RichPushMessage} IDs in the database.
+     * Gets the content hash of every {@link RichPushMessage} in the database.
      *
-     * @return A set of message IDs.
+     * @return A map of message ID to content hash. Messages stored before content hashes were
+     * recorded map to null.
      */
     @NonNull
-    Set<String> getMessageIds() {
-        Cursor cursor = this.query(this.uri, null, null, null, null);
-        return getMessageIdsFromCursor(cursor);
+    Map<String, String> getMessageHashes() {
+        Map<String, String> hashes = new HashMap<>();
+
+        Cursor cursor = this.query(this.uri,
+                new String[] { RichPushTable.COLUMN_NAME_MESSAGE_ID, RichPushTable.COLUMN_NAME_CONTENT_HASH },
+                null, null, null);
+        if (cursor == null) {
+            return hashes;
+        }
+
+        int messageIdIndex = cursor.getColumnIndex(RichPushTable.COLUMN_NAME_MESSAGE_ID);
+        int hashIndex = cursor.getColumnIndex(RichPushTable.COLUMN_NAME_CONTENT_HASH);
+        while (cursor.moveToNext()) {
+            hashes.put(cursor.getString(messageIdIndex), cursor.getString(hashIndex));
+        }
+
+        cursor.close();
+
+        return hashes;
     }
 
     /**
@@ -173,8 +228,18 @@ class RichPushResolver extends UrbanAirshipResolver {
      * @return Count of messages that were deleted.
      */
     int deleteMessages(@NonNull Set<String> messageIds) {
-        String query = RichPushTable.COLUMN_NAME_MESSAGE_ID + " IN ( " + UAStringUtil.repeat("?", messageIds.size(), ", ") + " )";
-        return this.delete(this.uri,query, messageIds.toArray(new String[messageIds.size()]));
+        if (messageIds.size() <= MAX_IN_CLAUSE_IDS) {
+            return this.delete(this.uri, getInClause(messageIds.size()), messageIds.toArray(new String[messageIds.size()]));
+        }
+
+        ArrayList<ContentProviderOperation> operations = new ArrayList<>();
+        for (List<String> chunk : chunk(messageIds)) {
+            operations.add(ContentProviderOperation.newDelete(this.uri)
+                                                   .withSelection(getInClause(chunk.size()), chunk.toArray(new String[chunk.size()]))
+                                                   .build());
+        }
+
+        return getCount(this.applyBatch(operations), -1);
     }
 
 
@@ -205,20 +270,48 @@ class RichPushResolver extends UrbanAirshipResolver {
     }
 
     /**
-     * Updates a message in the database.
-     * @param messageId The message ID to update.
-     * @param messagePayload The raw message payload.
-     * @return The row number that new message, or -1 if the message failed ot be updated.
+     * Applies the result of a message list sync in a single transaction. Either all of the changes
+     * are applied or none of them are.
+     *
+     * @param inserts Content values of new messages, created with {@link #parseMessageContentValues(JsonValue)}.
+     * @param updates Content values of messages whose content changed, created with {@link #parseMessageContentValues(JsonValue)}.
+     * @param deletedMessageIds IDs of messages to delete.
+     * @return <code>true</code> if the changes were applied, otherwise <code>false</code>.
      */
-    int updateMessage(@NonNull String messageId, @NonNull JsonValue messagePayload) {
-        ContentValues values = parseMessageContentValues(messagePayload);
-        if (values == null) {
-            return -1;
+    boolean applyMessageChanges(@NonNull List<ContentValues> inserts, @NonNull List<ContentValues> updates, @NonNull Set<String> deletedMessageIds) {
+        ArrayList<ContentProviderOperation> operations = new ArrayList<>();
+
+        for (List<String> chunk : chunk(deletedMessageIds)) {
+            operations.add(ContentProviderOperation.newDelete(this.uri)
+                                                   .withSelection(getInClause(chunk.size()), chunk.toArray(new String[chunk.size()]))
+                                                   .build());
+        }
+
+        for (ContentValues values : updates) {
+            String messageId = values.getAsString(RichPushTable.COLUMN_NAME_MESSAGE_ID);
+            operations.add(ContentProviderOperation.newUpdate(Uri.withAppendedPath(this.uri, messageId))
+                                                   .withValues(values)
+                                                   .withSelection(WHERE_CLAUSE_MESSAGE_ID, new String[] { messageId })
+                                                   .withExpectedCount(1)
+                                                   .build());
         }
 
-        Uri uri = Uri.withAppendedPath(this.uri, messageId);
+        for (ContentValues values : inserts) {
+            ContentValues insertValues = new ContentValues(values);
+
+            // Set the client unread status the same as the origin for new messages
+            insertValues.put(RichPushTable.COLUMN_NAME_UNREAD, values.getAsBoolean(RichPushTable.COLUMN_NAME_UNREAD_ORIG));
+            operations.add(ContentProviderOperation.newInsert(this.uri)
+                                                   .withValues(insertValues)
+                                                   .build());
+        }
 
-        return this.update(uri, values, WHERE_CLAUSE_MESSAGE_ID, new String[] { messageId });
+        if (operations.isEmpty()) {
+            return true;
+        }
+
+        ContentProviderResult[] results = this.applyBatch(operations);
+        return results != null && results.length == operations.size();
     }
 
     /**
@@ -228,13 +321,147 @@ class RichPushResolver extends UrbanAirshipResolver {
      * @return Count of messages that where updated.
      */
     private int updateMessages(@NonNull Set<String> messageIds, @NonNull ContentValues values) {
-        return this.update(this.uri,
-                values,
-                RichPushTable.COLUMN_NAME_MESSAGE_ID + " IN ( " + UAStringUtil.repeat("?", messageIds.size(), ", ") + " )",
-                messageIds.toArray(new String[messageIds.size()]));
+        if (messageIds.size() <= MAX_IN_CLAUSE_IDS) {
+            return this.update(this.uri, values, getInClause(messageIds.size()), messageIds.toArray(new String[messageIds.size()]));
+        }
+
+        // Update every chunk in a single transaction
+        ArrayList<ContentProviderOperation> operations = new ArrayList<>();
+        for (List<String> chunk : chunk(messageIds)) {
+            operations.add(ContentProviderOperation.newUpdate(this.uri)
+                                                   .withValues(values)
+                                                   .withSelection(getInClause(chunk.size()), chunk.toArray(new String[chunk.size()]))
+                                                   .build());
+        }
+
+        return getCount(this.applyBatch(operations), 0);
+    }
+
+    /**
+     * Creates a selection that matches the message ID against the given number of arguments.
+     *
+     * @param count The number of message IDs.
+     * @return The selection.
+     */
+    @NonNull
+    private static String getInClause(int count) {
+        return RichPushTable.COLUMN_NAME_MESSAGE_ID + " IN ( " + UAStringUtil.repeat("?", count, ", ") + " )";
+    }
+
+    /**
+     * Splits the message IDs into chunks of at most {@link #MAX_IN_CLAUSE_IDS}.
+     *
+     * @param messageIds The message IDs.
+     * @return The chunks of message IDs.
+     */
+    @NonNull
+    private static List<List<String>> chunk(@NonNull Collection<String> messageIds) {
+        List<List<String>> chunks = new ArrayList<>();
+        List<String> chunk = new ArrayList<>();
+        for (String messageId : messageIds) {
+            chunk.add(messageId);
+            if (chunk.size() == MAX_IN_CLAUSE_IDS) {
+                chunks.add(chunk);
+                chunk = new ArrayList<>();
+            }
+        }
+
+        if (!chunk.isEmpty()) {
+            chunks.add(chunk);
+        }
+
+        return chunks;
+    }
+
+    /**
+     * Sums the affected row counts of a batch.
+     *
+     * @param results The batch results.
+     * @param failedCount The count to return if the batch failed.
+     * @return The total number of affected rows.
+     */
+    private static int getCount(@Nullable ContentProviderResult[] results, int failedCount) {
+        if (results == null) {
+            return failedCount;
+        }
+
+        int count = 0;
+        for (ContentProviderResult result : results) {
+            if (result.count != null) {
+                count += result.count;
+            }
+        }
+
+        return count;
     }
 
 
+    /**
+     * Reads the messages from a cursor and closes it. The raw message payloads are not parsed.
+     *
+     * @param cursor The cursor to read the messages from.
+     * @return A list of {@link RichPushMessage}.
+     */
+    @NonNull
+    private List<RichPushMessage> getMessagesFromCursor(@Nullable Cursor cursor) {
+        List<RichPushMessage> messages = new ArrayList<>();
+        if (cursor == null) {
+            return messages;
+        }
+
+        int messageIdIndex = cursor.getColumnIndex(RichPushTable.COLUMN_NAME_MESSAGE_ID);
+        int messageUrlIndex = cursor.getColumnIndex(RichPushTable.COLUMN_NAME_MESSAGE_URL);
+        int bodyUrlIndex = cursor.getColumnIndex(RichPushTable.COLUMN_NAME_MESSAGE_BODY_URL);
+        int readUrlIndex = cursor.getColumnIndex(RichPushTable.COLUMN_NAME_MESSAGE_READ_URL);
+        int titleIndex = cursor.getColumnIndex(RichPushTable.COLUMN_NAME_TITLE);
+        int unreadIndex = cursor.getColumnIndex(RichPushTable.COLUMN_NAME_UNREAD);
+        int unreadOriginIndex = cursor.getColumnIndex(RichPushTable.COLUMN_NAME_UNREAD_ORIG);
+        int deletedIndex = cursor.getColumnIndex(RichPushTable.COLUMN_NAME_DELETED);
+        int timestampIndex = cursor.getColumnIndex(RichPushTable.COLUMN_NAME_TIMESTAMP);
+        int sentAtIndex = cursor.getColumnIndex(RichPushTable.COLUMN_NAME_SENT_AT);
+        int expirationIndex = cursor.getColumnIndex(RichPushTable.COLUMN_NAME_EXPIRATION_TIMESTAMP);
+        int rawMessageIndex = cursor.getColumnIndex(RichPushTable.COLUMN_NAME_RAW_MESSAGE_OBJECT);
+
+        // Read all the messages from the database
+        while (cursor.moveToNext()) {
+            String messageId = cursor.getString(messageIdIndex);
+            String rawMessage = cursor.getString(rawMessageIndex);
+            if (messageId == null || rawMessage == null) {
+                Logger.error("RichPushResolver - Invalid message in the database: " + messageId);
+                continue;
+            }
+
+            long sentMS;
+            if (!cursor.isNull(sentAtIndex)) {
+                sentMS = cursor.getLong(sentAtIndex);
+            } else {
+                sentMS = DateUtils.parseIso8601(cursor.getString(timestampIndex), System.currentTimeMillis());
+            }
+
+            Long expirationMS = null;
+            String expiration = cursor.getString(expirationIndex);
+            if (!UAStringUtil.isEmpty(expiration)) {
+                expirationMS = DateUtils.parseIso8601(expiration, Long.MAX_VALUE);
+            }
+
+            messages.add(RichPushMessage.create(messageId,
+                    cursor.getString(messageUrlIndex),
+                    cursor.getString(bodyUrlIndex),
+                    cursor.getString(readUrlIndex),
+                    cursor.getString(titleIndex),
+                    cursor.getInt(unreadOriginIndex) == 1,
+                    sentMS,
+                    expirationMS,
+                    rawMessage,
+                    cursor.getInt(unreadIndex) == 1,
+                    cursor.getInt(deletedIndex) == 1));
+        }
+
+        cursor.close();
+
+        return messages;
+    }
+
     /**
      * Get the message IDs.
      *
@@ -269,7 +496,7 @@ class RichPushResolver extends UrbanAirshipResolver {
      * was invalid.
      */
     @Nullable
-    private ContentValues parseMessageContentValues(@Nullable JsonValue messagePayload) {
+    static ContentValues parseMessageContentValues(@Nullable JsonValue messagePayload) {
         if (messagePayload == null || !messagePayload.isJsonMap()) {
             Logger.error("RichPushResolver - Unexpected message: " + messagePayload);
             return null;
@@ -291,8 +518,14 @@ class RichPushResolver extends UrbanAirshipResolver {
         values.put(RichPushTable.COLUMN_NAME_TITLE, messageMap.opt(RichPushMessage.TITLE_KEY).getString());
         values.put(RichPushTable.COLUMN_NAME_UNREAD_ORIG, messageMap.opt(RichPushMessage.UNREAD_KEY).getBoolean(true));
 
+        String sent = messageMap.opt(RichPushMessage.MESSAGE_SENT_KEY).getString();
+        values.put(RichPushTable.COLUMN_NAME_SENT_AT, UAStringUtil.isEmpty(sent) ? System.currentTimeMillis() : DateUtils.parseIso8601(sent, System.currentTimeMillis()));
+
         values.put(RichPushTable.COLUMN_NAME_EXTRA, messageMap.opt(RichPushMessage.EXTRA_KEY).toString());
-        values.put(RichPushTable.COLUMN_NAME_RAW_MESSAGE_OBJECT, messageMap.toString());
+
+        String rawMessage = messageMap.toString();
+        values.put(RichPushTable.COLUMN_NAME_RAW_MESSAGE_OBJECT, rawMessage);
+        values.put(RichPushTable.COLUMN_NAME_CONTENT_HASH, UAStringUtil.sha256(rawMessage));
 
         if (messageMap.containsKey(RichPushMessage.MESSAGE_EXPIRY_KEY)) {
             values.put(RichPushTable.COLUMN_NAME_EXPIRATION_TIMESTAMP, messageMap.opt(RichPushMessage.MESSAGE_EXPIRY_KEY).getString());
@@ -10,8 +10,6 @@ import android.support.annotation.Nullable;
 
 import com.urbanairship.Logger;
 
-import java.io.File;
-import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.net.HttpURLConnection;
@@ -25,7 +23,14 @@ import java.util.Locale;
 public class BitmapUtils {
 
     private final static int NETWORK_TIMEOUT_MS = 2000;
-    private final static int BUFFER_SIZE = 1024;
+    private final static int BUFFER_SIZE = 16 * 1024;
+
+    /**
+     * How far the stream can be read while decoding the image bounds and still be reset.
+     */
+    private final static int MARK_LIMIT = 1024 * 1024;
+
+    private final static ByteArrayPool BUFFER_POOL = new ByteArrayPool(BUFFER_SIZE, 4);
 
     /**
      * Create a scaled bitmap.
@@ -40,30 +45,50 @@ public class BitmapUtils {
     public static Bitmap fetchScaledBitmap(@NonNull Context context, @NonNull URL url, int reqWidth, int reqHeight) throws IOException {
         Logger.verbose("BitmapUtils - Fetching image from: " + url);
 
-        File outputFile = File.createTempFile("ua_", ".temp", context.getCacheDir());
-        Logger.verbose("BitmapUtils - Created temp file: " + outputFile);
+        BitmapFactory.Options options = new BitmapFactory.Options();
+        Bitmap bitmap;
 
-        if (!downloadFile(url, outputFile)) {
+        InputStream inputStream = openStream(url);
+        if (inputStream == null) {
             Logger.verbose("BitmapUtils - Failed to fetch image from: " + url);
             return null;
         }
 
-        BitmapFactory.Options options = new BitmapFactory.Options();
-        options.inJustDecodeBounds = true;
+        try {
+            inputStream.mark(MARK_LIMIT);
 
-        BitmapFactory.decodeFile(outputFile.getAbsolutePath(), options);
+            options.inJustDecodeBounds = true;
+            BitmapFactory.decodeStream(inputStream, null, options);
 
-        int width = options.outWidth;
-        int height = options.outHeight;
+            if (options.outWidth <= 0 || options.outHeight <= 0) {
+                Logger.error("BitmapUtils - Failed to decode image bounds for URL: " + url);
+                return null;
+            }
 
-        options.inSampleSize = calculateInSampleSize(width, height, reqWidth, reqHeight);
-        options.inJustDecodeBounds = false;
-        Bitmap bitmap = BitmapFactory.decodeFile(outputFile.getAbsolutePath(), options);
+            options.inSampleSize = calculateInSampleSize(options.outWidth, options.outHeight, reqWidth, reqHeight);
+            options.inJustDecodeBounds = false;
 
-        if (outputFile.delete()) {
-            Logger.verbose("BitmapUtils - Deleted temp file: " + outputFile);
-        } else {
-            Logger.verbose("BitmapUtils - Failed to delete temp file: " + outputFile);
+            boolean reset;
+            try {
+                inputStream.reset();
+                reset = true;
+            } catch (IOException e) {
+                reset = false;
+            }
+
+            if (reset) {
+                bitmap = BitmapFactory.decodeStream(inputStream, null, options);
+            } else {
+                // The header was larger than the mark limit, fetch the image again
+                Logger.verbose("BitmapUtils - Unable to reset stream, fetching image again from: " + url);
+                inputStream.close();
+                inputStream = openStream(url);
+                bitmap = inputStream == null ? null : BitmapFactory.decodeStream(inputStream, null, options);
+            }
+        } finally {
+            if (inputStream != null) {
+                inputStream.close();
+            }
         }
 
         if (bitmap == null) {
@@ -72,7 +97,7 @@ public class BitmapUtils {
         }
 
         Logger.debug(String.format(Locale.US, "BitmapUtils - Fetched image from: %s. Original image size: %dx%d. Requested image size: %dx%d. Bitmap size: %dx%d. SampleSize: %d",
-                url, width, height, reqWidth, reqHeight, bitmap.getWidth(), bitmap.getHeight(), options.inSampleSize));
+                url, options.outWidth, options.outHeight, reqWidth, reqHeight, bitmap.getWidth(), bitmap.getHeight(), options.inSampleSize));
 
         return bitmap;
     }
@@ -109,54 +134,30 @@ public class BitmapUtils {
     }
 
     /**
-     * Downloads a file to disk.
+     * Opens a buffered, mark-able stream to the URL.
      * @param url The URL image.
-     * @param file The file path where the image will be downloaded.
-     * @return <code>true</code> if file was downloaded, <code>false</code> otherwise.
+     * @return The input stream, or <code>null</code> if the request failed.
      * @throws IOException
      */
-    private static boolean downloadFile(@NonNull URL url, @NonNull File file) throws IOException {
-        Logger.verbose("Downloading file from: " + url + " to: " + file.getAbsolutePath());
-
-        InputStream inputStream = null;
-        FileOutputStream outputStream = null;
-
-        try {
-            URLConnection conn = url.openConnection();
-            conn.setConnectTimeout(NETWORK_TIMEOUT_MS);
-            conn.setUseCaches(true);
-            inputStream = conn.getInputStream();
-
-            if (conn instanceof HttpURLConnection && !UAHttpStatusUtil.inSuccessRange(((HttpURLConnection) conn).getResponseCode())) {
-                Logger.warn("Unable to download file from URL. Received response code: " + ((HttpURLConnection) conn).getResponseCode());
-                return false;
-            }
-
+    @Nullable
+    private static InputStream openStream(@NonNull URL url) throws IOException {
+        URLConnection conn = url.openConnection();
+        conn.setConnectTimeout(NETWORK_TIMEOUT_MS);
+        conn.setUseCaches(true);
+        InputStream inputStream = conn.getInputStream();
+
+        if (conn instanceof HttpURLConnection && !UAHttpStatusUtil.inSuccessRange(((HttpURLConnection) conn).getResponseCode())) {
+            Logger.warn("Unable to download file from URL. Received response code: " + ((HttpURLConnection) conn).getResponseCode());
             if (inputStream != null) {
-                outputStream = new FileOutputStream(file);
-
-                byte[] buffer = new byte[BUFFER_SIZE];
-                int bytesRead;
-
-                while ((bytesRead = inputStream.read(buffer)) != -1) {
-                    outputStream.write(buffer, 0, bytesRead);
-                }
-
-                outputStream.close();
                 inputStream.close();
-
-                return true;
-            }
-        } finally {
-            if (outputStream != null) {
-                outputStream.close();
             }
+            return null;
+        }
 
-            if (inputStream != null) {
-                inputStream.close();
-            }
+        if (inputStream == null) {
+            return null;
         }
 
-        return false;
+        return new PooledBufferedInputStream(inputStream, BUFFER_POOL);
     }
 }
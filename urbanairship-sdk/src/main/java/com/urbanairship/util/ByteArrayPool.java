@@ -0,0 +1,63 @@
+/* Copyright 2016 Urban Airship and Contributors */
+
+package com.urbanairship.util;
+
+import android.support.annotation.NonNull;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+
+/**
+ * Bounded pool of fixed size byte arrays used as stream buffers.
+ */
+class ByteArrayPool {
+
+    private final int arraySize;
+    private final int maxArrays;
+    private final Deque<byte[]> arrays = new ArrayDeque<>();
+
+    /**
+     * Creates a pool.
+     *
+     * @param arraySize The size of the pooled arrays.
+     * @param maxArrays The max number of arrays kept in the pool.
+     */
+    ByteArrayPool(int arraySize, int maxArrays) {
+        this.arraySize = arraySize;
+        this.maxArrays = maxArrays;
+    }
+
+    /**
+     * Gets an array from the pool, or allocates a new one if the pool is empty.
+     *
+     * @return A byte array of the pool's array size.
+     */
+    @NonNull
+    synchronized byte[] get() {
+        byte[] array = arrays.poll();
+        return array == null ? new byte[arraySize] : array;
+    }
+
+    /**
+     * Returns an array to the pool. Arrays of a different size, or that would exceed the
+     * max pool size, are dropped.
+     *
+     * @param array The byte array.
+     */
+    synchronized void put(@NonNull byte[] array) {
+        if (array.length != arraySize || arrays.size() >= maxArrays) {
+            return;
+        }
+
+        arrays.push(array);
+    }
+
+    /**
+     * Gets the array size.
+     *
+     * @return The size of the pooled arrays.
+     */
+    int getArraySize() {
+        return arraySize;
+    }
+}
@@ -238,6 +238,21 @@ public abstract class DataManager {
         statement.bindDouble(index, value);
     }
 
+    /**
+     * Helper to bind a long to a SQLiteStatement
+     *
+     * @param statement The SQLiteStatement to bind to
+     * @param index Index of the value to bind
+     * @param value The value to bind
+     */
+    protected void bind(@NonNull SQLiteStatement statement, int index, Long value) {
+        if (value == null) {
+            statement.bindNull(index);
+        } else {
+            statement.bindLong(index, value);
+        }
+    }
+
     /**
      * Helper to bind an boolean to a SQLiteStatement
      *
@@ -469,6 +484,49 @@ public abstract class DataManager {
         return -1;
     }
 
+    /**
+     * Begins a transaction on the writable database. Every call that returns <code>true</code>
+     * must be paired with a call to {@link #endTransaction()}.
+     *
+     * @return <code>true</code> if the transaction was started, otherwise <code>false</code>.
+     */
+    public boolean beginTransaction() {
+        SQLiteDatabase db = getWritableDatabase();
+        if (db == null) {
+            return false;
+        }
+
+        try {
+            db.beginTransaction();
+            return true;
+        } catch (SQLException e) {
+            Logger.error("DataManager - Unable to begin transaction", e);
+        }
+
+        return false;
+    }
+
+    /**
+     * Marks the current transaction as successful so it will be committed when it ends.
+     */
+    public void setTransactionSuccessful() {
+        SQLiteDatabase db = getWritableDatabase();
+        if (db != null) {
+            db.setTransactionSuccessful();
+        }
+    }
+
+    /**
+     * Ends the current transaction. Changes are rolled back unless {@link #setTransactionSuccessful()}
+     * was called.
+     */
+    public void endTransaction() {
+        SQLiteDatabase db = getWritableDatabase();
+        if (db != null) {
+            db.endTransaction();
+        }
+    }
+
     /**
      * Queries the database
      *
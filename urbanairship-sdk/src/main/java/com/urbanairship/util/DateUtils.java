@@ -6,21 +6,9 @@ package com.urbanairship.util;
 import android.support.annotation.NonNull;
 
 import java.text.ParseException;
-import java.text.SimpleDateFormat;
-import java.util.Date;
-import java.util.Locale;
-import java.util.TimeZone;
 
 public class DateUtils {
 
-    private static final SimpleDateFormat ISO_DATE_FORMAT = new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss", Locale.US);
-    private static final SimpleDateFormat ALT_ISO_DATE_FORMAT = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss", Locale.US);
-
-    static {
-        ISO_DATE_FORMAT.setTimeZone(TimeZone.getTimeZone("UTC"));
-        ALT_ISO_DATE_FORMAT.setTimeZone(TimeZone.getTimeZone("UTC"));
-    }
-
     private DateUtils() {}
 
     /**
@@ -37,11 +25,7 @@ public class DateUtils {
             throw new ParseException("Unable to parse null timestamp", -1);
         }
 
-        try {
-            return ISO_DATE_FORMAT.parse(timeStamp).getTime();
-        } catch (ParseException ignored) {
-            return ALT_ISO_DATE_FORMAT.parse(timeStamp).getTime();
-        }
+        return TimestampCodec.parseIso8601(timeStamp);
     }
 
     /**
@@ -67,6 +51,6 @@ public class DateUtils {
      * @return An ISO 8601 formatted time stamp.
      */
     public static String createIso8601TimeStamp(long milliseconds) {
-        return ISO_DATE_FORMAT.format(new Date(milliseconds));
+        return TimestampCodec.formatIso8601(milliseconds);
     }
 }
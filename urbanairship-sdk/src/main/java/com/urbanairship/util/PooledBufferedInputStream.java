@@ -0,0 +1,50 @@
+/* Copyright 2016 Urban Airship and Contributors */
+
+package com.urbanairship.util;
+
+import android.support.annotation.NonNull;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Mark-able buffered input stream that borrows its initial buffer from a {@link ByteArrayPool}
+ * and returns it when the stream is closed.
+ */
+class PooledBufferedInputStream extends BufferedInputStream {
+
+    private final ByteArrayPool pool;
+    private byte[] pooledBuffer;
+
+    /**
+     * Creates a stream.
+     *
+     * @param in The stream to buffer.
+     * @param pool The buffer pool.
+     */
+    PooledBufferedInputStream(@NonNull InputStream in, @NonNull ByteArrayPool pool) {
+        // Allocate the smallest buffer, it is immediately replaced with a pooled one
+        super(in, 1);
+        this.pool = pool;
+        this.pooledBuffer = pool.get();
+        this.buf = pooledBuffer;
+    }
+
+    @Override
+    public void close() throws IOException {
+        byte[] buffer;
+        synchronized (this) {
+            buffer = pooledBuffer;
+            pooledBuffer = null;
+        }
+
+        try {
+            super.close();
+        } finally {
+            if (buffer != null) {
+                pool.put(buffer);
+            }
+        }
+    }
+}
@@ -0,0 +1,294 @@
+/* Copyright 2016 Urban Airship and Contributors */
+
+package com.urbanairship.util;
+
+import android.support.annotation.NonNull;
+
+import java.text.ParseException;
+
+/**
+ * Thread safe ISO 8601 and epoch seconds codec for UTC timestamps.
+ * <p/>
+ * Parsing reads the digits directly from the char sequence and formatting writes into a per thread
+ * buffer, so neither allocates a {@code SimpleDateFormat}, {@code Date} or {@code Calendar}.
+ *
+ * @hide
+ */
+public final class TimestampCodec {
+
+    private static final long MILLIS_PER_SECOND = 1000;
+    private static final long MILLIS_PER_MINUTE = 60 * MILLIS_PER_SECOND;
+    private static final long MILLIS_PER_HOUR = 60 * MILLIS_PER_MINUTE;
+    private static final long MILLIS_PER_DAY = 24 * MILLIS_PER_HOUR;
+
+    /**
+     * Days from 0000-03-01 to 1970-01-01 in the proleptic Gregorian calendar.
+     */
+    private static final long EPOCH_DAY_OFFSET = 719468;
+    private static final long DAYS_PER_ERA = 146097;
+
+    /**
+     * Length of a "yyyy-MM-ddTHH:mm:ss" timestamp.
+     */
+    private static final int ISO_DATE_TIME_LENGTH = 19;
+
+    private static final ThreadLocal<char[]> BUFFER = new ThreadLocal<char[]>() {
+        @Override
+        protected char[] initialValue() {
+            return new char[32];
+        }
+    };
+
+    private TimestampCodec() {}
+
+    /**
+     * Parses an ISO 8601 timestamp in the form {@code yyyy-MM-ddTHH:mm:ss}. A space may be used
+     * instead of the {@code T}. The time may be followed by fractional seconds and a time zone
+     * designator ({@code Z}, {@code +HH:mm}, {@code +HHmm} or {@code +HH}). Timestamps without a
+     * time zone designator are treated as UTC. Any other trailing characters are ignored.
+     *
+     * @param value The timestamp.
+     * @return The time in milliseconds since Jan. 1, 1970, midnight GMT.
+     * @throws ParseException if the timestamp was unable to be parsed.
+     */
+    public static long parseIso8601(@NonNull CharSequence value) throws ParseException {
+        if (value.length() < ISO_DATE_TIME_LENGTH) {
+            throw new ParseException("Timestamp too short: " + value, value.length());
+        }
+
+        int year = parseDigits(value, 0, 4);
+        expect(value, 4, '-');
+        int month = parseDigits(value, 5, 2);
+        expect(value, 7, '-');
+        int day = parseDigits(value, 8, 2);
+
+        char separator = value.charAt(10);
+        if (separator != 'T' && separator != ' ') {
+            throw new ParseException("Invalid date time separator: " + value, 10);
+        }
+
+        int hour = parseDigits(value, 11, 2);
+        expect(value, 13, ':');
+        int minute = parseDigits(value, 14, 2);
+        expect(value, 16, ':');
+        int second = parseDigits(value, 17, 2);
+
+        if (month < 1 || month > 12 || day < 1 || day > 31 || hour > 23 || minute > 59 || second > 59) {
+            throw new ParseException("Timestamp field out of range: " + value, 0);
+        }
+
+        long millis = daysFromCivil(year, month, day) * MILLIS_PER_DAY
+                + hour * MILLIS_PER_HOUR
+                + minute * MILLIS_PER_MINUTE
+                + second * MILLIS_PER_SECOND;
+
+        int index = ISO_DATE_TIME_LENGTH;
+        int length = value.length();
+
+        // Fractional seconds, only millisecond precision is kept
+        if (index < length && value.charAt(index) == '.') {
+            index++;
+            int scale = 100;
+            while (index < length && isDigit(value.charAt(index))) {
+                millis += (value.charAt(index) - '0') * scale;
+                scale /= 10;
+                index++;
+            }
+        }
+
+        // Time zone designator
+        if (index < length) {
+            char sign = value.charAt(index);
+            if ((sign == '+' || sign == '-') && index + 3 <= length && isDigit(value.charAt(index + 1))) {
+                int offsetHours = parseDigits(value, index + 1, 2);
+                int offsetMinutes = 0;
+                index += 3;
+
+                if (index < length && value.charAt(index) == ':') {
+                    index++;
+                }
+
+                if (index + 2 <= length && isDigit(value.charAt(index))) {
+                    offsetMinutes = parseDigits(value, index, 2);
+                }
+
+                long offset = offsetHours * MILLIS_PER_HOUR + offsetMinutes * MILLIS_PER_MINUTE;
+                millis += sign == '+' ? -offset : offset;
+            }
+        }
+
+        return millis;
+    }
+
+    /**
+     * Formats a time as an ISO 8601 timestamp in the form {@code yyyy-MM-ddTHH:mm:ss} in UTC.
+     *
+     * @param milliseconds The time in milliseconds since Jan. 1, 1970, midnight GMT.
+     * @return The ISO 8601 timestamp.
+     */
+    @NonNull
+    public static String formatIso8601(long milliseconds) {
+        char[] buffer = BUFFER.get();
+        int length = writeIso8601(buffer, milliseconds, 'T', false);
+        return new String(buffer, 0, length);
+    }
+
+    /**
+     * Appends a time as an ISO 8601 timestamp in UTC.
+     *
+     * @param builder The builder to append to.
+     * @param milliseconds The time in milliseconds since Jan. 1, 1970, midnight GMT.
+     * @param separator The date and time separator, usually {@code T} or a space.
+     * @param includeMillis {@code true} to append the milliseconds as fractional seconds.
+     * @return The builder.
+     */
+    @NonNull
+    public static StringBuilder appendIso8601(@NonNull StringBuilder builder, long milliseconds, char separator, boolean includeMillis) {
+        char[] buffer = BUFFER.get();
+        int length = writeIso8601(buffer, milliseconds, separator, includeMillis);
+        return builder.append(buffer, 0, length);
+    }
+
+    /**
+     * Formats a time as seconds since the epoch with millisecond precision, e.g. {@code 1427889600.123}.
+     *
+     * @param milliseconds The time in milliseconds since Jan. 1, 1970, midnight GMT.
+     * @return The epoch seconds.
+     */
+    @NonNull
+    public static String formatEpochSeconds(long milliseconds) {
+        char[] buffer = BUFFER.get();
+        int length = writeEpochSeconds(buffer, milliseconds);
+        return new String(buffer, 0, length);
+    }
+
+    /**
+     * Appends a time as seconds since the epoch with millisecond precision.
+     *
+     * @param builder The builder to append to.
+     * @param milliseconds The time in milliseconds since Jan. 1, 1970, midnight GMT.
+     * @return The builder.
+     */
+    @NonNull
+    public static StringBuilder appendEpochSeconds(@NonNull StringBuilder builder, long milliseconds) {
+        char[] buffer = BUFFER.get();
+        int length = writeEpochSeconds(buffer, milliseconds);
+        return builder.append(buffer, 0, length);
+    }
+
+    private static int writeIso8601(char[] buffer, long milliseconds, char separator, boolean includeMillis) {
+        long days = floorDiv(milliseconds, MILLIS_PER_DAY);
+        long millisOfDay = milliseconds - days * MILLIS_PER_DAY;
+
+        // Civil date from days, see http://howardhinnant.github.io/date_algorithms.html
+        long shifted = days + EPOCH_DAY_OFFSET;
+        long era = floorDiv(shifted, DAYS_PER_ERA);
+        long dayOfEra = shifted - era * DAYS_PER_ERA;
+        long yearOfEra = (dayOfEra - dayOfEra / 1460 + dayOfEra / 36524 - dayOfEra / 146096) / 365;
+        long dayOfYear = dayOfEra - (365 * yearOfEra + yearOfEra / 4 - yearOfEra / 100);
+        long monthPrime = (5 * dayOfYear + 2) / 153;
+        long day = dayOfYear - (153 * monthPrime + 2) / 5 + 1;
+        long month = monthPrime < 10 ? monthPrime + 3 : monthPrime - 9;
+        long year = yearOfEra + era * 400 + (month <= 2 ? 1 : 0);
+
+        int index = 0;
+        if (year < 0) {
+            buffer[index++] = '-';
+            year = -year;
+        }
+
+        index = writeDigits(buffer, index, year, 4);
+        buffer[index++] = '-';
+        index = writeDigits(buffer, index, month, 2);
+        buffer[index++] = '-';
+        index = writeDigits(buffer, index, day, 2);
+        buffer[index++] = separator;
+        index = writeDigits(buffer, index, millisOfDay / MILLIS_PER_HOUR, 2);
+        buffer[index++] = ':';
+        index = writeDigits(buffer, index, (millisOfDay / MILLIS_PER_MINUTE) % 60, 2);
+        buffer[index++] = ':';
+        index = writeDigits(buffer, index, (millisOfDay / MILLIS_PER_SECOND) % 60, 2);
+
+        if (includeMillis) {
+            buffer[index++] = '.';
+            index = writeDigits(buffer, index, millisOfDay % MILLIS_PER_SECOND, 3);
+        }
+
+        return index;
+    }
+
+    private static int writeEpochSeconds(char[] buffer, long milliseconds) {
+        int index = 0;
+        if (milliseconds < 0) {
+            buffer[index++] = '-';
+            milliseconds = -milliseconds;
+        }
+
+        index = writeDigits(buffer, index, milliseconds / MILLIS_PER_SECOND, 1);
+        buffer[index++] = '.';
+        return writeDigits(buffer, index, milliseconds % MILLIS_PER_SECOND, 3);
+    }
+
+    /**
+     * Writes a non-negative number zero padded to a min number of digits.
+     *
+     * @return The index after the last written char.
+     */
+    private static int writeDigits(char[] buffer, int index, long value, int minDigits) {
+        int digits = 1;
+        for (long remaining = value / 10; remaining > 0; remaining /= 10) {
+            digits++;
+        }
+
+        digits = Math.max(digits, minDigits);
+        for (int i = index + digits - 1; i >= index; i--) {
+            buffer[i] = (char) ('0' + value % 10);
+            value /= 10;
+        }
+
+        return index + digits;
+    }
+
+    private static int parseDigits(CharSequence value, int index, int count) throws ParseException {
+        int result = 0;
+        for (int i = index; i < index + count; i++) {
+            char c = value.charAt(i);
+            if (!isDigit(c)) {
+                throw new ParseException("Expected a digit: " + value, i);
+            }
+            result = result * 10 + (c - '0');
+        }
+
+        return result;
+    }
+
+    private static void expect(CharSequence value, int index, char expected) throws ParseException {
+        if (value.charAt(index) != expected) {
+            throw new ParseException("Expected '" + expected + "': " + value, index);
+        }
+    }
+
+    private static boolean isDigit(char c) {
+        return c >= '0' && c <= '9';
+    }
+
+    /**
+     * Days since the epoch for a proleptic Gregorian date.
+     */
+    private static long daysFromCivil(long year, long month, long day) {
+        year -= month <= 2 ? 1 : 0;
+        long era = floorDiv(year, 400);
+        long yearOfEra = year - era * 400;
+        long dayOfYear = (153 * (month > 2 ? month - 3 : month + 9) + 2) / 5 + day - 1;
+        long dayOfEra = yearOfEra * 365 + yearOfEra / 4 - yearOfEra / 100 + dayOfYear;
+        return era * DAYS_PER_ERA + dayOfEra - EPOCH_DAY_OFFSET;
+    }
+
+    private static long floorDiv(long x, long y) {
+        long result = x / y;
+        if ((x % y != 0) && ((x < 0) != (y < 0))) {
+            result--;
+        }
+        return result;
+    }
+}
@@ -2,6 +2,11 @@
 
 package com.urbanairship.util;
 
+import com.urbanairship.Logger;
+
+import java.io.UnsupportedEncodingException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.util.Collection;
 import java.util.Iterator;
 
@@ -71,4 +76,32 @@ public abstract class UAStringUtil {
         }
         return builder.toString();
     }
+
+    /**
+     * Generates a SHA-256 hash of the string.
+     *
+     * @param value The string to hash.
+     * @return The hash as a lowercase hex string, or null if the hash could not be generated.
+     */
+    public static String sha256(String value) {
+        if (value == null) {
+            return null;
+        }
+
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            byte[] hash = digest.digest(value.getBytes("UTF-8"));
+
+            StringBuilder builder = new StringBuilder(hash.length * 2);
+            for (byte b : hash) {
+                builder.append(Character.forDigit((b >> 4) & 0xF, 16));
+                builder.append(Character.forDigit(b & 0xF, 16));
+            }
+
+            return builder.toString();
+        } catch (NoSuchAlgorithmException | UnsupportedEncodingException e) {
+            Logger.error("UAStringUtil - Failed to hash string.", e);
+            return null;
+        }
+    }
 }
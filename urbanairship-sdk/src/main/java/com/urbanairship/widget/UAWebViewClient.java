@@ -30,6 +30,7 @@ import com.urbanairship.actions.ActionValue;
 import com.urbanairship.json.JsonException;
 import com.urbanairship.json.JsonValue;
 import com.urbanairship.richpush.RichPushMessage;
+import com.urbanairship.util.TimestampCodec;
 import com.urbanairship.util.UriUtils;
 
 import org.json.JSONObject;
@@ -38,13 +39,11 @@ import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.lang.ref.WeakReference;
-import java.text.SimpleDateFormat;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
-import java.util.TimeZone;
 import java.util.WeakHashMap;
 
 /**
@@ -120,7 +119,6 @@ public class UAWebViewClient extends WebViewClient {
     private ActionCompletionCallback actionCompletionCallback;
     private final ActionRunRequestFactory actionRunRequestFactory;
 
-    private static SimpleDateFormat dateFormatter;
     private static String nativeBridge;
 
     private final Map<WebView, InjectJsBridgeTask> injectJsBridgeTaskMap = new WeakHashMap<>();
@@ -495,6 +493,18 @@ public class UAWebViewClient extends WebViewClient {
         return String.format(Locale.US, "_UAirship.%s = function(){return %d;};", functionName, value);
     }
 
+    /**
+     * Formats a message sent date as {@code yyyy-MM-dd HH:mm:ss.SSSZ} in UTC.
+     *
+     * @param sentDateMS The sent date in milliseconds.
+     * @return The formatted sent date.
+     */
+    private static String formatSentDate(long sentDateMS) {
+        return TimestampCodec.appendIso8601(new StringBuilder(28), sentDateMS, ' ', true)
+                             .append("+0000")
+                             .toString();
+    }
+
     /**
      * Helper method to get the RichPushMessage from the web view.
      *
@@ -544,11 +554,6 @@ public class UAWebViewClient extends WebViewClient {
 
             RichPushMessage message = getMessage(webView);
 
-            if (dateFormatter == null) {
-                dateFormatter = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss.SSSZ", Locale.US);
-                dateFormatter.setTimeZone(TimeZone.getTimeZone("UTC"));
-            }
-
         /*
          * The native bridge will prototype _UAirship, so inject any additional
          * functionality under _UAirship and the final UAirship object will have
@@ -560,7 +565,7 @@ public class UAWebViewClient extends WebViewClient {
             sb.append(createGetter("getDeviceModel", Build.MODEL))
               .append(createGetter("getMessageId", (message != null) ? message.getMessageId() : null))
               .append(createGetter("getMessageTitle", (message != null) ? message.getTitle() : null))
-              .append(createGetter("getMessageSentDate", (message != null) ? dateFormatter.format(message.getSentDate()) : null))
+              .append(createGetter("getMessageSentDate", (message != null) ? formatSentDate(message.getSentDateMS()) : null))
               .append(createGetter("getMessageSentDateMS", (message != null) ? message.getSentDateMS() : -1))
               .append(createGetter("getUserId", UAirship.shared().getInbox().getUser().getId()))
               .append(createGetter("getChannelId", UAirship.shared().getPushManager().getChannelId()))
@@ -0,0 +1,60 @@
+/* Copyright 2016 Urban Airship and Contributors */
+
+package com.urbanairship;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class AirshipExecutorsTest extends BaseTestCase {
+
+    /**
+     * Test a serial executor runs its tasks one at a time in order.
+     */
+    @Test
+    public void testSerialExecutor() throws InterruptedException {
+        Executor executor = AirshipExecutors.newSerialExecutor(AirshipExecutors.LANE_IO);
+
+        final List<Integer> results = Collections.synchronizedList(new ArrayList<Integer>());
+        final AtomicInteger running = new AtomicInteger();
+        final AtomicInteger maxRunning = new AtomicInteger();
+        final CountDownLatch latch = new CountDownLatch(20);
+
+        for (int i = 0; i < 20; i++) {
+            final int value = i;
+            executor.execute(new Runnable() {
+                @Override
+                public void run() {
+                    maxRunning.set(Math.max(maxRunning.get(), running.incrementAndGet()));
+                    results.add(value);
+                    running.decrementAndGet();
+                    latch.countDown();
+                }
+            });
+        }
+
+        assertTrue(latch.await(5, TimeUnit.SECONDS));
+        assertEquals(1, maxRunning.get());
+        for (int i = 0; i < 20; i++) {
+            assertEquals(i, (int) results.get(i));
+        }
+    }
+
+    /**
+     * Test lanes share a single executor.
+     */
+    @Test
+    public void testSharedLanes() {
+        assertSame(AirshipExecutors.getExecutor(AirshipExecutors.LANE_NETWORK), AirshipExecutors.getExecutor(AirshipExecutors.LANE_NETWORK));
+    }
+}
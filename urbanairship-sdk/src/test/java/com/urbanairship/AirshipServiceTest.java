@@ -0,0 +1,57 @@
+/* Copyright 2016 Urban Airship and Contributors */
+
+package com.urbanairship;
+
+import com.urbanairship.job.Job;
+import com.urbanairship.push.PushManager;
+
+import org.junit.After;
+import org.junit.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class AirshipServiceTest extends BaseTestCase {
+
+    @After
+    public void cleanup() {
+        UAirship.isMainProcess = false;
+    }
+
+    /**
+     * Test performing a job in process runs it on the component's executor.
+     */
+    @Test
+    public void testPerformJobInProcess() throws InterruptedException {
+        UAirship.isMainProcess = true;
+
+        Job job = Job.newBuilder("test_action")
+                     .setAirshipComponent(PushManager.class)
+                     .build();
+
+        final CountDownLatch latch = new CountDownLatch(1);
+        assertTrue(AirshipService.performJobInProcess(TestApplication.getApplication(), job, new Runnable() {
+            @Override
+            public void run() {
+                latch.countDown();
+            }
+        }));
+
+        assertTrue(latch.await(5, TimeUnit.SECONDS));
+    }
+
+    /**
+     * Test jobs are not performed in process outside of the main process.
+     */
+    @Test
+    public void testPerformJobInProcessNotMainProcess() {
+        Job job = Job.newBuilder("test_action")
+                     .setAirshipComponent(PushManager.class)
+                     .build();
+
+        assertFalse(AirshipService.performJobInProcess(TestApplication.getApplication(), job, null));
+    }
+}
@@ -0,0 +1,76 @@
+/* Copyright 2016 Urban Airship and Contributors */
+
+package com.urbanairship;
+
+import android.util.Log;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class LoggerTest extends BaseTestCase {
+
+    private final List<String> messages = new ArrayList<>();
+    private int previousLogLevel;
+
+    @Before
+    public void setup() {
+        previousLogLevel = Logger.logLevel;
+        Logger.setLogHandler(new Logger.LogHandler() {
+            @Override
+            public void log(int priority, String tag, String message, Throwable throwable) {
+                messages.add(priority + ":" + message);
+            }
+        });
+    }
+
+    @After
+    public void cleanup() {
+        Logger.setLogHandler(null);
+        Logger.logLevel = previousLogLevel;
+    }
+
+    /**
+     * Test format replaces placeholders in order and ignores extra arguments.
+     */
+    @Test
+    public void testFormat() {
+        assertEquals("a 1 b null c", Logger.format("a {} b {} c", 1, null));
+        assertEquals("no args", Logger.format("no args"));
+        assertEquals("one 1", Logger.format("one {}", 1, 2));
+        assertEquals("missing {}", Logger.format("missing {}"));
+        assertEquals("list [1, 2]", Logger.format("list {}", (Object) new Integer[] { 1, 2 }));
+    }
+
+    /**
+     * Test messages below the log level are not formatted or sent to the handler.
+     */
+    @Test
+    public void testLogLevel() {
+        Logger.logLevel = Log.INFO;
+
+        Object arg = new Object() {
+            @Override
+            public String toString() {
+                throw new AssertionError("Disabled log statements should not format their arguments");
+            }
+        };
+
+        Logger.debug("debug {}", arg);
+        Logger.verbose("verbose {} {} {}", arg, arg, arg);
+        Logger.info("info {} {}", "a", 1);
+
+        assertEquals(1, messages.size());
+        assertEquals(Log.INFO + ":info a 1", messages.get(0));
+
+        assertFalse(Logger.isLoggable(Log.DEBUG));
+        assertTrue(Logger.isLoggable(Log.ERROR));
+    }
+}
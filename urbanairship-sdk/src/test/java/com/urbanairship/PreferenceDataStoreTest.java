@@ -2,7 +2,11 @@
 
 package com.urbanairship;
 
+import android.content.ContentResolver;
+import android.content.ContentValues;
 import android.content.Context;
+import android.net.Uri;
+import android.support.annotation.NonNull;
 
 import com.urbanairship.json.JsonException;
 import com.urbanairship.json.JsonSerializable;
@@ -10,15 +14,26 @@ import com.urbanairship.json.JsonValue;
 
 import org.junit.Before;
 import org.junit.Test;
+import org.mockito.ArgumentCaptor;
 import org.robolectric.RuntimeEnvironment;
 
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.Executor;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
 
 public class PreferenceDataStoreTest extends BaseTestCase {
 
@@ -43,6 +58,43 @@ public class PreferenceDataStoreTest extends BaseTestCase {
         assertNull(testPrefs.getString("value", null));
     }
 
+    /**
+     * Test decoded values are cached until the preference changes.
+     */
+    @Test
+    public void testDecodedValueCache() {
+        final List<String> decoded = new ArrayList<>();
+        PreferenceDataStore.Decoder<String> decoder = new PreferenceDataStore.Decoder<String>() {
+            @Override
+            public String decode(@NonNull String value) {
+                decoded.add(value);
+                return value.toUpperCase();
+            }
+        };
+
+        assertNull(testPrefs.get("value", decoder));
+
+        testPrefs.put("value", "oh hi");
+        assertEquals("OH HI", testPrefs.get("value", decoder));
+        assertEquals("OH HI", testPrefs.get("value", decoder));
+        assertEquals(Arrays.asList("oh hi"), decoded);
+
+        // Changing the value decodes again
+        testPrefs.put("value", "bye");
+        assertEquals("BYE", testPrefs.get("value", decoder));
+        assertEquals(Arrays.asList("oh hi", "bye"), decoded);
+
+        // Typed getters use their own decoders
+        testPrefs.put("value", 10);
+        assertEquals(10, testPrefs.getInt("value", -1));
+        assertEquals(10, testPrefs.getLong("value", -1));
+        assertEquals(Arrays.asList("oh hi", "bye"), decoded);
+
+        testPrefs.remove("value");
+        assertNull(testPrefs.get("value", decoder));
+        assertEquals(-1, testPrefs.getInt("value", -1));
+    }
+
     /**
      * Test saving longs.
      */
@@ -133,4 +185,165 @@ public class PreferenceDataStoreTest extends BaseTestCase {
         testPrefs.put("value", testObject);
         assertTrue(testPrefs.getJsonValue("value").isNull());
     }
+
+    /**
+     * Test editor changes to the same key are coalesced and notify listeners once.
+     */
+    @Test
+    public void testEditorCoalescesChanges() {
+        final List<String> changedKeys = new ArrayList<>();
+        testPrefs.addListener(new PreferenceDataStore.PreferenceChangeListener() {
+            @Override
+            public void onPreferenceChange(String key) {
+                changedKeys.add(key);
+            }
+        });
+
+        testPrefs.put("removed", "value");
+        changedKeys.clear();
+
+        testPrefs.edit()
+                 .put("value", 1)
+                 .put("value", 2)
+                 .put("other", true)
+                 .remove("removed")
+                 .apply();
+
+        assertEquals(2, testPrefs.getInt("value", -1));
+        assertTrue(testPrefs.getBoolean("other", false));
+        assertNull(testPrefs.getString("removed", null));
+        assertEquals(Arrays.asList("value", "other", "removed"), changedKeys);
+    }
+
+    /**
+     * Test committing an editor writes the batch with a single bulk insert.
+     */
+    @Test
+    public void testEditorCommitBulkInsert() {
+        UrbanAirshipResolver resolver = mock(UrbanAirshipResolver.class);
+        when(resolver.bulkInsert(any(Uri.class), any(ContentValues[].class))).thenReturn(2);
+
+        PreferenceDataStore dataStore = new PreferenceDataStore(context, resolver);
+
+        assertTrue(dataStore.edit()
+                            .put("first", "one")
+                            .put("second", 2l)
+                            .put("first", "uno")
+                            .commit());
+
+        ArgumentCaptor<ContentValues[]> captor = ArgumentCaptor.forClass(ContentValues[].class);
+        verify(resolver, times(1)).bulkInsert(any(Uri.class), captor.capture());
+        verify(resolver, never()).insert(any(Uri.class), any(ContentValues.class));
+
+        Map<String, String> written = new HashMap<>();
+        for (ContentValues values : captor.getValue()) {
+            written.put(values.getAsString(PreferencesDataManager.COLUMN_NAME_KEY), values.getAsString(PreferencesDataManager.COLUMN_NAME_VALUE));
+        }
+
+        assertEquals(2, written.size());
+        assertEquals("uno", written.get("first"));
+        assertEquals("2", written.get("second"));
+
+        assertEquals("uno", dataStore.getString("first", null));
+        assertEquals(2, dataStore.getLong("second", -1));
+    }
+
+    /**
+     * Test a failed commit does not apply the changes.
+     */
+    @Test
+    public void testEditorCommitFailed() {
+        UrbanAirshipResolver resolver = mock(UrbanAirshipResolver.class);
+        when(resolver.bulkInsert(any(Uri.class), any(ContentValues[].class))).thenReturn(0);
+
+        PreferenceDataStore dataStore = new PreferenceDataStore(context, resolver);
+
+        assertFalse(dataStore.edit().put("first", "one").commit());
+        assertNull(dataStore.getString("first", null));
+    }
+
+    /**
+     * Test changes from another process are pulled after a single change notification.
+     */
+    @Test
+    public void testSyncChanges() {
+        testPrefs.executor = new Executor() {
+            @Override
+            public void execute(@NonNull Runnable runnable) {
+                runnable.run();
+            }
+        };
+
+        testPrefs.put("local", "value");
+        testPrefs.init();
+
+        final List<String> changedKeys = new ArrayList<>();
+        testPrefs.addListener(new PreferenceDataStore.PreferenceChangeListener() {
+            @Override
+            public void onPreferenceChange(String key) {
+                changedKeys.add(key);
+            }
+        });
+
+        // Simulate another process changing preferences
+        Uri uri = UrbanAirshipProvider.getPreferencesContentUri(context);
+        ContentResolver contentResolver = context.getContentResolver();
+
+        ContentValues values = new ContentValues();
+        values.put(PreferencesDataManager.COLUMN_NAME_KEY, "external");
+        values.put(PreferencesDataManager.COLUMN_NAME_VALUE, "external value");
+        contentResolver.insert(uri, values);
+
+        values.put(PreferencesDataManager.COLUMN_NAME_KEY, "local");
+        values.putNull(PreferencesDataManager.COLUMN_NAME_VALUE);
+        contentResolver.insert(uri, values);
+
+        contentResolver.notifyChange(uri, null);
+
+        assertEquals("external value", testPrefs.getString("external", null));
+        assertNull(testPrefs.getString("local", null));
+        assertEquals(Arrays.asList("external", "local"), changedKeys);
+
+        testPrefs.tearDown();
+    }
+
+    /**
+     * Test a sync does not apply an older row for a preference with a queued local write.
+     */
+    @Test
+    public void testSyncSkipsPendingLocalWrites() {
+        final List<Runnable> queued = new ArrayList<>();
+        testPrefs.executor = new Executor() {
+            @Override
+            public void execute(@NonNull Runnable runnable) {
+                queued.add(runnable);
+            }
+        };
+
+        testPrefs.init();
+
+        // Write the first value to the database
+        testPrefs.put("key", "first");
+        while (!queued.isEmpty()) {
+            queued.remove(0).run();
+        }
+
+        // Queue a second write, then sync before it runs
+        testPrefs.put("key", "second");
+        assertEquals(1, queued.size());
+        Runnable write = queued.remove(0);
+
+        Uri uri = UrbanAirshipProvider.getPreferencesContentUri(context);
+        context.getContentResolver().notifyChange(uri, null);
+        assertFalse(queued.isEmpty());
+        while (!queued.isEmpty()) {
+            queued.remove(0).run();
+        }
+        assertEquals("second", testPrefs.getString("key", null));
+
+        write.run();
+        assertEquals("second", testPrefs.getString("key", null));
+
+        testPrefs.tearDown();
+    }
 }
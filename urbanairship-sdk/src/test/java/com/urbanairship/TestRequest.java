@@ -6,7 +6,11 @@ import android.support.annotation.NonNull;
 
 import com.urbanairship.http.Request;
 import com.urbanairship.http.Response;
+import com.urbanairship.http.ResponseBodyReader;
 
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.StringReader;
 import java.net.URL;
 import java.util.Map;
 
@@ -26,12 +30,37 @@ public class TestRequest extends Request {
         return response;
     }
 
+    @Override
+    public Response execute(ResponseBodyReader bodyReader) {
+        if (bodyReader == null || response == null || response.getResponseBody() == null) {
+            return response;
+        }
+
+        try {
+            bodyReader.readFrom(response.getStatus(), new StringReader(response.getResponseBody()));
+        } catch (IOException e) {
+            return null;
+        }
+
+        return response;
+    }
+
     /**
      * Get the request body.
      *
      * @return The request body.
      */
     public String getRequestBody() {
+        if (body == null && bodyWriter != null) {
+            ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+            try {
+                bodyWriter.writeTo(outputStream);
+                return outputStream.toString("UTF-8");
+            } catch (IOException e) {
+                return null;
+            }
+        }
+
         return body;
     }
 
@@ -15,6 +15,7 @@ import org.robolectric.annotation.Config;
 import static junit.framework.Assert.assertEquals;
 import static junit.framework.Assert.assertFalse;
 import static junit.framework.Assert.assertNull;
+import static junit.framework.Assert.assertTrue;
 
 public class UrbanAirshipProviderTest extends BaseTestCase {
 
@@ -189,4 +190,40 @@ public class UrbanAirshipProviderTest extends BaseTestCase {
         assertEquals(1, deleted);
     }
 
+    @Test
+    public void testPreferenceVersion() {
+        ContentValues values = new ContentValues();
+        values.put(PreferencesDataManager.COLUMN_NAME_KEY, "key");
+        values.put(PreferencesDataManager.COLUMN_NAME_VALUE, "value");
+        resolver.insert(this.preferenceUri, values);
+
+        long firstVersion = getPreferenceVersion("key");
+
+        values.put(PreferencesDataManager.COLUMN_NAME_VALUE, "new value");
+        resolver.insert(this.preferenceUri, values);
+
+        long secondVersion = getPreferenceVersion("key");
+        assertTrue(secondVersion > firstVersion);
+
+        ContentValues updateValue = new ContentValues();
+        updateValue.put(PreferencesDataManager.COLUMN_NAME_VALUE, "updated value");
+        resolver.update(this.preferenceUri, updateValue, PreferencesDataManager.COLUMN_NAME_KEY + " = ?", new String[] { "key" });
+
+        assertTrue(getPreferenceVersion("key") > secondVersion);
+
+        // Only the changed preference is newer than the second version
+        Cursor cursor = resolver.query(this.preferenceUri, null, PreferencesDataManager.COLUMN_NAME_VERSION + " > ?",
+                new String[] { String.valueOf(secondVersion) }, null);
+        assertEquals(1, cursor.getCount());
+        cursor.close();
+    }
+
+    private long getPreferenceVersion(String key) {
+        Cursor cursor = resolver.query(this.preferenceUri, new String[] { PreferencesDataManager.COLUMN_NAME_VERSION },
+                PreferencesDataManager.COLUMN_NAME_KEY + " = ?", new String[] { key }, null);
+        cursor.moveToFirst();
+        long version = cursor.getLong(0);
+        cursor.close();
+        return version;
+    }
 }
@@ -2,6 +2,8 @@
 
 package com.urbanairship.analytics;
 
+import android.content.ContentValues;
+
 import com.urbanairship.BaseTestCase;
 import com.urbanairship.PreferenceDataStore;
 import com.urbanairship.TestApplication;
@@ -18,8 +20,8 @@ import org.mockito.internal.verification.Times;
 import org.mockito.invocation.InvocationOnMock;
 import org.mockito.stubbing.Answer;
 
-import java.util.HashMap;
-import java.util.Map;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.concurrent.TimeUnit;
 
 import static junit.framework.Assert.assertEquals;
@@ -178,9 +180,6 @@ public class AnalyticsJobHandlerTest extends BaseTestCase {
     public void testSendingEvents() {
         when(mockAnalytics.isEnabled()).thenReturn(true);
 
-        Map<String, String> events = new HashMap<>();
-        events.put("firstEvent", "{ 'firstEventBody' }");
-
         // Set up data manager to return 2 count for events.
         // Note: we only have one event, but it should only ask for one to upload
         // having it return 2 will make it schedule to upload events in the future
@@ -190,8 +189,8 @@ public class AnalyticsJobHandlerTest extends BaseTestCase {
         // the first event.
         when(mockDataManager.getDatabaseSize()).thenReturn(200);
 
-        // Return the event when it asks for 1
-        when(mockDataManager.getEvents(1)).thenReturn(events);
+        // Return the row ID of the event when it asks for 1
+        when(mockDataManager.getBatchEndRowId(1)).thenReturn(10L);
 
         // Set the max batch size to 100
         dataStore.put(AnalyticsJobHandler.MAX_BATCH_SIZE_KEY, 100);
@@ -204,7 +203,7 @@ public class AnalyticsJobHandlerTest extends BaseTestCase {
         when(response.getMinBatchInterval()).thenReturn(100);
 
         // Return the response
-        when(mockClient.sendEvents(UAirship.shared(), events.values())).thenReturn(response);
+        when(mockClient.sendEvents(UAirship.shared(), mockDataManager, 10L)).thenReturn(response);
 
         // Start the upload process
         Job job = Job.newBuilder(AnalyticsJobHandler.ACTION_SEND)
@@ -212,11 +211,11 @@ public class AnalyticsJobHandlerTest extends BaseTestCase {
 
         assertEquals(Job.JOB_FINISHED, jobHandler.performJob(job));
 
-        // Check mockClients receives the events
-        Mockito.verify(mockClient).sendEvents(UAirship.shared(), events.values());
+        // Check mockClients streams the events
+        Mockito.verify(mockClient).sendEvents(UAirship.shared(), mockDataManager, 10L);
 
         // Check data manager deletes events
-        Mockito.verify(mockDataManager).deleteEvents(events.keySet());
+        Mockito.verify(mockDataManager).deleteEventsThrough(10L);
 
         // Verify responses are being saved
         assertEquals(200, dataStore.getInt(AnalyticsJobHandler.MAX_TOTAL_DB_SIZE_KEY, 0));
@@ -240,23 +239,18 @@ public class AnalyticsJobHandlerTest extends BaseTestCase {
     public void testSendEventMaxCount() {
         when(mockAnalytics.isEnabled()).thenReturn(true);
 
-        Map<String, String> events = new HashMap<>();
-        for (int i = 0; i < 500; i++) {
-            events.put("event " + i, "{ 'body' }");
-        }
-
         dataStore.put(AnalyticsJobHandler.MAX_BATCH_SIZE_KEY, 100000);
 
         when(mockDataManager.getDatabaseSize()).thenReturn(100000);
         when(mockDataManager.getEventCount()).thenReturn(1000);
 
-        // Return the event when it asks for 1
-        when(mockDataManager.getEvents(500)).thenReturn(events);
+        // Return the row ID of the last event when it asks for 500
+        when(mockDataManager.getBatchEndRowId(500)).thenReturn(500L);
 
         // Set up the response
         EventResponse response = mock(EventResponse.class);
         when(response.getStatus()).thenReturn(200);
-        when(mockClient.sendEvents(UAirship.shared(), events.values())).thenReturn(response);
+        when(mockClient.sendEvents(UAirship.shared(), mockDataManager, 500L)).thenReturn(response);
 
         // Start the upload process
         Job job = Job.newBuilder(AnalyticsJobHandler.ACTION_SEND)
@@ -264,11 +258,11 @@ public class AnalyticsJobHandlerTest extends BaseTestCase {
 
         assertEquals(Job.JOB_FINISHED, jobHandler.performJob(job));
 
-        // Check mockClients receives the events
-        Mockito.verify(mockClient).sendEvents(UAirship.shared(), events.values());
+        // Check mockClients streams the events
+        Mockito.verify(mockClient).sendEvents(UAirship.shared(), mockDataManager, 500L);
 
         // Check data manager deletes events
-        Mockito.verify(mockDataManager).deleteEvents(events.keySet());
+        Mockito.verify(mockDataManager).deleteEventsThrough(500L);
     }
 
     /**
@@ -281,13 +275,10 @@ public class AnalyticsJobHandlerTest extends BaseTestCase {
         // Return null when channel ID is expected
         channelId = null;
 
-        Map<String, String> events = new HashMap<>();
-        events.put("firstEvent", "{ 'firstEventBody' }");
-
         // Satisfy event count check to avoid early return.
         when(mockDataManager.getEventCount()).thenReturn(1);
         // Return the event when it asks for 1
-        when(mockDataManager.getEvents(1)).thenReturn(events);
+        when(mockDataManager.getBatchEndRowId(1)).thenReturn(1L);
 
         // Start the upload process
         Job job = Job.newBuilder(AnalyticsJobHandler.ACTION_SEND)
@@ -296,7 +287,7 @@ public class AnalyticsJobHandlerTest extends BaseTestCase {
         assertEquals(Job.JOB_FINISHED, jobHandler.performJob(job));
 
         // Verify uploadEvents returns early when no channel ID is present.
-        Mockito.verify(mockClient, never()).sendEvents(UAirship.shared(), events.values());
+        Mockito.verify(mockClient, never()).sendEvents(Mockito.any(UAirship.class), Mockito.any(EventDataManager.class), anyLong());
     }
 
     /**
@@ -306,13 +297,10 @@ public class AnalyticsJobHandlerTest extends BaseTestCase {
     public void testSendingWithAnalyticsDisabled() {
         when(mockAnalytics.isEnabled()).thenReturn(false);
 
-        Map<String, String> events = new HashMap<>();
-        events.put("firstEvent", "{ 'firstEventBody' }");
-
         // Satisfy event count check to avoid early return.
         when(mockDataManager.getEventCount()).thenReturn(1);
         // Return the event when it asks for 1
-        when(mockDataManager.getEvents(1)).thenReturn(events);
+        when(mockDataManager.getBatchEndRowId(1)).thenReturn(1L);
 
         // Start the upload process
         Job job = Job.newBuilder(AnalyticsJobHandler.ACTION_SEND)
@@ -321,7 +309,7 @@ public class AnalyticsJobHandlerTest extends BaseTestCase {
         assertEquals(Job.JOB_FINISHED, jobHandler.performJob(job));
 
         // Verify uploadEvents returns early when no channel ID is present.
-        Mockito.verify(mockClient, never()).sendEvents(UAirship.shared(), events.values());
+        Mockito.verify(mockClient, never()).sendEvents(Mockito.any(UAirship.class), Mockito.any(EventDataManager.class), anyLong());
     }
 
     /**
@@ -331,27 +319,25 @@ public class AnalyticsJobHandlerTest extends BaseTestCase {
     public void testSendEventsFails() {
         when(mockAnalytics.isEnabled()).thenReturn(true);
 
-        Map<String, String> events = new HashMap<>();
-        events.put("firstEvent", "{ 'firstEventBody' }");
         when(mockDataManager.getEventCount()).thenReturn(1);
         when(mockDataManager.getDatabaseSize()).thenReturn(100);
-        when(mockDataManager.getEvents(1)).thenReturn(events);
+        when(mockDataManager.getBatchEndRowId(1)).thenReturn(1L);
 
         dataStore.put(AnalyticsJobHandler.MAX_BATCH_SIZE_KEY, 100);
 
 
         // Return a null response
-        when(mockClient.sendEvents(UAirship.shared(), events.values())).thenReturn(null);
+        when(mockClient.sendEvents(UAirship.shared(), mockDataManager, 1L)).thenReturn(null);
 
         Job job = Job.newBuilder(AnalyticsJobHandler.ACTION_SEND)
                      .build();
 
         assertEquals(Job.JOB_RETRY, jobHandler.performJob(job));
 
-        Mockito.verify(mockClient).sendEvents(UAirship.shared(), events.values());
+        Mockito.verify(mockClient).sendEvents(UAirship.shared(), mockDataManager, 1L);
 
         // If it fails, it should skip deleting events
-        Mockito.verify(mockDataManager, Mockito.never()).deleteEvents(events.keySet());
+        Mockito.verify(mockDataManager, Mockito.never()).deleteEventsThrough(anyLong());
     }
 
     /**
@@ -385,6 +371,48 @@ public class AnalyticsJobHandlerTest extends BaseTestCase {
         }), eq(0l), eq(TimeUnit.MILLISECONDS));
     }
 
+    /**
+     * Test storing a batch of buffered events inserts them in a single call and schedules an upload.
+     */
+    @Test
+    public void testStoreEvents() {
+        when(mockAnalytics.isEnabled()).thenReturn(true);
+        when(mockDataManager.insertEvents(Mockito.anyListOf(ContentValues.class))).thenReturn(2);
+
+        List<ContentValues> events = new ArrayList<>();
+        events.add(EventDataManager.createEventValues("some-type", "DATA!", "event id", "session id", "100"));
+        events.add(EventDataManager.createEventValues("some-type", "DATA!", "other event id", "session id", "100"));
+
+        jobHandler.storeEvents(events, Event.HIGH_PRIORITY);
+
+        verify(mockDataManager).insertEvents(events);
+
+        // Check it schedules an upload
+        verify(mockDispatcher).dispatch(Mockito.argThat(new ArgumentMatcher<Job>() {
+            @Override
+            public boolean matches(Object argument) {
+                Job job = (Job) argument;
+                return job.getAction().equals(AnalyticsJobHandler.ACTION_SEND);
+            }
+        }), eq(0l), eq(TimeUnit.MILLISECONDS));
+    }
+
+    /**
+     * Test storing buffered events when analytics is disabled does nothing.
+     */
+    @Test
+    public void testStoreEventsAnalyticsDisabled() {
+        when(mockAnalytics.isEnabled()).thenReturn(false);
+
+        List<ContentValues> events = new ArrayList<>();
+        events.add(EventDataManager.createEventValues("some-type", "DATA!", "event id", "session id", "100"));
+
+        jobHandler.storeEvents(events, Event.NORMAL_PRIORITY);
+
+        verifyZeroInteractions(mockDataManager);
+        verifyZeroInteractions(mockDispatcher);
+    }
+
     /**
      * Test DELETE_ALL intent action deletes all events.
      */
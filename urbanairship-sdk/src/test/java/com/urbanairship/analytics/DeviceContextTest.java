@@ -0,0 +1,72 @@
+/* Copyright 2016 Urban Airship and Contributors */
+
+package com.urbanairship.analytics;
+
+import com.urbanairship.BaseTestCase;
+import com.urbanairship.TestApplication;
+import com.urbanairship.UAirship;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Locale;
+import java.util.TimeZone;
+
+import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertNotSame;
+import static junit.framework.Assert.assertSame;
+
+public class DeviceContextTest extends BaseTestCase {
+
+    private DeviceContext deviceContext;
+    private Locale defaultLocale;
+    private TimeZone defaultTimeZone;
+
+    @Before
+    public void setUp() {
+        defaultLocale = Locale.getDefault();
+        defaultTimeZone = TimeZone.getDefault();
+        deviceContext = new DeviceContext(TestApplication.getApplication());
+    }
+
+    @After
+    public void tearDown() {
+        Locale.setDefault(defaultLocale);
+        TimeZone.setDefault(defaultTimeZone);
+    }
+
+    /**
+     * Test the snapshot is reused until it is invalidated.
+     */
+    @Test
+    public void testSnapshotCachedUntilInvalidated() {
+        Locale.setDefault(new Locale("en", "US"));
+        TimeZone.setDefault(TimeZone.getTimeZone("America/Los_Angeles"));
+
+        DeviceContext.Snapshot snapshot = deviceContext.getSnapshot();
+        assertEquals(new Locale("en", "US"), snapshot.locale);
+        assertEquals("America/Los_Angeles", snapshot.getTimeZoneId());
+
+        Locale.setDefault(new Locale("fr", "FR"));
+        TimeZone.setDefault(TimeZone.getTimeZone("Europe/Paris"));
+        assertSame(snapshot, deviceContext.getSnapshot());
+
+        deviceContext.invalidate();
+
+        DeviceContext.Snapshot updated = deviceContext.getSnapshot();
+        assertNotSame(snapshot, updated);
+        assertEquals(new Locale("fr", "FR"), updated.locale);
+        assertEquals("Europe/Paris", updated.getTimeZoneId());
+    }
+
+    /**
+     * Test the snapshot reads the package info.
+     */
+    @Test
+    public void testPackageInfo() {
+        DeviceContext.Snapshot snapshot = deviceContext.getSnapshot();
+        assertEquals(UAirship.getPackageName(), snapshot.packageName);
+        assertEquals(UAirship.getPackageInfo().versionName, snapshot.packageVersion);
+    }
+}
@@ -21,8 +21,6 @@ import org.mockito.Mockito;
 import java.io.IOException;
 import java.net.HttpURLConnection;
 import java.net.URL;
-import java.util.ArrayList;
-import java.util.List;
 import java.util.Locale;
 import java.util.Map;
 import java.util.TimeZone;
@@ -36,14 +34,17 @@ import static org.mockito.Mockito.when;
 
 public class EventApiClientTest extends BaseTestCase {
 
-    private List<String> events = new ArrayList<>();
+    private EventDataManager dataManager;
+    private long lastRowId;
     private EventApiClient client;
     private TestRequest testRequest;
 
 
     @Before
     public void setUp() {
-        events.add("{\"some\":\"json\"}");
+        dataManager = new EventDataManager(TestApplication.getApplication(), "test");
+        dataManager.insertEvent("some-type", "{\"some\":\"json\"}", "event-id", "session", "100");
+        lastRowId = dataManager.getBatchEndRowId(1);
 
         testRequest = new TestRequest();
 
@@ -58,31 +59,24 @@ public class EventApiClientTest extends BaseTestCase {
         TestApplication.getApplication().setInbox(inbox);
 
 
-        client = new EventApiClient(TestApplication.getApplication(), mockRequestFactory);
+        client = new EventApiClient(mockRequestFactory, new DeviceContext(TestApplication.getApplication()));
     }
 
     /**
-     * Test sending null or empty events returns a null response.
+     * Test streaming events from the data manager writes the raw payloads as a JSON array.
      */
     @Test
-    public void testSendEmptyEvents() {
-        assertNull(client.sendEvents(UAirship.shared(), new ArrayList<String>()));
-        assertNull(null);
-    }
-
-    /**
-     * Test the request body contains the passed in events.
-     */
-    @Test
-    public void testSendBody() throws IOException {
+    public void testSendStreamedBody() throws IOException {
         testRequest.response = new Response.Builder(HttpURLConnection.HTTP_OK)
                 .setResponseMessage("OK")
-                .setResponseBody(events.toString())
                 .create();
 
-        EventResponse response = client.sendEvents(UAirship.shared(), events);
+        dataManager.insertEvent("some-type", "{\"other\":\"json\"}", "second", "session", "100");
+        dataManager.insertEvent("some-type", "{\"not\":\"sent\"}", "third", "session", "100");
+
+        EventResponse response = client.sendEvents(UAirship.shared(), dataManager, dataManager.getBatchEndRowId(2));
 
-        assertEquals("Event request body should match", testRequest.getRequestBody(), events.toString());
+        assertEquals("[{\"some\":\"json\"},{\"other\":\"json\"}]", testRequest.getRequestBody());
         assertNotNull("Event response should not be null", response);
         assertEquals("Event response status should be 200", HttpURLConnection.HTTP_OK, response.getStatus());
     }
@@ -96,7 +90,6 @@ public class EventApiClientTest extends BaseTestCase {
 
         testRequest.response = new Response.Builder(HttpURLConnection.HTTP_OK)
                 .setResponseMessage("OK")
-                .setResponseBody(events.toString())
                 .create();
 
         AirshipConfigOptions airshipConfig = UAirship.shared().getAirshipConfigOptions();
@@ -118,7 +111,7 @@ public class EventApiClientTest extends BaseTestCase {
 
         };
 
-        client.sendEvents(UAirship.shared(), events);
+        client.sendEvents(UAirship.shared(), dataManager, lastRowId);
         Map<String, String> requestHeaders = testRequest.getRequestHeaders();
 
         for (String[] keyValuePair : expectedHeaders) {
@@ -136,10 +129,9 @@ public class EventApiClientTest extends BaseTestCase {
 
         testRequest.response = new Response.Builder(HttpURLConnection.HTTP_OK)
                 .setResponseMessage("OK")
-                .setResponseBody(events.toString())
                 .create();
 
-        client.sendEvents(UAirship.shared(), events);
+        client.sendEvents(UAirship.shared(), dataManager, lastRowId);
 
         Map<String, String> requestHeaders = testRequest.getRequestHeaders();
         String deviceFamily = requestHeaders.get("X-UA-Device-Family");
@@ -156,10 +148,9 @@ public class EventApiClientTest extends BaseTestCase {
 
         testRequest.response = new Response.Builder(HttpURLConnection.HTTP_OK)
                 .setResponseMessage("OK")
-                .setResponseBody(events.toString())
                 .create();
 
-        client.sendEvents(UAirship.shared(), events);
+        client.sendEvents(UAirship.shared(), dataManager, lastRowId);
 
         Map<String, String> requestHeaders = testRequest.getRequestHeaders();
         assertNull(requestHeaders.get("X-UA-Locale-Country"));
@@ -175,10 +166,9 @@ public class EventApiClientTest extends BaseTestCase {
 
         testRequest.response = new Response.Builder(HttpURLConnection.HTTP_OK)
                 .setResponseMessage("OK")
-                .setResponseBody(events.toString())
                 .create();
 
-        client.sendEvents(UAirship.shared(), events);
+        client.sendEvents(UAirship.shared(), dataManager, lastRowId);
 
         Map<String, String> requestHeaders = testRequest.getRequestHeaders();
         assertNull(requestHeaders.get("X-UA-Locale-Variant"));
@@ -194,10 +184,9 @@ public class EventApiClientTest extends BaseTestCase {
 
         testRequest.response = new Response.Builder(HttpURLConnection.HTTP_OK)
                 .setResponseMessage("OK")
-                .setResponseBody(events.toString())
                 .create();
 
-        client.sendEvents(UAirship.shared(), events);
+        client.sendEvents(UAirship.shared(), dataManager, lastRowId);
 
         Map<String, String> requestHeaders = testRequest.getRequestHeaders();
         assertNull(requestHeaders.get("X-UA-Locale-Language"));
@@ -211,7 +200,7 @@ public class EventApiClientTest extends BaseTestCase {
     @Test
     public void testNullResponse() {
         testRequest.response = null;
-        EventResponse response = client.sendEvents(UAirship.shared(), events);
+        EventResponse response = client.sendEvents(UAirship.shared(), dataManager, lastRowId);
         assertNull(response);
     }
 }
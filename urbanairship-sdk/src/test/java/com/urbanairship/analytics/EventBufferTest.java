@@ -0,0 +1,113 @@
+/* Copyright 2016 Urban Airship and Contributors */
+
+package com.urbanairship.analytics;
+
+import android.content.ContentValues;
+import android.os.Looper;
+import android.support.annotation.NonNull;
+
+import com.urbanairship.BaseTestCase;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.robolectric.Shadows;
+import org.robolectric.shadows.ShadowLooper;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class EventBufferTest extends BaseTestCase {
+
+    EventBuffer eventBuffer;
+    List<List<ContentValues>> flushedBatches;
+    List<Integer> flushedPriorities;
+
+    @Before
+    public void setUp() {
+        flushedBatches = new ArrayList<>();
+        flushedPriorities = new ArrayList<>();
+
+        eventBuffer = new EventBuffer(new EventBuffer.Listener() {
+            @Override
+            public void onFlush(@NonNull List<ContentValues> events, int priority) {
+                flushedBatches.add(events);
+                flushedPriorities.add(priority);
+            }
+        });
+
+        eventBuffer.executor = new Executor() {
+            @Override
+            public void execute(@NonNull Runnable runnable) {
+                runnable.run();
+            }
+        };
+    }
+
+    /**
+     * Test events are held until the max buffer age.
+     */
+    @Test
+    public void testFlushAfterMaxAge() {
+        eventBuffer.add(createEvent("first"), Event.LOW_PRIORITY);
+        eventBuffer.add(createEvent("second"), Event.NORMAL_PRIORITY);
+
+        assertTrue(flushedBatches.isEmpty());
+        assertEquals(2, eventBuffer.size());
+
+        ShadowLooper looper = Shadows.shadowOf(Looper.getMainLooper());
+        looper.idle(EventBuffer.MAX_BUFFER_AGE_MS, TimeUnit.MILLISECONDS);
+
+        assertEquals(1, flushedBatches.size());
+        assertEquals(2, flushedBatches.get(0).size());
+        assertEquals(Event.NORMAL_PRIORITY, (int) flushedPriorities.get(0));
+        assertEquals(0, eventBuffer.size());
+    }
+
+    /**
+     * Test the buffer flushes once it reaches the max number of events.
+     */
+    @Test
+    public void testFlushWhenFull() {
+        for (int i = 0; i < EventBuffer.MAX_BUFFERED_EVENTS; i++) {
+            eventBuffer.add(createEvent("event " + i), Event.LOW_PRIORITY);
+        }
+
+        assertEquals(1, flushedBatches.size());
+        assertEquals(EventBuffer.MAX_BUFFERED_EVENTS, flushedBatches.get(0).size());
+        assertEquals(Event.LOW_PRIORITY, (int) flushedPriorities.get(0));
+    }
+
+    /**
+     * Test high priority events flush the buffer immediately.
+     */
+    @Test
+    public void testHighPriorityFlush() {
+        eventBuffer.add(createEvent("first"), Event.LOW_PRIORITY);
+        eventBuffer.add(createEvent("second"), Event.HIGH_PRIORITY);
+
+        assertEquals(1, flushedBatches.size());
+        assertEquals(2, flushedBatches.get(0).size());
+        assertEquals(Event.HIGH_PRIORITY, (int) flushedPriorities.get(0));
+    }
+
+    /**
+     * Test clearing the buffer drops the buffered events.
+     */
+    @Test
+    public void testClear() {
+        eventBuffer.add(createEvent("first"), Event.LOW_PRIORITY);
+        eventBuffer.clear();
+        eventBuffer.flush();
+
+        assertTrue(flushedBatches.isEmpty());
+    }
+
+    private static ContentValues createEvent(String eventId) {
+        return EventDataManager.createEventValues("some-type", "DATA!", eventId, "session id", "100");
+    }
+}
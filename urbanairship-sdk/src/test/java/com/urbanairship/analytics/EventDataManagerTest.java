@@ -2,6 +2,8 @@
 
 package com.urbanairship.analytics;
 
+import android.content.ContentValues;
+
 import com.urbanairship.BaseTestCase;
 import com.urbanairship.json.JsonMap;
 
@@ -9,9 +11,10 @@ import org.junit.Before;
 import org.junit.Test;
 import org.robolectric.RuntimeEnvironment;
 
-import java.util.Arrays;
-import java.util.HashSet;
-import java.util.Map;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.UUID;
 
 import static org.junit.Assert.assertEquals;
@@ -33,25 +36,24 @@ public class EventDataManagerTest extends BaseTestCase {
      * to retrieve the data for the event
      */
     @Test
-    public void testInsertEvent() {
+    public void testInsertEvent() throws IOException {
         TestEvent event = new TestEvent("some-id");
 
         insertEvent(event, "session id");
         assertEquals(1, dataManager.getEventCount());
 
-        Map<String, String> eventData = dataManager.getEvents(1);
-        assertEquals(1, eventData.size());
-        assertEquals(event.createEventPayload("session id"), eventData.get("some-id"));
+        assertEquals("[" + event.createEventPayload("session id") + "]", writeAllEvents());
     }
 
     /**
      * Test deleting events by the event id
      */
     @Test
-    public void testDeleteEventById() {
+    public void testDeleteEventById() throws IOException {
         // Add two events with two different ids
-        insertEvent(new TestEvent("some-id"));
-        insertEvent(new TestEvent("some-other-id"));
+        TestEvent other = new TestEvent("some-other-id");
+        insertEvent(new TestEvent("some-id"), "session id");
+        insertEvent(other, "session id");
         assertEquals(2, dataManager.getEventCount());
 
         // Delete one of the events
@@ -59,9 +61,7 @@ public class EventDataManagerTest extends BaseTestCase {
         assertEquals(1, dataManager.getEventCount());
 
         // Make sure the other event still exists
-        Map<String, String> eventData = dataManager.getEvents(1);
-        assertEquals(1, eventData.size());
-        assertTrue(eventData.containsKey("some-other-id"));
+        assertEquals("[" + other.createEventPayload("session id") + "]", writeAllEvents());
     }
 
     /**
@@ -79,10 +79,11 @@ public class EventDataManagerTest extends BaseTestCase {
      * Test deleting events by the event type
      */
     @Test
-    public void testDeleteByEventType() {
-        insertEvent(new TestEvent("id-1", "EVENT TYPE 1"));
-        insertEvent(new TestEvent("id-2", "EVENT TYPE 1"));
-        insertEvent(new TestEvent("id-3", "EVENT TYPE 2"));
+    public void testDeleteByEventType() throws IOException {
+        TestEvent other = new TestEvent("id-3", "EVENT TYPE 2");
+        insertEvent(new TestEvent("id-1", "EVENT TYPE 1"), "session id");
+        insertEvent(new TestEvent("id-2", "EVENT TYPE 1"), "session id");
+        insertEvent(other, "session id");
         assertEquals(3, dataManager.getEventCount());
 
         // Delete one of the event types
@@ -90,9 +91,7 @@ public class EventDataManagerTest extends BaseTestCase {
         assertEquals(1, dataManager.getEventCount());
 
         // Make sure the other event still exists
-        Map<String, String> eventData = dataManager.getEvents(1);
-        assertEquals(1, eventData.size());
-        assertTrue(eventData.containsKey("id-3"));
+        assertEquals("[" + other.createEventPayload("session id") + "]", writeAllEvents());
 
         // Delete the other event type
         assertTrue(dataManager.deleteEventType("EVENT TYPE 2"));
@@ -156,68 +155,53 @@ public class EventDataManagerTest extends BaseTestCase {
     }
 
     /**
-     * Test deleting several events at once
+     * Test getting the last row ID of a batch of events.
      */
     @Test
-    public void testDeleteEvents() {
-        insertEvent(new TestEvent("id-1"));
-        insertEvent(new TestEvent("id-2"));
-        insertEvent(new TestEvent("id-3"));
-        insertEvent(new TestEvent("id-4"));
-
-        assertEquals(4, dataManager.getEventCount());
+    public void testGetBatchEndRowId() {
+        assertEquals(-1, dataManager.getBatchEndRowId(10));
 
-        // Delete all but id-3
-        assertTrue(dataManager.deleteEvents(new HashSet<>(Arrays.asList("id-1", "id-2", "id-4"))));
+        long first = insertEvent(new TestEvent("oldest-id"));
+        long second = insertEvent(new TestEvent("older-id"));
+        long third = insertEvent(new TestEvent("newer-id"));
 
-        assertEquals(1, dataManager.getEventCount());
-        assertTrue(dataManager.getEvents(1).containsKey("id-3"));
+        assertEquals(first, dataManager.getBatchEndRowId(1));
+        assertEquals(second, dataManager.getBatchEndRowId(2));
+        assertEquals(third, dataManager.getBatchEndRowId(10));
     }
 
     /**
-     * Test when the database is empty, deleting multiple events
-     * at once does not throw any exceptions
+     * Test writing events streams the raw payloads as a JSON array.
      */
     @Test
-    public void testDeleteEventsEmptyDatabase() {
-        assertFalse(dataManager.deleteEvents(new HashSet<>(Arrays.asList("id", "another-id"))));
-        assertEquals(0, dataManager.getEventCount());
-    }
-
+    public void testWriteEvents() throws IOException {
+        TestEvent first = new TestEvent("oldest-id");
+        TestEvent second = new TestEvent("older-id");
 
-    /**
-     * Tests getting events returns a set of events
-     * from oldest to newest
-     */
-    @Test
-    public void testGetEvents() {
-        insertEvent(new TestEvent("oldest-id"));
-        insertEvent(new TestEvent("older-id"));
-        insertEvent(new TestEvent("newer-id"));
-
-        assertEquals(3, dataManager.getEventCount());
+        insertEvent(first, "session id");
+        long lastRowId = insertEvent(second, "session id");
+        insertEvent(new TestEvent("newer-id"), "session id");
 
-        //Should return the oldest events
-        Map<String, String> eventData = dataManager.getEvents(2);
+        StringWriter writer = new StringWriter();
+        assertEquals(2, dataManager.writeEvents(lastRowId, writer));
 
-        assertEquals(2, eventData.size());
-        assertTrue(eventData.containsKey("oldest-id"));
-        assertTrue(eventData.containsKey("older-id"));
-
-        // Make sure if we request more than what's in the database
-        // it wont blow up
-        eventData = dataManager.getEvents(300);
-        assertEquals(3, eventData.size());
+        String expected = "[" + first.createEventPayload("session id") + "," + second.createEventPayload("session id") + "]";
+        assertEquals(expected, writer.toString());
     }
 
     /**
-     * Test getting events on an empty database returns an empty
-     * map
+     * Test deleting events through a row ID.
      */
     @Test
-    public void testGetEventsEmptyDatabase() {
-        Map<String, String> eventData = dataManager.getEvents(300);
-        assertEquals(0, eventData.size());
+    public void testDeleteEventsThrough() throws IOException {
+        TestEvent newer = new TestEvent("newer-id");
+        insertEvent(new TestEvent("oldest-id"), "session id");
+        long lastRowId = insertEvent(new TestEvent("older-id"), "session id");
+        insertEvent(newer, "session id");
+
+        assertTrue(dataManager.deleteEventsThrough(lastRowId));
+        assertEquals(1, dataManager.getEventCount());
+        assertEquals("[" + newer.createEventPayload("session id") + "]", writeAllEvents());
     }
 
     /**
@@ -238,6 +222,38 @@ public class EventDataManagerTest extends BaseTestCase {
         assertEquals(eventSize * 3, dataManager.getDatabaseSize());
     }
 
+    /**
+     * Test the database size and event count are updated when events are deleted.
+     */
+    @Test
+    public void testDatabaseSizeAfterDelete() {
+        TestEvent first = new TestEvent("first-id");
+        TestEvent second = new TestEvent("second-id");
+        TestEvent third = new TestEvent("third-id");
+
+        int firstSize = first.createEventPayload("session id").length();
+        int secondSize = second.createEventPayload("session id").length();
+        int thirdSize = third.createEventPayload("other session id").length();
+
+        insertEvent(first, "session id");
+        insertEvent(second, "session id");
+        insertEvent(third, "other session id");
+
+        assertEquals(firstSize + secondSize + thirdSize, dataManager.getDatabaseSize());
+
+        assertTrue(dataManager.deleteEvent("first-id"));
+        assertEquals(secondSize + thirdSize, dataManager.getDatabaseSize());
+        assertEquals(2, dataManager.getEventCount());
+
+        assertTrue(dataManager.deleteSession("other session id"));
+        assertEquals(secondSize, dataManager.getDatabaseSize());
+        assertEquals(1, dataManager.getEventCount());
+
+        dataManager.deleteAllEvents();
+        assertEquals(0, dataManager.getDatabaseSize());
+        assertEquals(0, dataManager.getEventCount());
+    }
+
     /**
      * Test getting the event count
      */
@@ -253,6 +269,36 @@ public class EventDataManagerTest extends BaseTestCase {
     }
 
 
+    /**
+     * Test inserting a batch of events.
+     */
+    @Test
+    public void testInsertEvents() throws IOException {
+        TestEvent first = new TestEvent("first-id");
+        TestEvent second = new TestEvent("second-id");
+
+        List<ContentValues> events = new ArrayList<>();
+        events.add(EventDataManager.createEventValues(first.getType(), first.createEventPayload("session id"), first.getEventId(), "session id", first.getTime()));
+        events.add(EventDataManager.createEventValues(second.getType(), second.createEventPayload("session id"), second.getEventId(), "session id", second.getTime()));
+
+        assertEquals(2, dataManager.insertEvents(events));
+        assertEquals(2, dataManager.getEventCount());
+
+        String expected = "[" + first.createEventPayload("session id") + "," + second.createEventPayload("session id") + "]";
+        assertEquals(expected, writeAllEvents());
+    }
+
+    /**
+     * Writes every stored event payload.
+     *
+     * @return The JSON array of event payloads.
+     */
+    private String writeAllEvents() throws IOException {
+        StringWriter writer = new StringWriter();
+        dataManager.writeEvents(Long.MAX_VALUE, writer);
+        return writer.toString();
+    }
+
     public long insertEvent(Event event) {
         return insertEvent(event, UUID.randomUUID().toString());
     }
@@ -173,6 +173,29 @@ public class AutomationDataManagerTest extends BaseTestCase {
         assertEquals(20, retrieved.size());
     }
 
+    @Test
+    public void testGetNextTriggerStart() {
+        long now = System.currentTimeMillis();
+        assertEquals(-1, dataManager.getNextTriggerStart(Trigger.LIFE_CYCLE_FOREGROUND, now));
+
+        dataManager.insertSchedules(createSchedules(5));
+
+        for (long start : new long[] { now + 2000, now + 1000 }) {
+            ActionScheduleInfo futureSchedule = ActionScheduleInfo.newBuilder()
+                    .addAction("test_action", JsonValue.wrap("action_value"))
+                    .addTrigger(Triggers.newForegroundTriggerBuilder().setGoal(3).build())
+                    .setLimit(5)
+                    .setGroup("group")
+                    .setStart(start)
+                    .build();
+            dataManager.insertSchedules(Collections.singletonList(futureSchedule));
+        }
+
+        // Schedules from createSchedules start at the time they are created
+        assertEquals(now + 1000, dataManager.getNextTriggerStart(Trigger.LIFE_CYCLE_FOREGROUND, now + 500));
+        assertEquals(-1, dataManager.getNextTriggerStart(Trigger.LIFE_CYCLE_BACKGROUND, now + 500));
+    }
+
     @Test
     public void testBulkInsertSchedules() {
         Trigger firstTrigger = Triggers.newForegroundTriggerBuilder()
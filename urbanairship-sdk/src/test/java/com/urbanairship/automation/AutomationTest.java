@@ -78,7 +78,6 @@ public class AutomationTest extends BaseTestCase {
         updatesMap = new HashMap<>();
         updatesMap.put(AutomationDataManager.SCHEDULES_TO_DELETE_QUERY, Collections.EMPTY_LIST);
         updatesMap.put(AutomationDataManager.SCHEDULES_TO_INCREMENT_QUERY, Collections.EMPTY_LIST);
-        updatesMap.put(AutomationDataManager.TRIGGERS_TO_RESET_QUERY, Collections.EMPTY_LIST);
     }
 
     @After
@@ -115,8 +114,11 @@ public class AutomationTest extends BaseTestCase {
         verify(automationDataManager).getTriggers(anyInt());
         verify(automationDataManager, never()).getSchedules(anySet());
 
-        updatesMap.put(String.format(AutomationDataManager.TRIGGERS_TO_INCREMENT_QUERY, 1.0), Collections.singletonList("1"));
-        verify(automationDataManager).updateLists(updatesMap);
+        // Trigger progress is written behind
+        verify(automationDataManager, never()).updateLists(anyMap());
+
+        flushTriggerUpdates();
+        verify(automationDataManager).updateLists(Collections.singletonMap(String.format(AutomationDataManager.TRIGGERS_TO_SET_PROGRESS_QUERY, 1.0), Collections.singletonList("1")));
     }
 
     @Test
@@ -158,8 +160,7 @@ public class AutomationTest extends BaseTestCase {
 
         verify(automationDataManager, atLeastOnce()).getTriggers(anyInt());
         updatesMap.put(AutomationDataManager.SCHEDULES_TO_INCREMENT_QUERY, Collections.singletonList("automation id"));
-        updatesMap.put(String.format(AutomationDataManager.TRIGGERS_TO_INCREMENT_QUERY, 5.0), Collections.EMPTY_LIST);
-        updatesMap.put(AutomationDataManager.TRIGGERS_TO_RESET_QUERY, Collections.singletonList("1"));
+        updatesMap.put(String.format(AutomationDataManager.TRIGGERS_TO_SET_PROGRESS_QUERY, 0.0), Collections.singletonList("1"));
         verify(automationDataManager).updateLists(updatesMap);
     }
 
@@ -205,8 +206,36 @@ public class AutomationTest extends BaseTestCase {
         Thread.sleep(SLEEP_TIME);
 
         verify(automationDataManager, atLeastOnce()).getTriggers(anyInt());
-        updatesMap.put(String.format(AutomationDataManager.TRIGGERS_TO_INCREMENT_QUERY, 1.0), Collections.singletonList("1"));
-        verify(automationDataManager).updateLists(updatesMap);
+        // Trigger progress is written behind
+        verify(automationDataManager, never()).updateLists(anyMap());
+
+        flushTriggerUpdates();
+        verify(automationDataManager).updateLists(Collections.singletonMap(String.format(AutomationDataManager.TRIGGERS_TO_SET_PROGRESS_QUERY, 1.0), Collections.singletonList("1")));
+    }
+
+    @Test
+    public void testTriggersCachedBetweenEvents() throws Exception {
+        when(automationDataManager.insertSchedules(Collections.singletonList(customEventActionSchedule))).thenReturn(Collections.singletonList(new ActionSchedule("automation id", customEventActionSchedule, 0)));
+        automation.schedule(customEventActionSchedule);
+
+        TriggerEntry triggerEntry = new TriggerEntry(customEventTrigger.getType(), 5, customEventTrigger.getPredicate(), "1", "automation id", 0.0);
+        when(automationDataManager.getTriggers(Trigger.CUSTOM_EVENT_COUNT)).thenReturn(Collections.singletonList(triggerEntry));
+
+        new CustomEvent.Builder("name")
+                .create()
+                .track();
+
+        new CustomEvent.Builder("name")
+                .create()
+                .track();
+
+        Thread.sleep(SLEEP_TIME);
+
+        verify(automationDataManager).getTriggers(Trigger.CUSTOM_EVENT_COUNT);
+        verify(automationDataManager, never()).updateLists(anyMap());
+
+        flushTriggerUpdates();
+        verify(automationDataManager).updateLists(Collections.singletonMap(String.format(AutomationDataManager.TRIGGERS_TO_SET_PROGRESS_QUERY, 2.0), Collections.singletonList("1")));
     }
 
     @Test
@@ -229,8 +258,8 @@ public class AutomationTest extends BaseTestCase {
         verify(automationDataManager).getTriggers(anyInt());
         verify(automationDataManager, never()).getSchedules(anySet());
 
-        updatesMap.put(String.format(AutomationDataManager.TRIGGERS_TO_INCREMENT_QUERY, 1.0), Collections.EMPTY_LIST);
-        verify(automationDataManager).updateLists(updatesMap);
+        flushTriggerUpdates();
+        verify(automationDataManager, never()).updateLists(anyMap());
     }
 
     @Test
@@ -253,9 +282,8 @@ public class AutomationTest extends BaseTestCase {
         verify(automationDataManager).getTriggers(anyInt());
         verify(automationDataManager).getSchedules(anySet());
 
-        updatesMap.put(String.format(AutomationDataManager.TRIGGERS_TO_INCREMENT_QUERY, 1.0), Collections.EMPTY_LIST);
         updatesMap.put(AutomationDataManager.SCHEDULES_TO_INCREMENT_QUERY, Collections.singletonList("automation id"));
-        updatesMap.put(AutomationDataManager.TRIGGERS_TO_RESET_QUERY, Collections.singletonList("1"));
+        updatesMap.put(String.format(AutomationDataManager.TRIGGERS_TO_SET_PROGRESS_QUERY, 0.0), Collections.singletonList("1"));
         verify(automationDataManager).updateLists(updatesMap);
     }
 
@@ -279,9 +307,7 @@ public class AutomationTest extends BaseTestCase {
         verify(automationDataManager).getTriggers(anyInt());
         verify(automationDataManager).getSchedules(anySet());
 
-        updatesMap.put(String.format(AutomationDataManager.TRIGGERS_TO_INCREMENT_QUERY, 1.0), Collections.EMPTY_LIST);
         updatesMap.put(AutomationDataManager.SCHEDULES_TO_DELETE_QUERY, Collections.singletonList("automation id"));
-        updatesMap.put(AutomationDataManager.TRIGGERS_TO_RESET_QUERY, Collections.EMPTY_LIST);
         verify(automationDataManager).updateLists(updatesMap);
     }
 
@@ -334,8 +360,11 @@ public class AutomationTest extends BaseTestCase {
         verify(automationDataManager).getTriggers(Trigger.REGION_ENTER);
         verify(automationDataManager, never()).getTriggers(Trigger.REGION_EXIT);
 
-        updatesMap.put(String.format(AutomationDataManager.TRIGGERS_TO_INCREMENT_QUERY, 1.0), Collections.singletonList("1"));
-        verify(automationDataManager).updateLists(updatesMap);
+        // Trigger progress is written behind
+        verify(automationDataManager, never()).updateLists(anyMap());
+
+        flushTriggerUpdates();
+        verify(automationDataManager).updateLists(Collections.singletonMap(String.format(AutomationDataManager.TRIGGERS_TO_SET_PROGRESS_QUERY, 1.0), Collections.singletonList("1")));
     }
 
     @Test
@@ -372,8 +401,11 @@ public class AutomationTest extends BaseTestCase {
         verify(automationDataManager, never()).getTriggers(Trigger.REGION_ENTER);
         verify(automationDataManager).getTriggers(Trigger.REGION_EXIT);
 
-        updatesMap.put(String.format(AutomationDataManager.TRIGGERS_TO_INCREMENT_QUERY, 1.0), Collections.singletonList("1"));
-        verify(automationDataManager).updateLists(updatesMap);
+        // Trigger progress is written behind
+        verify(automationDataManager, never()).updateLists(anyMap());
+
+        flushTriggerUpdates();
+        verify(automationDataManager).updateLists(Collections.singletonMap(String.format(AutomationDataManager.TRIGGERS_TO_SET_PROGRESS_QUERY, 1.0), Collections.singletonList("1")));
     }
 
     @Test
@@ -406,8 +438,11 @@ public class AutomationTest extends BaseTestCase {
         verify(automationDataManager).getTriggers(anyInt());
         verify(automationDataManager, never()).getSchedules(anySet());
 
-        updatesMap.put(String.format(AutomationDataManager.TRIGGERS_TO_INCREMENT_QUERY, 1.0), Collections.singletonList("1"));
-        verify(automationDataManager).updateLists(updatesMap);
+        // Trigger progress is written behind
+        verify(automationDataManager, never()).updateLists(anyMap());
+
+        flushTriggerUpdates();
+        verify(automationDataManager).updateLists(Collections.singletonMap(String.format(AutomationDataManager.TRIGGERS_TO_SET_PROGRESS_QUERY, 1.0), Collections.singletonList("1")));
     }
 
     @Test
@@ -443,8 +478,8 @@ public class AutomationTest extends BaseTestCase {
         verify(automationDataManager, atLeastOnce()).getTriggers(anyInt());
         verify(automationDataManager, never()).getSchedules(anySet());
 
-        updatesMap.put(String.format(AutomationDataManager.TRIGGERS_TO_INCREMENT_QUERY, 1.0), Collections.singletonList("1"));
-        verify(automationDataManager).updateLists(updatesMap);
+        // Trigger progress is written immediately when the app is backgrounded
+        verify(automationDataManager).updateLists(Collections.singletonMap(String.format(AutomationDataManager.TRIGGERS_TO_SET_PROGRESS_QUERY, 1.0), Collections.singletonList("1")));
     }
 
     @Test
@@ -478,8 +513,11 @@ public class AutomationTest extends BaseTestCase {
         verify(automationDataManager).getTriggers(anyInt());
         verify(automationDataManager, never()).getSchedules(anySet());
 
-        updatesMap.put(String.format(AutomationDataManager.TRIGGERS_TO_INCREMENT_QUERY, 1.0), Collections.singletonList("1"));
-        verify(automationDataManager).updateLists(updatesMap);
+        // Trigger progress is written behind
+        verify(automationDataManager, never()).updateLists(anyMap());
+
+        flushTriggerUpdates();
+        verify(automationDataManager).updateLists(Collections.singletonMap(String.format(AutomationDataManager.TRIGGERS_TO_SET_PROGRESS_QUERY, 1.0), Collections.singletonList("1")));
     }
 
     @Test
@@ -513,7 +551,6 @@ public class AutomationTest extends BaseTestCase {
         verify(automationDataManager).getTriggers(anyInt());
         verify(automationDataManager).getSchedules(anySet());
 
-        updatesMap.put(String.format(AutomationDataManager.TRIGGERS_TO_INCREMENT_QUERY, 1.0), Collections.EMPTY_LIST);
         updatesMap.put(AutomationDataManager.SCHEDULES_TO_DELETE_QUERY, Collections.singletonList("automation id"));
         verify(automationDataManager).updateLists(updatesMap);
     }
@@ -558,4 +595,12 @@ public class AutomationTest extends BaseTestCase {
 
         verify(automationDataManager).getTriggers(anyInt());
     }
+
+    /**
+     * Writes the pending trigger progress and waits for the event thread.
+     */
+    private void flushTriggerUpdates() throws InterruptedException {
+        automation.flushPendingTriggerUpdates();
+        Thread.sleep(SLEEP_TIME);
+    }
 }
@@ -0,0 +1,160 @@
+/* Copyright 2016 Urban Airship and Contributors */
+
+package com.urbanairship.automation;
+
+import com.urbanairship.BaseTestCase;
+import com.urbanairship.json.JsonValue;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertTrue;
+import static org.mockito.Matchers.anyLong;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class TriggerIndexTest extends BaseTestCase {
+
+    private AutomationDataManager dataManager;
+    private TriggerIndex triggerIndex;
+
+    @Before
+    public void setUp() {
+        dataManager = mock(AutomationDataManager.class);
+        triggerIndex = new TriggerIndex(dataManager);
+    }
+
+    /**
+     * Test triggers are only loaded once per type.
+     */
+    @Test
+    public void testGetTriggersCached() {
+        when(dataManager.getTriggers(Trigger.SCREEN_VIEW)).thenReturn(createTriggers("schedule", "1"));
+
+        assertEquals(1, triggerIndex.getTriggers(Trigger.SCREEN_VIEW).size());
+        assertEquals(1, triggerIndex.getTriggers(Trigger.SCREEN_VIEW).size());
+
+        verify(dataManager, times(1)).getTriggers(Trigger.SCREEN_VIEW);
+    }
+
+    /**
+     * Test triggers are reloaded once a trigger with a future start becomes active.
+     */
+    @Test
+    public void testGetTriggersReloadsAfterStart() {
+        when(dataManager.getTriggers(Trigger.SCREEN_VIEW)).thenReturn(createTriggers("schedule", "1"));
+        when(dataManager.getNextTriggerStart(eq(Trigger.SCREEN_VIEW), anyLong())).thenReturn(System.currentTimeMillis() - 1);
+
+        triggerIndex.getTriggers(Trigger.SCREEN_VIEW);
+        triggerIndex.getTriggers(Trigger.SCREEN_VIEW);
+
+        verify(dataManager, times(2)).getTriggers(Trigger.SCREEN_VIEW);
+    }
+
+    /**
+     * Test only triggers whose predicate matches the event are returned.
+     */
+    @Test
+    public void testGetMatchingTriggers() {
+        List<TriggerEntry> entries = new ArrayList<>();
+        entries.add(new TriggerEntry(Trigger.SCREEN_VIEW, 3, Triggers.newScreenTriggerBuilder().setScreenName("home").build().getPredicate(), "1", "schedule", 0.0));
+        entries.add(new TriggerEntry(Trigger.SCREEN_VIEW, 3, Triggers.newScreenTriggerBuilder().setScreenName("settings").build().getPredicate(), "2", "other schedule", 0.0));
+        entries.add(new TriggerEntry(Trigger.SCREEN_VIEW, 3, null, "3", "other schedule", 0.0));
+        when(dataManager.getTriggers(Trigger.SCREEN_VIEW)).thenReturn(entries);
+
+        List<TriggerEntry> matches = triggerIndex.getMatchingTriggers(Trigger.SCREEN_VIEW, JsonValue.wrap("home"));
+        assertEquals(2, matches.size());
+        assertEquals("1", matches.get(0).getId());
+        assertEquals("3", matches.get(1).getId());
+
+        // Removing a schedule recompiles the predicates for the remaining triggers
+        triggerIndex.removeSchedules(Collections.singleton("schedule"));
+        matches = triggerIndex.getMatchingTriggers(Trigger.SCREEN_VIEW, JsonValue.wrap("settings"));
+        assertEquals(2, matches.size());
+        assertEquals("2", matches.get(0).getId());
+        assertEquals("3", matches.get(1).getId());
+    }
+
+    /**
+     * Test draining groups the pending progress by value.
+     */
+    @Test
+    public void testDrainPendingUpdates() {
+        when(dataManager.getTriggers(Trigger.SCREEN_VIEW)).thenReturn(createTriggers("schedule", "1", "2", "3"));
+
+        List<TriggerEntry> triggers = triggerIndex.getTriggers(Trigger.SCREEN_VIEW);
+        triggerIndex.setProgress(triggers.get(0), 1.0);
+        triggerIndex.setProgress(triggers.get(1), 1.0);
+        triggerIndex.setProgress(triggers.get(2), 0);
+
+        assertEquals(3, triggerIndex.getPendingCount());
+        assertEquals(1.0, triggers.get(0).getProgress());
+
+        Map<String, List<String>> updates = triggerIndex.drainPendingUpdates();
+        assertEquals(2, updates.size());
+
+        List<String> incremented = updates.get(String.format(AutomationDataManager.TRIGGERS_TO_SET_PROGRESS_QUERY, 1.0));
+        Collections.sort(incremented);
+        assertEquals(Arrays.asList("1", "2"), incremented);
+        assertEquals(Collections.singletonList("3"), updates.get(String.format(AutomationDataManager.TRIGGERS_TO_SET_PROGRESS_QUERY, 0.0)));
+
+        assertEquals(0, triggerIndex.getPendingCount());
+        assertTrue(triggerIndex.drainPendingUpdates().isEmpty());
+    }
+
+    /**
+     * Test removing schedules drops their triggers and pending progress.
+     */
+    @Test
+    public void testRemoveSchedules() {
+        List<TriggerEntry> entries = createTriggers("schedule", "1");
+        entries.addAll(createTriggers("other schedule", "2"));
+        when(dataManager.getTriggers(Trigger.SCREEN_VIEW)).thenReturn(entries);
+
+        List<TriggerEntry> triggers = triggerIndex.getTriggers(Trigger.SCREEN_VIEW);
+        triggerIndex.setProgress(triggers.get(0), 1.0);
+        triggerIndex.setProgress(triggers.get(1), 1.0);
+
+        triggerIndex.removeSchedules(Collections.singleton("schedule"));
+
+        triggers = triggerIndex.getTriggers(Trigger.SCREEN_VIEW);
+        assertEquals(1, triggers.size());
+        assertEquals("2", triggers.get(0).getId());
+        assertEquals(1, triggerIndex.getPendingCount());
+    }
+
+    /**
+     * Test pending progress is applied to the triggers reloaded after an invalidate.
+     */
+    @Test
+    public void testInvalidateKeepsPendingProgress() {
+        when(dataManager.getTriggers(Trigger.SCREEN_VIEW)).thenReturn(createTriggers("schedule", "1"));
+
+        triggerIndex.setProgress(triggerIndex.getTriggers(Trigger.SCREEN_VIEW).get(0), 2.0);
+        triggerIndex.invalidate();
+
+        when(dataManager.getTriggers(Trigger.SCREEN_VIEW)).thenReturn(createTriggers("schedule", "1"));
+
+        List<TriggerEntry> triggers = triggerIndex.getTriggers(Trigger.SCREEN_VIEW);
+        assertEquals(2.0, triggers.get(0).getProgress());
+        verify(dataManager, times(2)).getTriggers(Trigger.SCREEN_VIEW);
+    }
+
+    private static List<TriggerEntry> createTriggers(String scheduleId, String... ids) {
+        List<TriggerEntry> triggers = new ArrayList<>();
+        for (String id : ids) {
+            triggers.add(new TriggerEntry(Trigger.SCREEN_VIEW, 3, null, id, scheduleId, 0.0));
+        }
+        return triggers;
+    }
+}
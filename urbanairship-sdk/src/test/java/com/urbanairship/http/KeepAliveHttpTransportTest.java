@@ -0,0 +1,72 @@
+/* Copyright 2016 Urban Airship and Contributors */
+
+package com.urbanairship.http;
+
+import com.urbanairship.BaseTestCase;
+
+import org.junit.Test;
+import org.mockito.Mockito;
+
+import java.io.IOException;
+import java.net.HttpURLConnection;
+import java.net.URL;
+
+import static org.junit.Assert.assertEquals;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+public class KeepAliveHttpTransportTest extends BaseTestCase {
+
+    /**
+     * Test opening a connection applies the timeouts.
+     */
+    @Test
+    public void testOpenConnectionTimeouts() throws IOException {
+        KeepAliveHttpTransport transport = new KeepAliveHttpTransport(1000, 2000);
+        HttpURLConnection connection = transport.openConnection(new URL("https://example.com"));
+
+        assertEquals(1000, connection.getConnectTimeout());
+        assertEquals(2000, connection.getReadTimeout());
+    }
+
+    /**
+     * Test the default timeouts.
+     */
+    @Test
+    public void testDefaultTimeouts() {
+        KeepAliveHttpTransport transport = new KeepAliveHttpTransport();
+
+        assertEquals(KeepAliveHttpTransport.DEFAULT_CONNECT_TIMEOUT_MS, transport.getConnectTimeout());
+        assertEquals(KeepAliveHttpTransport.DEFAULT_READ_TIMEOUT_MS, transport.getReadTimeout());
+    }
+
+    /**
+     * Test releasing a successful connection keeps it alive.
+     */
+    @Test
+    public void testReleaseConnection() {
+        HttpURLConnection connection = Mockito.mock(HttpURLConnection.class);
+        new KeepAliveHttpTransport().releaseConnection(connection, false);
+
+        verify(connection, never()).disconnect();
+    }
+
+    /**
+     * Test releasing a failed connection disconnects it.
+     */
+    @Test
+    public void testReleaseFailedConnection() {
+        HttpURLConnection connection = Mockito.mock(HttpURLConnection.class);
+        new KeepAliveHttpTransport().releaseConnection(connection, true);
+
+        verify(connection).disconnect();
+    }
+
+    /**
+     * Test negative timeouts are rejected.
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidTimeouts() {
+        new KeepAliveHttpTransport(-1, 0);
+    }
+}
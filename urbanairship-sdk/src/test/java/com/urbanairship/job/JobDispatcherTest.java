@@ -1,9 +1,12 @@
 package com.urbanairship.job;
 
 import android.app.AlarmManager;
+import android.app.PendingIntent;
 import android.content.ComponentName;
 import android.content.Context;
 import android.content.Intent;
+import android.os.SystemClock;
+import android.support.annotation.NonNull;
 
 import com.urbanairship.AirshipService;
 import com.urbanairship.BaseTestCase;
@@ -18,11 +21,14 @@ import org.robolectric.shadows.ShadowAlarmManager;
 import org.robolectric.shadows.ShadowApplication;
 import org.robolectric.shadows.ShadowPendingIntent;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.concurrent.TimeUnit;
 
 import static junit.framework.Assert.assertEquals;
 import static junit.framework.Assert.assertFalse;
 import static junit.framework.Assert.assertNotNull;
+import static junit.framework.Assert.assertNull;
 import static junit.framework.Assert.assertTrue;
 
 public class JobDispatcherTest extends BaseTestCase {
@@ -55,6 +61,17 @@ public class JobDispatcherTest extends BaseTestCase {
         assertEquals(0, intent.getLongExtra(AirshipService.EXTRA_DELAY, 0));
     }
 
+    @Test
+    public void testInProcessDispatchOutsideMainProcess() throws Exception {
+        dispatcher = new JobDispatcher(TestApplication.getApplication(), true);
+        dispatcher.dispatch(job);
+
+        // Falls back to the service
+        Intent intent = ShadowApplication.getInstance().getNextStartedService();
+        assertEquals(airshipServiceComponentName, intent.getComponent());
+        assertEquals(job.getAction(), intent.getAction());
+    }
+
     @Test
     public void testDispatchWithDelay() throws Exception {
         dispatcher.dispatch(job, 300L, TimeUnit.MILLISECONDS);
@@ -101,4 +118,100 @@ public class JobDispatcherTest extends BaseTestCase {
         dispatcher.cancel(job.getAction());
         assertTrue(shadowAlarmManager.getScheduledAlarms().isEmpty());
     }
-}
\ No newline at end of file
+
+    @Test
+    public void testInProcessDispatchCoalescesPendingJob() throws Exception {
+        TestJobDispatcher dispatcher = new TestJobDispatcher();
+
+        dispatcher.dispatch(job);
+        dispatcher.dispatch(Job.newBuilder("test_action")
+                               .setAirshipComponent(PushManager.class)
+                               .putExtra("custom key", "custom value")
+                               .build());
+
+        assertEquals(1, dispatcher.jobs.size());
+        assertNull(ShadowApplication.getInstance().getNextStartedService());
+    }
+
+    @Test
+    public void testInProcessDispatchDifferentExtras() throws Exception {
+        TestJobDispatcher dispatcher = new TestJobDispatcher();
+
+        dispatcher.dispatch(job);
+        dispatcher.dispatch(Job.newBuilder("test_action")
+                               .setAirshipComponent(PushManager.class)
+                               .putExtra("custom key", "other value")
+                               .build());
+
+        assertEquals(2, dispatcher.jobs.size());
+    }
+
+    @Test
+    public void testInProcessDispatchAfterJobStarted() throws Exception {
+        TestJobDispatcher dispatcher = new TestJobDispatcher();
+
+        dispatcher.dispatch(job);
+        dispatcher.onStartRunnables.get(0).run();
+
+        // The running job no longer absorbs new dispatches
+        dispatcher.dispatch(job);
+        assertEquals(2, dispatcher.jobs.size());
+    }
+
+    @Test
+    public void testCancelScheduledSkippedAfterCancel() throws Exception {
+        AlarmManager alarmManager = (AlarmManager) RuntimeEnvironment.application.getSystemService(Context.ALARM_SERVICE);
+        ShadowAlarmManager shadowAlarmManager = Shadows.shadowOf(alarmManager);
+
+        // Without a cancel, dispatch looks up and cancels the alarm
+        scheduleAlarm(alarmManager);
+        dispatcher.dispatch(job);
+        assertTrue(shadowAlarmManager.getScheduledAlarms().isEmpty());
+
+        // After a cancel, the lookup is skipped
+        dispatcher.cancel(job.getAction());
+        scheduleAlarm(alarmManager);
+        dispatcher.dispatch(job);
+        assertFalse(shadowAlarmManager.getScheduledAlarms().isEmpty());
+        dispatcher.cancel(job.getAction());
+
+        // Scheduling a delayed job makes the lookup happen again
+        dispatcher.dispatch(job, 100L, TimeUnit.DAYS);
+        assertFalse(shadowAlarmManager.getScheduledAlarms().isEmpty());
+        dispatcher.dispatch(job);
+        assertTrue(shadowAlarmManager.getScheduledAlarms().isEmpty());
+    }
+
+    /**
+     * Schedules an alarm for the test job outside of the dispatcher.
+     *
+     * @param alarmManager The alarm manager.
+     */
+    private void scheduleAlarm(AlarmManager alarmManager) {
+        Intent intent = new Intent(RuntimeEnvironment.application, AirshipService.class)
+                .setAction(job.getAction());
+
+        PendingIntent pendingIntent = PendingIntent.getService(RuntimeEnvironment.application, 0, intent, PendingIntent.FLAG_UPDATE_CURRENT);
+        alarmManager.set(AlarmManager.ELAPSED_REALTIME, SystemClock.elapsedRealtime() + 10000, pendingIntent);
+    }
+
+    /**
+     * Dispatcher that records in process jobs instead of performing them.
+     */
+    private static class TestJobDispatcher extends JobDispatcher {
+
+        final List<Job> jobs = new ArrayList<>();
+        final List<Runnable> onStartRunnables = new ArrayList<>();
+
+        TestJobDispatcher() {
+            super(TestApplication.getApplication(), true);
+        }
+
+        @Override
+        boolean performJobInProcess(@NonNull Job job, @NonNull Runnable onStart) {
+            jobs.add(job);
+            onStartRunnables.add(onStart);
+            return true;
+        }
+    }
+}
@@ -0,0 +1,98 @@
+/* Copyright 2016 Urban Airship and Contributors */
+
+package com.urbanairship.json;
+
+import com.urbanairship.BaseTestCase;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertFalse;
+import static junit.framework.Assert.assertTrue;
+
+public class JsonPredicateSetTest extends BaseTestCase {
+
+    List<JsonPredicate> predicates;
+    List<JsonSerializable> values;
+
+    @Before
+    public void setup() throws JsonException {
+        predicates = new ArrayList<>();
+        predicates.add(parsePredicate("{\"key\": \"legs\", \"value\": {\"equals\": 4}}"));
+        predicates.add(parsePredicate("{\"key\": \"legs\", \"value\": {\"equals\": 4.0}}"));
+        predicates.add(parsePredicate("{\"key\": \"name\", \"value\": {\"equals\": \"mittens\"}}"));
+        predicates.add(parsePredicate("{\"key\": \"name\", \"value\": {\"equals\": \"fluffy\"}}"));
+        predicates.add(parsePredicate("{\"key\": \"weight\", \"value\": {\"at_least\": 5, \"at_most\": 10}}"));
+        predicates.add(parsePredicate("{\"key\": \"weight\", \"value\": {\"at_least\": 10}}"));
+        predicates.add(parsePredicate("{\"key\": \"weight\", \"value\": {\"at_most\": 9.8}}"));
+        predicates.add(parsePredicate("{\"key\": \"owner\", \"value\": {\"is_present\": true}}"));
+        predicates.add(parsePredicate("{\"key\": \"owner\", \"value\": {\"is_present\": false}}"));
+        predicates.add(parsePredicate("{\"scope\": [\"schedule\"], \"key\": \"sleep\", \"value\": {\"equals\": \"all day\"}}"));
+        predicates.add(parsePredicate("{\"scope\": [\"schedule\", \"nap\"], \"value\": {\"equals\": {\"length\": 1}}}"));
+        predicates.add(parsePredicate("{\"scope\": \"schedule\", \"key\": \"sleep\", \"value\": {}}"));
+        predicates.add(parsePredicate("{\"and\": [{\"key\": \"legs\", \"value\": {\"equals\": 4}}, {\"key\": \"name\", \"value\": {\"equals\": \"mittens\"}}]}"));
+        predicates.add(parsePredicate("{\"or\": [{\"key\": \"legs\", \"value\": {\"equals\": 3}}, {\"not\": [{\"key\": \"name\", \"value\": {\"equals\": \"fluffy\"}}]}]}"));
+        predicates.add(parsePredicate("{\"not\": [{\"and\": [{\"key\": \"weight\", \"value\": {\"at_least\": 1}}, {\"key\": \"owner\", \"value\": {\"is_present\": true}}]}]}"));
+
+        values = new ArrayList<>();
+        values.add(JsonValue.parseString("{\"legs\": 4, \"name\": \"mittens\", \"weight\": 9.8, \"schedule\": {\"sleep\": \"all day\", \"nap\": {\"length\": 1}}}"));
+        values.add(JsonValue.parseString("{\"legs\": 3, \"name\": \"fluffy\", \"weight\": 10, \"owner\": \"bob\", \"schedule\": \"none\"}"));
+        values.add(JsonValue.parseString("{\"legs\": \"4\", \"weight\": \"heavy\", \"schedule\": {\"sleep\": null}}"));
+        values.add(JsonValue.parseString("[\"legs\", 4]"));
+        values.add(JsonValue.parseString("\"mittens\""));
+        values.add(JsonValue.NULL);
+        values.add(null);
+    }
+
+    /**
+     * Test the compiled set returns the same results as applying each predicate.
+     */
+    @Test
+    public void testMatchesPredicates() {
+        JsonPredicateSet.Builder builder = JsonPredicateSet.newBuilder();
+        List<Integer> ids = new ArrayList<>();
+        for (JsonPredicate predicate : predicates) {
+            ids.add(builder.add(predicate));
+        }
+
+        JsonPredicateSet predicateSet = builder.build();
+
+        for (JsonSerializable value : values) {
+            boolean[] results = predicateSet.apply(value);
+            for (int i = 0; i < predicates.size(); i++) {
+                assertEquals("Predicate " + predicates.get(i) + " value " + value,
+                        predicates.get(i).apply(value), results[ids.get(i)]);
+            }
+        }
+    }
+
+    /**
+     * Test equal predicates share a single result.
+     */
+    @Test
+    public void testEqualPredicatesShareResult() throws JsonException {
+        JsonPredicateSet.Builder builder = JsonPredicateSet.newBuilder();
+
+        int first = builder.add(parsePredicate("{\"key\": \"name\", \"value\": {\"equals\": \"mittens\"}}"));
+        int second = builder.add(parsePredicate("{\"key\": \"name\", \"value\": {\"equals\": \"fluffy\"}}"));
+        int duplicate = builder.add(parsePredicate("{\"key\": \"name\", \"value\": {\"equals\": \"mittens\"}}"));
+
+        assertEquals(first, duplicate);
+        assertFalse(first == second);
+
+        JsonPredicateSet predicateSet = builder.build();
+        assertEquals(2, predicateSet.size());
+
+        boolean[] results = predicateSet.apply(JsonMap.newBuilder().put("name", "mittens").build());
+        assertTrue(results[first]);
+        assertFalse(results[second]);
+    }
+
+    private static JsonPredicate parsePredicate(String json) throws JsonException {
+        return JsonPredicate.parse(JsonValue.parseString(json));
+    }
+}
@@ -0,0 +1,159 @@
+/* Copyright 2016 Urban Airship and Contributors */
+
+package com.urbanairship.json;
+
+import com.urbanairship.BaseTestCase;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+
+import java.io.IOException;
+import java.io.StringReader;
+
+import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertFalse;
+import static junit.framework.Assert.assertTrue;
+import static junit.framework.Assert.fail;
+
+public class JsonTokenizerTest extends BaseTestCase {
+
+    @Rule
+    public ExpectedException exception = ExpectedException.none();
+
+    /**
+     * Test pulling tokens one at a time.
+     */
+    @Test
+    public void testPullTokens() throws IOException, JsonException {
+        JsonTokenizer tokenizer = createTokenizer("{\"messages\": [{\"id\": 1}, {\"id\": 2.5}], \"skip\": {\"a\": [1, 2]}, \"ok\": true}");
+
+        tokenizer.beginObject();
+        assertEquals("messages", tokenizer.nextName());
+
+        tokenizer.beginArray();
+        tokenizer.beginObject();
+        assertEquals("id", tokenizer.nextName());
+        assertEquals(Integer.valueOf(1), tokenizer.nextNumber());
+        tokenizer.endObject();
+
+        assertEquals(JsonTokenizer.BEGIN_OBJECT, tokenizer.peek());
+        assertEquals(JsonValue.parseString("{\"id\": 2.5}"), tokenizer.nextValue());
+        assertFalse(tokenizer.hasNext());
+        tokenizer.endArray();
+
+        assertEquals("skip", tokenizer.nextName());
+        tokenizer.skipValue();
+
+        assertEquals("ok", tokenizer.nextName());
+        assertTrue(tokenizer.nextBoolean());
+        tokenizer.endObject();
+
+        assertEquals(JsonTokenizer.END_DOCUMENT, tokenizer.peek());
+    }
+
+    /**
+     * Test strings are unescaped, including across buffer boundaries.
+     */
+    @Test
+    public void testStringEscapes() throws IOException, JsonException {
+        assertEquals("quote\" slash/ tab\t unicodeé newline\n",
+                createTokenizer("\"quote\\\" slash\\/ tab\\t unicode\\u00e9 newline\\n\"").nextString());
+
+        StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < 3000; i++) {
+            builder.append(i % 10);
+        }
+        String longString = builder.toString() + "\\\\" + builder.toString();
+
+        assertEquals(builder.toString() + "\\" + builder.toString(), createTokenizer("\"" + longString + "\"").nextString());
+    }
+
+    /**
+     * Test number literals are parsed as an Integer, Long, or Double.
+     */
+    @Test
+    public void testNumbers() throws IOException, JsonException {
+        assertEquals(Integer.valueOf(-4), createTokenizer("-4").nextNumber());
+        assertEquals(Long.valueOf(Long.MAX_VALUE), createTokenizer(String.valueOf(Long.MAX_VALUE)).nextNumber());
+        assertEquals(Double.valueOf(1.5e3), createTokenizer("1.5e3").nextNumber());
+    }
+
+    /**
+     * Test the tokenizer accepts the same lenient input as org.json.
+     */
+    @Test
+    public void testLenient() throws IOException, JsonException {
+        assertEquals(JsonValue.wrap("non-JsonMap"), createTokenizer("non-JsonMap").nextValue());
+        assertEquals(JsonValue.wrap("single"), createTokenizer("'single'").nextValue());
+        assertEquals(JsonValue.wrap(true), createTokenizer("TRUE").nextValue());
+        assertEquals(JsonMap.newBuilder().put("key", "value").build().toJsonValue(),
+                createTokenizer("{'key': value} trailing").nextValue());
+    }
+
+    /**
+     * Test unquoted names are accepted the same as org.json.
+     */
+    @Test
+    public void testUnquotedNames() throws IOException, JsonException {
+        JsonTokenizer tokenizer = createTokenizer("{key: 1, other_key : {nested:true}}");
+        tokenizer.beginObject();
+        assertEquals("key", tokenizer.nextName());
+        assertEquals(Integer.valueOf(1), tokenizer.nextNumber());
+        assertEquals("other_key", tokenizer.nextName());
+        tokenizer.skipValue();
+        tokenizer.endObject();
+
+        assertEquals(JsonMap.newBuilder().put("key", 1).put("2", "two").build().toJsonValue(),
+                createTokenizer("{key: 1, 2: 'two'}").nextValue());
+    }
+
+    /**
+     * Test a missing name throws a JsonException.
+     */
+    @Test
+    public void testMissingName() throws IOException, JsonException {
+        exception.expect(JsonException.class);
+        createTokenizer("{: 1}").nextValue();
+    }
+
+    /**
+     * Test null values in containers are dropped.
+     */
+    @Test
+    public void testNullsDropped() throws IOException, JsonException {
+        JsonValue value = createTokenizer("{\"list\": [null, 1], \"null\": null}").nextValue();
+
+        assertEquals(1, value.optMap().size());
+        assertEquals(1, value.optMap().opt("list").optList().size());
+    }
+
+    /**
+     * Test an unterminated object throws a JsonException.
+     */
+    @Test
+    public void testUnterminatedObject() throws IOException, JsonException {
+        exception.expect(JsonException.class);
+        createTokenizer("{\"key\": 1").nextValue();
+    }
+
+    /**
+     * Test truncated input throws a JsonException.
+     */
+    @Test
+    public void testTruncatedInput() throws IOException {
+        String[] inputs = new String[] { "[", "{", "{\"a\":1,", "[1," };
+        for (String input : inputs) {
+            try {
+                createTokenizer(input).nextValue();
+                fail("Expected a JsonException for: " + input);
+            } catch (JsonException e) {
+                // Expected
+            }
+        }
+    }
+
+    private static JsonTokenizer createTokenizer(String json) {
+        return new JsonTokenizer(new StringReader(json));
+    }
+}
@@ -14,6 +14,9 @@ import org.junit.Rule;
 import org.junit.Test;
 import org.junit.rules.ExpectedException;
 
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.StringReader;
 import java.net.MalformedURLException;
 import java.net.URISyntaxException;
 import java.util.ArrayList;
@@ -317,6 +320,60 @@ public class JsonValueTest extends BaseTestCase {
         assertEquals(expected.getList(), JsonValue.wrap(list).getList());
     }
 
+    /**
+     * Test writing to a stream matches the org.json encoding.
+     */
+    @Test
+    public void testWriteOutputStream() throws JsonException, JSONException, IOException {
+        JsonMap map = JsonMap.newBuilder()
+                .put("escaped", "quote\" slash/ control\u0001 unicode\u00e9")
+                .put("integral double", 2.0)
+                .put("double", 1.2)
+                .put("list", JsonValue.wrap(primitiveList))
+                .build();
+
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        map.toJsonValue().write(outputStream);
+
+        String written = outputStream.toString("UTF-8");
+        assertEquals(map.toString(), written);
+        assertEquals(new JSONObject(written).toString(), written);
+        assertEquals(map, JsonValue.parseString(written).getMap());
+    }
+
+
+    /**
+     * Test parsing JSON from a reader produces the same JsonValue as parsing the String.
+     */
+    @Test
+    public void testParseReader() throws JsonException, JSONException {
+        assertEquals(JsonValue.wrap("Hello"), JsonValue.parse(new StringReader("\"Hello\"")));
+        assertEquals(JsonValue.wrap(1), JsonValue.parse(new StringReader("1")));
+        assertEquals(JsonValue.wrap(true), JsonValue.parse(new StringReader("true")));
+        assertEquals(JsonValue.wrap(Long.MAX_VALUE), JsonValue.parse(new StringReader(String.valueOf(Long.MAX_VALUE))));
+        assertEquals(JsonValue.wrap(1.4), JsonValue.parse(new StringReader(String.valueOf(1.4))));
+        assertEquals(JsonValue.NULL, JsonValue.parse(new StringReader("null")));
+        assertEquals(JsonValue.NULL, JsonValue.parse(new StringReader("")));
+
+        assertTrue(JsonValue.parse(new StringReader("1")).isInteger());
+        assertTrue(JsonValue.parse(new StringReader(String.valueOf(Long.MAX_VALUE))).isLong());
+
+        JSONObject json = new JSONObject(primitiveMap);
+        json.put("map", new JSONObject(primitiveMap));
+        json.put("collection", new JSONArray(primitiveList));
+        json.put("null", JSONObject.NULL);
+
+        assertEquals(JsonValue.parseString(json.toString()), JsonValue.parse(new StringReader(json.toString())));
+    }
+
+    /**
+     * Test parsing invalid JSON from a reader throws a JsonException.
+     */
+    @Test
+    public void testParseReaderInvalid() throws JsonException {
+        exception.expect(JsonException.class);
+        JsonValue.parse(new StringReader("{ \"missing\": "));
+    }
 
     /**
      * Test parsing a valid JSON String produces the equivalent JsonValue.
@@ -396,6 +453,46 @@ public class JsonValueTest extends BaseTestCase {
         assertEquals(jsonValue, fromParcel);
     }
 
+    /**
+     * Test the parcel encoding keeps nested values and number types.
+     */
+    @Test
+    public void testParcelableNested() throws JsonException {
+        JsonValue jsonValue = JsonMap.newBuilder()
+                .put("int", 1)
+                .put("long", Long.MAX_VALUE)
+                .put("double", 1.0)
+                .put("map", JsonValue.wrap(primitiveMap))
+                .put("list", JsonValue.wrap(primitiveList))
+                .build()
+                .toJsonValue();
+
+        Parcel parcel = Parcel.obtain();
+        jsonValue.writeToParcel(parcel, 0);
+        parcel.setDataPosition(0);
+
+        JsonValue fromParcel = JsonValue.CREATOR.createFromParcel(parcel);
+
+        assertEquals(jsonValue, fromParcel);
+        assertTrue(fromParcel.optMap().opt("int").isInteger());
+        assertTrue(fromParcel.optMap().opt("long").isLong());
+        assertTrue(fromParcel.optMap().opt("double").isDouble());
+    }
+
+    /**
+     * Test reading a parcel that contains the older JSON string encoding.
+     */
+    @Test
+    public void testParcelableStringEncoding() throws JsonException {
+        JsonValue jsonValue = JsonValue.wrap(primitiveMap);
+
+        Parcel parcel = Parcel.obtain();
+        parcel.writeString(jsonValue.toString());
+        parcel.setDataPosition(0);
+
+        assertEquals(jsonValue, JsonValue.CREATOR.createFromParcel(parcel));
+    }
+
     /**
      * Test isNull is true for null values.
      */
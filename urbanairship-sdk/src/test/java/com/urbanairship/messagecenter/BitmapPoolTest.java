@@ -0,0 +1,65 @@
+/* Copyright 2016 Urban Airship and Contributors */
+
+package com.urbanairship.messagecenter;
+
+import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
+import android.os.Build;
+
+import com.urbanairship.BaseTestCase;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.robolectric.annotation.Config;
+
+import static junit.framework.Assert.assertNull;
+import static junit.framework.Assert.assertSame;
+import static org.robolectric.Shadows.shadowOf;
+
+public class BitmapPoolTest extends BaseTestCase {
+
+    private BitmapPool bitmapPool;
+    private Bitmap bitmap;
+
+    @Before
+    public void setUp() {
+        bitmapPool = new BitmapPool();
+        bitmap = Bitmap.createBitmap(100, 100, Bitmap.Config.ARGB_8888);
+        shadowOf(bitmap).setMutable(true);
+    }
+
+    /**
+     * Test before KitKat a bitmap is only reused for an unsampled decode of the exact same size.
+     */
+    @Test
+    @Config(sdk = Build.VERSION_CODES.JELLY_BEAN_MR2)
+    public void testGetMatchesExactSize() {
+        bitmapPool.put(bitmap);
+
+        assertNull(bitmapPool.get(createOptions(50, 50, 1)));
+        assertNull(bitmapPool.get(createOptions(200, 200, 2)));
+        assertSame(bitmap, bitmapPool.get(createOptions(100, 100, 1)));
+
+        // The bitmap is removed from the pool once it is reused
+        assertNull(bitmapPool.get(createOptions(100, 100, 1)));
+    }
+
+    /**
+     * Test immutable bitmaps are not pooled.
+     */
+    @Test
+    public void testImmutableBitmapNotPooled() {
+        shadowOf(bitmap).setMutable(false);
+        bitmapPool.put(bitmap);
+
+        assertNull(bitmapPool.get(createOptions(100, 100, 1)));
+    }
+
+    private static BitmapFactory.Options createOptions(int width, int height, int sampleSize) {
+        BitmapFactory.Options options = new BitmapFactory.Options();
+        options.outWidth = width;
+        options.outHeight = height;
+        options.inSampleSize = sampleSize;
+        return options;
+    }
+}
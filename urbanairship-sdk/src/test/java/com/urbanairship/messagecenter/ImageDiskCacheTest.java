@@ -0,0 +1,64 @@
+/* Copyright 2016 Urban Airship and Contributors */
+
+package com.urbanairship.messagecenter;
+
+import android.graphics.Bitmap;
+
+import com.urbanairship.BaseTestCase;
+import com.urbanairship.TestApplication;
+import com.urbanairship.util.UAStringUtil;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+
+import static junit.framework.Assert.assertFalse;
+import static junit.framework.Assert.assertTrue;
+
+public class ImageDiskCacheTest extends BaseTestCase {
+
+    private File directory;
+
+    @Before
+    public void setUp() {
+        directory = new File(TestApplication.getApplication().getCacheDir(), "image-disk-cache-test");
+        File[] files = directory.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                //noinspection ResultOfMethodCallIgnored
+                file.delete();
+            }
+        }
+    }
+
+    /**
+     * Test the least recently used entries are removed once the cache is over its max size.
+     */
+    @Test
+    public void testTrimRemovesLeastRecentlyUsed() {
+        Bitmap bitmap = Bitmap.createBitmap(10, 10, Bitmap.Config.ARGB_8888);
+
+        new ImageDiskCache(directory, Long.MAX_VALUE).put("first", bitmap);
+        long entrySize = getFile("first").length();
+        assertTrue(entrySize > 0);
+
+        // Room for two entries
+        ImageDiskCache cache = new ImageDiskCache(directory, entrySize * 2 + entrySize / 2);
+        cache.put("second", bitmap);
+
+        // Make the first entry the most recently used
+        assertTrue(getFile("second").setLastModified(1000));
+        assertTrue(getFile("first").setLastModified(2000));
+
+        cache.put("third", bitmap);
+
+        assertTrue(getFile("first").exists());
+        assertFalse(getFile("second").exists());
+        assertTrue(getFile("third").exists());
+    }
+
+    private File getFile(String key) {
+        return new File(directory, UAStringUtil.sha256(key));
+    }
+}
@@ -0,0 +1,104 @@
+/* Copyright 2016 Urban Airship and Contributors */
+
+package com.urbanairship.messagecenter;
+
+import android.support.annotation.NonNull;
+import android.widget.ImageView;
+
+import com.urbanairship.BaseTestCase;
+import com.urbanairship.TestApplication;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+
+import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertTrue;
+
+public class ImageLoaderTest extends BaseTestCase {
+
+    private static final String IMAGE_URL = "https://example.com/image.png";
+
+    private QueueExecutor decodeExecutor;
+    private QueueExecutor networkExecutor;
+    private ImageLoader imageLoader;
+
+    @Before
+    public void setUp() {
+        decodeExecutor = new QueueExecutor();
+        networkExecutor = new QueueExecutor();
+        imageLoader = new ImageLoader(TestApplication.getApplication(), decodeExecutor, networkExecutor);
+    }
+
+    /**
+     * Test requests for the same image and size share a single load.
+     */
+    @Test
+    public void testDuplicateRequestsCoalesced() {
+        imageLoader.load(IMAGE_URL, 0, createImageView(100, 100));
+        imageLoader.load(IMAGE_URL, 0, createImageView(100, 100));
+        assertEquals(1, decodeExecutor.runnables.size());
+
+        // A different size is a different load
+        imageLoader.load(IMAGE_URL, 0, createImageView(50, 50));
+        assertEquals(2, decodeExecutor.runnables.size());
+
+        // Disk cache misses are downloaded on the network executor
+        decodeExecutor.runAll();
+        assertEquals(2, networkExecutor.runnables.size());
+    }
+
+    /**
+     * Test the shared load is only cancelled once every request is cancelled.
+     */
+    @Test
+    public void testCancelDuplicateRequests() {
+        ImageView first = createImageView(100, 100);
+        ImageView second = createImageView(100, 100);
+
+        imageLoader.load(IMAGE_URL, 0, first);
+        imageLoader.load(IMAGE_URL, 0, second);
+
+        imageLoader.cancelRequest(first);
+
+        // A new request joins the load that is still in flight
+        ImageView third = createImageView(100, 100);
+        imageLoader.load(IMAGE_URL, 0, third);
+        assertEquals(1, decodeExecutor.runnables.size());
+
+        imageLoader.cancelRequest(second);
+        imageLoader.cancelRequest(third);
+
+        // The cancelled load does not go to the network
+        decodeExecutor.runAll();
+        assertTrue(networkExecutor.runnables.isEmpty());
+
+        // A new request starts a new load
+        imageLoader.load(IMAGE_URL, 0, createImageView(100, 100));
+        assertEquals(1, decodeExecutor.runnables.size());
+    }
+
+    private static ImageView createImageView(int width, int height) {
+        ImageView imageView = new ImageView(TestApplication.getApplication());
+        imageView.layout(0, 0, width, height);
+        return imageView;
+    }
+
+    private static class QueueExecutor implements Executor {
+        final List<Runnable> runnables = new ArrayList<>();
+
+        @Override
+        public void execute(@NonNull Runnable runnable) {
+            runnables.add(runnable);
+        }
+
+        void runAll() {
+            while (!runnables.isEmpty()) {
+                runnables.remove(0).run();
+            }
+        }
+    }
+}
@@ -26,12 +26,14 @@ import java.net.MalformedURLException;
 import java.net.URL;
 import java.util.Collections;
 import java.util.HashSet;
+import java.util.List;
 
-import static junit.framework.Assert.assertNotNull;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotSame;
 import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.verifyZeroInteractions;
 import static org.mockito.Mockito.when;
@@ -51,6 +53,7 @@ public class ChannelJobHandlerTest extends BaseTestCase {
     private RichPushInbox richPushInbox;
     private RichPushUser richPushUser;
     private JobDispatcher mockDispatcher;
+    private TagGroupMutationStore mutationStore;
 
     @Before
     public void setUp() {
@@ -64,11 +67,11 @@ public class ChannelJobHandlerTest extends BaseTestCase {
 
         pushManager = UAirship.shared().getPushManager();
         dataStore = TestApplication.getApplication().preferenceDataStore;
-
+        mutationStore = new TagGroupMutationStore(TestApplication.getApplication(), "test", "ua_channel_tag_groups.db");
 
         // Extend it to make handleIntent public so we can call it directly
         jobHandler = new ChannelJobHandler(TestApplication.getApplication(), UAirship.shared(),
-                TestApplication.getApplication().preferenceDataStore, mockDispatcher, client);
+                TestApplication.getApplication().preferenceDataStore, mockDispatcher, client, mutationStore);
     }
 
     /**
@@ -261,6 +264,35 @@ public class ChannelJobHandlerTest extends BaseTestCase {
         assertNotSame("Last registration time should be updated", dataStore.getLong("com.urbanairship.push.LAST_REGISTRATION_TIME", 0), lastRegistrationTime);
     }
 
+    /**
+     * Test updating a channel leaves out tags the channel already has.
+     */
+    @Test
+    public void testUpdateChannelOmitsAcknowledgedTags() throws MalformedURLException {
+        pushManager.setChannel(fakeChannelId, fakeChannelLocation);
+        pushManager.setTags(new HashSet<>(Lists.newArrayList("tag1", "tag2")));
+
+        Response response = mock(Response.class);
+        when(response.getStatus()).thenReturn(HttpURLConnection.HTTP_OK);
+
+        URL channelLocation = new URL(fakeChannelLocation);
+        when(client.updateChannelWithPayload(Mockito.eq(channelLocation), Mockito.any(ChannelRegistrationPayload.class))).thenReturn(response);
+
+        // First update sends the tags
+        Job job = Job.newBuilder(ChannelJobHandler.ACTION_UPDATE_CHANNEL_REGISTRATION).build();
+        assertEquals(Job.JOB_FINISHED, jobHandler.performJob(job));
+        verify(client).updateChannelWithPayload(channelLocation, pushManager.getNextChannelRegistrationPayload());
+
+        // Changing only the alias sends the payload without tags
+        pushManager.setAlias("someAlias");
+        assertEquals(Job.JOB_FINISHED, jobHandler.performJob(job));
+        verify(client).updateChannelWithPayload(channelLocation, pushManager.getNextChannelRegistrationPayload().minusTags());
+
+        // No changes skips the update
+        assertEquals(Job.JOB_FINISHED, jobHandler.performJob(job));
+        verify(client, times(2)).updateChannelWithPayload(Mockito.eq(channelLocation), Mockito.any(ChannelRegistrationPayload.class));
+    }
+
     /**
      * Test updating channel returns a 409 recreates the channel.
      */
@@ -310,7 +342,7 @@ public class ChannelJobHandlerTest extends BaseTestCase {
         Assert.assertEquals(Job.JOB_FINISHED, jobHandler.performJob(job));
 
         // Verify pending tags are saved
-        assertEquals(mutations, dataStore.getJsonValue(ChannelJobHandler.PENDING_TAG_GROUP_MUTATIONS_KEY));
+        assertEquals(Collections.singletonList(mutation), mutationStore.getPending().mutations);
     }
 
     /**
@@ -372,7 +404,7 @@ public class ChannelJobHandlerTest extends BaseTestCase {
         Mockito.verify(client).updateTagGroups(fakeChannelId, mutation);
 
         // Verify pending tag groups are empty
-        assertNull(dataStore.getString(ChannelJobHandler.PENDING_TAG_GROUP_MUTATIONS_KEY, null));
+        assertTrue(mutationStore.getPending().mutations.isEmpty());
     }
 
     /**
@@ -433,7 +465,7 @@ public class ChannelJobHandlerTest extends BaseTestCase {
         Mockito.verify(client).updateTagGroups(fakeChannelId, mutation);
 
         // Verify pending tags persist
-        assertNotNull(dataStore.getString(ChannelJobHandler.PENDING_TAG_GROUP_MUTATIONS_KEY, null));
+        assertEquals(Collections.singletonList(mutation), mutationStore.getPending().mutations);
     }
 
     /**
@@ -445,7 +477,7 @@ public class ChannelJobHandlerTest extends BaseTestCase {
         pushManager.setChannel(fakeChannelId, fakeChannelLocation);
 
         // Clear pending changes
-        dataStore.remove(NamedUserJobHandler.PENDING_TAG_GROUP_MUTATIONS_KEY);
+        mutationStore.clear();
 
         // Perform the update
         Job job = Job.newBuilder(ChannelJobHandler.ACTION_UPDATE_TAG_GROUPS).build();
@@ -454,4 +486,50 @@ public class ChannelJobHandlerTest extends BaseTestCase {
         // Verify it didn't cause a client update
         verifyZeroInteractions(client);
     }
+
+    /**
+     * Test update tag groups uploads all pending changes in a single job.
+     */
+    @Test
+    public void testUpdateTagGroupsUploadsAllChanges() throws JsonException {
+        pushManager.setChannel(fakeChannelId, fakeChannelLocation);
+
+        TagGroupsMutation add = TagGroupsMutation.newAddTagsMutation("test", new HashSet<>(Lists.newArrayList("tag1")));
+        TagGroupsMutation remove = TagGroupsMutation.newRemoveTagsMutation("test", new HashSet<>(Lists.newArrayList("tag2")));
+        TagGroupsMutation set = TagGroupsMutation.newSetTagsMutation("other", new HashSet<>(Lists.newArrayList("tag3")));
+        mutationStore.add(Lists.newArrayList(add, remove, set));
+
+        List<TagGroupsMutation> collapsed = TagGroupsMutation.collapseMutations(Lists.newArrayList(add, remove, set));
+        assertEquals(2, collapsed.size());
+
+        Response response = Mockito.mock(Response.class);
+        when(response.getStatus()).thenReturn(200);
+        when(client.updateTagGroups(fakeChannelId, collapsed.get(0))).thenReturn(response);
+        when(client.updateTagGroups(fakeChannelId, collapsed.get(1))).thenReturn(response);
+
+        Job job = Job.newBuilder(ChannelJobHandler.ACTION_UPDATE_TAG_GROUPS).build();
+        Assert.assertEquals(Job.JOB_FINISHED, jobHandler.performJob(job));
+
+        // Verify both collapsed mutations are sent without another job
+        verify(client).updateTagGroups(fakeChannelId, collapsed.get(0));
+        verify(client).updateTagGroups(fakeChannelId, collapsed.get(1));
+        verifyZeroInteractions(mockDispatcher);
+
+        assertTrue(mutationStore.getPending().mutations.isEmpty());
+    }
+
+    /**
+     * Test pending changes in the preference data store are moved to the mutation store.
+     */
+    @Test
+    public void testMigratePendingMutations() throws JsonException {
+        TagGroupsMutation mutation = TagGroupsMutation.newAddTagsMutation("test", new HashSet<>(Lists.newArrayList("tag1", "tag2")));
+        dataStore.put(ChannelJobHandler.PENDING_TAG_GROUP_MUTATIONS_KEY, JsonValue.wrapOpt(Collections.singletonList(mutation)));
+
+        Job job = Job.newBuilder(ChannelJobHandler.ACTION_UPDATE_TAG_GROUPS).build();
+        Assert.assertEquals(Job.JOB_FINISHED, jobHandler.performJob(job));
+
+        assertNull(dataStore.getString(ChannelJobHandler.PENDING_TAG_GROUP_MUTATIONS_KEY, null));
+        assertEquals(Collections.singletonList(mutation), mutationStore.getPending().mutations);
+    }
 }
@@ -0,0 +1,114 @@
+/* Copyright 2016 Urban Airship and Contributors */
+
+package com.urbanairship.push;
+
+import com.urbanairship.BaseTestCase;
+import com.urbanairship.PreferenceDataStore;
+import com.urbanairship.TestApplication;
+import com.urbanairship.json.JsonValue;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+
+import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertFalse;
+import static junit.framework.Assert.assertTrue;
+
+public class ChannelTagStoreTest extends BaseTestCase {
+
+    private static final String TAGS_KEY = "test.TAGS";
+
+    private PreferenceDataStore dataStore;
+    private ChannelTagStore tagStore;
+
+    @Before
+    public void setUp() {
+        dataStore = TestApplication.getApplication().preferenceDataStore;
+        tagStore = new ChannelTagStore(dataStore, TAGS_KEY);
+    }
+
+    /**
+     * Test tags are loaded from the data store and persisted on change.
+     */
+    @Test
+    public void testSetTags() {
+        dataStore.put(TAGS_KEY, JsonValue.wrapOpt(tagSet("one", "two")));
+        assertEquals(tagSet("one", "two"), tagStore.getTags());
+
+        assertTrue(tagStore.setTags(tagSet("three")));
+        assertFalse(tagStore.setTags(tagSet("three")));
+
+        assertEquals(tagSet("three"), new ChannelTagStore(dataStore, TAGS_KEY).getTags());
+    }
+
+    /**
+     * Test the cached tags are reloaded when the stored tags change outside of the store.
+     */
+    @Test
+    public void testExternalChangeInvalidatesTags() {
+        tagStore.setTags(tagSet("one"));
+        assertEquals(tagSet("one"), tagStore.getTags());
+
+        dataStore.put(TAGS_KEY, JsonValue.wrapOpt(tagSet("two", "three")));
+        assertEquals(tagSet("two", "three"), tagStore.getTags());
+        assertEquals(ChannelTagStore.digest(tagSet("two", "three")), tagStore.getDigest());
+
+        dataStore.remove(TAGS_KEY);
+        assertTrue(tagStore.getTags().isEmpty());
+    }
+
+    /**
+     * Test applying additions and removals matches setting the resulting tag set.
+     */
+    @Test
+    public void testApplyChanges() {
+        tagStore.setTags(tagSet("one", "two"));
+
+        assertTrue(tagStore.applyChanges(false, tagSet("three", "four"), tagSet("one", "four")));
+        assertEquals(tagSet("two", "three"), tagStore.getTags());
+        assertEquals(ChannelTagStore.digest(tagSet("two", "three")), tagStore.getDigest());
+
+        assertFalse(tagStore.applyChanges(false, tagSet("two"), Collections.<String>emptySet()));
+
+        assertTrue(tagStore.applyChanges(true, tagSet("five"), Collections.<String>emptySet()));
+        assertEquals(tagSet("five"), tagStore.getTags());
+        assertEquals(ChannelTagStore.digest(tagSet("five")), tagStore.getDigest());
+    }
+
+    /**
+     * Test the digest does not depend on tag order.
+     */
+    @Test
+    public void testDigestIsOrderIndependent() {
+        assertEquals(ChannelTagStore.digest(Arrays.asList("a", "b", "c")), ChannelTagStore.digest(Arrays.asList("c", "a", "b")));
+        assertFalse(ChannelTagStore.digest(Arrays.asList("a", "b")) == ChannelTagStore.digest(Arrays.asList("a", "c")));
+    }
+
+    /**
+     * Test acknowledging the tag digest.
+     */
+    @Test
+    public void testAcknowledge() {
+        tagStore.setTags(tagSet("one"));
+        long digest = tagStore.getDigest();
+        assertFalse(tagStore.isAcknowledged(digest));
+
+        tagStore.acknowledge(digest);
+        assertTrue(tagStore.isAcknowledged(digest));
+
+        tagStore.applyChanges(false, tagSet("two"), Collections.<String>emptySet());
+        assertFalse(tagStore.isAcknowledged(tagStore.getDigest()));
+
+        tagStore.clearAcknowledged();
+        assertFalse(tagStore.isAcknowledged(digest));
+    }
+
+    private static Set<String> tagSet(String... tags) {
+        return new HashSet<>(Arrays.asList(tags));
+    }
+}
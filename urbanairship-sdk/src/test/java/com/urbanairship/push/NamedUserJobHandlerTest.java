@@ -29,7 +29,7 @@ import java.util.HashSet;
 import java.util.UUID;
 
 import static junit.framework.Assert.assertEquals;
-import static junit.framework.Assert.assertNotNull;
+import static junit.framework.Assert.assertTrue;
 import static junit.framework.Assert.assertNull;
 import static org.junit.Assert.assertNotEquals;
 import static org.mockito.Mockito.mock;
@@ -48,6 +48,7 @@ public class NamedUserJobHandlerTest extends BaseTestCase {
 
     private String changeToken;
     private JobDispatcher mockDispatcher;
+    private TagGroupMutationStore mutationStore;
 
     @Before
     public void setup() {
@@ -69,7 +70,8 @@ public class NamedUserJobHandlerTest extends BaseTestCase {
             }
         });
 
-        jobHandler = new NamedUserJobHandler(UAirship.shared(), dataStore, mockDispatcher, namedUserClient);
+        mutationStore = new TagGroupMutationStore(TestApplication.getApplication(), "test", "ua_named_user_tag_groups.db");
+        jobHandler = new NamedUserJobHandler(UAirship.shared(), dataStore, mockDispatcher, namedUserClient, mutationStore);
 
         Shadows.shadowOf(RuntimeEnvironment.application).clearStartedServices();
     }
@@ -290,7 +292,7 @@ public class NamedUserJobHandlerTest extends BaseTestCase {
         Assert.assertEquals(Job.JOB_FINISHED, jobHandler.performJob(job));
 
         // Verify pending tags are saved
-        assertEquals(mutations, dataStore.getJsonValue(NamedUserJobHandler.PENDING_TAG_GROUP_MUTATIONS_KEY));
+        assertEquals(Collections.singletonList(mutation), mutationStore.getPending().mutations);
     }
 
     /**
@@ -352,7 +354,7 @@ public class NamedUserJobHandlerTest extends BaseTestCase {
         Mockito.verify(namedUserClient).updateTagGroups("namedUserId", mutation);
 
         // Verify pending tag groups are empty
-        assertNull(dataStore.getString(NamedUserJobHandler.PENDING_TAG_GROUP_MUTATIONS_KEY, null));
+        assertTrue(mutationStore.getPending().mutations.isEmpty());
     }
 
     /**
@@ -413,7 +415,7 @@ public class NamedUserJobHandlerTest extends BaseTestCase {
         Mockito.verify(namedUserClient).updateTagGroups("namedUserId", mutation);
 
         // Verify pending tags persist
-        assertNotNull(dataStore.getString(NamedUserJobHandler.PENDING_TAG_GROUP_MUTATIONS_KEY, null));
+        assertEquals(Collections.singletonList(mutation), mutationStore.getPending().mutations);
     }
 
     /**
@@ -425,7 +427,7 @@ public class NamedUserJobHandlerTest extends BaseTestCase {
         when(namedUser.getId()).thenReturn("namedUserId");
 
         // Clear pending changes
-        dataStore.remove(NamedUserJobHandler.PENDING_TAG_GROUP_MUTATIONS_KEY);
+        mutationStore.clear();
 
         // Perform the update
         Job job = Job.newBuilder(NamedUserJobHandler.ACTION_UPDATE_TAG_GROUPS).build();
@@ -467,7 +469,7 @@ public class NamedUserJobHandlerTest extends BaseTestCase {
         Mockito.verify(namedUserClient).updateTagGroups("namedUserId", mutation);
 
         // Verify pending tag groups are empty
-        assertNull(dataStore.getString(NamedUserJobHandler.PENDING_TAG_GROUP_MUTATIONS_KEY, null));
+        assertTrue(mutationStore.getPending().mutations.isEmpty());
     }
 
     /**
@@ -479,6 +481,7 @@ public class NamedUserJobHandlerTest extends BaseTestCase {
         dataStore.put(NamedUserJobHandler.PENDING_ADD_TAG_GROUPS_KEY, "");
         dataStore.put(NamedUserJobHandler.PENDING_REMOVE_TAG_GROUPS_KEY, "");
         dataStore.put(NamedUserJobHandler.PENDING_TAG_GROUP_MUTATIONS_KEY, "");
+        mutationStore.add(Collections.singletonList(TagGroupsMutation.newAddTagsMutation("test", new HashSet<>(Lists.newArrayList("tag1")))));
 
         // Perform the update
         Job job = Job.newBuilder(NamedUserJobHandler.ACTION_CLEAR_PENDING_NAMED_USER_TAGS).build();
@@ -488,5 +491,6 @@ public class NamedUserJobHandlerTest extends BaseTestCase {
         assertNull(dataStore.getString(NamedUserJobHandler.PENDING_ADD_TAG_GROUPS_KEY, null));
         assertNull(dataStore.getString(NamedUserJobHandler.PENDING_REMOVE_TAG_GROUPS_KEY, null));
         assertNull(dataStore.getString(NamedUserJobHandler.PENDING_TAG_GROUP_MUTATIONS_KEY, null));
+        assertTrue(mutationStore.getPending().mutations.isEmpty());
     }
 }
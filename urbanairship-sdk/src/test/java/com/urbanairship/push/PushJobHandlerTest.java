@@ -7,22 +7,28 @@ import android.app.PendingIntent;
 import android.content.Intent;
 import android.net.Uri;
 import android.os.Bundle;
+import android.os.Looper;
 import android.support.annotation.NonNull;
 import android.support.v4.app.NotificationCompat;
 import android.support.v4.app.NotificationManagerCompat;
 
 import com.urbanairship.BaseTestCase;
+import com.urbanairship.Cancelable;
 import com.urbanairship.TestApplication;
 import com.urbanairship.TestPushProvider;
 import com.urbanairship.UAirship;
 import com.urbanairship.analytics.Analytics;
 import com.urbanairship.analytics.PushArrivedEvent;
 import com.urbanairship.job.Job;
+import com.urbanairship.job.JobDispatcher;
 import com.urbanairship.push.iam.InAppMessage;
 import com.urbanairship.push.notifications.NotificationFactory;
+import com.urbanairship.richpush.RichPushInbox;
 
 import org.junit.Before;
 import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
 import org.mockito.Mockito;
 import org.mockito.invocation.InvocationOnMock;
 import org.mockito.stubbing.Answer;
@@ -39,7 +45,10 @@ import static junit.framework.Assert.assertNull;
 import static junit.framework.Assert.assertSame;
 import static junit.framework.Assert.assertTrue;
 import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.verifyZeroInteractions;
 import static org.mockito.Mockito.when;
@@ -60,6 +69,7 @@ public class PushJobHandlerTest extends BaseTestCase {
 
     private PushJobHandler jobHandler;
     private TestPushProvider testPushProvider;
+    private JobDispatcher jobDispatcher;
 
     @Before
     public void setup() {
@@ -108,8 +118,10 @@ public class PushJobHandlerTest extends BaseTestCase {
         TestApplication.getApplication().setPushManager(pushManager);
         TestApplication.getApplication().setAnalytics(analytics);
 
+        jobDispatcher = mock(JobDispatcher.class);
+
         jobHandler = new PushJobHandler(TestApplication.getApplication(), UAirship.shared(),
-                TestApplication.getApplication().preferenceDataStore, notificationManager);
+                TestApplication.getApplication().preferenceDataStore, notificationManager, jobDispatcher);
     }
 
     /**
@@ -352,6 +364,97 @@ public class PushJobHandlerTest extends BaseTestCase {
         assertEquals(new PushMessage(pushBundle).getInAppMessage(), UAirship.shared().getInAppMessageManager().getPendingMessage());
     }
 
+    /**
+     * Test a rich push displays its notification before refreshing the inbox, and sends the
+     * push received broadcast from a follow-up job once the refresh finishes.
+     */
+    @Test
+    public void testDeliverRichPushDisplaysBeforeInboxRefresh() {
+        pushBundle.putString(PushMessage.EXTRA_RICH_PUSH_ID, "richPushID");
+
+        RichPushInbox inbox = mock(RichPushInbox.class);
+        TestApplication.getApplication().setInbox(inbox);
+
+        ShadowApplication shadowApplication = Shadows.shadowOf(RuntimeEnvironment.application);
+        int broadcastCount = shadowApplication.getBroadcastIntents().size();
+
+        doAnswer(new Answer<Cancelable>() {
+            @Override
+            public Cancelable answer(InvocationOnMock invocation) throws Throwable {
+                ((RichPushInbox.FetchMessagesCallback) invocation.getArguments()[0]).onFinished(true);
+                return null;
+            }
+        }).when(inbox).fetchMessages(any(RichPushInbox.FetchMessagesCallback.class), any(Looper.class));
+
+        when(pushManager.isPushEnabled()).thenReturn(true);
+        when(pushManager.getUserNotificationsEnabled()).thenReturn(true);
+
+        Job job = createReceiveMessageJob();
+        jobHandler.performJob(job);
+
+        InOrder inOrder = Mockito.inOrder(notificationManager, inbox);
+        inOrder.verify(notificationManager).notify(TEST_NOTIFICATION_ID, notification);
+        inOrder.verify(inbox).fetchMessages(any(RichPushInbox.FetchMessagesCallback.class), any(Looper.class));
+
+        // The broadcast is sent by the follow-up job
+        assertEquals(broadcastCount, shadowApplication.getBroadcastIntents().size());
+
+        ArgumentCaptor<Job> jobCaptor = ArgumentCaptor.forClass(Job.class);
+        verify(jobDispatcher).wakefulDispatch(jobCaptor.capture());
+        assertEquals(PushJobHandler.ACTION_SEND_PUSH_RECEIVED_BROADCAST, jobCaptor.getValue().getAction());
+        assertEquals(PushManager.class.getName(), jobCaptor.getValue().getAirshipComponentName());
+
+        jobHandler.performJob(jobCaptor.getValue());
+
+        List<Intent> intents = shadowApplication.getBroadcastIntents();
+        assertEquals(broadcastCount + 1, intents.size());
+
+        Intent i = intents.get(intents.size() - 1);
+        assertEquals("Intent action should be push received", PushManager.ACTION_PUSH_RECEIVED, i.getAction());
+        assertEquals(TEST_NOTIFICATION_ID, i.getIntExtra(PushManager.EXTRA_NOTIFICATION_ID, -1));
+        assertBundlesEquals(pushBundle, i.getBundleExtra(PushManager.EXTRA_PUSH_MESSAGE_BUNDLE));
+
+        assertNotNull(jobHandler.getLastStageTimings());
+    }
+
+    /**
+     * Test a second push is displayed while the first rich push's inbox refresh is still pending.
+     */
+    @Test
+    public void testDeliverPushWhileInboxRefreshPending() {
+        pushBundle.putString(PushMessage.EXTRA_RICH_PUSH_ID, "richPushID");
+
+        RichPushInbox inbox = mock(RichPushInbox.class);
+        TestApplication.getApplication().setInbox(inbox);
+
+        when(pushManager.isPushEnabled()).thenReturn(true);
+        when(pushManager.getUserNotificationsEnabled()).thenReturn(true);
+
+        // The refresh never finishes on its own
+        jobHandler.performJob(createReceiveMessageJob());
+
+        ArgumentCaptor<RichPushInbox.FetchMessagesCallback> callbackCaptor = ArgumentCaptor.forClass(RichPushInbox.FetchMessagesCallback.class);
+        verify(inbox).fetchMessages(callbackCaptor.capture(), any(Looper.class));
+
+        pushBundle = new Bundle();
+        pushBundle.putString(PushMessage.EXTRA_ALERT, "Second Push Alert!");
+        pushBundle.putString(PushMessage.EXTRA_SEND_ID, "secondSendID");
+
+        ShadowApplication shadowApplication = Shadows.shadowOf(RuntimeEnvironment.application);
+        int broadcastCount = shadowApplication.getBroadcastIntents().size();
+
+        jobHandler.performJob(createReceiveMessageJob());
+
+        // Both notifications are displayed and the second push is broadcast right away
+        verify(notificationManager, times(2)).notify(TEST_NOTIFICATION_ID, notification);
+        assertEquals(broadcastCount + 1, shadowApplication.getBroadcastIntents().size());
+        verify(jobDispatcher, never()).wakefulDispatch(any(Job.class));
+
+        // Finish the first refresh
+        callbackCaptor.getValue().onFinished(true);
+        verify(jobDispatcher).wakefulDispatch(any(Job.class));
+    }
+
     /**
      * Test the notification defaults: in quiet time.
      */
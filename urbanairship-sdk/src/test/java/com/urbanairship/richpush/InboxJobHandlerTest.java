@@ -2,6 +2,7 @@
 
 package com.urbanairship.richpush;
 
+import android.content.ContentValues;
 import android.os.Bundle;
 import android.os.Handler;
 import android.os.ResultReceiver;
@@ -9,6 +10,7 @@ import android.support.annotation.NonNull;
 
 import com.urbanairship.BaseTestCase;
 import com.urbanairship.PreferenceDataStore;
+import com.urbanairship.RichPushTable;
 import com.urbanairship.TestApplication;
 import com.urbanairship.TestRequest;
 import com.urbanairship.UAirship;
@@ -16,30 +18,43 @@ import com.urbanairship.http.Request;
 import com.urbanairship.http.RequestFactory;
 import com.urbanairship.http.Response;
 import com.urbanairship.job.Job;
+import com.urbanairship.json.JsonException;
+import com.urbanairship.json.JsonValue;
 import com.urbanairship.push.PushManager;
 
 import org.json.JSONException;
 import org.junit.Before;
 import org.junit.Test;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mockito;
 
 import java.io.IOException;
 import java.net.HttpURLConnection;
 import java.net.URL;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 import static junit.framework.Assert.assertNull;
 import static junit.framework.TestCase.assertEquals;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyListOf;
+import static org.mockito.Matchers.anySetOf;
+import static org.mockito.Matchers.eq;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 public class InboxJobHandlerTest extends BaseTestCase {
 
     private RichPushInbox inbox;
+    private RichPushResolver resolver;
 
     private InboxJobHandler jobHandler;
 
@@ -87,9 +102,12 @@ public class InboxJobHandlerTest extends BaseTestCase {
         // Clear any user or password
         user.setUser(null, null);
 
+        resolver = mock(RichPushResolver.class);
+        when(resolver.applyMessageChanges(anyListOf(ContentValues.class), anyListOf(ContentValues.class), anySetOf(String.class))).thenReturn(true);
+
         jobHandler = new InboxJobHandler(UAirship.shared(),
                 TestApplication.getApplication().preferenceDataStore,
-                requestFactory, mock(RichPushResolver.class));
+                requestFactory, resolver);
     }
     
 
@@ -227,7 +245,7 @@ public class InboxJobHandlerTest extends BaseTestCase {
         assertEquals(600l, dataStore.getLong(InboxJobHandler.LAST_MESSAGE_REFRESH_TIME, 0));
 
         // Verify we updated the inbox
-        verify(inbox).refresh(true);
+        verify(inbox).onMessagesSynced(any(Collection.class), eq(Collections.<String>emptySet()));
     }
 
     /**
@@ -279,8 +297,91 @@ public class InboxJobHandlerTest extends BaseTestCase {
         // Verify LAST_MESSAGE_REFRESH_TIME was updated
         assertEquals(600l, dataStore.getLong(InboxJobHandler.LAST_MESSAGE_REFRESH_TIME, 0));
 
-        // Verify we updated the inbox
-        verify(inbox).refresh(true);
+        // Verify the new message was inserted
+        ArgumentCaptor<List> insertsCaptor = ArgumentCaptor.forClass(List.class);
+        verify(resolver).applyMessageChanges(insertsCaptor.capture(), eq(Collections.<ContentValues>emptyList()), eq(Collections.<String>emptySet()));
+        assertEquals(1, insertsCaptor.getValue().size());
+
+        // Verify only the inserted message was loaded into the inbox
+        verify(resolver).getMessages(Collections.singleton("some_mesg_id"));
+        verify(inbox).onMessagesSynced(any(Collection.class), eq(Collections.<String>emptySet()));
+    }
+
+    /**
+     * Test updateMessages only updates messages whose content changed and deletes messages
+     * missing from the server list.
+     */
+    @Test
+    public void testUpdateMessagesDiff() throws JsonException {
+        // Set a valid user
+        user.setUser("fakeUserId", "password");
+
+        String unchanged = "{\"message_id\": \"unchanged\", \"title\": \"Same title\"}";
+        String changed = "{\"message_id\": \"changed\", \"title\": \"New title\"}";
+
+        Map<String, String> localHashes = new HashMap<>();
+        localHashes.put("unchanged", RichPushResolver.parseMessageContentValues(JsonValue.parseString(unchanged)).getAsString(RichPushTable.COLUMN_NAME_CONTENT_HASH));
+        localHashes.put("changed", "stale hash");
+        localHashes.put("removed", "removed hash");
+        when(resolver.getMessageHashes()).thenReturn(localHashes);
+
+        responses.put("https://device-api.urbanairship.com/api/user/fakeUserId/messages/",
+                new Response.Builder(HttpURLConnection.HTTP_OK)
+                        .setResponseMessage("OK")
+                        .setLastModified(600l)
+                        .setResponseBody("{ \"messages\": [" + unchanged + ", " + changed + "]}")
+                        .create());
+
+        Job job = Job.newBuilder(InboxJobHandler.ACTION_RICH_PUSH_MESSAGES_UPDATE)
+                     .putExtra(InboxJobHandler.EXTRA_RICH_PUSH_RESULT_RECEIVER, resultReceiver)
+                     .build();
+
+        assertEquals(Job.JOB_FINISHED, jobHandler.performJob(job));
+        assertEquals(InboxJobHandler.STATUS_RICH_PUSH_UPDATE_SUCCESS, resultReceiver.lastResultCode);
+
+        Set<String> removed = new HashSet<>();
+        removed.add("removed");
+
+        ArgumentCaptor<List> updatesCaptor = ArgumentCaptor.forClass(List.class);
+        verify(resolver).applyMessageChanges(eq(Collections.<ContentValues>emptyList()), updatesCaptor.capture(), eq(removed));
+        assertEquals(1, updatesCaptor.getValue().size());
+        assertEquals("changed", ((ContentValues) updatesCaptor.getValue().get(0)).getAsString(RichPushTable.COLUMN_NAME_MESSAGE_ID));
+
+        verify(resolver).getMessages(Collections.singleton("changed"));
+        verify(inbox).onMessagesSynced(any(Collection.class), eq(removed));
+    }
+
+    /**
+     * Test updateMessages returns an error code and does not update the inbox when the changes
+     * fail to apply.
+     */
+    @Test
+    public void testUpdateMessagesApplyFailed() {
+        // Set a valid user
+        user.setUser("fakeUserId", "password");
+
+        // Set the last refresh time
+        dataStore.put(InboxJobHandler.LAST_MESSAGE_REFRESH_TIME, 300l);
+
+        when(resolver.applyMessageChanges(anyListOf(ContentValues.class), anyListOf(ContentValues.class), anySetOf(String.class))).thenReturn(false);
+
+        responses.put("https://device-api.urbanairship.com/api/user/fakeUserId/messages/",
+                new Response.Builder(HttpURLConnection.HTTP_OK)
+                        .setResponseMessage("OK")
+                        .setLastModified(600l)
+                        .setResponseBody("{ \"messages\": [{\"message_id\": \"some_mesg_id\"}]}")
+                        .create());
+
+        Job job = Job.newBuilder(InboxJobHandler.ACTION_RICH_PUSH_MESSAGES_UPDATE)
+                     .putExtra(InboxJobHandler.EXTRA_RICH_PUSH_RESULT_RECEIVER, resultReceiver)
+                     .build();
+
+        assertEquals(Job.JOB_FINISHED, jobHandler.performJob(job));
+        assertEquals(InboxJobHandler.STATUS_RICH_PUSH_UPDATE_ERROR, resultReceiver.lastResultCode);
+
+        // Verify LAST_MESSAGE_REFRESH_TIME was not updated
+        assertEquals(300l, dataStore.getLong(InboxJobHandler.LAST_MESSAGE_REFRESH_TIME, 0));
+        verify(inbox, never()).onMessagesSynced(any(Collection.class), anySetOf(String.class));
     }
 
     /**
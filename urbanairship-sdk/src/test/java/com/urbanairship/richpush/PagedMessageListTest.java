@@ -0,0 +1,176 @@
+/* Copyright 2016 Urban Airship and Contributors */
+
+package com.urbanairship.richpush;
+
+import android.support.annotation.NonNull;
+
+import com.urbanairship.BaseTestCase;
+import com.urbanairship.json.JsonMap;
+import com.urbanairship.json.JsonValue;
+import com.urbanairship.util.DateUtils;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.robolectric.RuntimeEnvironment;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Executor;
+
+import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertNotNull;
+import static junit.framework.Assert.assertNull;
+import static junit.framework.Assert.assertTrue;
+import static org.mockito.Matchers.anyCollectionOf;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+public class PagedMessageListTest extends BaseTestCase {
+
+    private static final long SENT_TIME = 1000000000000L;
+
+    private RichPushResolver resolver;
+    private TestExecutor executor;
+
+    @Before
+    public void setUp() {
+        resolver = spy(new RichPushResolver(RuntimeEnvironment.application));
+        executor = new TestExecutor();
+
+        List<JsonValue> payloads = new ArrayList<>();
+        for (int i = 0; i < 45; i++) {
+            payloads.add(createPayload(i + "_message_id", SENT_TIME + i * 60000, null));
+        }
+
+        payloads.add(createPayload("expired_message_id", SENT_TIME, DateUtils.createIso8601TimeStamp(0)));
+        resolver.insertMessages(payloads);
+
+        resolver.markMessagesDeleted(Collections.singleton("3_message_id"));
+    }
+
+    /**
+     * Test the list contains the visible messages sorted by descending sent-at date.
+     */
+    @Test
+    public void testSortedVisibleMessages() {
+        PagedMessageList messages = PagedMessageList.load(resolver, executor);
+        messages.prefetch(0, messages.size());
+
+        assertEquals(44, messages.size());
+        assertEquals("44_message_id", messages.getMessage(0).getMessageId());
+        assertEquals("0_message_id", messages.getMessage(43).getMessageId());
+
+        RichPushInbox.SentAtRichPushMessageComparator comparator = new RichPushInbox.SentAtRichPushMessageComparator();
+        for (int i = 1; i < messages.size(); i++) {
+            assertTrue(comparator.compare(messages.getMessage(i - 1), messages.getMessage(i)) < 0);
+        }
+    }
+
+    /**
+     * Test pages are loaded on the executor and the listener is notified.
+     */
+    @Test
+    public void testLoadsPages() {
+        executor.paused = true;
+
+        PagedMessageList messages = PagedMessageList.load(resolver, executor);
+        PagedMessageList.Listener listener = mock(PagedMessageList.Listener.class);
+        messages.setListener(listener);
+
+        // First page is loaded with the list
+        verify(resolver, times(1)).getMessages(anyCollectionOf(String.class));
+        assertNotNull(messages.getMessage(0));
+        assertNotNull(messages.getMessage(PagedMessageList.PAGE_SIZE - 1));
+
+        // Second page loads in the background
+        assertNull(messages.getMessage(PagedMessageList.PAGE_SIZE));
+        assertNull(messages.getMessage(PagedMessageList.PAGE_SIZE + 1));
+        assertEquals(1, executor.runnables.size());
+        verify(resolver, times(1)).getMessages(anyCollectionOf(String.class));
+
+        executor.runAll();
+        verify(resolver, times(2)).getMessages(anyCollectionOf(String.class));
+        verify(listener).onMessagesLoaded();
+        assertNotNull(messages.getMessage(PagedMessageList.PAGE_SIZE));
+
+        // Cached
+        messages.getMessage(1);
+        assertEquals(0, executor.runnables.size());
+    }
+
+    /**
+     * Test messages removed after the list was created keep their position when their page loads.
+     */
+    @Test
+    public void testRemovedMessagesKeepPosition() {
+        PagedMessageList messages = PagedMessageList.load(resolver, executor);
+        assertEquals(44, messages.size());
+
+        List<String> messageIds = new ArrayList<>();
+        for (int i = 0; i < messages.size(); i++) {
+            messageIds.add(messages.getMessageId(i));
+        }
+
+        int removedIndex = PagedMessageList.PAGE_SIZE + 1;
+        resolver.markMessagesDeleted(Collections.singleton(messageIds.get(removedIndex)));
+
+        messages.prefetch(0, messages.size());
+
+        // Rows do not shift
+        assertEquals(44, messages.size());
+        for (int i = 0; i < messages.size(); i++) {
+            assertEquals(messageIds.get(i), messages.getMessageId(i));
+            if (i == removedIndex) {
+                assertNull(messages.getMessage(i));
+            } else {
+                assertNotNull(messages.getMessage(i));
+            }
+        }
+
+        // The removed message is not loaded again
+        executor.paused = true;
+        assertNull(messages.getMessage(removedIndex));
+        assertTrue(executor.runnables.isEmpty());
+    }
+
+    private static JsonValue createPayload(String messageId, long sentTime, String expiry) {
+        JsonMap.Builder builder = JsonMap.newBuilder()
+                                         .put(RichPushMessage.MESSAGE_ID_KEY, messageId)
+                                         .put(RichPushMessage.TITLE_KEY, messageId + " title")
+                                         .put(RichPushMessage.MESSAGE_SENT_KEY, DateUtils.createIso8601TimeStamp(sentTime));
+
+        if (expiry != null) {
+            builder.put(RichPushMessage.MESSAGE_EXPIRY_KEY, expiry);
+        }
+
+        return builder.build().toJsonValue();
+    }
+
+    /**
+     * Executor that runs immediately unless paused.
+     */
+    private static class TestExecutor implements Executor {
+        boolean paused;
+        final List<Runnable> runnables = new ArrayList<>();
+
+        @Override
+        public void execute(@NonNull Runnable runnable) {
+            if (paused) {
+                runnables.add(runnable);
+            } else {
+                runnable.run();
+            }
+        }
+
+        void runAll() {
+            List<Runnable> pending = new ArrayList<>(runnables);
+            runnables.clear();
+            for (Runnable runnable : pending) {
+                runnable.run();
+            }
+        }
+    }
+}
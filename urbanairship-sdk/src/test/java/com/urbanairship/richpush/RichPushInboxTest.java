@@ -5,6 +5,7 @@ package com.urbanairship.richpush;
 import android.content.Context;
 import android.os.Bundle;
 import android.os.ResultReceiver;
+import android.support.annotation.NonNull;
 
 import com.urbanairship.ActivityMonitor;
 import com.urbanairship.BaseTestCase;
@@ -12,6 +13,8 @@ import com.urbanairship.Cancelable;
 import com.urbanairship.TestApplication;
 import com.urbanairship.job.Job;
 import com.urbanairship.job.JobDispatcher;
+import com.urbanairship.json.JsonException;
+import com.urbanairship.json.JsonValue;
 
 import junit.framework.Assert;
 
@@ -22,14 +25,19 @@ import org.mockito.ArgumentMatcher;
 import org.mockito.Mockito;
 import org.robolectric.RuntimeEnvironment;
 
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.Executor;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.never;
@@ -121,6 +129,53 @@ public class RichPushInboxTest extends BaseTestCase {
         assertEquals(0, inbox.getReadCount());
     }
 
+    /**
+     * Test listeners are notified as soon as the in-memory state changes.
+     */
+    @Test
+    public void testMarkMessagesReadNotifiesImmediately() {
+        // Executor that never runs the database write
+        Executor pendingExecutor = new Executor() {
+            @Override
+            public void execute(@NonNull Runnable runnable) {}
+        };
+
+        final RichPushInbox inbox = new RichPushInbox(RuntimeEnvironment.application, TestApplication.getApplication().preferenceDataStore,
+                mockDispatcher, mockUser, new RichPushResolver(RuntimeEnvironment.application), pendingExecutor, new ActivityMonitor());
+        inbox.refresh(false);
+
+        final List<Integer> readCounts = new ArrayList<>();
+        inbox.addListener(new RichPushInbox.Listener() {
+            @Override
+            public void onInboxUpdated() {
+                readCounts.add(inbox.getReadCount());
+            }
+        });
+
+        inbox.markMessagesRead(Collections.singleton("1_message_id"));
+
+        assertEquals(1, readCounts.size());
+        assertEquals(1, (int) readCounts.get(0));
+    }
+
+    /**
+     * Test loading the paged messages.
+     */
+    @Test
+    public void testGetPagedMessages() {
+        final List<PagedMessageList> results = new ArrayList<>();
+        inbox.getPagedMessages(new RichPushInbox.PagedMessagesCallback() {
+            @Override
+            public void onMessagesLoaded(@NonNull PagedMessageList messages) {
+                results.add(messages);
+            }
+        });
+
+        assertEquals(1, results.size());
+        assertEquals(10, results.get(0).size());
+        assertEquals(inbox.getMessages().get(0).getMessageId(), results.get(0).getMessage(0).getMessageId());
+    }
+
     /**
      * Test mark messages are marked deleted in the database
      * and the inbox.
@@ -427,6 +482,73 @@ public class RichPushInboxTest extends BaseTestCase {
         }
     }
 
+    /**
+     * Test the message lists are sorted, mutable copies that do not change with the inbox.
+     */
+    @Test
+    public void testMessageListCopies() {
+        List<RichPushMessage> messages = inbox.getMessages();
+        for (int i = 1; i < messages.size(); i++) {
+            assertTrue(new RichPushInbox.SentAtRichPushMessageComparator().compare(messages.get(i - 1), messages.get(i)) <= 0);
+        }
+
+        assertNotSame(messages, inbox.getMessages());
+
+        // Modifying a returned list does not modify the inbox
+        messages.remove(0);
+        assertEquals(10, inbox.getMessages().size());
+
+        inbox.markMessagesRead(Collections.singleton("2_message_id"));
+
+        // The previous list is unchanged
+        assertEquals(9, messages.size());
+        assertEquals(1, inbox.getReadMessages(testPredicate).size());
+        assertEquals(9, inbox.getUnreadMessages().size());
+    }
+
+    /**
+     * Test the predicate is applied on every call.
+     */
+    @Test
+    public void testPredicateNotCached() {
+        final Set<String> allowedIds = new HashSet<>();
+        RichPushInbox.Predicate predicate = new RichPushInbox.Predicate() {
+            @Override
+            public boolean apply(RichPushMessage message) {
+                return allowedIds.contains(message.getMessageId());
+            }
+        };
+
+        assertTrue(inbox.getMessages(predicate).isEmpty());
+
+        allowedIds.add("1_message_id");
+        assertEquals(1, inbox.getMessages(predicate).size());
+        assertEquals(1, inbox.getUnreadMessages(predicate).size());
+        assertTrue(inbox.getReadMessages(predicate).isEmpty());
+    }
+
+    /**
+     * Test syncing only updates the changed messages in the inbox cache.
+     */
+    @Test
+    public void testOnMessagesSynced() throws JsonException {
+        inbox.markMessagesRead(Collections.singleton("2_message_id"));
+
+        List<RichPushMessage> changedMessages = new ArrayList<>();
+        changedMessages.add(RichPushMessage.create(JsonValue.parseString("{\"message_id\": \"new_message_id\"}"), true, false));
+        changedMessages.add(RichPushMessage.create(JsonValue.parseString("{\"message_id\": \"2_message_id\", \"title\": \"Updated\"}"), true, false));
+
+        inbox.onMessagesSynced(changedMessages, Collections.singleton("1_message_id"));
+
+        assertEquals(10, inbox.getCount());
+        assertNull(inbox.getMessage("1_message_id"));
+        assertFalse(inbox.getMessage("new_message_id").isRead());
+
+        // The pending mark read is kept
+        assertEquals("Updated", inbox.getMessage("2_message_id").getTitle());
+        assertTrue(inbox.getMessage("2_message_id").isRead());
+    }
+
     /**
      * Helper method to convert a list of rich push messages
      * to a map of message ids to messages
@@ -68,4 +68,21 @@ public class RichPushMessageTest extends BaseTestCase {
         assertEquals(10000l, message.getExpirationDateMS().longValue());
         assertTrue(message.isExpired());
     }
+
+    /**
+     * Test a message created from stored columns parses its payload when requested.
+     */
+    @Test
+    public void testMessageFromColumns() throws JsonException {
+        RichPushMessage message = RichPushMessage.create("MESSAGE_ID", "message url", "body url", "read url",
+                "MESSAGE_TITLE", false, 10000l, null, MCRAP_MESSAGE, true, false);
+
+        assertEquals("MESSAGE_ID", message.getMessageId());
+        assertEquals("MESSAGE_TITLE", message.getTitle());
+        assertEquals(10000l, message.getSentDateMS());
+        assertFalse(message.isRead());
+
+        assertEquals("some_value", message.getExtras().getString("some_key"));
+        assertEquals(JsonValue.parseString(MCRAP_MESSAGE), message.getRawMessageJson());
+    }
 }
@@ -2,16 +2,27 @@
 
 package com.urbanairship.richpush;
 
+import android.content.ContentValues;
+
 import com.urbanairship.BaseTestCase;
+import com.urbanairship.RichPushTable;
+import com.urbanairship.json.JsonException;
+import com.urbanairship.json.JsonValue;
 
 import org.junit.Before;
 import org.junit.Test;
 import org.robolectric.RuntimeEnvironment;
 
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 import static junit.framework.Assert.assertFalse;
+import static junit.framework.Assert.assertNotNull;
+import static junit.framework.Assert.assertTrue;
 import static junit.framework.Assert.fail;
 import static org.junit.Assert.assertEquals;
 
@@ -186,4 +197,76 @@ public class RichPushResolverTest extends BaseTestCase {
         assertEquals(10, resolver.getMessages().size());
     }
 
+    /**
+     * Test applying inserts, updates, and deletes from a message list sync.
+     */
+    @Test
+    public void testApplyMessageChanges() throws JsonException {
+        resolver.markMessagesRead(Collections.singleton("2_message_id"));
+
+        List<ContentValues> inserts = new ArrayList<>();
+        inserts.add(RichPushResolver.parseMessageContentValues(JsonValue.parseString("{\"message_id\": \"new_message_id\", \"unread\": false}")));
+
+        List<ContentValues> updates = new ArrayList<>();
+        updates.add(RichPushResolver.parseMessageContentValues(JsonValue.parseString("{\"message_id\": \"2_message_id\", \"title\": \"Updated title\"}")));
+
+        Set<String> deletes = new HashSet<>();
+        deletes.add("1_message_id");
+        deletes.add("3_message_id");
+
+        assertTrue(resolver.applyMessageChanges(inserts, updates, deletes));
+        assertEquals(9, resolver.getMessages().size());
+
+        Map<String, String> hashes = resolver.getMessageHashes();
+        assertFalse(hashes.containsKey("1_message_id"));
+        assertFalse(hashes.containsKey("3_message_id"));
+        assertEquals(updates.get(0).getAsString(RichPushTable.COLUMN_NAME_CONTENT_HASH), hashes.get("2_message_id"));
+        assertNotNull(hashes.get("new_message_id"));
+
+        // Updates keep the client read state, inserts use the origin state
+        RichPushMessage updated = resolver.getMessages(Collections.singleton("2_message_id")).get(0);
+        assertEquals("Updated title", updated.getTitle());
+        assertTrue(updated.isRead());
+        assertTrue(resolver.getMessages(Collections.singleton("new_message_id")).get(0).isRead());
+    }
+
+    /**
+     * Test a failed change set is rolled back.
+     */
+    @Test
+    public void testApplyMessageChangesRollback() throws JsonException {
+        List<ContentValues> updates = new ArrayList<>();
+        updates.add(RichPushResolver.parseMessageContentValues(JsonValue.parseString("{\"message_id\": \"missing_message_id\"}")));
+
+        // The update is expected to change exactly one row, so the delete should be rolled back
+        assertFalse(resolver.applyMessageChanges(new ArrayList<ContentValues>(), updates, Collections.singleton("1_message_id")));
+        assertEquals(10, resolver.getMessages().size());
+    }
+
+    /**
+     * Test operations on more message IDs than fit in a single IN clause.
+     */
+    @Test
+    public void testLargeMessageIdSets() throws JsonException {
+        int count = RichPushResolver.MAX_IN_CLAUSE_IDS * 2 + 1;
+
+        List<JsonValue> payloads = new ArrayList<>();
+        Set<String> messageIds = new HashSet<>();
+        for (int i = 0; i < count; i++) {
+            String messageId = "bulk_" + i;
+            messageIds.add(messageId);
+            payloads.add(JsonValue.parseString("{\"message_id\": \"" + messageId + "\"}"));
+        }
+
+        assertEquals(count, resolver.insertMessages(payloads));
+        assertEquals(count, resolver.getMessages(messageIds).size());
+
+        assertEquals(count, resolver.markMessagesRead(messageIds));
+        for (RichPushMessage message : resolver.getMessages(messageIds)) {
+            assertTrue(message.isRead());
+        }
+
+        assertEquals(count, resolver.deleteMessages(messageIds));
+        assertEquals(10, resolver.getMessages().size());
+    }
 }
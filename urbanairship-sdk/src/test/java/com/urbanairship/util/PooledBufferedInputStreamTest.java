@@ -0,0 +1,71 @@
+/* Copyright 2016 Urban Airship and Contributors */
+
+package com.urbanairship.util;
+
+import com.urbanairship.BaseTestCase;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+public class PooledBufferedInputStreamTest extends BaseTestCase {
+
+    /**
+     * Test the stream can be reset past the initial buffer size.
+     */
+    @Test
+    public void testMarkReset() throws IOException {
+        byte[] data = new byte[100];
+        for (int i = 0; i < data.length; i++) {
+            data[i] = (byte) i;
+        }
+
+        PooledBufferedInputStream inputStream = new PooledBufferedInputStream(new ByteArrayInputStream(data), new ByteArrayPool(16, 1));
+        inputStream.mark(data.length);
+
+        byte[] read = new byte[50];
+        assertEquals(50, readFully(inputStream, read));
+
+        inputStream.reset();
+
+        byte[] all = new byte[data.length];
+        assertEquals(data.length, readFully(inputStream, all));
+        assertArrayEquals(data, all);
+
+        inputStream.close();
+    }
+
+    /**
+     * Test the buffer is returned to the pool when the stream is closed.
+     */
+    @Test
+    public void testBufferRecycled() throws IOException {
+        ByteArrayPool pool = new ByteArrayPool(16, 1);
+        byte[] buffer = pool.get();
+        pool.put(buffer);
+
+        PooledBufferedInputStream inputStream = new PooledBufferedInputStream(new ByteArrayInputStream(new byte[4]), pool);
+        assertNotSame(buffer, pool.get());
+
+        inputStream.close();
+        assertSame(buffer, pool.get());
+    }
+
+    private static int readFully(PooledBufferedInputStream inputStream, byte[] buffer) throws IOException {
+        int total = 0;
+        while (total < buffer.length) {
+            int read = inputStream.read(buffer, total, buffer.length - total);
+            if (read == -1) {
+                break;
+            }
+            total += read;
+        }
+        return total;
+    }
+}
@@ -0,0 +1,66 @@
+/* Copyright 2016 Urban Airship and Contributors */
+
+package com.urbanairship.util;
+
+import com.urbanairship.BaseTestCase;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+
+import java.text.ParseException;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.Locale;
+import java.util.TimeZone;
+
+import static junit.framework.Assert.assertEquals;
+
+public class TimestampCodecTest extends BaseTestCase {
+
+    @Rule
+    public ExpectedException exception = ExpectedException.none();
+
+    @Test
+    public void testParseFractionalSecondsAndTimeZone() throws ParseException {
+        assertEquals(1427889600500l, TimestampCodec.parseIso8601("2015-04-01T12:00:00.5"));
+        assertEquals(1427889600123l, TimestampCodec.parseIso8601("2015-04-01 12:00:00.123456Z"));
+        assertEquals(1427889600000l, TimestampCodec.parseIso8601("2015-04-01T14:30:00+02:30"));
+        assertEquals(1427889600000l, TimestampCodec.parseIso8601("2015-04-01T07:00:00-0500"));
+        assertEquals(1427889600000l, TimestampCodec.parseIso8601("2015-04-01T13:00:00+01"));
+    }
+
+    @Test
+    public void testParseOutOfRangeException() throws ParseException {
+        exception.expect(ParseException.class);
+        TimestampCodec.parseIso8601("2015-13-01T12:00:00");
+    }
+
+    @Test
+    public void testParseInvalidDigitException() throws ParseException {
+        exception.expect(ParseException.class);
+        TimestampCodec.parseIso8601("2015-04-0aT12:00:00");
+    }
+
+    @Test
+    public void testFormatMatchesSimpleDateFormat() throws ParseException {
+        SimpleDateFormat format = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss.SSS", Locale.US);
+        format.setTimeZone(TimeZone.getTimeZone("UTC"));
+
+        long[] times = new long[] { 0, -1, 951782400000l, 1427889600123l, 4102444799999l };
+        for (long time : times) {
+            String expected = format.format(new Date(time));
+            assertEquals(expected, TimestampCodec.appendIso8601(new StringBuilder(), time, ' ', true).toString());
+            assertEquals(time, TimestampCodec.parseIso8601(expected));
+        }
+    }
+
+    @Test
+    public void testFormatEpochSeconds() {
+        assertEquals("0.000", TimestampCodec.formatEpochSeconds(0));
+        assertEquals("1427889600.123", TimestampCodec.formatEpochSeconds(1427889600123l));
+        assertEquals("1.005", TimestampCodec.formatEpochSeconds(1005));
+        assertEquals("-0.001", TimestampCodec.formatEpochSeconds(-1));
+        assertEquals("ts=12.500", TimestampCodec.appendEpochSeconds(new StringBuilder("ts="), 12500).toString());
+    }
+}